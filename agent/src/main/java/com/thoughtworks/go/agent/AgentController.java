@@ -31,6 +31,7 @@ import com.thoughtworks.go.server.service.ElasticAgentRuntimeInfo;
 import com.thoughtworks.go.util.SubprocessLogger;
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.SystemUtil;
+import com.thoughtworks.go.websocket.MessageEncoding;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -158,6 +159,7 @@ public abstract class AgentController {
         } else {
             agentRuntimeInfo = AgentRuntimeInfo.fromAgent(identifier, AgentStatus.Idle.getRuntimeStatus(), currentWorkingDirectory(), buildCommandProtocolEnabled);
         }
+        agentRuntimeInfo.setWorkEncodingVersion(MessageEncoding.CURRENT_WORK_ENCODING_VERSION);
     }
 
     void pingSuccess() {
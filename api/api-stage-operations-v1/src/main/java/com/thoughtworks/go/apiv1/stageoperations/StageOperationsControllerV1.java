@@ -24,16 +24,19 @@ import com.thoughtworks.go.api.util.GsonTransformer;
 import com.thoughtworks.go.api.util.HaltApiResponses;
 import com.thoughtworks.go.apiv1.stageoperations.representers.StageInstancesRepresenter;
 import com.thoughtworks.go.apiv1.stageoperations.representers.StageRepresenter;
+import com.thoughtworks.go.config.exceptions.BadRequestException;
 import com.thoughtworks.go.config.exceptions.HttpException;
 import com.thoughtworks.go.config.exceptions.RecordNotFoundException;
 import com.thoughtworks.go.domain.JobInstance;
 import com.thoughtworks.go.domain.NullStage;
 import com.thoughtworks.go.domain.Stage;
 import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModels;
+import com.thoughtworks.go.server.dao.FeedModifier;
 import com.thoughtworks.go.server.service.PipelineService;
 import com.thoughtworks.go.server.service.ScheduleService;
 import com.thoughtworks.go.server.service.StageService;
 import com.thoughtworks.go.server.service.result.HttpOperationResult;
+import com.thoughtworks.go.server.util.KeysetPage;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
@@ -184,6 +187,9 @@ public class StageOperationsControllerV1 extends ApiController implements SparkS
     }
 
     public String history(Request request, Response response) throws IOException {
+        if (request.queryParams("after") != null || request.queryParams("before") != null) {
+            return historyViaCursor(request, response);
+        }
         String pipelineName = request.params("pipeline_name");
         String stageName = request.params("stage_name");
         String offset = request.params("offset");
@@ -201,6 +207,38 @@ public class StageOperationsControllerV1 extends ApiController implements SparkS
         }
     }
 
+    private String historyViaCursor(Request request, Response response) throws IOException {
+        String pipelineName = request.params("pipeline_name");
+        String stageName = request.params("stage_name");
+        String after = request.queryParams("after");
+        String before = request.queryParams("before");
+        if (after != null && before != null) {
+            throw new BadRequestException("Request must contain only one of the query parameters `after` and `before`.");
+        }
+        FeedModifier feedModifier = after != null ? FeedModifier.After : FeedModifier.Before;
+        long cursor = cursorFrom(after != null ? "after" : "before", after != null ? after : before);
+        int pageSize = 10;
+        HttpOperationResult result = new HttpOperationResult();
+
+        KeysetPage<StageInstanceModels> page = stageService.findDetailedStageHistoryViaCursor(pipelineName, stageName, feedModifier, cursor, pageSize, currentUsername().getUsername().toString(), result);
+        if (result.canContinue()) {
+            return writerForTopLevelObject(request, response, writer -> StageInstancesRepresenter.toJSON(writer, page.getItems(), page.getPagination(), Routes.Stage.history(pipelineName, stageName)));
+        } else {
+            return renderHTTPOperationResult(result, request, response);
+        }
+    }
+
+    private long cursorFrom(String name, String value) {
+        try {
+            long cursor = Long.parseLong(value);
+            if (cursor >= 0) {
+                return cursor;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new BadRequestException(String.format("The query parameter `%s` must be a non-negative integer.", name));
+    }
+
     private Optional<Stage> getStageFromRequestParam(Request request, HttpOperationResult operationResult) {
         String pipelineName = request.params("pipeline_name");
         String pipelineCounter = request.params("pipeline_counter");
@@ -18,12 +18,29 @@ package com.thoughtworks.go.apiv1.stageoperations.representers;
 
 import com.thoughtworks.go.api.base.OutputWriter;
 import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModels;
+import com.thoughtworks.go.server.util.KeysetPagination;
 import com.thoughtworks.go.server.util.Pagination;
 
 public class StageInstancesRepresenter {
     public static void toJSON(OutputWriter jsonWriter, StageInstanceModels stageInstanceModels, Pagination pagination) {
+        addStages(jsonWriter, stageInstanceModels);
+        jsonWriter.addChild("pagination", paginationWriter -> PaginationRepresenter.toJSON(paginationWriter, pagination));
+    }
+
+    public static void toJSON(OutputWriter jsonWriter, StageInstanceModels stageInstanceModels, KeysetPagination pagination, String historyHref) {
+        jsonWriter.addLinks(linksWriter -> {
+            if (pagination.hasNewer()) {
+                linksWriter.addLink("previous", historyHref + "?after=" + pagination.newerCursor());
+            }
+            if (pagination.hasOlder()) {
+                linksWriter.addLink("next", historyHref + "?before=" + pagination.olderCursor());
+            }
+        });
+        addStages(jsonWriter, stageInstanceModels);
+    }
+
+    private static void addStages(OutputWriter jsonWriter, StageInstanceModels stageInstanceModels) {
         jsonWriter.addChildList("stages", stageInstancesWriter -> stageInstanceModels.forEach(
                 stageInstanceModel -> stageInstancesWriter.addChild(stageInstanceWriter -> StageInstanceRepresenter.toJSON(stageInstanceWriter, stageInstanceModel))));
-        jsonWriter.addChild("pagination", paginationWriter -> PaginationRepresenter.toJSON(paginationWriter, pagination));
     }
 }
@@ -26,12 +26,15 @@ import com.thoughtworks.go.presentation.pipelinehistory.JobHistory
 import com.thoughtworks.go.presentation.pipelinehistory.JobHistoryItem
 import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModel
 import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModels
+import com.thoughtworks.go.server.dao.FeedModifier
 import com.thoughtworks.go.server.domain.Username
 import com.thoughtworks.go.server.service.PipelineService
 import com.thoughtworks.go.server.service.ScheduleService
 import com.thoughtworks.go.server.service.SchedulingCheckerService
 import com.thoughtworks.go.server.service.StageService
 import com.thoughtworks.go.server.service.result.HttpOperationResult
+import com.thoughtworks.go.server.util.KeysetPage
+import com.thoughtworks.go.server.util.KeysetPagination
 import com.thoughtworks.go.server.util.Pagination
 import com.thoughtworks.go.serverhealth.HealthStateScope
 import com.thoughtworks.go.serverhealth.HealthStateType
@@ -522,6 +525,57 @@ class StageOperationsControllerV1Test implements SecurityServiceTrait, Controlle
           .hasBody(expectedJson)
       }
 
+      @Test
+      void 'should get stage history before a stage instance'() {
+        def pagination = KeysetPagination.of(10, 21L, 21L)
+        when(stageService.findDetailedStageHistoryViaCursor(eq(pipelineName), eq(stageName), eq(FeedModifier.Before), eq(30L), eq(10), eq(currentUserLoginName().toString()), any() as HttpOperationResult)).thenReturn(new KeysetPage(getStageModels(), pagination))
+
+        getWithApiHeader(controller.controllerPath(pipelineName, stageName, 'history') + '?before=30', [:])
+
+        def expectedJson = toObjectString({
+          StageInstancesRepresenter.toJSON(it, getStageModels(), pagination, "/api/stages/up42/run-tests/history")
+        })
+
+        assertThatResponse()
+          .isOk()
+          .hasBody(expectedJson)
+        verify(stageService, never()).getCount(any(), any())
+      }
+
+      @Test
+      void 'should get stage history after a stage instance'() {
+        def pagination = KeysetPagination.of(10, null, 21L)
+        when(stageService.findDetailedStageHistoryViaCursor(eq(pipelineName), eq(stageName), eq(FeedModifier.After), eq(10L), eq(10), eq(currentUserLoginName().toString()), any() as HttpOperationResult)).thenReturn(new KeysetPage(getStageModels(), pagination))
+
+        getWithApiHeader(controller.controllerPath(pipelineName, stageName, 'history') + '?after=10', [:])
+
+        def expectedJson = toObjectString({
+          StageInstancesRepresenter.toJSON(it, getStageModels(), pagination, "/api/stages/up42/run-tests/history")
+        })
+
+        assertThatResponse()
+          .isOk()
+          .hasBody(expectedJson)
+      }
+
+      @Test
+      void 'should error out if cursor is not a stage id'() {
+        getWithApiHeader(controller.controllerPath(pipelineName, stageName, 'history') + '?before=abc', [:])
+
+        assertThatResponse()
+          .isBadRequest()
+          .hasJsonMessage("The query parameter `before` must be a non-negative integer.")
+      }
+
+      @Test
+      void 'should error out if both after and before are specified'() {
+        getWithApiHeader(controller.controllerPath(pipelineName, stageName, 'history') + '?after=1&before=5', [:])
+
+        assertThatResponse()
+          .isBadRequest()
+          .hasJsonMessage("Request must contain only one of the query parameters `after` and `before`.")
+      }
+
       def getStageModels() {
         def jobHistoryItem = new JobHistoryItem("job", JobState.Completed, JobResult.Passed, new Date(2018, 12, 22, 11, 10))
         jobHistoryItem.setId(34)
@@ -22,6 +22,7 @@ import com.thoughtworks.go.presentation.pipelinehistory.JobHistory
 import com.thoughtworks.go.presentation.pipelinehistory.JobHistoryItem
 import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModel
 import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModels
+import com.thoughtworks.go.server.util.KeysetPagination
 import com.thoughtworks.go.server.util.Pagination
 import org.junit.jupiter.api.Test
 
@@ -47,6 +48,51 @@ class StageInstancesRepresenterTest {
     assertThatJson(actualJson).isEqualTo(stageHash)
   }
 
+  @Test
+  void 'should represent stage history page fetched via cursor with links to the adjacent pages'() {
+    def stageInstances = stageInstances(21)
+    def pagination = KeysetPagination.of(10, 21L, 21L)
+
+    def actualJson = toObjectString({
+      StageInstancesRepresenter.toJSON(it, stageInstances, pagination, "/api/stages/up42/stage/history")
+    })
+
+    assertThatJson(actualJson).isEqualTo([
+      _links: [
+        previous: [href: 'http://test.host/go/api/stages/up42/stage/history?after=21'],
+        next    : [href: 'http://test.host/go/api/stages/up42/stage/history?before=21']
+      ],
+      stages: stageHash.stages
+    ])
+  }
+
+  @Test
+  void 'should not link beyond the latest and oldest stage instances'() {
+    def stageInstances = stageInstances(21)
+    def pagination = KeysetPagination.of(10, null, null)
+
+    def actualJson = toObjectString({
+      StageInstancesRepresenter.toJSON(it, stageInstances, pagination, "/api/stages/up42/stage/history")
+    })
+
+    assertThatJson(actualJson).isEqualTo([
+      _links: [:],
+      stages: stageHash.stages
+    ])
+  }
+
+  def stageInstances(long id) {
+    def jobHistoryItem = new JobHistoryItem("job", JobState.Completed, JobResult.Passed, new Date(12345))
+    jobHistoryItem.setId(34)
+    def jobHistory = new JobHistory()
+    jobHistory.add(jobHistoryItem)
+    def stageInstanceModel = new StageInstanceModel("stage", "3", jobHistory)
+    stageInstanceModel.setId(id)
+    def stageInstances = new StageInstanceModels()
+    stageInstances.add(stageInstanceModel)
+    return stageInstances
+  }
+
   def stageHash = [
     stages: [
       [
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.apiv1.testresults;
+
+import com.thoughtworks.go.api.ApiController;
+import com.thoughtworks.go.api.ApiVersion;
+import com.thoughtworks.go.api.spring.ApiAuthenticationHelper;
+import com.thoughtworks.go.apiv1.testresults.representers.TestCaseDurationsRepresenter;
+import com.thoughtworks.go.apiv1.testresults.representers.TestCaseHistoryRepresenter;
+import com.thoughtworks.go.config.exceptions.BadRequestException;
+import com.thoughtworks.go.config.exceptions.HttpException;
+import com.thoughtworks.go.config.exceptions.UnprocessableEntityException;
+import com.thoughtworks.go.server.service.testresults.TestCaseDuration;
+import com.thoughtworks.go.server.service.testresults.TestCaseResult;
+import com.thoughtworks.go.server.service.testresults.TestResultIndexService;
+import com.thoughtworks.go.spark.Routes;
+import com.thoughtworks.go.spark.spring.SparkSpringController;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+import java.util.List;
+
+import static spark.Spark.*;
+
+@Component
+public class TestResultsController extends ApiController implements SparkSpringController {
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 500;
+    private static final int DEFAULT_RUNS = 50;
+
+    private final TestResultIndexService testResultIndexService;
+    private final ApiAuthenticationHelper apiAuthenticationHelper;
+
+    @Autowired
+    public TestResultsController(TestResultIndexService testResultIndexService, ApiAuthenticationHelper apiAuthenticationHelper) {
+        super(ApiVersion.v1);
+        this.testResultIndexService = testResultIndexService;
+        this.apiAuthenticationHelper = apiAuthenticationHelper;
+    }
+
+    @Override
+    public String controllerBasePath() {
+        return Routes.TestResults.BASE;
+    }
+
+    @Override
+    public void setupRoutes() {
+        path(controllerPath(Routes.TestResults.PATH), () -> {
+            before("/*", mimeType, this::setContentType);
+            before("/*", mimeType, apiAuthenticationHelper::checkPipelineViewPermissionsAnd403);
+            before("/*", mimeType, this::verifyContentType);
+
+            get(Routes.TestResults.HISTORY, mimeType, this::history);
+            get(Routes.TestResults.SLOWEST, mimeType, this::slowest);
+
+            exception(HttpException.class, this::httpException);
+        });
+    }
+
+    public String history(Request req, Response res) throws IOException {
+        ensureIndexEnabled();
+        String testName = req.queryParams("test_name");
+        if (StringUtils.isBlank(testName)) {
+            throw new BadRequestException("Request must contain query parameter `test_name`.");
+        }
+        int limit = intParam(req, "limit", DEFAULT_LIMIT, MAX_LIMIT);
+
+        List<TestCaseResult> history = testResultIndexService.history(req.params("pipeline_name"), req.params("stage_name"), req.params("job_name"), testName, limit);
+        TestCaseResult failingSince = testResultIndexService.failingSince(history);
+        return writerForTopLevelObject(req, res, writer -> TestCaseHistoryRepresenter.toJSON(writer, testName, history, failingSince));
+    }
+
+    public String slowest(Request req, Response res) throws IOException {
+        ensureIndexEnabled();
+        int runs = intParam(req, "runs", DEFAULT_RUNS, MAX_LIMIT);
+        int limit = intParam(req, "limit", DEFAULT_LIMIT, MAX_LIMIT);
+
+        List<TestCaseDuration> slowest = testResultIndexService.slowest(req.params("pipeline_name"), req.params("stage_name"), req.params("job_name"), runs, limit);
+        return writerForTopLevelObject(req, res, writer -> TestCaseDurationsRepresenter.toJSON(writer, runs, slowest));
+    }
+
+    private void ensureIndexEnabled() {
+        if (!testResultIndexService.isEnabled()) {
+            throw new UnprocessableEntityException("Test result indexing is not enabled on this server.");
+        }
+    }
+
+    private int intParam(Request req, String name, int defaultValue, int maxValue) {
+        String value = req.queryParams(name);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0 && parsed <= maxValue) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new BadRequestException(String.format("The query parameter `%s` must be an integer between 1 and %d.", name, maxValue));
+    }
+}
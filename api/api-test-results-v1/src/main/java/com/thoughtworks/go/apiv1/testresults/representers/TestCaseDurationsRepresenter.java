@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.apiv1.testresults.representers;
+
+import com.thoughtworks.go.api.base.OutputWriter;
+import com.thoughtworks.go.server.service.testresults.TestCaseDuration;
+
+import java.util.List;
+
+public class TestCaseDurationsRepresenter {
+
+    public static void toJSON(OutputWriter jsonOutputWriter, int runs, List<TestCaseDuration> durations) {
+        jsonOutputWriter
+            .add("runs", runs)
+            .addChildList("tests", listWriter -> durations.forEach(duration -> listWriter.addChild(childWriter -> childWriter
+                .add("test_name", duration.getTestName())
+                .add("runs", duration.getRuns())
+                .add("average_duration_in_millis", duration.getAverageInMillis())
+                .add("max_duration_in_millis", duration.getMaxInMillis()))));
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.apiv1.testresults.representers;
+
+import com.thoughtworks.go.api.base.OutputWriter;
+import com.thoughtworks.go.server.service.testresults.TestCaseResult;
+
+import java.util.List;
+
+public class TestCaseHistoryRepresenter {
+
+    public static void toJSON(OutputWriter jsonOutputWriter, String testName, List<TestCaseResult> history, TestCaseResult failingSince) {
+        jsonOutputWriter.add("test_name", testName);
+        if (failingSince != null) {
+            jsonOutputWriter.addChild("failing_since", childWriter -> runToJSON(childWriter, failingSince));
+        }
+        jsonOutputWriter.addChildList("runs", listWriter -> history.forEach(result -> listWriter.addChild(childWriter -> runToJSON(childWriter, result))));
+    }
+
+    private static void runToJSON(OutputWriter jsonOutputWriter, TestCaseResult result) {
+        jsonOutputWriter
+            .add("job_id", result.getJobId())
+            .add("pipeline_counter", result.getPipelineCounter())
+            .add("stage_counter", result.getStageCounter())
+            .add("status", result.getStatus().name())
+            .add("duration_in_millis", result.getDurationInMillis());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.apiv1.testresults
+
+import com.thoughtworks.go.api.SecurityTestTrait
+import com.thoughtworks.go.api.spring.ApiAuthenticationHelper
+import com.thoughtworks.go.config.CaseInsensitiveString
+import com.thoughtworks.go.server.service.testresults.TestCaseResult
+import com.thoughtworks.go.server.service.testresults.TestResultIndexService
+import com.thoughtworks.go.spark.ControllerTrait
+import com.thoughtworks.go.spark.PipelineAccessSecurity
+import com.thoughtworks.go.spark.SecurityServiceTrait
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Nested
+import org.junit.jupiter.api.Test
+import org.mockito.Mock
+
+import static com.thoughtworks.go.server.service.testresults.TestCaseResult.Status.failed
+import static com.thoughtworks.go.server.service.testresults.TestCaseResult.Status.passed
+import static org.mockito.Mockito.*
+import static org.mockito.MockitoAnnotations.initMocks
+
+class TestResultsControllerTest implements ControllerTrait<TestResultsController>, SecurityServiceTrait {
+
+  @Mock
+  private TestResultIndexService testResultIndexService
+
+  @BeforeEach
+  void setup() {
+    initMocks(this)
+    when(testResultIndexService.isEnabled()).thenReturn(true)
+  }
+
+  @Override
+  TestResultsController createControllerInstance() {
+    new TestResultsController(testResultIndexService, new ApiAuthenticationHelper(securityService, goConfigService))
+  }
+
+  @Nested
+  class History {
+
+    @Nested
+    class Security implements SecurityTestTrait, PipelineAccessSecurity {
+
+      @BeforeEach
+      void setUp() {
+        when(goConfigService.hasPipelineNamed(new CaseInsensitiveString(getPipelineName()))).thenReturn(true)
+      }
+
+      @Override
+      String getControllerMethodUnderTest() {
+        return "history"
+      }
+
+      @Override
+      void makeHttpCall() {
+        getWithApiHeader(controller.controllerPath("/${getPipelineName()}/test/unit/history?test_name=FooTest.bar"))
+      }
+
+      @Override
+      String getPipelineName() {
+        return "foo"
+      }
+    }
+
+    @Test
+    void 'should render history of a test along with the run it has been failing since'() {
+      def history = [
+        new TestCaseResult(12, 4, 1, "FooTest.bar", 30, failed),
+        new TestCaseResult(11, 3, 1, "FooTest.bar", 25, failed),
+        new TestCaseResult(10, 2, 1, "FooTest.bar", 20, passed)
+      ]
+      when(testResultIndexService.history("foo", "test", "unit", "FooTest.bar", 20)).thenReturn(history)
+      when(testResultIndexService.failingSince(history)).thenReturn(history[1])
+
+      getWithApiHeader(controller.controllerPath("/foo/test/unit/history?test_name=FooTest.bar"))
+
+      assertThatResponse()
+        .isOk()
+        .hasJsonBody([
+        "test_name"    : "FooTest.bar",
+        "failing_since": [job_id: 11, pipeline_counter: 3, stage_counter: 1, status: "failed", duration_in_millis: 25],
+        "runs"         : [
+          [job_id: 12, pipeline_counter: 4, stage_counter: 1, status: "failed", duration_in_millis: 30],
+          [job_id: 11, pipeline_counter: 3, stage_counter: 1, status: "failed", duration_in_millis: 25],
+          [job_id: 10, pipeline_counter: 2, stage_counter: 1, status: "passed", duration_in_millis: 20]
+        ]
+      ])
+    }
+
+    @Test
+    void 'should render bad request when test name is missing'() {
+      getWithApiHeader(controller.controllerPath("/foo/test/unit/history"))
+
+      assertThatResponse()
+        .isBadRequest()
+        .hasJsonMessage("Request must contain query parameter `test_name`.")
+    }
+
+    @Test
+    void 'should render bad request when limit is not a positive integer'() {
+      getWithApiHeader(controller.controllerPath("/foo/test/unit/history?test_name=FooTest.bar&limit=-1"))
+
+      assertThatResponse()
+        .isBadRequest()
+        .hasJsonMessage("The query parameter `limit` must be an integer between 1 and 500.")
+    }
+
+    @Test
+    void 'should render unprocessable entity when indexing is disabled'() {
+      when(testResultIndexService.isEnabled()).thenReturn(false)
+
+      getWithApiHeader(controller.controllerPath("/foo/test/unit/history?test_name=FooTest.bar"))
+
+      assertThatResponse()
+        .isUnprocessableEntity()
+        .hasJsonMessage("Test result indexing is not enabled on this server.")
+      verify(testResultIndexService, never()).history(anyString(), anyString(), anyString(), anyString(), anyInt())
+    }
+  }
+}
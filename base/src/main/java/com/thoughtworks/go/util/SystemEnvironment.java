@@ -149,6 +149,8 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Integer> JMS_LISTENER_BACKOFF_TIME = new GoIntSystemProperty("go.jms.listener.backoff.time.in.milliseconds", 5000);
 
     public static final GoSystemProperty<Integer> GO_SERVER_AUTHORIZATION_EXTENSION_CALLS_CACHE_TIMEOUT_IN_SECONDS = new GoIntSystemProperty("go.server.authorization.extension.calls.cache.timeout.in.secs", 60 * 30);
+    public static final GoSystemProperty<Integer> GO_SERVER_ACCESS_TOKEN_CACHE_TTL_IN_SECONDS = new GoIntSystemProperty("go.server.access.token.cache.ttl.in.secs", 5 * 60);
+    public static final GoSystemProperty<Integer> GO_SERVER_ACCESS_TOKEN_CACHE_MAX_SIZE = new GoIntSystemProperty("go.server.access.token.cache.max.size", 10000);
 
     /* DATABASE CONFIGURATION - Defaults are of H2 */
     public static GoSystemProperty<String> GO_DATABASE_HOST = new GoStringSystemProperty("db.host", "localhost");
@@ -192,6 +194,7 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
 
     public static GoSystemProperty<Integer> GO_ELASTIC_PLUGIN_CREATE_AGENT_THREADS = new GoIntSystemProperty("go.elasticplugin.createagent.threads", 5);
     public static GoSystemProperty<Integer> GO_ELASTIC_PLUGIN_SERVER_PING_THREADS = new GoIntSystemProperty("go.elasticplugin.serverping.threads", 1);
+    public static GoSystemProperty<Long> GO_ELASTIC_PLUGIN_ASSIGNMENT_DECISION_TIMEOUT_MILLIS = new GoLongSystemProperty("go.elasticplugin.assignment.decision.timeout.millis", 5000L);
     public static GoSystemProperty<Integer> GO_ENCRYPTION_API_MAX_REQUESTS = new GoIntSystemProperty("go.encryption.api.max.requests", 30);
 
     public static GoSystemProperty<Boolean> WEBSOCKET_ENABLED = new GoBooleanSystemProperty("go.agent.websocket.enabled", false);
@@ -203,6 +206,10 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
 
     public static GoSystemProperty<Long> GO_WEBSOCKET_MAX_IDLE_TIME = new GoLongSystemProperty("go.websocket.max.idle.time", 60 * 1000L);
     public static GoSystemProperty<Boolean> GO_SERVER_SHALLOW_CLONE = new GoBooleanSystemProperty("go.server.shallowClone", false);
+    public static GoSystemProperty<Boolean> GO_SERVER_GIT_LS_REMOTE_BEFORE_FETCH = new GoBooleanSystemProperty("go.server.git.lsRemoteBeforeFetch", true);
+    public static GoSystemProperty<Integer> STREAM_PUMPER_MAX_POOLED_THREADS = new GoIntSystemProperty("go.stream.pumper.max.pooled.threads", 256);
+    public static GoSystemProperty<Boolean> GO_SERVER_BACKUP_INCREMENTAL = new GoBooleanSystemProperty("go.server.backup.incremental", false);
+    public static GoSystemProperty<Integer> GO_SERVER_BACKUP_THREADS = new GoIntSystemProperty("go.server.backup.threads", 4);
     public static GoSystemProperty<Boolean> GO_SERVER_SCHEDULED_PIPELINE_LOADER_GLOBAL_MATERIAL_LOOKUP = new GoBooleanSystemProperty("go.server.scheduledPipelineLoader.globalMaterialLookup", false);
 
     public static GoSystemProperty<Boolean> GO_API_WITH_SAFE_MODE = new GoBooleanSystemProperty("go.api.with.safe.mode", true);
@@ -236,12 +243,33 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     private static GoSystemProperty<Boolean> GO_PLUGIN_CLASSLOADER_OLD = new GoBooleanSystemProperty("gocd.plugins.classloader.old", false);
     public static final GoSystemProperty<String> LOADING_PAGE = new GoStringSystemProperty("loading.page.resource.path", "/loading_pages/default.loading.page.html");
     public static GoSystemProperty<Long> NOTIFICATION_PLUGIN_MESSAGES_TTL = new GoLongSystemProperty("plugins.notification.message.ttl.millis", 2 * 60 * 1000L);
+    public static GoSystemProperty<Boolean> NOTIFICATION_PLUGIN_BATCHING_ENABLED = new GoBooleanSystemProperty("plugins.notification.batching.enabled", false);
+    public static GoSystemProperty<Long> NOTIFICATION_PLUGIN_BATCH_WINDOW = new GoLongSystemProperty("plugins.notification.batch.window.millis", 1000L);
+    public static GoSystemProperty<Integer> NOTIFICATION_PLUGIN_BATCH_MAX_SIZE = new GoIntSystemProperty("plugins.notification.batch.max.size", 100);
 
     public static GoSystemProperty<Boolean> ENABLE_HSTS_HEADER = new GoBooleanSystemProperty("gocd.enable.hsts.header", false);
     public static GoSystemProperty<Long> HSTS_HEADER_MAX_AGE = new GoLongSystemProperty("gocd.hsts.header.max.age", ONE_YEAR);
     public static GoSystemProperty<Boolean> HSTS_HEADER_INCLUDE_SUBDOMAINS = new GoBooleanSystemProperty("gocd.hsts.header.include.subdomains", false);
     public static GoSystemProperty<Boolean> HSTS_HEADER_PRELOAD = new GoBooleanSystemProperty("gocd.hsts.header.preload", false);
 
+    // also set on agents, which only write the per test case outcomes the index is fed from when it is enabled
+    public static GoSystemProperty<Boolean> TEST_RESULT_INDEX_ENABLED = new GoBooleanSystemProperty("go.test.result.index.enabled", false);
+    public static GoSystemProperty<String> TEST_RESULT_INDEX_DIR = new GoStringSystemProperty("go.test.result.index.dir", DB_BASE_DIR + "test_result_index");
+    public static GoSystemProperty<Boolean> CONFIG_REPO_PARSE_CACHE_ENABLED = new GoBooleanSystemProperty("go.config.repo.parse.cache.enabled", true);
+    public static GoSystemProperty<String> CONFIG_REPO_PARSE_CACHE_DIR = new GoStringSystemProperty("go.config.repo.parse.cache.dir", DB_BASE_DIR + "config_repo_parse_cache");
+    public static GoSystemProperty<Integer> CONFIG_LISTENER_NOTIFICATION_THREADS = new GoIntSystemProperty("go.config.listener.notification.threads", 4);
+    public static GoSystemProperty<Long> CONFIG_LISTENER_SLOW_THRESHOLD_MILLIS = new GoLongSystemProperty("go.config.listener.slow.threshold.millis", 1000L);
+    public static GoSystemProperty<Boolean> PIPELINE_SEARCH_INDEX_ENABLED = new GoBooleanSystemProperty("go.pipeline.search.index.enabled", false);
+    public static GoSystemProperty<String> PIPELINE_SEARCH_INDEX_DIR = new GoStringSystemProperty("go.pipeline.search.index.dir", DB_BASE_DIR + "pipeline_search_index");
+    public static GoSystemProperty<Long> SCHEDULED_JOBS_RECONCILE_INTERVAL = new GoLongSystemProperty("go.scheduled.jobs.reconcile.interval.millis", 5 * 60 * 1000L);
+    public static GoSystemProperty<Integer> STARTUP_WARM_UP_THREADS = new GoIntSystemProperty("go.startup.warmup.threads", 4);
+    public static GoSystemProperty<Integer> STARTUP_WARM_UP_CHUNK_SIZE = new GoIntSystemProperty("go.startup.warmup.chunk.size", 500);
+    public static GoSystemProperty<Boolean> PIPELINE_TIMELINE_SNAPSHOT_ENABLED = new GoBooleanSystemProperty("go.pipeline.timeline.snapshot.enabled", false);
+    public static GoSystemProperty<String> PIPELINE_TIMELINE_SNAPSHOT_FILE = new GoStringSystemProperty("go.pipeline.timeline.snapshot.file", DB_BASE_DIR + "pipeline_timeline.snapshot");
+    public static GoSystemProperty<Boolean> AGENT_GIT_MIRROR_ENABLED = new GoBooleanSystemProperty("go.agent.git.mirror.enabled", false);
+    public static GoSystemProperty<String> AGENT_GIT_MIRROR_DIR = new GoStringSystemProperty("go.agent.git.mirror.dir", "git-mirrors");
+    public static GoSystemProperty<Long> AGENT_GIT_MIRROR_MAX_SIZE_IN_MB = new GoLongSystemProperty("go.agent.git.mirror.max.size.mb", 20 * 1024L);
+
     private final static Map<String, String> GIT_ALLOW_PROTOCOL;
 
     static {
@@ -722,6 +750,14 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return GO_SERVER_AUTHORIZATION_EXTENSION_CALLS_CACHE_TIMEOUT_IN_SECONDS.getValue();
     }
 
+    public static Integer getGoServerAccessTokenCacheTtlInSeconds() {
+        return GO_SERVER_ACCESS_TOKEN_CACHE_TTL_IN_SECONDS.getValue();
+    }
+
+    public static Integer getGoServerAccessTokenCacheMaxSize() {
+        return GO_SERVER_ACCESS_TOKEN_CACHE_MAX_SIZE.getValue();
+    }
+
     public String getBundledPluginAbsolutePath() {
         return new File(get(PLUGIN_GO_PROVIDED_PATH)).getAbsolutePath();
     }
@@ -818,6 +854,66 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return hour * 60 * 60 * 1000;
     }
 
+    public boolean isTestResultIndexEnabled() {
+        return TEST_RESULT_INDEX_ENABLED.getValue();
+    }
+
+    public File getTestResultIndexDir() {
+        return new File(TEST_RESULT_INDEX_DIR.getValue());
+    }
+
+    public boolean isPipelineTimelineSnapshotEnabled() {
+        return PIPELINE_TIMELINE_SNAPSHOT_ENABLED.getValue();
+    }
+
+    public File getPipelineTimelineSnapshotFile() {
+        return new File(PIPELINE_TIMELINE_SNAPSHOT_FILE.getValue());
+    }
+
+    public boolean isIncrementalBackupEnabled() {
+        return GO_SERVER_BACKUP_INCREMENTAL.getValue();
+    }
+
+    public int getBackupThreads() {
+        return GO_SERVER_BACKUP_THREADS.getValue();
+    }
+
+    public boolean isConfigRepoParseCacheEnabled() {
+        return CONFIG_REPO_PARSE_CACHE_ENABLED.getValue();
+    }
+
+    public File getConfigRepoParseCacheDir() {
+        return new File(CONFIG_REPO_PARSE_CACHE_DIR.getValue());
+    }
+
+    public int getConfigListenerNotificationThreads() {
+        return CONFIG_LISTENER_NOTIFICATION_THREADS.getValue();
+    }
+
+    public long getConfigListenerSlowThresholdMillis() {
+        return CONFIG_LISTENER_SLOW_THRESHOLD_MILLIS.getValue();
+    }
+
+    public boolean isPipelineSearchIndexEnabled() {
+        return PIPELINE_SEARCH_INDEX_ENABLED.getValue();
+    }
+
+    public File getPipelineSearchIndexDir() {
+        return new File(PIPELINE_SEARCH_INDEX_DIR.getValue());
+    }
+
+    public boolean isAgentGitMirrorEnabled() {
+        return AGENT_GIT_MIRROR_ENABLED.getValue();
+    }
+
+    public File getAgentGitMirrorDir() {
+        return new File(AGENT_GIT_MIRROR_DIR.getValue());
+    }
+
+    public long getAgentGitMirrorMaxSizeInBytes() {
+        return AGENT_GIT_MIRROR_MAX_SIZE_IN_MB.getValue() * 1024 * 1024;
+    }
+
     public boolean isApiSafeModeEnabled() {
         return GO_API_WITH_SAFE_MODE.getValue();
     }
@@ -63,6 +63,14 @@ public class ProcessWrapper {
         return returnValue;
     }
 
+    /**
+     * @return what the consumer of the process output threw while the process ran, if anything
+     */
+    public RuntimeException getConsumerFailure() {
+        RuntimeException failure = processOutputStream.getConsumerFailure();
+        return failure != null ? failure : processErrorStream.getConsumerFailure();
+    }
+
     public void typeInputToConsole(List<String> inputs) {
         for (String input : inputs) {
             processInputStream.println(input);
@@ -417,6 +417,30 @@ public class CommandLine {
         return result;
     }
 
+    /**
+     * Hands every line of standard output to {@code stdOutputConsumer} as the process produces it, instead of
+     * collecting it into the returned result, so that large outputs are never held in memory as a whole. Should the
+     * consumer throw, the rest of the output is still drained and the failure is rethrown once the process has exited.
+     */
+    public ConsoleResult runOrBomb(StreamConsumer stdOutputConsumer, String processTag, String... input) {
+        LOG.debug("Running {}", this);
+        addInput(input);
+        InMemoryConsumer errors = new InMemoryConsumer();
+        ProcessWrapper process = execute(new ProcessOutputStreamConsumer<>(stdOutputConsumer, errors), new EnvironmentVariableContext(), processTag);
+        int returnValue = process.waitForExit();
+
+        ConsoleResult result = new ConsoleResult(returnValue, new ArrayList<>(), errors.asList(), arguments, secrets, true);
+
+        if (result.failed()) {
+            throw new CommandLineException(this, result);
+        }
+        RuntimeException consumerFailure = process.getConsumerFailure();
+        if (consumerFailure != null) {
+            throw new CommandLineException("Error processing the output of command: " + describe(), consumerFailure);
+        }
+        return result;
+    }
+
     private ProcessWrapper startProcess(EnvironmentVariableContext environmentVariableContext, ConsoleOutputStreamConsumer consumer, String processTag) throws IOException {
         ProcessWrapper process = createProcess(environmentVariableContext, consumer, processTag, ERROR_STREAM_PREFIX_FOR_SCRIPTS);
         process.closeOutputStream();
@@ -17,9 +17,11 @@
 package com.thoughtworks.go.buildsession;
 
 import com.thoughtworks.go.domain.BuildCommand;
+import com.thoughtworks.go.domain.TestReportGenerator;
 import com.thoughtworks.go.domain.UnitTestReportGenerator;
 import com.thoughtworks.go.domain.WildcardScanner;
 import com.thoughtworks.go.util.FileUtil;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
@@ -46,8 +48,9 @@ public class GenerateTestReportCommandExecutor implements BuildCommandExecutor {
                 tempFolder = FileUtil.createTempFolder();
                 File testResultSource = new File(tempFolder, "result");
                 testResultSource.mkdirs();
-                UnitTestReportGenerator generator = new UnitTestReportGenerator(buildSession.getPublisher(), testResultSource);
+                UnitTestReportGenerator generator = new UnitTestReportGenerator(buildSession.getPublisher(), testResultSource, new SystemEnvironment().isTestResultIndexEnabled());
                 generator.generate(allFiles.toArray(new File[allFiles.size()]), uploadPath);
+                uploadTestCases(buildSession, testResultSource, uploadPath);
             } finally {
                 if (tempFolder != null) {
                     FileUtils.deleteQuietly(tempFolder);
@@ -62,6 +65,13 @@ public class GenerateTestReportCommandExecutor implements BuildCommandExecutor {
         return true;
     }
 
+    private void uploadTestCases(BuildSession buildSession, File testResultSource, String uploadPath) {
+        File testCases = new File(testResultSource, TestReportGenerator.TEST_CASES_FILE);
+        if (testCases.exists()) {
+            buildSession.getPublisher().upload(testCases, uploadPath);
+        }
+    }
+
     private ArrayList<File> findMatchedSourceFiles(BuildSession buildSession, File workingDirectory, String[] sources) {
         ArrayList<File> allFiles = new ArrayList<>();
         for (String src : sources) {
@@ -330,6 +330,10 @@ public class AgentInstance implements Comparable<AgentInstance> {
         return agentRuntimeInfo.getSupportsBuildCommandProtocol();
     }
 
+    public int getWorkEncodingVersion() {
+        return agentRuntimeInfo.getWorkEncodingVersion();
+    }
+
     public boolean isElastic() {
         return agentRuntimeInfo.isElastic();
     }
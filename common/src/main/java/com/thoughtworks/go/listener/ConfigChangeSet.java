@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thoughtworks.go.listener;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.config.PipelineConfig;
+import com.thoughtworks.go.config.PipelineConfigs;
+
+import java.util.*;
+
+/**
+ * @understands which parts of the config differ between two saves
+ * <p>
+ * Parts are compared by equality, so a part whose classes do not implement it is always reported as changed.
+ */
+public class ConfigChangeSet {
+    public enum Kind {
+        PIPELINES, ENVIRONMENTS, AGENTS, SECURITY, OTHER
+    }
+
+    private final Set<Kind> changed;
+    private final Set<CaseInsensitiveString> changedPipelines;
+    private final boolean everything;
+
+    private ConfigChangeSet(Set<Kind> changed, Set<CaseInsensitiveString> changedPipelines, boolean everything) {
+        this.changed = changed;
+        this.changedPipelines = changedPipelines;
+        this.everything = everything;
+    }
+
+    public static ConfigChangeSet everything() {
+        return new ConfigChangeSet(EnumSet.allOf(Kind.class), Collections.emptySet(), true);
+    }
+
+    public static ConfigChangeSet between(CruiseConfig oldConfig, CruiseConfig newConfig) {
+        if (oldConfig == null || newConfig == null) {
+            return everything();
+        }
+        Set<Kind> changed = EnumSet.noneOf(Kind.class);
+        Set<CaseInsensitiveString> changedPipelines = changedPipelines(oldConfig, newConfig);
+        if (!changedPipelines.isEmpty()) {
+            changed.add(Kind.PIPELINES);
+        }
+        if (!Objects.equals(oldConfig.getEnvironments(), newConfig.getEnvironments())) {
+            changed.add(Kind.ENVIRONMENTS);
+        }
+        if (!Objects.equals(oldConfig.agents(), newConfig.agents())) {
+            changed.add(Kind.AGENTS);
+        }
+        if (!Objects.equals(oldConfig.server().security(), newConfig.server().security())
+                || !Objects.equals(authorizationByGroup(oldConfig), authorizationByGroup(newConfig))) {
+            changed.add(Kind.SECURITY);
+        }
+        if (!Objects.equals(oldConfig.server(), newConfig.server())
+                || !Objects.equals(oldConfig.getTemplates(), newConfig.getTemplates())
+                || !Objects.equals(oldConfig.getConfigRepos(), newConfig.getConfigRepos())
+                || !Objects.equals(oldConfig.getPackageRepositories(), newConfig.getPackageRepositories())
+                || !Objects.equals(oldConfig.getSCMs(), newConfig.getSCMs())
+                || !Objects.equals(oldConfig.getElasticConfig(), newConfig.getElasticConfig())
+                || !Objects.equals(oldConfig.getArtifactStores(), newConfig.getArtifactStores())
+                || !Objects.equals(oldConfig.getSecretConfigs(), newConfig.getSecretConfigs())) {
+            changed.add(Kind.OTHER);
+        }
+        return new ConfigChangeSet(changed, changedPipelines, false);
+    }
+
+    public boolean hasChanged(Kind kind) {
+        return changed.contains(kind);
+    }
+
+    public boolean hasChangedAnyOf(Collection<Kind> kinds) {
+        for (Kind kind : kinds) {
+            if (hasChanged(kind)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty();
+    }
+
+    /**
+     * @return true if the pipeline was added, removed, modified or moved to another group
+     */
+    public boolean hasPipelineChanged(CaseInsensitiveString pipelineName) {
+        return everything || changedPipelines.contains(pipelineName);
+    }
+
+    @Override
+    public String toString() {
+        return everything ? "[everything]" : changed.toString();
+    }
+
+    private static Set<CaseInsensitiveString> changedPipelines(CruiseConfig oldConfig, CruiseConfig newConfig) {
+        Map<CaseInsensitiveString, PipelineInGroup> oldPipelines = pipelinesByName(oldConfig);
+        Map<CaseInsensitiveString, PipelineInGroup> newPipelines = pipelinesByName(newConfig);
+        Set<CaseInsensitiveString> changed = new HashSet<>();
+        for (Map.Entry<CaseInsensitiveString, PipelineInGroup> entry : newPipelines.entrySet()) {
+            if (!entry.getValue().equals(oldPipelines.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (CaseInsensitiveString name : oldPipelines.keySet()) {
+            if (!newPipelines.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+        return changed;
+    }
+
+    private static Map<CaseInsensitiveString, PipelineInGroup> pipelinesByName(CruiseConfig config) {
+        Map<CaseInsensitiveString, PipelineInGroup> pipelines = new HashMap<>();
+        for (PipelineConfigs group : config.getGroups()) {
+            for (PipelineConfig pipelineConfig : group) {
+                pipelines.put(pipelineConfig.name(), new PipelineInGroup(group.getGroup(), pipelineConfig));
+            }
+        }
+        return pipelines;
+    }
+
+    private static Map<String, Object> authorizationByGroup(CruiseConfig config) {
+        Map<String, Object> authorizations = new HashMap<>();
+        for (PipelineConfigs group : config.getGroups()) {
+            authorizations.put(group.getGroup(), group.getAuthorization());
+        }
+        return authorizations;
+    }
+
+    private static class PipelineInGroup {
+        private final String group;
+        private final PipelineConfig pipelineConfig;
+
+        private PipelineInGroup(String group, PipelineConfig pipelineConfig) {
+            this.group = group;
+            this.pipelineConfig = pipelineConfig;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PipelineInGroup that = (PipelineInGroup) o;
+            return Objects.equals(group, that.group) && Objects.equals(pipelineConfig, that.pipelineConfig);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(group, pipelineConfig);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thoughtworks.go.listener;
+
+import com.thoughtworks.go.config.CruiseConfig;
+
+import java.util.Set;
+
+/**
+ * A {@link ConfigChangedListener} that is only notified of config saves changing one of the parts it depends on.
+ */
+public interface SelectiveConfigChangedListener extends ConfigChangedListener {
+    Set<ConfigChangeSet.Kind> dependsOn();
+
+    default void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changes) {
+        onConfigChange(newCruiseConfig);
+    }
+
+    /**
+     * @return true if the listener neither depends on nor affects the state of other listeners, so that it can be
+     * notified at the same time as them
+     */
+    default boolean canBeNotifiedInParallel() {
+        return false;
+    }
+}
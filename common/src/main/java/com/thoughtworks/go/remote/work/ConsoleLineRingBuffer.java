@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.remote.work;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded queue of console lines with many producers (the stream pumpers of a build). Producers claim a slot by
+ * advancing {@code tail} with a CAS and then publish the line into it, without taking a lock. Lines are taken in
+ * order until a slot that is not published yet is reached; taking is serialized so that a producer can make room
+ * by taking the oldest line while the flusher drains.
+ */
+final class ConsoleLineRingBuffer {
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    ConsoleLineRingBuffer(int minimumCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minimumCapacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return false if the buffer is full and the line was not added
+     */
+    boolean offer(String line) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.set((int) (claimed & mask), line);
+        return true;
+    }
+
+    /**
+     * @return the oldest line, or null if there is no published line yet
+     */
+    synchronized String poll() {
+        long current = head;
+        int index = (int) (current & mask);
+        String line = slots.get(index);
+        if (line != null) {
+            slots.lazySet(index, null);
+            head = current + 1;
+        }
+        return line;
+    }
+
+    int size() {
+        return (int) (tail.get() - head);
+    }
+
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -18,27 +18,39 @@ package com.thoughtworks.go.remote.work;
 
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.TaggedStreamConsumer;
-import org.apache.commons.collections4.queue.CircularFifoQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static java.lang.String.format;
-
+/**
+ * Buffers console lines of a build and sends them to the server in batches. Lines are sent every publish interval,
+ * or earlier once {@link #FLUSH_THRESHOLD_IN_CHARS} worth of output or half the buffer's lines are waiting. If the
+ * server cannot keep up and the buffer fills, the oldest lines are dropped, as before; how much was dropped is
+ * written to the end of the job's console.
+ */
 public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleOutputTransmitter.class);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+    static final int FLUSH_THRESHOLD_IN_CHARS = 256 * 1024;
+    private static final int MAX_UNSENT_CHARS = 16 * 1024 * 1024;
 
-    private final CircularFifoQueue buffer = new CircularFifoQueue(10 * 1024); // maximum 10k lines
+    private final ConsoleLineRingBuffer buffer = new ConsoleLineRingBuffer(16 * 1024); // maximum 16k lines
+    private final int flushThresholdInLines = buffer.capacity() / 2;
+    private final AtomicLong bufferedChars = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ConsoleTransmissionStats stats = new ConsoleTransmissionStats();
     private final ConsoleAppender consoleAppender;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss.SSS");
     private final ScheduledThreadPoolExecutor executor;
+    private final Object flushLock = new Object();
+    private final StringBuilder unsent = new StringBuilder();
 
     public ConsoleOutputTransmitter(ConsoleAppender consoleAppender) {
         this(consoleAppender, new SystemEnvironment().getConsolePublishInterval(), new ScheduledThreadPoolExecutor(1));
@@ -58,16 +70,36 @@ public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Run
 
     @Override
     public void taggedConsumeLine(String tag, String line) {
-        synchronized (buffer) {
-            if (null == tag) tag = "  ";
-            String date = dateFormat.format(new Date());
-            String prepend = format("%s|%s", tag, date);
-            String multilineJoin = "\n" + prepend + " ";
-            buffer.add(format("%s %s", prepend, line).replaceAll("\n", multilineJoin));
+        if (null == tag) tag = "  ";
+        String prepend = tag + "|" + LocalTime.now().format(DATE_FORMAT) + " ";
+        String formatted = (prepend + line).replace("\n", "\n" + prepend);
+        int length = formatted.length() + 1;
+
+        while (!buffer.offer(formatted)) {
+            dropOldestBufferedLine();
+        }
+        stats.lineConsumed(length);
+        if (bufferedChars.addAndGet(length) >= FLUSH_THRESHOLD_IN_CHARS || buffer.size() >= flushThresholdInLines) {
+            requestFlush();
         }
     }
 
+    private void dropOldestBufferedLine() {
+        requestFlush();
+        String dropped = buffer.poll();
+        if (dropped == null) {
+            // the oldest slot is claimed but its line is not published yet
+            Thread.yield();
+            return;
+        }
+        int length = dropped.length() + 1;
+        bufferedChars.addAndGet(-length);
+        stats.dropped(length);
+        stats.backlog(-length);
+    }
+
     public void run() {
+        flushRequested.set(false);
         try {
             flushToServer();
         } catch (Throwable e) {
@@ -76,35 +108,64 @@ public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Run
     }
 
     public void flushToServer() {
-        if (buffer.isEmpty()) {
-            return;
-        }
-
-        List sent = new ArrayList();
-        try {
-            synchronized (buffer) {
-                while (!buffer.isEmpty()) {
-                    sent.add(buffer.remove());
-                }
+        synchronized (flushLock) {
+            long drained = 0;
+            String line;
+            while ((line = buffer.poll()) != null) {
+                unsent.append(line).append('\n');
+                drained += line.length() + 1;
             }
-            StringBuilder result = new StringBuilder();
-            for (Object string : sent) {
-                result.append(string);
-                result.append("\n");
+            bufferedChars.addAndGet(-drained);
+
+            if (unsent.length() == 0) {
+                return;
             }
-            consoleAppender.append(result.toString());
-        } catch (IOException e) {
-            LOGGER.warn("Could not send console output to server", e);
-            synchronized (buffer) {
-                sent.addAll(buffer);
-                buffer.clear();
-                buffer.addAll(sent);
+
+            long start = System.currentTimeMillis();
+            try {
+                consoleAppender.append(unsent.toString());
+                stats.flushed(unsent.length(), System.currentTimeMillis() - start);
+                stats.backlog(-unsent.length());
+                unsent.setLength(0);
+            } catch (IOException e) {
+                stats.flushFailed(System.currentTimeMillis() - start);
+                LOGGER.warn("Could not send console output to server", e);
+                dropOldestUnsentLines();
             }
         }
     }
 
+    public ConsoleTransmissionStats getStats() {
+        return stats;
+    }
+
     public void stop() {
         flushToServer();
+        if (stats.getCharsDropped() > 0) {
+            taggedConsumeLine(NOTICE, String.format("[go] %d characters of console output were dropped because they could not be sent to the server in time.", stats.getCharsDropped()));
+            flushToServer();
+        }
         executor.shutdown();
+        LOGGER.info("Console output transmission finished: {}", stats);
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void dropOldestUnsentLines() {
+        if (unsent.length() > MAX_UNSENT_CHARS) {
+            int endOfLine = unsent.indexOf("\n", unsent.length() - MAX_UNSENT_CHARS);
+            int dropped = endOfLine < 0 ? unsent.length() : endOfLine + 1;
+            unsent.delete(0, dropped);
+            stats.dropped(dropped);
+            stats.backlog(-dropped);
+        }
     }
 }
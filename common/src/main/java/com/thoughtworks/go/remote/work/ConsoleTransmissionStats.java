@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.remote.work;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+
+/**
+ * Counters describing how the console output of one job made its way to the server. Sizes are counted in
+ * characters of console text, which is what is buffered before it gets encoded.
+ */
+public final class ConsoleTransmissionStats {
+    private final long startedAt = System.nanoTime();
+    private final LongAdder linesConsumed = new LongAdder();
+    private final LongAdder charsSent = new LongAdder();
+    private final LongAdder charsDropped = new LongAdder();
+    private final AtomicLong charsBacklogged = new AtomicLong();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile long lastFlushLatencyInMillis;
+    private final AtomicLong maxFlushLatencyInMillis = new AtomicLong();
+
+    long lineConsumed(int length) {
+        linesConsumed.increment();
+        return charsBacklogged.addAndGet(length);
+    }
+
+    long backlog(long delta) {
+        return charsBacklogged.addAndGet(delta);
+    }
+
+    void dropped(long length) {
+        charsDropped.add(length);
+    }
+
+    void flushed(long length, long latencyInMillis) {
+        flushes.increment();
+        charsSent.add(length);
+        recordLatency(latencyInMillis);
+    }
+
+    void flushFailed(long latencyInMillis) {
+        failedFlushes.increment();
+        recordLatency(latencyInMillis);
+    }
+
+    private void recordLatency(long latencyInMillis) {
+        lastFlushLatencyInMillis = latencyInMillis;
+        maxFlushLatencyInMillis.accumulateAndGet(latencyInMillis, Math::max);
+    }
+
+    public long getLinesConsumed() {
+        return linesConsumed.sum();
+    }
+
+    public long getCharsSent() {
+        return charsSent.sum();
+    }
+
+    public long getCharsDropped() {
+        return charsDropped.sum();
+    }
+
+    public long getCharsBacklogged() {
+        return charsBacklogged.get();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes.sum();
+    }
+
+    public long getLastFlushLatencyInMillis() {
+        return lastFlushLatencyInMillis;
+    }
+
+    public long getMaxFlushLatencyInMillis() {
+        return maxFlushLatencyInMillis.get();
+    }
+
+    public long getCharsSentPerSecond() {
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        return getCharsSent() * 1000 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return format("lines=%d, sent=%d chars (%d chars/s), dropped=%d chars, backlog=%d chars, flushes=%d, failedFlushes=%d, lastFlushLatency=%dms, maxFlushLatency=%dms",
+                getLinesConsumed(), getCharsSent(), getCharsSentPerSecond(), getCharsDropped(), getCharsBacklogged(),
+                getFlushes(), getFailedFlushes(), getLastFlushLatencyInMillis(), getMaxFlushLatencyInMillis());
+    }
+}
@@ -17,17 +17,21 @@
 package com.thoughtworks.go.remote.work;
 
 import com.thoughtworks.go.util.HttpService;
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPut;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
 
 public class RemoteConsoleAppender implements ConsoleAppender {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RemoteConsoleAppender.class);
+    static final int COMPRESSION_THRESHOLD_IN_BYTES = 4 * 1024;
 
     private String consoleUri;
     private HttpService httpService;
@@ -43,13 +47,26 @@ public class RemoteConsoleAppender implements ConsoleAppender {
         HttpPut putMethod = new HttpPut(consoleUri);
         try {
             LOGGER.debug("Appending console to URL -> {}", consoleUri);
-            StringEntity entity = new StringEntity(content, charset);
-            putMethod.setEntity(entity);
-            HttpService.setSizeHeader(putMethod, entity.getContentLength());
+            byte[] bytes = content.getBytes(charset);
+            if (bytes.length >= COMPRESSION_THRESHOLD_IN_BYTES) {
+                putMethod.setEntity(new ByteArrayEntity(gzip(bytes)));
+                putMethod.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            } else {
+                putMethod.setEntity(new ByteArrayEntity(bytes));
+            }
+            HttpService.setSizeHeader(putMethod, bytes.length);
             CloseableHttpResponse response = httpService.execute(putMethod);
             LOGGER.debug("Got {}", response.getStatusLine().getStatusCode());
         } finally {
             putMethod.releaseConnection();
         }
     }
+
+    private byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
 }
@@ -53,6 +53,8 @@ public class AgentRuntimeInfo implements Serializable {
     private volatile String cookie;
     @Expose
     private volatile boolean supportsBuildCommandProtocol;
+    @Expose
+    private volatile int workEncodingVersion;
 
     public AgentRuntimeInfo(AgentIdentifier identifier, AgentRuntimeStatus runtimeStatus, String location, String cookie, boolean supportsBuildCommandProtocol) {
         this.identifier = identifier;
@@ -294,6 +296,7 @@ public class AgentRuntimeInfo implements Serializable {
         this.usableSpace = newRuntimeInfo.getUsableSpace();
         this.operatingSystemName = newRuntimeInfo.getOperatingSystem();
         this.supportsBuildCommandProtocol = newRuntimeInfo.getSupportsBuildCommandProtocol();
+        this.workEncodingVersion = newRuntimeInfo.getWorkEncodingVersion();
     }
 
     public boolean getSupportsBuildCommandProtocol() {
@@ -304,6 +307,14 @@ public class AgentRuntimeInfo implements Serializable {
         this.supportsBuildCommandProtocol = b;
     }
 
+    public int getWorkEncodingVersion() {
+        return workEncodingVersion;
+    }
+
+    public void setWorkEncodingVersion(int workEncodingVersion) {
+        this.workEncodingVersion = workEncodingVersion;
+    }
+
     public boolean isElastic() {
         return false;
     }
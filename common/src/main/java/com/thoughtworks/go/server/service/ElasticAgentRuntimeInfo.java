@@ -37,6 +37,7 @@ public class ElasticAgentRuntimeInfo extends AgentRuntimeInfo implements Seriali
                 elasticPluginId);
         this.setOperatingSystem(runtimeInfo.getOperatingSystem());
         this.setUsableSpace(runtimeInfo.getUsableSpace());
+        this.setWorkEncodingVersion(runtimeInfo.getWorkEncodingVersion());
     }
 
     public ElasticAgentRuntimeInfo(AgentIdentifier identifier, AgentRuntimeStatus runtimeStatus, String location, String cookie, String elasticAgentId, String elasticPluginId) {
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.util;
+
+/**
+ * @understands how to reach the pages next to a page of history that was fetched by the ids around it rather than by
+ * offset
+ * <p>
+ * Pages are newest first. The newer page is fetched with {@link #newerCursor()} as the "after" cursor and the older
+ * page with {@link #olderCursor()} as the "before" cursor, so deep pages cost the same as the first one and no count is
+ * needed. A cursor is null when there is no page on that side.
+ */
+public class KeysetPagination {
+    private final int pageSize;
+    private final Long newerCursor;
+    private final Long olderCursor;
+
+    private KeysetPagination(int pageSize, Long newerCursor, Long olderCursor) {
+        this.pageSize = pageSize;
+        this.newerCursor = newerCursor;
+        this.olderCursor = olderCursor;
+    }
+
+    public static KeysetPagination of(int pageSize, Long newerCursor, Long olderCursor) {
+        return new KeysetPagination(pageSize, newerCursor, olderCursor);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean hasNewer() {
+        return newerCursor != null;
+    }
+
+    public boolean hasOlder() {
+        return olderCursor != null;
+    }
+
+    public Long newerCursor() {
+        return newerCursor;
+    }
+
+    public Long olderCursor() {
+        return olderCursor;
+    }
+}
@@ -29,8 +29,11 @@ import java.io.*;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
@@ -38,11 +41,45 @@ public class MessageEncoding {
 
     private static Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().registerTypeAdapter(AgentRuntimeInfo.class, new AgentRuntimeInfoTypeAdapter()).create();
 
+    /**
+     * Work encoding understood by every agent: a plain java serialized object stream.
+     */
+    public static final int LEGACY_WORK_ENCODING_VERSION = 0;
+
+    /**
+     * The same java serialized object stream as the legacy encoding, prefixed with a header and deflated before being
+     * base64 encoded. This only makes the payload smaller. Agents advertise support for it through
+     * {@link AgentRuntimeInfo#getWorkEncodingVersion()} in their websocket ping.
+     */
+    public static final int DEFLATED_WORK_ENCODING_VERSION = 1;
+
+    public static final int CURRENT_WORK_ENCODING_VERSION = DEFLATED_WORK_ENCODING_VERSION;
+
+    private static final byte[] DEFLATED_WORK_HEADER = {'G', 'W', DEFLATED_WORK_ENCODING_VERSION};
+
     public static String encodeWork(Work work) {
+        return encodeWork(work, LEGACY_WORK_ENCODING_VERSION);
+    }
+
+    /**
+     * Both encodings are java serialization of the work, so the agent has to run the same version of the work classes
+     * as the server whichever one is used. The encoding version only tells the agent whether the payload is deflated.
+     */
+    public static String encodeWork(Work work, int encodingVersion) {
         try {
             try (ByteArrayOutputStream binaryOutput = new ByteArrayOutputStream()) {
-                try (ObjectOutputStream objectStream = new ObjectOutputStream(binaryOutput)) {
-                    objectStream.writeObject(work);
+                if (encodingVersion >= DEFLATED_WORK_ENCODING_VERSION) {
+                    binaryOutput.write(DEFLATED_WORK_HEADER);
+                    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                    try (ObjectOutputStream objectStream = new ObjectOutputStream(new DeflaterOutputStream(binaryOutput, deflater))) {
+                        objectStream.writeObject(work);
+                    } finally {
+                        deflater.end();
+                    }
+                } else {
+                    try (ObjectOutputStream objectStream = new ObjectOutputStream(binaryOutput)) {
+                        objectStream.writeObject(work);
+                    }
                 }
                 return Base64.getEncoder().encodeToString(binaryOutput.toByteArray());
             }
@@ -54,7 +91,7 @@ public class MessageEncoding {
     public static Work decodeWork(String data) {
         try {
             byte[] binary = Base64.getDecoder().decode(data.getBytes(StandardCharsets.UTF_8));
-            try (ObjectInputStream objectStream = new ObjectInputStream(new ByteArrayInputStream(binary))) {
+            try (ObjectInputStream objectStream = new ObjectInputStream(workInputStream(binary))) {
                 return (Work) objectStream.readObject();
             }
         } catch (ClassNotFoundException | IOException e) {
@@ -62,6 +99,22 @@ public class MessageEncoding {
         }
     }
 
+    private static InputStream workInputStream(byte[] binary) throws IOException {
+        if (!hasDeflatedWorkHeader(binary)) {
+            return new ByteArrayInputStream(binary);
+        }
+        int version = binary[DEFLATED_WORK_HEADER.length - 1];
+        if (version != DEFLATED_WORK_ENCODING_VERSION) {
+            throw new IOException("Unsupported work encoding version: " + version);
+        }
+        int headerLength = DEFLATED_WORK_HEADER.length;
+        return new InflaterInputStream(new ByteArrayInputStream(binary, headerLength, binary.length - headerLength));
+    }
+
+    private static boolean hasDeflatedWorkHeader(byte[] binary) {
+        return binary.length > DEFLATED_WORK_HEADER.length && binary[0] == DEFLATED_WORK_HEADER[0] && binary[1] == DEFLATED_WORK_HEADER[1];
+    }
+
     public static byte[] encodeMessage(Message msg) {
         String encode = gson.toJson(msg);
         try {
@@ -112,6 +165,7 @@ public class MessageEncoding {
             boolean supportsBuildCommandProtocol = jsonObject.has("supportsBuildCommandProtocol") && jsonObject.get("supportsBuildCommandProtocol").getAsBoolean();
             String elasticPluginId = jsonObject.has("elasticPluginId") ? jsonObject.get("elasticPluginId").getAsString() : null;
             String elasticAgentId = jsonObject.has("elasticAgentId") ? jsonObject.get("elasticAgentId").getAsString() : null;
+            int workEncodingVersion = jsonObject.has("workEncodingVersion") ? jsonObject.get("workEncodingVersion").getAsInt() : LEGACY_WORK_ENCODING_VERSION;
 
             AgentRuntimeInfo info;
             if (elasticPluginId == null || StringUtils.isBlank(elasticPluginId)) {
@@ -123,6 +177,7 @@ public class MessageEncoding {
             info.setOperatingSystem(operatingSystemName);
             info.setSupportsBuildCommandProtocol(supportsBuildCommandProtocol);
             info.setBuildingInfo(buildingInfo);
+            info.setWorkEncodingVersion(workEncodingVersion);
             return info;
         }
     }
@@ -28,10 +28,15 @@ import org.junit.rules.TemporaryFolder;
 import org.springframework.core.io.ClassPathResource;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static com.thoughtworks.go.domain.UnitTestReportGenerator.*;
 import static com.thoughtworks.go.util.TestUtils.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -65,7 +70,7 @@ public class UnitTestReportGeneratorTest {
 
         copyAndClose(source("TestResult.xml"), target("test-result.xml"));
         final Properties properties = generator.generate(testFolder.listFiles(), "testoutput");
-        assertThat(testFolder.listFiles().length, is(2));
+        assertThat(testFolder.listFiles().length, is(3));
         verify(publisher).upload(any(File.class), any(String.class));
         verify(publisher).setProperty(new Property(TOTAL_TEST_COUNT, "206"));
         verify(publisher).setProperty(new Property(FAILED_TEST_COUNT, "0"));
@@ -77,7 +82,7 @@ public class UnitTestReportGeneratorTest {
     public void shouldGenerateReportForNUnitXmlWithByteOrderMark() throws IOException, ArtifactPublishingException {
         copyAndClose(source("NunitTestResultWithByteOrderMark.xml"), target("test-result.xml"));
         generator.generate(testFolder.listFiles(), "testoutput");
-        assertThat(testFolder.listFiles().length, is(2));
+        assertThat(testFolder.listFiles().length, is(3));
         verify(publisher).upload(any(File.class), any(String.class));
         verify(publisher).setProperty(new Property(TOTAL_TEST_COUNT, "18"));
         verify(publisher).setProperty(new Property(FAILED_TEST_COUNT, "0"));
@@ -170,6 +175,71 @@ public class UnitTestReportGeneratorTest {
         verify(publisher).setProperty(new Property(TEST_TIME, "1.286"));
     }
 
+    @Test
+    public void shouldListFailuresInGeneratedReport() throws IOException {
+        copyAndClose(source("UnitTestReportGeneratorTest.xml"), target("UnitTestReportGeneratorTest.xml"));
+
+        generator.generate(testFolder.listFiles(), "testoutput");
+
+        String report = FileUtils.readFileToString(new File(testFolder, TEST_RESULTS_FILE), StandardCharsets.UTF_8);
+        assertThat(report, containsString("<span class=\"tests_failed_count\">3</span>"));
+        assertThat(report, containsString("Unit Test Failure and Error Details (3)"));
+        assertThat(report, containsString("shouldGenerateReportForJUnitAlso"));
+    }
+
+    @Test
+    public void shouldBreakLinesOfFailureDetailsInGeneratedReport() throws IOException {
+        copyAndClose(source("UnitTestReportGeneratorTest.xml"), target("UnitTestReportGeneratorTest.xml"));
+
+        generator.generate(testFolder.listFiles(), "testoutput");
+
+        String report = FileUtils.readFileToString(new File(testFolder, TEST_RESULTS_FILE), StandardCharsets.UTF_8);
+        assertThat(report, containsString("junit.framework.AssertionFailedError:<br/>Expected: is"));
+    }
+
+    @Test
+    public void shouldReportTestFilesThatCouldNotBeRead() throws IOException, ArtifactPublishingException {
+        generator.generate(new File[]{new File(testFolder.getRoot(), "missing.xml")}, "testoutput");
+
+        verify(publisher).consumeLine("The file missing.xml could not be parsed. It seems to be invalid.");
+        expectZeroedProperties();
+    }
+
+    @Test
+    public void shouldMergeOnlyRecognisedTestFiles() throws IOException {
+        copyAndClose(source("UnitTestReportGeneratorTest.xml"), target("UnitTestReportGeneratorTest.xml"));
+        copyAndClose(source("xml_samples/Coverage.xml"), target("Coverage.xml"));
+        ByteArrayOutputStream merged = new ByteArrayOutputStream();
+
+        generator.merge(testFolder.listFiles(), merged);
+
+        String mergedXml = new String(merged.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(mergedXml, startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>"));
+        assertThat(mergedXml, containsString("shouldGenerateReportForJUnitAlso"));
+        assertThat(mergedXml.trim().endsWith("</all-results>"), is(true));
+        verify(publisher).consumeLine("Ignoring file Coverage.xml - it is not a recognised test file.");
+    }
+
+    @Test
+    public void shouldWriteOutcomeOfEveryTestCaseWhenAsked() throws IOException {
+        copyAndClose(source("UnitTestReportGeneratorTest.xml"), target("UnitTestReportGeneratorTest.xml"));
+
+        new UnitTestReportGenerator(publisher, testFolder, true).generate(testFolder.listFiles(), "testoutput");
+
+        List<String> testCases = FileUtils.readLines(new File(testFolder, TEST_CASES_FILE), StandardCharsets.UTF_8);
+        assertThat(testCases.size(), is(4));
+        assertThat(testCases, hasItem(startsWith("failed\t")));
+    }
+
+    @Test
+    public void shouldNotWriteOutcomeOfEveryTestCaseByDefault() throws IOException {
+        copyAndClose(source("UnitTestReportGeneratorTest.xml"), target("UnitTestReportGeneratorTest.xml"));
+
+        generator.generate(testFolder.listFiles(), "testoutput");
+
+        assertThat(new File(testFolder, TEST_CASES_FILE).exists(), is(false));
+    }
+
     @Test
     public void shouldGenerateReportForNUnitGivenMutipleInputFiles() throws IOException, ArtifactPublishingException {
         copyAndClose(source("TestReport-Integration.xml"), target("test-result1.xml"));
@@ -27,6 +27,7 @@ import com.thoughtworks.go.helper.TestRepo;
 import com.thoughtworks.go.mail.SysOutStreamConsumer;
 import com.thoughtworks.go.util.DateUtils;
 import com.thoughtworks.go.util.FileUtil;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.*;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -304,6 +305,37 @@ public class GitCommandTest {
         assertThat(files.get(0).getAction()).isEqualTo(ModifiedAction.modified);
     }
 
+    @Test
+    void shouldFetchOnlyWhenRemoteBranchHasChanged() throws Exception {
+        File fetchHead = new File(gitLocalRepoDir, ".git/FETCH_HEAD");
+
+        git.latestModification();
+        assertThat(fetchHead).doesNotExist();
+
+        String newRevision = gitRepo.checkInOneFile("new-file", "added a file").get(0).getRevision();
+
+        assertThat(git.latestModification().get(0).getRevision()).isEqualTo(newRevision);
+        assertThat(fetchHead).exists();
+    }
+
+    @Test
+    void shouldFetchWithoutAskingTheRemoteWhenTheRemoteBranchIsNotKnownLocally() throws Exception {
+        executeOnGitRepo("git", "update-ref", "-d", "refs/remotes/origin/master");
+
+        git.latestModification();
+
+        assertThat(new File(gitLocalRepoDir, ".git/FETCH_HEAD")).exists();
+    }
+
+    @Test
+    void shouldAlwaysFetchWhenRemoteBranchCheckIsTurnedOff() throws Exception {
+        System.setProperty(SystemEnvironment.GO_SERVER_GIT_LS_REMOTE_BEFORE_FETCH.propertyName(), "false");
+
+        git.latestModification();
+
+        assertThat(new File(gitLocalRepoDir, ".git/FETCH_HEAD")).exists();
+    }
+
     @Test
     void retrieveLatestModificationShouldNotResultInWorkingCopyCheckOut() throws Exception {
         git.latestModification();
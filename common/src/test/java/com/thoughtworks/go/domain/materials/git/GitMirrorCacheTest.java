@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.domain.materials.git;
+
+import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
+import com.thoughtworks.go.helper.TestRepo;
+import com.thoughtworks.go.util.command.InMemoryStreamConsumer;
+import com.thoughtworks.go.util.command.UrlArgument;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.migrationsupport.rules.EnableRuleMigrationSupport;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+
+import static com.thoughtworks.go.util.command.ProcessOutputStreamConsumer.inMemoryConsumer;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnableRuleMigrationSupport
+public class GitMirrorCacheTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private GitTestRepo gitRepo;
+    private UrlArgument repoUrl;
+    private File mirrorsDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gitRepo = new GitTestRepo(temporaryFolder);
+        repoUrl = new UrlArgument(gitRepo.projectRepositoryUrl());
+        mirrorsDir = temporaryFolder.newFolder("mirrors");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestRepo.internalTearDown();
+    }
+
+    @Test
+    void shouldCloneWorkingCopiesWithReferenceToTheMirror() throws Exception {
+        GitMirrorCache cache = new GitMirrorCache(mirrorsDir, Long.MAX_VALUE);
+        File workingCopy = new File(temporaryFolder.newFolder(), "working-copy");
+        File mirror = cache.update(repoUrl, workingCopy, new HashMap<>(), Collections.emptyList(), inMemoryConsumer());
+
+        GitCommand git = new GitCommand(null, workingCopy, GitMaterialConfig.DEFAULT_BRANCH, false, new HashMap<>(), null);
+        InMemoryStreamConsumer output = inMemoryConsumer();
+        assertThat(git.cloneWithReference(output, repoUrl.forCommandLine(), mirror)).as(output.getAllOutput()).isEqualTo(0);
+
+        assertThat(GitMirrorCache.hasReference(workingCopy)).isTrue();
+        assertThat(GitMirrorCache.hasMissingReference(workingCopy)).isFalse();
+        assertThat(git.currentRevision()).isEqualTo(gitRepo.latestModification().get(0).getRevision());
+    }
+
+    @Test
+    void shouldFetchNewCommitsIntoAnExistingMirror() throws Exception {
+        GitMirrorCache cache = new GitMirrorCache(mirrorsDir, Long.MAX_VALUE);
+        File workingCopy = new File(temporaryFolder.newFolder(), "working-copy");
+        File mirror = cache.update(repoUrl, workingCopy, new HashMap<>(), Collections.emptyList(), inMemoryConsumer());
+
+        String newRevision = gitRepo.checkInOneFile("new-file", "added a file").get(0).getRevision();
+        assertThat(cache.update(repoUrl, workingCopy, new HashMap<>(), Collections.emptyList(), inMemoryConsumer())).isEqualTo(mirror);
+
+        assertThat(new GitCommand(null, mirror, null, false, new HashMap<>(), null).currentRevision()).isEqualTo(newRevision);
+    }
+
+    @Test
+    void shouldRemoveLeastRecentlyUsedMirrorsOnceOverTheSizeLimit() throws Exception {
+        File unusedMirror = new File(mirrorsDir, "unused.git");
+        FileUtils.writeStringToFile(new File(unusedMirror, "objects/pack/some.pack"), "content", UTF_8);
+        unusedMirror.setLastModified(System.currentTimeMillis() - 60_000);
+
+        GitMirrorCache cache = new GitMirrorCache(mirrorsDir, 1);
+        File mirror = cache.update(repoUrl, temporaryFolder.newFolder(), new HashMap<>(), Collections.emptyList(), inMemoryConsumer());
+
+        assertThat(unusedMirror).doesNotExist();
+        assertThat(mirror).isDirectory();
+    }
+
+    @Test
+    void shouldNotRemoveMirrorsThatWorkingCopiesStillBorrowObjectsFrom() throws Exception {
+        File usedMirror = new File(mirrorsDir, "used.git");
+        FileUtils.writeStringToFile(new File(usedMirror, "objects/pack/some.pack"), "content", UTF_8);
+        usedMirror.setLastModified(System.currentTimeMillis() - 60_000);
+        File workingCopy = temporaryFolder.newFolder("working-copy");
+        FileUtils.writeStringToFile(new File(workingCopy, ".git/objects/info/alternates"), new File(usedMirror, "objects").getAbsolutePath() + "\n", UTF_8);
+        FileUtils.writeStringToFile(new File(mirrorsDir, "used.users"), "0\t" + workingCopy.getAbsolutePath() + "\n", UTF_8);
+
+        GitMirrorCache cache = new GitMirrorCache(mirrorsDir, 1);
+        cache.update(repoUrl, temporaryFolder.newFolder(), new HashMap<>(), Collections.emptyList(), inMemoryConsumer());
+
+        assertThat(usedMirror).isDirectory();
+
+        FileUtils.deleteDirectory(workingCopy);
+        cache.update(repoUrl, temporaryFolder.newFolder(), new HashMap<>(), Collections.emptyList(), inMemoryConsumer());
+
+        assertThat(usedMirror).doesNotExist();
+        assertThat(new File(mirrorsDir, "used.users")).doesNotExist();
+    }
+
+    @Test
+    void shouldDetectWorkingCopiesWhoseMirrorHasBeenRemoved() throws Exception {
+        GitMirrorCache cache = new GitMirrorCache(mirrorsDir, Long.MAX_VALUE);
+        File workingCopy = new File(temporaryFolder.newFolder(), "working-copy");
+        File mirror = cache.update(repoUrl, workingCopy, new HashMap<>(), Collections.emptyList(), inMemoryConsumer());
+        new GitCommand(null, workingCopy, GitMaterialConfig.DEFAULT_BRANCH, false, new HashMap<>(), null)
+                .cloneWithReference(inMemoryConsumer(), repoUrl.forCommandLine(), mirror);
+
+        FileUtils.deleteDirectory(mirror);
+
+        assertThat(GitMirrorCache.hasMissingReference(workingCopy)).isTrue();
+    }
+}
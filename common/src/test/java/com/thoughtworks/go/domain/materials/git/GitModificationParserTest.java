@@ -17,9 +17,18 @@
 package com.thoughtworks.go.domain.materials.git;
 
 import com.thoughtworks.go.util.DateUtils;
+import com.thoughtworks.go.util.command.CommandLine;
+import com.thoughtworks.go.util.command.CommandLineException;
+import org.apache.commons.lang3.SystemUtils;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
-import org.junit.Test;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
 
 public class GitModificationParserTest {
 
@@ -103,4 +112,38 @@ public class GitModificationParserTest {
                 parser.getModifications().get(1).getComment(),
                 is("My Comment 2"));
     }
+
+    @Test
+    public void shouldParseAVeryLongLogOneLineAtATime() {
+        int commits = 200_000;
+        for (int i = 0; i < commits; i++) {
+            parser.processLine(String.format("commit %040x", i));
+            parser.processLine("Author: Cruise Developer <cruise@cruise-sf3.(none)>");
+            parser.processLine("Date:   2009-08-11 13:08:51 -0700");
+            parser.processLine("");
+            parser.processLine("    Comment " + i);
+            parser.processLine("");
+        }
+
+        assertThat(parser.getModifications().size(), is(commits));
+        assertThat(parser.getModifications().get(commits - 1).getRevision(), is(String.format("%040x", commits - 1)));
+        assertThat(parser.getModifications().get(commits - 1).getComment(), is("Comment " + (commits - 1)));
+    }
+
+    @Test(timeout = 60_000)
+    public void shouldFailOnAMalformedLogLineOnlyOnceTheWholeLogHasBeenRead() {
+        assumeFalse(SystemUtils.IS_OS_WINDOWS);
+        // an author line before any commit cannot be parsed; the commits after it are far more than a pipe buffer holds
+        String log = "echo 'Author: Cruise Developer <cruise@cruise-sf3.(none)>'; i=0; "
+                + "while [ $i -lt 20000 ]; do echo 'commit 4e55d27dc7aad26dadb02a33db0518cb5ec54888'; i=$((i+1)); done";
+        CommandLine commandLine = CommandLine.createCommandLine("/bin/sh").withArgs("-c", log).withEncoding("utf-8");
+
+        try {
+            commandLine.runOrBomb(parser::processLine, "git-log");
+            fail("should have failed on the malformed line");
+        } catch (CommandLineException e) {
+            assertThat(e.getCause(), instanceOf(NoSuchElementException.class));
+        }
+        assertThat(parser.getModifications().isEmpty(), is(true));
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thoughtworks.go.listener;
+
+import com.thoughtworks.go.config.AdminUser;
+import com.thoughtworks.go.config.AgentConfig;
+import com.thoughtworks.go.config.BasicCruiseConfig;
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.helper.GoConfigMother;
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.*;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ConfigChangeSetTest {
+    @Test
+    public void shouldBeEmptyWhenNothingChanged() {
+        ConfigChangeSet changes = ConfigChangeSet.between(GoConfigMother.configWithPipelines("p1", "p2"), GoConfigMother.configWithPipelines("p1", "p2"));
+
+        assertThat(changes.isEmpty(), is(true));
+        assertThat(changes.hasPipelineChanged(new CaseInsensitiveString("p1")), is(false));
+    }
+
+    @Test
+    public void shouldReportEverythingAsChangedWhenThereIsNoPreviousConfig() {
+        ConfigChangeSet changes = ConfigChangeSet.between(null, GoConfigMother.configWithPipelines("p1"));
+
+        for (ConfigChangeSet.Kind kind : ConfigChangeSet.Kind.values()) {
+            assertThat(changes.hasChanged(kind), is(true));
+        }
+        assertThat(changes.hasPipelineChanged(new CaseInsensitiveString("any")), is(true));
+    }
+
+    @Test
+    public void shouldReportAddedModifiedAndRemovedPipelines() {
+        BasicCruiseConfig oldConfig = GoConfigMother.configWithPipelines("unchanged", "modified", "removed");
+        BasicCruiseConfig newConfig = GoConfigMother.configWithPipelines("unchanged", "modified", "added");
+        newConfig.pipelineConfigByName(new CaseInsensitiveString("modified")).setLabelTemplate("${COUNT}-changed");
+
+        ConfigChangeSet changes = ConfigChangeSet.between(oldConfig, newConfig);
+
+        assertThat(changes.hasChanged(PIPELINES), is(true));
+        assertThat(changes.hasPipelineChanged(new CaseInsensitiveString("unchanged")), is(false));
+        assertThat(changes.hasPipelineChanged(new CaseInsensitiveString("MODIFIED")), is(true));
+        assertThat(changes.hasPipelineChanged(new CaseInsensitiveString("removed")), is(true));
+        assertThat(changes.hasPipelineChanged(new CaseInsensitiveString("added")), is(true));
+        assertThat(changes.hasChangedAnyOf(EnumSet.of(AGENTS, ENVIRONMENTS, SECURITY, OTHER)), is(false));
+    }
+
+    @Test
+    public void shouldReportAgentEnvironmentAndSecurityChangesSeparately() {
+        BasicCruiseConfig oldConfig = GoConfigMother.configWithPipelines("p1");
+
+        BasicCruiseConfig withAgent = GoConfigMother.configWithPipelines("p1");
+        withAgent.agents().add(new AgentConfig("uuid", "host", "127.0.0.1"));
+        assertThat(ConfigChangeSet.between(oldConfig, withAgent).toString(), is("[AGENTS]"));
+
+        BasicCruiseConfig withEnvironment = GoConfigMother.configWithPipelines("p1");
+        withEnvironment.addEnvironment("uat");
+        assertThat(ConfigChangeSet.between(oldConfig, withEnvironment).toString(), is("[ENVIRONMENTS]"));
+
+        BasicCruiseConfig withAdmin = GoConfigMother.configWithPipelines("p1");
+        withAdmin.server().security().adminsConfig().add(new AdminUser("admin"));
+        ConfigChangeSet securityChanges = ConfigChangeSet.between(oldConfig, withAdmin);
+        assertThat(securityChanges.hasChanged(SECURITY), is(true));
+        assertThat(securityChanges.hasChanged(PIPELINES), is(false));
+    }
+}
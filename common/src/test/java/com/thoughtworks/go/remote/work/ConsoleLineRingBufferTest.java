@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.remote.work;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ConsoleLineRingBufferTest {
+    @Test
+    public void shouldRoundCapacityUpToAPowerOfTwo() {
+        assertThat(new ConsoleLineRingBuffer(10 * 1024).capacity(), is(16 * 1024));
+        assertThat(new ConsoleLineRingBuffer(8).capacity(), is(8));
+    }
+
+    @Test
+    public void shouldRejectLinesWhenFullUntilLinesAreTaken() {
+        ConsoleLineRingBuffer buffer = new ConsoleLineRingBuffer(2);
+        assertThat(buffer.offer("one"), is(true));
+        assertThat(buffer.offer("two"), is(true));
+        assertThat(buffer.offer("three"), is(false));
+
+        assertThat(buffer.poll(), is("one"));
+        assertThat(buffer.offer("four"), is(true));
+        assertThat(buffer.poll(), is("two"));
+        assertThat(buffer.poll(), is("four"));
+        assertThat(buffer.poll(), is(nullValue()));
+        assertThat(buffer.isEmpty(), is(true));
+    }
+}
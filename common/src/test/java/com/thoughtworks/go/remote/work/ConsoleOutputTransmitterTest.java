@@ -17,15 +17,23 @@
 package com.thoughtworks.go.remote.work;
 
 import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -35,6 +43,7 @@ public class ConsoleOutputTransmitterTest {
     private ConsoleAppender consoleAppender;
     private ArgumentCaptor<String> requestArgumentCaptor;
     private ConsoleOutputTransmitter transmitter;
+    private ScheduledThreadPoolExecutor executor;
 
     @Before
     public void setup() throws Exception {
@@ -44,7 +53,8 @@ public class ConsoleOutputTransmitterTest {
 
         requestArgumentCaptor = ArgumentCaptor.forClass(String.class);
         doNothing().when(consoleAppender).append(requestArgumentCaptor.capture());
-        transmitter = new ConsoleOutputTransmitter(consoleAppender, 0, mock(ScheduledThreadPoolExecutor.class));
+        executor = mock(ScheduledThreadPoolExecutor.class);
+        transmitter = new ConsoleOutputTransmitter(consoleAppender, 0, executor);
     }
 
     @After
@@ -70,4 +80,104 @@ public class ConsoleOutputTransmitterTest {
 
         verify(consoleAppender, never()).append(any(String.class));
     }
+
+    @Test
+    public void shouldRequestAFlushOnceEnoughOutputIsBuffered() {
+        transmitter.consumeLine("short line");
+        verify(executor, never()).execute(transmitter);
+
+        transmitter.consumeLine(StringUtils.repeat("x", ConsoleOutputTransmitter.FLUSH_THRESHOLD_IN_CHARS));
+        transmitter.consumeLine("another line");
+
+        verify(executor, times(1)).execute(transmitter);
+    }
+
+    @Test
+    public void shouldRequestAFlushOnceHalfTheBufferIsUsed() {
+        for (int i = 0; i < 8 * 1024 - 1; i++) {
+            transmitter.consumeLine("line " + i);
+        }
+        verify(executor, never()).execute(transmitter);
+
+        transmitter.consumeLine("one more line");
+
+        verify(executor, times(1)).execute(transmitter);
+    }
+
+    @Test
+    public void shouldDropOldestLinesWhenTheBufferIsFull() throws Exception {
+        for (int i = 0; i < 16 * 1024 + 2; i++) {
+            transmitter.consumeLine("line " + i);
+        }
+
+        transmitter.flushToServer();
+
+        String sent = requestArgumentCaptor.getValue();
+        assertThat(sent, not(containsString(" line 0\n")));
+        assertThat(sent, not(containsString(" line 1\n")));
+        assertThat(sent, containsString(" line 2\n"));
+        assertThat(sent, containsString(" line 16385\n"));
+        assertThat(transmitter.getStats().getCharsDropped() > 0, is(true));
+    }
+
+    @Test
+    public void shouldTellHowMuchOutputWasDroppedAtTheEndOfTheConsole() throws Exception {
+        for (int i = 0; i < 16 * 1024 + 1; i++) {
+            transmitter.consumeLine("line " + i);
+        }
+
+        transmitter.stop();
+
+        assertThat(requestArgumentCaptor.getValue(), containsString("characters of console output were dropped"));
+    }
+
+    @Test
+    public void shouldResendOutputThatCouldNotBeSentAlongWithNewOutput() throws Exception {
+        doThrow(new IOException("server unavailable")).doNothing().when(consoleAppender).append(requestArgumentCaptor.capture());
+        transmitter.consumeLine("first line");
+        transmitter.flushToServer();
+
+        transmitter.consumeLine("second line");
+        transmitter.flushToServer();
+
+        verify(consoleAppender, times(2)).append(any(String.class));
+        assertThat(requestArgumentCaptor.getValue(), containsString("first line\n"));
+        assertThat(requestArgumentCaptor.getValue(), containsString("second line\n"));
+        assertThat(transmitter.getStats().getFailedFlushes(), is(1L));
+        assertThat(transmitter.getStats().getFlushes(), is(1L));
+        assertThat(transmitter.getStats().getCharsBacklogged(), is(0L));
+    }
+
+    @Test
+    public void shouldPrefixEveryLineOfAMultilineMessage() throws Exception {
+        transmitter.taggedConsumeLine("er", "first\nsecond");
+        transmitter.flushToServer();
+
+        String[] lines = requestArgumentCaptor.getValue().split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], matchesPattern("er\\|\\d{2}:\\d{2}:\\d{2}\\.\\d{3} first"));
+        assertThat(lines[1], matchesPattern("er\\|\\d{2}:\\d{2}:\\d{2}\\.\\d{3} second"));
+    }
+
+    @Test
+    public void shouldNotLoseLinesConsumedConcurrently() throws Exception {
+        int threads = 4;
+        int linesPerThread = 1000;
+        ExecutorService producers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            int producer = i;
+            producers.submit(() -> {
+                for (int line = 0; line < linesPerThread; line++) {
+                    transmitter.consumeLine("producer " + producer + " line " + line);
+                }
+            });
+        }
+        producers.shutdown();
+        producers.awaitTermination(10, TimeUnit.SECONDS);
+        transmitter.flushToServer();
+
+        assertThat(requestArgumentCaptor.getValue().split("\n").length, is(threads * linesPerThread));
+        assertThat(transmitter.getStats().getLinesConsumed(), is((long) threads * linesPerThread));
+        assertThat(transmitter.getStats().getCharsDropped(), is(0L));
+    }
 }
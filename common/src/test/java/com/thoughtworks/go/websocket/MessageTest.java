@@ -92,6 +92,48 @@ public class MessageTest {
         assertThat(decodedWork.getAssignment().getJobIdentifier().getPipelineName(), is("pipelineName"));
     }
 
+    @Test
+    public void encodeAndDecodeAssignWorkUsingDeflatedEncoding() {
+        BuildWork work = buildWorkWithManyModifications();
+
+        String deflated = MessageEncoding.encodeWork(work, MessageEncoding.DEFLATED_WORK_ENCODING_VERSION);
+        String legacy = MessageEncoding.encodeWork(work, MessageEncoding.LEGACY_WORK_ENCODING_VERSION);
+
+        assertTrue(deflated.length() < legacy.length());
+        BuildWork decodedWork = (BuildWork) MessageEncoding.decodeWork(deflated);
+        assertThat(decodedWork.getAssignment().getJobIdentifier().getPipelineName(), is("pipelineName"));
+        assertThat(decodedWork.getAssignment().getBuildApprover(), is(work.getAssignment().getBuildApprover()));
+    }
+
+    @Test
+    public void shouldStillDecodeLegacyEncodedWork() {
+        BuildWork work = buildWorkWithManyModifications();
+
+        BuildWork decodedWork = (BuildWork) MessageEncoding.decodeWork(MessageEncoding.encodeWork(work));
+
+        assertThat(decodedWork.getAssignment().getJobIdentifier().getPipelineName(), is("pipelineName"));
+    }
+
+    @Test
+    public void shouldCarryWorkEncodingVersionInPingMessage() {
+        AgentRuntimeInfo info = new AgentRuntimeInfo(new AgentIdentifier("hostName", "ipAddress", "uuid"), null, null, null, false);
+        info.setWorkEncodingVersion(MessageEncoding.CURRENT_WORK_ENCODING_VERSION);
+
+        AgentRuntimeInfo decodedInfo = MessageEncoding.decodeData(MessageEncoding.encodeData(info), AgentRuntimeInfo.class);
+
+        assertThat(decodedInfo.getWorkEncodingVersion(), is(MessageEncoding.CURRENT_WORK_ENCODING_VERSION));
+    }
+
+    private BuildWork buildWorkWithManyModifications() {
+        File workingDir = new File(CruiseConfig.WORKING_BASE_DIR + "pipelineName");
+        MaterialRevisions revisions = ModificationsMother.multipleModifications();
+        BuildCause buildCause = BuildCause.createWithModifications(revisions, "");
+        List<Builder> builder = new ArrayList<>();
+        builder.add(new CommandBuilder("command", "args", workingDir, new RunIfConfigs(), new NullBuilder(), "desc"));
+        BuildAssignment assignment = BuildAssignment.create(jobPlan(), buildCause, builder, workingDir, new EnvironmentVariableContext(), new ArtifactStores());
+        return new BuildWork(assignment, "utf-8");
+    }
+
     private DefaultJobPlan jobPlan() {
         JobIdentifier jobIdentifier = new JobIdentifier("pipelineName", 1, "1", "defaultStage", "1", "job1", 100L);
         return new DefaultJobPlan(new Resources(), new ArrayList<>(), new ArrayList<>(), 1L, jobIdentifier, null, new EnvironmentVariables(), new EnvironmentVariables(), null, null);
@@ -20,11 +20,13 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.collect.Multimaps.synchronizedSetMultimap;
 
 public class PluginRoleUsersStore {
     private final SetMultimap<PluginRoleConfig, RoleUser> roleToUsersMappings = synchronizedSetMultimap(HashMultimap.create());
+    private final AtomicLong version = new AtomicLong();
 
     private PluginRoleUsersStore() {
 
@@ -35,7 +37,31 @@ public class PluginRoleUsersStore {
     }
 
     public void assignRole(String user, PluginRoleConfig pluginRoleConfig) {
-        roleToUsersMappings.put(pluginRoleConfig, new RoleUser(user));
+        if (roleToUsersMappings.put(pluginRoleConfig, new RoleUser(user))) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Makes {@code pluginRoles} the only plugin roles of a user. Unlike revoking all roles and assigning them again,
+     * this leaves {@link #version()} alone when the user already had exactly these roles.
+     */
+    public void replaceRolesFor(String username, Collection<PluginRoleConfig> pluginRoles) {
+        final RoleUser roleUser = new RoleUser(username);
+        boolean changed = false;
+        synchronized (roleToUsersMappings) {
+            for (PluginRoleConfig pluginRole : new HashSet<>(roleToUsersMappings.keySet())) {
+                if (!pluginRoles.contains(pluginRole)) {
+                    changed |= roleToUsersMappings.remove(pluginRole, roleUser);
+                }
+            }
+            for (PluginRoleConfig pluginRole : pluginRoles) {
+                changed |= roleToUsersMappings.put(pluginRole, roleUser);
+            }
+        }
+        if (changed) {
+            version.incrementAndGet();
+        }
     }
 
     public List<RoleUser> usersInRole(PluginRoleConfig pluginRoleConfig) {
@@ -51,7 +77,9 @@ public class PluginRoleUsersStore {
     }
 
     public void remove(PluginRoleConfig pluginRole) {
-        roleToUsersMappings.removeAll(pluginRole);
+        if (!roleToUsersMappings.removeAll(pluginRole).isEmpty()) {
+            version.incrementAndGet();
+        }
     }
 
     public void remove(Collection<PluginRoleConfig> pluginRoles) {
@@ -62,12 +90,23 @@ public class PluginRoleUsersStore {
 
     public void revokeAllRolesFor(String username) {
         final RoleUser roleUser = new RoleUser(username);
+        boolean changed = false;
         synchronized (roleToUsersMappings) {
             Set<PluginRoleConfig> pluginRoles = new HashSet<>(roleToUsersMappings.keySet());
             for (PluginRoleConfig pluginRole : pluginRoles) {
-                roleToUsersMappings.get(pluginRole).remove(roleUser);
+                changed |= roleToUsersMappings.get(pluginRole).remove(roleUser);
             }
         }
+        if (changed) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return a number that changes whenever a user is actually assigned to or removed from a plugin role
+     */
+    public long version() {
+        return version.get();
     }
 
     protected Set<PluginRoleConfig> pluginRoles() {
@@ -77,6 +116,7 @@ public class PluginRoleUsersStore {
 //    Used only in tests
     public void clearAll() {
         roleToUsersMappings.clear();
+        version.incrementAndGet();
     }
 
     private static class PluginRoleUsersStoreHolder {
@@ -20,6 +20,7 @@ import java.io.File;
 
 public interface TestReportGenerator {
     public static final String TEST_RESULTS_FILE = "index.html";
+    public static final String TEST_CASES_FILE = "test-cases.tsv";
     public static final String TOTAL_TEST_COUNT = "tests_total_count";
     public static final String FAILED_TEST_COUNT = "tests_failed_count";
     public static final String IGNORED_TEST_COUNT = "tests_ignored_count";
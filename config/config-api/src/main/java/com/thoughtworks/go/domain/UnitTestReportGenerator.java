@@ -17,110 +17,135 @@
 package com.thoughtworks.go.domain;
 
 import com.thoughtworks.go.util.FileUtil;
-import com.thoughtworks.go.util.TestFileUtil;
-import com.thoughtworks.go.util.XpathUtils;
 import com.thoughtworks.go.work.GoPublisher;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.xml.transform.Source;
-import javax.xml.transform.Templates;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.xpath.XPathExpressionException;
+import javax.xml.stream.XMLStreamException;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
 
 public class UnitTestReportGenerator implements TestReportGenerator {
     private final File folderToUpload;
+    private final boolean writeTestCases;
     private GoPublisher publisher;
-    private static Templates templates;
 
     private static final Logger LOG = LoggerFactory.getLogger(UnitTestReportGenerator.class);
 
-    static {
-        try (InputStream xslt = UnitTestReportGenerator.class.getResourceAsStream("unittests.xsl")) {
-            templates = TransformerFactory.newInstance().newTemplates(new StreamSource(xslt));
-        } catch (Exception e) {
-            LOG.error("Could not load unit test converters", e);
-        }
+    public UnitTestReportGenerator(GoPublisher publisher, File folderToUpload) {
+        this(publisher, folderToUpload, false);
     }
 
-    public UnitTestReportGenerator(GoPublisher publisher, File folderToUpload) {
+    /**
+     * @param writeTestCases whether to also write the outcome of every test case to {@link #TEST_CASES_FILE}, for
+     *                       the test result index of the server
+     */
+    public UnitTestReportGenerator(GoPublisher publisher, File folderToUpload, boolean writeTestCases) {
         this.publisher = publisher;
         this.folderToUpload = folderToUpload;
+        this.writeTestCases = writeTestCases;
     }
 
     public Properties generate(File[] allTestFiles, String uploadDestPath) {
-        FileOutputStream transformedHtml = null;
         File mergedResults = new File(folderToUpload.getAbsolutePath() + FileUtil.fileseparator() + TEST_RESULTS_FILE);
-        File mergedResource = null;
-        FileInputStream mergedFileStream = null;
+        File testCases = writeTestCases ? new File(folderToUpload.getAbsolutePath() + FileUtil.fileseparator() + TEST_CASES_FILE) : null;
         try {
-            mergedResource = mergeAllTestResultToSingleFile(allTestFiles);
-            transformedHtml = new FileOutputStream(mergedResults);
-
-            try {
-                mergedFileStream = new FileInputStream(mergedResource);
-                Source xmlSource = new StreamSource(mergedFileStream);
-                StreamResult result = new StreamResult(transformedHtml);
-                templates.newTransformer().transform(xmlSource, result);
+            UnitTestResults results = aggregate(allTestFiles, testCases);
+
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(mergedResults), StandardCharsets.UTF_8))) {
+                results.writeHtml(out);
             } catch (Exception e) {
                 publisher.reportErrorMessage("Unable to publish test properties. Error was " + e.getMessage(), e);
             }
 
-            extractProperties(mergedResults);
+            extractProperties(results);
             publisher.upload(mergedResults, uploadDestPath);
 
             return null;
         } catch (Exception e) {
             publisher.reportErrorMessage("Unable to publish test properties. Error was " + e.getMessage(), e);
-        } finally {
-            IOUtils.closeQuietly(mergedFileStream);
-            IOUtils.closeQuietly(transformedHtml);
-            if (mergedResource != null) {
-                mergedResource.delete();
-            }
         }
         return new Properties();
     }
 
-    private Properties extractProperties(File fileSendToServer) {
-        final Properties properties = new Properties();
-        addProperty(fileSendToServer, "tests_total_count", TOTAL_TEST_COUNT);
-        addProperty(fileSendToServer, "tests_failed_count", FAILED_TEST_COUNT);
-        addProperty(fileSendToServer, "tests_ignored_count", IGNORED_TEST_COUNT);
-        addProperty(fileSendToServer, "tests_total_duration", TEST_TIME);
-        return properties;
-    }
+    /**
+     * @param testCases where the outcome of every test case is written, null to discard them
+     */
+    private UnitTestResults aggregate(File[] allTestFiles, File testCases) throws IOException {
+        List<File> testFiles = new ArrayList<>();
+        for (File testFile : allTestFiles) {
+            if (testFile.isDirectory()) {
+                testFiles.addAll(FileUtils.listFiles(testFile, new String[]{"xml"}, true));
+            } else {
+                testFiles.add(testFile);
+            }
+        }
 
-    private File mergeAllTestResultToSingleFile(File[] allTestFiles) throws IOException {
-        FileOutputStream mergedResourcesStream = null;
+        File testCaseParts = testCases == null ? null : Files.createTempDirectory("test-cases").toFile();
         try {
-            File mergedResource = TestFileUtil.createUniqueTempFile("mergedFile.xml");
-            mergedResourcesStream = new FileOutputStream(mergedResource);
-            merge(allTestFiles, mergedResourcesStream);
-            return mergedResource;
+            List<UnitTestResults> resultsPerFile = IntStream.range(0, testFiles.size()).parallel()
+                    .mapToObj(i -> parse(testFiles.get(i), testCaseParts == null ? null : new File(testCaseParts, i + ".tsv")))
+                    .collect(toList());
+
+            UnitTestResults aggregated = new UnitTestResults();
+            List<File> validTestCaseParts = new ArrayList<>();
+            for (int i = 0; i < testFiles.size(); i++) {
+                UnitTestResults results = resultsPerFile.get(i);
+                if (isValidTestFile(testFiles.get(i), results)) {
+                    aggregated.add(results);
+                    validTestCaseParts.add(new File(testCaseParts, i + ".tsv"));
+                }
+            }
+            if (testCases != null) {
+                try (OutputStream testCasesStream = new BufferedOutputStream(new FileOutputStream(testCases))) {
+                    for (File part : validTestCaseParts) {
+                        Files.copy(part.toPath(), testCasesStream);
+                    }
+                }
+            }
+            return aggregated;
         } finally {
-            IOUtils.closeQuietly(mergedResourcesStream);
+            FileUtils.deleteQuietly(testCaseParts);
         }
     }
 
-    private void addProperty(File xmlFile, String cssClass, String cruiseProperty) {
-        try {
-            String xpath = "//div/p/span[@class='" + cssClass + "']";
-            String output = XpathUtils.evaluate(xmlFile, xpath);
-            output = output.startsWith(".") ? "0" + output : output;
-            Property property = new Property(cruiseProperty, output);
-            publisher.setProperty(property);
+    /**
+     * @param testCases where the outcome of every test case is written, null to discard them
+     * @return null when the file could not be read; malformed xml is treated as not being a test file
+     */
+    private UnitTestResults parse(File testFile, File testCases) {
+        try (Writer testCasesWriter = testCases == null ? new NullWriter() : new BufferedWriter(new OutputStreamWriter(new FileOutputStream(testCases), StandardCharsets.UTF_8))) {
+            return UnitTestResults.parse(testFile, testCasesWriter);
+        } catch (XMLStreamException e) {
+            LOG.debug("Test file {} is not well formed", testFile, e);
+            return new UnitTestResults();
         } catch (Exception e) {
-            publisher.consumeLine("Could not publish property " + e.getMessage());
+            LOG.debug("Could not parse test file {}", testFile, e);
+            return null;
         }
     }
 
+    private boolean isValidTestFile(File testFile, UnitTestResults results) {
+        if (results == null) {
+            publisher.consumeLine(MessageFormat.format("The file {0} could not be parsed. It seems to be invalid.", testFile.getName()));
+            return false;
+        }
+        if (!results.isTestFile()) {
+            publisher.consumeLine(MessageFormat.format("Ignoring file {0} - it is not a recognised test file.", testFile.getName()));
+            return false;
+        }
+        return true;
+    }
+
     public void merge(File[] testFiles, OutputStream outputStream) throws IOException {
         PrintStream out = new PrintStream(outputStream, true, "UTF-8");
         out.println("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
@@ -128,8 +153,8 @@ public class UnitTestReportGenerator implements TestReportGenerator {
 
         for (File testFile : testFiles) {
             if (testFile.isDirectory()) {
-                for (Object file : FileUtils.listFiles(testFile, new String[]{"xml"}, true)) {
-                    pumpFileContentIfValid(out, (File) file);
+                for (File file : FileUtils.listFiles(testFile, new String[]{"xml"}, true)) {
+                    pumpFileContentIfValid(out, file);
                 }
             } else {
                 pumpFileContentIfValid(out, testFile);
@@ -139,49 +164,33 @@ public class UnitTestReportGenerator implements TestReportGenerator {
     }
 
     private void pumpFileContentIfValid(PrintStream out, File testFile) throws IOException {
-        if (!isValidXml(testFile)) {
+        if (!isValidTestFile(testFile, parse(testFile, null))) {
             return;
         }
-        pumpFileContent(testFile, out);
-    }
-
-    private void pumpFileContent(File file, PrintStream out) throws IOException {
-        BufferedReader bufferedReader = null;
-        try {
-            bufferedReader = new BufferedReader(new FileReader(file));
-            String line = bufferedReader.readLine();
-            if (!line.contains("<?xml")) { // skip prolog
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(testFile), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line != null && !line.contains("<?xml")) { // skip prolog
                 out.println(line);
             }
-            while ((line = bufferedReader.readLine()) != null) {
+            while ((line = reader.readLine()) != null) {
                 out.println(line);
             }
-        } finally {
-            IOUtils.closeQuietly(bufferedReader);
         }
     }
 
-    private boolean isValidXml(File file) {
-        try {
-            boolean isTestFile = nodeExists(file, "//test-results") || nodeExists(file, "//testsuite");
-
-            if (!isTestFile) {
-                publisher.consumeLine(MessageFormat.format("Ignoring file {0} - it is not a recognised test file.", file.getName()));
-            }
-
-            return isTestFile;
-        } catch (Exception e) {
-            publisher.consumeLine(MessageFormat.format("The file {0} could not be parsed. It seems to be invalid.", file.getName()));
-            return false;
-        }
+    private void extractProperties(UnitTestResults results) {
+        addProperty(TOTAL_TEST_COUNT, String.valueOf(results.runCount()));
+        addProperty(FAILED_TEST_COUNT, String.valueOf(results.failureCount()));
+        addProperty(IGNORED_TEST_COUNT, String.valueOf(results.notRunCount()));
+        addProperty(TEST_TIME, results.formattedTime());
     }
 
-    private boolean nodeExists(File file, String xpath) {
+    private void addProperty(String cruiseProperty, String output) {
         try {
-            return XpathUtils.nodeExists(file, xpath);
-        } catch (Exception ignored) {
-            return false;
+            output = output.startsWith(".") ? "0" + output : output;
+            publisher.setProperty(new Property(cruiseProperty, output));
+        } catch (Exception e) {
+            publisher.consumeLine("Could not publish property " + e.getMessage());
         }
     }
-
 }
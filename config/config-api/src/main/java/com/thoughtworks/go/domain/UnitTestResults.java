@@ -0,0 +1,547 @@
+/*
+ * Copyright 2018 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.domain;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Counts and failure details of JUnit and NUnit test result files, collected with a single streaming pass over
+ * each file. Only failing and not-run test cases are retained, so memory does not grow with the number of passing
+ * tests. Results of several files can be combined with {@link #add(UnitTestResults)} in file order.
+ * <p>
+ * The outcome of every test case is written out during the same pass as one line of
+ * {@link TestReportGenerator#TEST_CASES_FILE}, so that the server can index test history without parsing the HTML
+ * report.
+ */
+class UnitTestResults {
+    private static final Pattern XPATH_NUMBER = Pattern.compile("\\s*-?(\\d+(\\.\\d*)?|\\.\\d+)\\s*");
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal.withInitial(UnitTestResults::inputFactory);
+
+    private boolean testFile;
+
+    private int nunitCaseCount;
+    private int nunitFailureCount;
+    private int nunitNotRunCount;
+    private double nunitTime;
+
+    private int junitCaseCount;
+    private int junitFailureCount;
+    private int junitErrorCount;
+    private double junitTime;
+
+    private final List<String> errorNames = new ArrayList<>();
+    private final List<String> failureNames = new ArrayList<>();
+    private final List<String> notRunNames = new ArrayList<>();
+
+    private final List<TestCase> junitErrorDetails = new ArrayList<>();
+    private final List<TestCase> junitFailureDetails = new ArrayList<>();
+    private final List<TestCase> nunitFailureDetails = new ArrayList<>();
+    private final List<TestCase> nunitNotRunDetails = new ArrayList<>();
+
+    /**
+     * @param testCases receives one tab separated line per test case: status, duration in milliseconds (-1 when
+     *                  unknown) and name
+     */
+    static UnitTestResults parse(File file, Writer testCases) throws IOException, XMLStreamException {
+        UnitTestResults results = new UnitTestResults();
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+            XMLStreamReader reader = INPUT_FACTORY.get().createXMLStreamReader(stream);
+            try {
+                new Parser(results, testCases).parse(reader);
+            } finally {
+                reader.close();
+            }
+        }
+        return results;
+    }
+
+    boolean isTestFile() {
+        return testFile;
+    }
+
+    void add(UnitTestResults other) {
+        nunitCaseCount += other.nunitCaseCount;
+        nunitFailureCount += other.nunitFailureCount;
+        nunitNotRunCount += other.nunitNotRunCount;
+        nunitTime += other.nunitTime;
+        junitCaseCount += other.junitCaseCount;
+        junitFailureCount += other.junitFailureCount;
+        junitErrorCount += other.junitErrorCount;
+        junitTime += other.junitTime;
+        errorNames.addAll(other.errorNames);
+        failureNames.addAll(other.failureNames);
+        notRunNames.addAll(other.notRunNames);
+        junitErrorDetails.addAll(other.junitErrorDetails);
+        junitFailureDetails.addAll(other.junitFailureDetails);
+        nunitFailureDetails.addAll(other.nunitFailureDetails);
+        nunitNotRunDetails.addAll(other.nunitNotRunDetails);
+    }
+
+    int runCount() {
+        return nunitCaseCount + junitCaseCount - nunitNotRunCount;
+    }
+
+    int failureCount() {
+        return nunitFailureCount + junitFailureCount + junitErrorCount;
+    }
+
+    int notRunCount() {
+        return nunitNotRunCount;
+    }
+
+    String formattedTime() {
+        double time = nunitTime + junitTime;
+        if (Double.isNaN(time)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(time)) {
+            return time > 0 ? "Infinity" : "-Infinity";
+        }
+        return new DecimalFormat("##.000", DecimalFormatSymbols.getInstance(Locale.US)).format(time);
+    }
+
+    void writeHtml(PrintWriter out) {
+        out.println("<table class=\"section-table\" cellpadding=\"2\" cellspacing=\"0\" border=\"0\" width=\"98%\">");
+        out.println("<div class=\"tests\">");
+        out.println("<p>Tests run: <span class=\"tests_total_count\">" + runCount() + "</span>"
+                + ", Failures: <span class=\"tests_failed_count\">" + failureCount() + "</span>"
+                + ", Not run: <span class=\"tests_ignored_count\">" + notRunCount() + "</span>"
+                + ", Time: <span class=\"tests_total_duration\">" + formattedTime() + "</span> seconds.</p>");
+        out.println("</div>");
+
+        if (runCount() == 0) {
+            row(out, "<td colspan=\"2\" class=\"section-data\">No Tests Run</td>");
+            row(out, "<td colspan=\"2\" class=\"section-error\">This project doesn't have any tests</td>");
+        } else if (failureCount() == 0) {
+            row(out, "<td colspan=\"2\" class=\"section-data\">All Tests Passed</td>");
+        }
+
+        summaryRows(out, "Error", errorNames, 0);
+        summaryRows(out, "Failure", failureNames, errorNames.size());
+        summaryRows(out, "Warning", notRunNames, failureCount());
+        row(out, "<td colspan=\"2\"></td>");
+
+        if (failureCount() > 0) {
+            row(out, "<td class=\"sectionheader\" colspan=\"2\">Unit Test Failure and Error Details (" + failureCount() + ")</td>");
+            junitDetails(out, junitErrorDetails);
+            junitDetails(out, junitFailureDetails);
+            nunitDetails(out, nunitFailureDetails);
+            row(out, "<td colspan=\"2\"></td>");
+        }
+
+        if (notRunCount() > 0) {
+            row(out, "<td class=\"sectionheader\" colspan=\"2\">Warning Details (" + notRunCount() + ")</td>");
+            nunitDetails(out, nunitNotRunDetails);
+            row(out, "<td colspan=\"2\"></td>");
+        }
+        out.println("</table>");
+    }
+
+    private void summaryRows(PrintWriter out, String type, List<String> names, int offset) {
+        for (int i = 0; i < names.size(); i++) {
+            String rowClass = (offset + i + 1) % 2 == 0 ? " class=\"section-oddrow\"" : "";
+            out.println("<tr" + rowClass + "><td class=\"section-data\">" + type + "</td><td class=\"section-data\">" + escape(names.get(i)) + "</td></tr>");
+        }
+    }
+
+    private void junitDetails(PrintWriter out, List<TestCase> testCases) {
+        for (TestCase testCase : testCases) {
+            dataRow(out, "Test:", testCase.name);
+            if (testCase.hasError) {
+                dataRow(out, "Type:", "Error");
+                dataRow(out, "Message:", testCase.errorMessage);
+                row(out, "<td></td><td class=\"section-error\"><pre>" + withLineBreaks(escape(testCase.errorText)) + "</pre></td>");
+            }
+            if (testCase.hasFailure) {
+                dataRow(out, "Type:", "Failure");
+                dataRow(out, "Message:", testCase.failureMessage);
+                row(out, "<td></td><td class=\"section-error\"><pre>" + withLineBreaks(escape(testCase.failureText)) + "</pre></td>");
+            }
+            row(out, "<td colspan=\"2\"></td>");
+        }
+    }
+
+    private void nunitDetails(PrintWriter out, List<TestCase> testCases) {
+        for (TestCase testCase : testCases) {
+            if (testCase.hasFailure) {
+                dataRow(out, "Test:", testCase.name);
+                dataRow(out, "Type:", "Failure");
+                dataRow(out, "Message:", testCase.failureMessage);
+                row(out, "<td></td><td class=\"section-error\"><pre>" + withLineBreaks(escape(testCase.failureText)) + "</pre></td>");
+            }
+            if (testCase.hasReason) {
+                dataRow(out, "Test:", testCase.name);
+                dataRow(out, "Type:", "Warning");
+                dataRow(out, "Message:", testCase.reasonMessage);
+            }
+            row(out, "<td colspan=\"2\"></td>");
+        }
+    }
+
+    private static void dataRow(PrintWriter out, String label, String value) {
+        row(out, "<td class=\"section-data\">" + label + "</td><td class=\"section-data\">" + escape(value) + "</td>");
+    }
+
+    private static void row(PrintWriter out, String cells) {
+        out.println("<tr>" + cells + "</tr>");
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String withLineBreaks(String text) {
+        return text.replace("\n", "<br/>");
+    }
+
+    // Same semantics as the XPath number() function: anything but a plain decimal is NaN
+    private static double number(String value) {
+        if (value == null || !XPATH_NUMBER.matcher(value).matches()) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(value.trim());
+    }
+
+    private static XMLInputFactory inputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static void writeTestCaseLine(Writer out, TestCase testCase) throws IOException {
+        String status;
+        if (testCase.hasError) {
+            status = "error";
+        } else if (testCase.hasFailure) {
+            status = "failed";
+        } else if (testCase.hasReason || testCase.skipped) {
+            status = "skipped";
+        } else {
+            status = "passed";
+        }
+        double duration = number(testCase.time);
+        long durationInMillis = Double.isNaN(duration) ? -1 : Math.round(duration * 1000);
+        String name = testCase.className == null ? testCase.name : testCase.className + "." + testCase.name;
+        out.append(status).append('\t')
+                .append(String.valueOf(durationInMillis)).append('\t')
+                .append(name == null ? "" : name.replaceAll("[\\t\\r\\n]", " ")).append('\n');
+    }
+
+    private static class TestCase {
+        private final String name;
+        private final boolean nunit;
+        private final boolean counted;
+        private String className;
+        private String time;
+        private boolean skipped;
+
+        private boolean hasError;
+        private String errorMessage;
+        private String errorText;
+        private boolean hasFailure;
+        private String failureMessage;
+        private String failureText;
+        private boolean hasReason;
+        private String reasonMessage;
+
+        private boolean hasNestedError;
+        private boolean hasNestedFailure;
+        private boolean hasNestedReason;
+
+        private TestCase(String name, boolean nunit, boolean counted) {
+            this.name = name;
+            this.nunit = nunit;
+            this.counted = counted;
+        }
+    }
+
+    private static class Element {
+        private final String name;
+        private boolean hasTestSuiteChild;
+
+        private Element(String name) {
+            this.name = name;
+        }
+    }
+
+    private enum Capture {
+        ERROR_TEXT, FAILURE_TEXT, FAILURE_MESSAGE, REASON_MESSAGE
+    }
+
+    private static class Parser {
+        private final UnitTestResults results;
+        private final Writer testCases;
+        private final Deque<Element> path = new ArrayDeque<>();
+        private int openTestResults;
+
+        private TestCase testCase;
+        private int testCaseDepth;
+        private String testCaseChild;
+
+        private Capture capture;
+        private int captureDepth;
+        private final StringBuilder captured = new StringBuilder();
+
+        private Parser(UnitTestResults results, Writer testCases) {
+            this.results = results;
+            this.testCases = testCases;
+        }
+
+        private void parse(XMLStreamReader reader) throws XMLStreamException, IOException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        startElement(reader);
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        endElement(reader.getLocalName());
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (capture != null) {
+                            captured.append(reader.getText());
+                        }
+                        break;
+                    default:
+                }
+            }
+        }
+
+        private void startElement(XMLStreamReader reader) {
+            String name = reader.getLocalName();
+            Element parent = path.peek();
+            String parentName = parent == null ? null : parent.name;
+            String grandParentName = grandParentName();
+            path.push(new Element(name));
+            int depth = path.size();
+
+            if ("test-results".equals(name)) {
+                results.testFile = true;
+                openTestResults++;
+            } else if ("testsuite".equals(name)) {
+                results.testFile = true;
+            } else if ("test-suite".equals(name) && "test-results".equals(parentName) && !parent.hasTestSuiteChild) {
+                parent.hasTestSuiteChild = true;
+                String time = reader.getAttributeValue(null, "time");
+                if (time != null) {
+                    results.nunitTime += number(time);
+                }
+            }
+
+            if (testCase == null) {
+                if ("testcase".equals(name) && "testsuite".equals(parentName)) {
+                    startTestCase(new TestCase(reader.getAttributeValue(null, "name"), false, true), depth);
+                    results.junitCaseCount++;
+                    String time = reader.getAttributeValue(null, "time");
+                    if (time != null) {
+                        results.junitTime += number(time);
+                    }
+                    testCase.className = reader.getAttributeValue(null, "classname");
+                    testCase.time = time;
+                } else if ("test-case".equals(name) && "results".equals(parentName) && "test-suite".equals(grandParentName)) {
+                    startTestCase(new TestCase(reader.getAttributeValue(null, "name"), true, openTestResults > 0), depth);
+                    if (testCase.counted) {
+                        results.nunitCaseCount++;
+                    }
+                    testCase.time = reader.getAttributeValue(null, "time");
+                }
+                return;
+            }
+
+            markNested(name);
+            if (depth == testCaseDepth + 1) {
+                testCaseChild = name;
+                if (testCase.nunit) {
+                    nunitTestCaseChild(name);
+                } else {
+                    junitTestCaseChild(reader, name, depth);
+                }
+            } else if (testCase.nunit && capture == null) {
+                if ("failure".equals(testCaseChild) && "message".equals(name) && testCase.failureMessage == null) {
+                    startCapture(Capture.FAILURE_MESSAGE, depth);
+                } else if ("failure".equals(testCaseChild) && "stack-trace".equals(name) && testCase.failureText == null) {
+                    startCapture(Capture.FAILURE_TEXT, depth);
+                } else if ("reason".equals(testCaseChild) && "message".equals(name) && testCase.reasonMessage == null) {
+                    startCapture(Capture.REASON_MESSAGE, depth);
+                }
+            }
+        }
+
+        private void junitTestCaseChild(XMLStreamReader reader, String name, int depth) {
+            if ("error".equals(name)) {
+                results.junitErrorCount++;
+                results.errorNames.add(testCase.name);
+                if (!testCase.hasError) {
+                    testCase.hasError = true;
+                    testCase.errorMessage = reader.getAttributeValue(null, "message");
+                    startCapture(Capture.ERROR_TEXT, depth);
+                }
+            } else if ("failure".equals(name)) {
+                results.junitFailureCount++;
+                results.failureNames.add(testCase.name);
+                if (!testCase.hasFailure) {
+                    testCase.hasFailure = true;
+                    testCase.failureMessage = reader.getAttributeValue(null, "message");
+                    startCapture(Capture.FAILURE_TEXT, depth);
+                }
+            } else if ("skipped".equals(name)) {
+                testCase.skipped = true;
+            }
+        }
+
+        private void nunitTestCaseChild(String name) {
+            if ("failure".equals(name)) {
+                testCase.hasFailure = true;
+                if (testCase.counted) {
+                    results.nunitFailureCount++;
+                    results.failureNames.add(testCase.name);
+                }
+            } else if ("reason".equals(name)) {
+                testCase.hasReason = true;
+                if (testCase.counted) {
+                    results.nunitNotRunCount++;
+                    results.notRunNames.add(testCase.name);
+                }
+            }
+        }
+
+        private void endElement(String name) throws IOException {
+            int depth = path.size();
+            if (capture != null && depth == captureDepth) {
+                endCapture();
+            }
+            if (testCase != null) {
+                if (depth == testCaseDepth + 1) {
+                    testCaseChild = null;
+                } else if (depth == testCaseDepth) {
+                    endTestCase();
+                }
+            }
+            if ("test-results".equals(name)) {
+                openTestResults--;
+            }
+            path.pop();
+        }
+
+        private void startTestCase(TestCase testCase, int depth) {
+            this.testCase = testCase;
+            this.testCaseDepth = depth;
+        }
+
+        private void endTestCase() throws IOException {
+            if (testCase.counted) {
+                writeTestCaseLine(testCases, testCase);
+            }
+            if (testCase.nunit) {
+                if (testCase.hasNestedFailure) {
+                    results.nunitFailureDetails.add(testCase);
+                }
+                if (testCase.hasNestedReason) {
+                    results.nunitNotRunDetails.add(testCase);
+                }
+            } else {
+                if (testCase.hasNestedError) {
+                    results.junitErrorDetails.add(testCase);
+                }
+                if (testCase.hasNestedFailure) {
+                    results.junitFailureDetails.add(testCase);
+                }
+            }
+            testCase = null;
+            testCaseChild = null;
+        }
+
+        private void markNested(String name) {
+            if ("error".equals(name)) {
+                testCase.hasNestedError = true;
+            } else if ("failure".equals(name)) {
+                testCase.hasNestedFailure = true;
+            } else if ("reason".equals(name)) {
+                testCase.hasNestedReason = true;
+            }
+        }
+
+        private void startCapture(Capture capture, int depth) {
+            this.capture = capture;
+            this.captureDepth = depth;
+            this.captured.setLength(0);
+        }
+
+        private void endCapture() {
+            String text = captured.toString();
+            switch (capture) {
+                case ERROR_TEXT:
+                    testCase.errorText = text;
+                    break;
+                case FAILURE_TEXT:
+                    testCase.failureText = text;
+                    break;
+                case FAILURE_MESSAGE:
+                    testCase.failureMessage = text;
+                    break;
+                case REASON_MESSAGE:
+                    testCase.reasonMessage = text;
+                    break;
+            }
+            capture = null;
+        }
+
+        private String grandParentName() {
+            if (path.size() < 2) {
+                return null;
+            }
+            Element parent = path.pop();
+            Element grandParent = path.peek();
+            path.push(parent);
+            return grandParent.name;
+        }
+    }
+}
@@ -20,6 +20,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertThat;
 import static org.hamcrest.Matchers.*;
 
@@ -81,4 +83,24 @@ public class PluginRoleUsersStoreTest {
         assertThat(pluginRoleUsersStore.usersInRole(pluginRoleSpaceTiger), hasSize(0));
         assertThat(pluginRoleUsersStore.usersInRole(pluginRoleBlackBird), hasSize(1));
     }
+
+    @Test
+    public void replaceRolesFor_ShouldChangeTheVersionOnlyWhenTheRolesOfTheUserDiffer() throws Exception {
+        PluginRoleConfig pluginRoleSpaceTiger = new PluginRoleConfig("spacetiger", "ldap");
+        PluginRoleConfig pluginRoleBlackBird = new PluginRoleConfig("blackbird", "ldap");
+        pluginRoleUsersStore.replaceRolesFor("wing-commander", asList(pluginRoleSpaceTiger, pluginRoleBlackBird));
+        long version = pluginRoleUsersStore.version();
+
+        pluginRoleUsersStore.replaceRolesFor("wing-commander", asList(pluginRoleBlackBird, pluginRoleSpaceTiger));
+        pluginRoleUsersStore.assignRole("wing-commander", pluginRoleSpaceTiger);
+        pluginRoleUsersStore.revokeAllRolesFor("bob");
+
+        assertThat(pluginRoleUsersStore.version(), is(version));
+
+        pluginRoleUsersStore.replaceRolesFor("wing-commander", singletonList(pluginRoleBlackBird));
+
+        assertThat(pluginRoleUsersStore.version(), is(greaterThan(version)));
+        assertThat(pluginRoleUsersStore.usersInRole(pluginRoleSpaceTiger), hasSize(0));
+        assertThat(pluginRoleUsersStore.usersInRole(pluginRoleBlackBird), contains(new RoleUser("wing-commander")));
+    }
 }
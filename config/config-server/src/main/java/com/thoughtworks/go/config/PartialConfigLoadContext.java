@@ -21,4 +21,11 @@ import com.thoughtworks.go.domain.materials.MaterialConfig;
 public interface PartialConfigLoadContext {
     Configuration configuration();
     MaterialConfig configMaterial();
+
+    /**
+     * @return the revision of the config material being loaded, or null when it is not known
+     */
+    default String revision() {
+        return null;
+    }
 }
@@ -24,11 +24,13 @@ import com.thoughtworks.go.domain.MaterialInstance;
 import com.thoughtworks.go.domain.materials.*;
 import com.thoughtworks.go.domain.materials.git.GitCommand;
 import com.thoughtworks.go.domain.materials.git.GitMaterialInstance;
+import com.thoughtworks.go.domain.materials.git.GitMirrorCache;
 import com.thoughtworks.go.domain.materials.git.GitVersion;
 import com.thoughtworks.go.domain.materials.svn.MaterialUrl;
 import com.thoughtworks.go.security.GoCipher;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.util.GoConstants;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.ConsoleOutputStreamConsumer;
 import com.thoughtworks.go.util.command.InMemoryStreamConsumer;
 import com.thoughtworks.go.util.command.SecretString;
@@ -205,11 +207,12 @@ public class GitMaterial extends ScmMaterial {
         }
 
         GitCommand gitCommand = new GitCommand(getFingerprint(), workingFolder, getBranch(), false, executionContext.getDefaultEnvironmentVariables(), secrets());
-        if (!isGitRepository(workingFolder) || isRepositoryChanged(gitCommand, workingFolder)) {
+        if (!isGitRepository(workingFolder) || GitMirrorCache.hasMissingReference(workingFolder) || isRepositoryChanged(gitCommand, workingFolder)) {
             LOG.debug("Invalid git working copy or repository changed. Delete folder: {}", workingFolder);
             deleteDirectoryNoisily(workingFolder);
         }
         createParentFolderIfNotExist(workingFolder);
+        File mirror = updateMirrorIfUsed(outputStreamConsumer, workingFolder, executionContext);
         if (!workingFolder.exists()) {
             TransactionSynchronizationManager txManager = new TransactionSynchronizationManager();
             if (txManager.isActualTransactionActive()) {
@@ -226,6 +229,8 @@ public class GitMaterial extends ScmMaterial {
             int returnValue;
             if (executionContext.isServer()) {
                 returnValue = gitCommand.cloneWithNoCheckout(outputStreamConsumer, url.forCommandLine());
+            } else if (mirror != null) {
+                returnValue = gitCommand.cloneWithReference(outputStreamConsumer, url.forCommandLine(), mirror);
             } else {
                 returnValue = gitCommand.clone(outputStreamConsumer, url.forCommandLine(), cloneDepth);
             }
@@ -234,6 +239,19 @@ public class GitMaterial extends ScmMaterial {
         return gitCommand;
     }
 
+    // on agents, repositories are fetched once into a shared mirror that working copies borrow objects from
+    private File updateMirrorIfUsed(ConsoleOutputStreamConsumer outputStreamConsumer, File workingFolder, SubprocessExecutionContext executionContext) {
+        SystemEnvironment systemEnvironment = new SystemEnvironment();
+        if (executionContext.isServer() || shallowClone || !systemEnvironment.isAgentGitMirrorEnabled()) {
+            return null;
+        }
+        if (workingFolder.exists() && !GitMirrorCache.hasReference(workingFolder)) {
+            return null;
+        }
+        GitMirrorCache mirrors = GitMirrorCache.at(systemEnvironment.getAgentGitMirrorDir(), systemEnvironment.getAgentGitMirrorMaxSizeInBytes());
+        return mirrors.update(url, workingFolder, executionContext.getDefaultEnvironmentVariables(), secrets(), outputStreamConsumer);
+    }
+
     private List<SecretString> secrets() {
         SecretString secretSubstitution = line -> line.replace(url.forCommandLine(), url.forDisplay());
         return Collections.singletonList(secretSubstitution);
@@ -20,6 +20,7 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.thoughtworks.go.config.*;
 import com.thoughtworks.go.util.FileUtil;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.work.GoPublisher;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -181,7 +182,7 @@ public class ArtifactPlan extends PersistentObject {
                 tempFolder = FileUtil.createTempFolder();
                 File testResultSource = new File(tempFolder, MERGED_TEST_RESULT_FOLDER);
                 testResultSource.mkdirs();
-                UnitTestReportGenerator generator = new UnitTestReportGenerator(publisher, testResultSource);
+                UnitTestReportGenerator generator = new UnitTestReportGenerator(publisher, testResultSource, new SystemEnvironment().isTestResultIndexEnabled());
                 generator.generate(allFiles.toArray(new File[allFiles.size()]), "testoutput");
                 publisher.upload(testResultSource, "testoutput");
             } finally {
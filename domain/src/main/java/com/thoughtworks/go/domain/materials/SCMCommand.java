@@ -19,6 +19,7 @@ package com.thoughtworks.go.domain.materials;
 import com.thoughtworks.go.util.command.CommandLine;
 import com.thoughtworks.go.util.command.ConsoleOutputStreamConsumer;
 import com.thoughtworks.go.util.command.ConsoleResult;
+import com.thoughtworks.go.util.command.StreamConsumer;
 
 /**
  * @understands: SCMCommand
@@ -41,4 +42,8 @@ public abstract class SCMCommand {
     public ConsoleResult runOrBomb(CommandLine commandLine, String... input) {
         return commandLine.runOrBomb(materialFingerprint, input);
     }
+
+    protected ConsoleResult runOrBomb(CommandLine commandLine, StreamConsumer stdOutputConsumer, String... input) {
+        return commandLine.runOrBomb(stdOutputConsumer, materialFingerprint, input);
+    }
 }
@@ -22,6 +22,7 @@ import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.domain.materials.Revision;
 import com.thoughtworks.go.domain.materials.SCMCommand;
 import com.thoughtworks.go.domain.materials.mercurial.StringRevision;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.*;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -88,6 +89,39 @@ public class GitCommand extends SCMCommand {
         return run(gitClone, outputStreamConsumer);
     }
 
+    public int cloneWithReference(ConsoleOutputStreamConsumer outputStreamConsumer, String url, File reference) {
+        CommandLine gitClone = cloneCommand()
+                .withArg("--reference").withArg(reference.getAbsolutePath())
+                .withArg(new UrlArgument(url)).withArg(workingDir.getAbsolutePath());
+
+        return run(gitClone, outputStreamConsumer);
+    }
+
+    public int cloneMirror(ConsoleOutputStreamConsumer outputStreamConsumer, String url) {
+        CommandLine gitClone = git(environment).withArgs("clone", "--mirror")
+                .withArg(new UrlArgument(url)).withArg(workingDir.getAbsolutePath());
+
+        int result = run(gitClone, outputStreamConsumer);
+        if (result == 0) {
+            // working copies borrow objects from the mirror, so it must never prune anything they may still refer to
+            runOrBomb(git(environment).withArgs("config", "gc.pruneExpire", "never").withWorkingDir(workingDir));
+        }
+        return result;
+    }
+
+    public void fetchMirror(ConsoleOutputStreamConsumer outputStreamConsumer, String url) {
+        log(outputStreamConsumer, "Fetching changes into shared mirror");
+        CommandLine gitFetch = git(environment).withArgs("fetch", "--prune")
+                .withArg(new UrlArgument(url))
+                .withArgs("+refs/heads/*:refs/heads/*", "+refs/tags/*:refs/tags/*")
+                .withWorkingDir(workingDir);
+
+        int result = run(gitFetch, outputStreamConsumer);
+        if (result != 0) {
+            throw new RuntimeException(String.format("git fetch failed for mirror [%s]", workingDir));
+        }
+    }
+
     private CommandLine cloneCommand() {
         return git(environment)
                 .withArg("clone")
@@ -113,7 +147,7 @@ public class GitCommand extends SCMCommand {
         InMemoryStreamConsumer outputStreamConsumer = inMemoryConsumer();
 
         try {
-            if (!isSubmodule) {
+            if (!isSubmodule && !isRemoteBranchUnchanged()) {
                 fetch(outputStreamConsumer);
             }
         } catch (Exception e) {
@@ -121,33 +155,62 @@ public class GitCommand extends SCMCommand {
         }
 
         CommandLine gitCmd = git(environment).withArg("log").withArgs(args).withWorkingDir(workingDir);
-        ConsoleResult result = runOrBomb(gitCmd);
-
         GitModificationParser parser = new GitModificationParser();
-        List<Modification> mods = parser.parse(result.output());
+        runOrBomb(gitCmd, parser::processLine);
+
+        List<Modification> mods = parser.getModifications();
         for (Modification mod : mods) {
             addModifiedFiles(mod);
         }
         return mods;
     }
 
-    private void addModifiedFiles(Modification mod) {
-        ConsoleResult consoleResult = diffTree(mod.getRevision());
-        List<String> result = consoleResult.output();
+    // A ls-remote still connects to the remote and, before protocol v2, receives the same ref advertisement a fetch
+    // starts with. It only saves the negotiation and pack transfer of a fetch that finds nothing new, and costs an
+    // extra round trip when there is something to fetch, so it is skipped when the fetch is needed anyway.
+    private boolean isRemoteBranchUnchanged() {
+        if (!new SystemEnvironment().get(SystemEnvironment.GO_SERVER_GIT_LS_REMOTE_BEFORE_FETCH)) {
+            return false;
+        }
+        try {
+            ConsoleResult local = runOrBomb(git(environment).withArgs("rev-parse", "--verify", "--quiet", "refs/remotes/" + remoteBranch()).withWorkingDir(workingDir), false);
+            String localRevision = local.outputAsString().trim();
+            if (local.returnValue() != 0 || localRevision.isEmpty()) {
+                return false;
+            }
+            List<String> remoteRefs = runOrBomb(git(environment).withArgs("ls-remote", "origin", "refs/heads/" + branch).withWorkingDir(workingDir)).output();
+            if (remoteRefs.size() != 1) {
+                return false;
+            }
+            String remoteRevision = remoteRefs.get(0).split("\\s+")[0];
+            return remoteRevision.equals(localRevision);
+        } catch (Exception e) {
+            LOG.debug("Could not compare remote branch {} with working directory {}, fetching instead", branch, workingDir, e);
+            return false;
+        }
+    }
 
-        for (String resultLine : result) {
+    private void addModifiedFiles(Modification mod) {
+        List<String> unparsable = new ArrayList<>();
+        CommandLine gitCmd = git(environment).withArgs("diff-tree", "--name-status", "--root", "-r", mod.getRevision()).withWorkingDir(workingDir);
+        ConsoleResult consoleResult = runOrBomb(gitCmd, resultLine -> {
             // First line is the node
             if (resultLine.equals(mod.getRevision())) {
-                continue;
+                return;
             }
 
             Matcher m = matchResultLine(resultLine);
             if (!m.find()) {
-                bomb("Unable to parse git-diff-tree output line: " + consoleResult.replaceSecretInfo(resultLine) + "\n"
-                        + "From output:\n"
-                        + consoleResult.outputForDisplayAsString());
+                unparsable.add(resultLine);
+                return;
             }
             mod.createModifiedFile(m.group(2), null, parseGitAction(m.group(1).charAt(0)));
+        });
+
+        if (!unparsable.isEmpty()) {
+            bomb("Unable to parse git-diff-tree output line: " + consoleResult.replaceSecretInfo(unparsable.get(0)) + "\n"
+                    + "Unparsable lines of revision " + mod.getRevision() + ":\n"
+                    + consoleResult.replaceSecretInfo(String.join("\n", unparsable)));
         }
     }
 
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.domain.materials.git;
+
+import com.thoughtworks.go.util.CachedDigestUtils;
+import com.thoughtworks.go.util.command.ConsoleOutputStreamConsumer;
+import com.thoughtworks.go.util.command.SecretString;
+import com.thoughtworks.go.util.command.UrlArgument;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.thoughtworks.go.util.ExceptionUtils.bomb;
+
+/**
+ * Bare mirrors of git repositories shared by all working copies on an agent. Each repository is fetched once into
+ * its mirror and working copies are cloned with {@code --reference} to it, so they borrow its objects instead of
+ * keeping their own copy.
+ * <p>
+ * A mirror is locked while it is fetched, within this process and against other agents sharing the directory.
+ * Working copies that are given a mirror are registered next to it, in {@code <key>.users}. Least recently used
+ * mirrors are removed once the cache grows over its size limit, but never while a registered working copy still
+ * borrows objects from them. Working copies whose mirror was removed anyway (e.g. by hand) are detected by
+ * {@link #hasMissingReference(File)} and cloned again.
+ */
+public class GitMirrorCache {
+    private static final Logger LOG = LoggerFactory.getLogger(GitMirrorCache.class);
+    private static final Map<File, GitMirrorCache> CACHES = new ConcurrentHashMap<>();
+    // a working copy is being cloned for this long after it was registered, before its alternates file exists
+    private static final long REGISTRATION_GRACE_PERIOD_IN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final File root;
+    private final long maxSizeInBytes;
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    // sizes of the mirrors, so that only the fetched mirror has to be walked again after an update
+    private final Map<String, Long> sizes = new ConcurrentHashMap<>();
+
+    GitMirrorCache(File root, long maxSizeInBytes) {
+        this.root = root;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    public static GitMirrorCache at(File root, long maxSizeInBytes) {
+        return CACHES.computeIfAbsent(root.getAbsoluteFile(), dir -> new GitMirrorCache(dir, maxSizeInBytes));
+    }
+
+    /**
+     * Creates or fetches the mirror of a repository and registers the working copy that will borrow objects from it.
+     *
+     * @return the mirror, to be used as reference of a clone
+     */
+    public File update(UrlArgument url, File workingCopy, Map<String, String> environment, List<SecretString> secrets, ConsoleOutputStreamConsumer outputStreamConsumer) {
+        String key = CachedDigestUtils.sha256Hex(url.forDisplay());
+        File mirror = mirrorDir(key);
+        withLock(key, true, () -> {
+            GitCommand git = new GitCommand(null, mirror, null, false, environment, secrets);
+            if (!new File(mirror, "objects").isDirectory()) {
+                FileUtils.deleteQuietly(mirror);
+                if (git.cloneMirror(outputStreamConsumer, url.forCommandLine()) != 0) {
+                    FileUtils.deleteQuietly(mirror);
+                    throw bomb("Failed to create git mirror of " + url.forDisplay());
+                }
+            } else {
+                git.fetchMirror(outputStreamConsumer, url.forCommandLine());
+            }
+            mirror.setLastModified(System.currentTimeMillis());
+            sizes.put(key, FileUtils.sizeOfDirectory(mirror));
+            registerUser(key, workingCopy);
+        });
+        evictLeastRecentlyUsed(key);
+        return mirror;
+    }
+
+    public static boolean hasReference(File workingCopy) {
+        return alternates(workingCopy).isFile();
+    }
+
+    /**
+     * @return true if the working copy borrows objects from a mirror that does not exist any more
+     */
+    public static boolean hasMissingReference(File workingCopy) {
+        File alternates = alternates(workingCopy);
+        if (!alternates.isFile()) {
+            return false;
+        }
+        try {
+            for (String line : FileUtils.readLines(alternates, "UTF-8")) {
+                if (!line.trim().isEmpty() && !new File(line.trim()).isDirectory()) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    void evictLeastRecentlyUsed(String keyInUse) {
+        File[] mirrors = root.listFiles(file -> file.isDirectory() && file.getName().endsWith(".git"));
+        if (mirrors == null) {
+            return;
+        }
+        Set<String> existing = new HashSet<>();
+        long totalSize = 0;
+        for (File mirror : mirrors) {
+            String key = keyOf(mirror);
+            existing.add(key);
+            totalSize += sizes.computeIfAbsent(key, k -> FileUtils.sizeOfDirectory(mirror));
+        }
+        sizes.keySet().retainAll(existing);
+        if (totalSize <= maxSizeInBytes) {
+            return;
+        }
+
+        Arrays.sort(mirrors, Comparator.comparingLong(File::lastModified));
+        for (File mirror : mirrors) {
+            if (totalSize <= maxSizeInBytes) {
+                return;
+            }
+            String key = keyOf(mirror);
+            if (key.equals(keyInUse)) {
+                continue;
+            }
+            boolean[] removed = {false};
+            withLock(key, false, () -> {
+                if (!hasUsers(key, mirror)) {
+                    FileUtils.deleteQuietly(mirror);
+                    FileUtils.deleteQuietly(usersFile(key));
+                    removed[0] = true;
+                }
+            });
+            if (removed[0]) {
+                LOG.info("Removed least recently used git mirror {} to keep mirrors under {} bytes", mirror, maxSizeInBytes);
+                Long size = sizes.remove(key);
+                totalSize -= size == null ? 0 : size;
+            }
+        }
+    }
+
+    private void registerUser(String key, File workingCopy) {
+        String path = workingCopy.getAbsolutePath();
+        List<String> users = new ArrayList<>();
+        for (String user : readUsers(key)) {
+            if (!path.equals(userPath(user))) {
+                users.add(user);
+            }
+        }
+        users.add(System.currentTimeMillis() + "\t" + path);
+        writeUsers(key, users);
+    }
+
+    // forgets working copies that were deleted or no longer refer to the mirror, and tells whether any are left
+    private boolean hasUsers(String key, File mirror) {
+        List<String> users = readUsers(key);
+        List<String> remaining = new ArrayList<>();
+        for (String user : users) {
+            if (isUsedBy(mirror, user)) {
+                remaining.add(user);
+            }
+        }
+        if (remaining.size() != users.size()) {
+            writeUsers(key, remaining);
+        }
+        return !remaining.isEmpty();
+    }
+
+    private static boolean isUsedBy(File mirror, String user) {
+        int separator = user.indexOf('\t');
+        if (separator < 0) {
+            return false;
+        }
+        long registeredAt = Long.parseLong(user.substring(0, separator));
+        if (System.currentTimeMillis() - registeredAt < REGISTRATION_GRACE_PERIOD_IN_MILLIS) {
+            return true;
+        }
+        File workingCopy = new File(userPath(user));
+        if (!workingCopy.isDirectory()) {
+            return false;
+        }
+        if (!new File(workingCopy, ".git").isDirectory()) {
+            return true;
+        }
+        File alternates = alternates(workingCopy);
+        if (!alternates.isFile()) {
+            return false;
+        }
+        try {
+            String mirrorObjects = new File(mirror, "objects").getCanonicalPath();
+            for (String line : FileUtils.readLines(alternates, "UTF-8")) {
+                if (!line.trim().isEmpty() && new File(line.trim()).getCanonicalPath().equals(mirrorObjects)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static String userPath(String user) {
+        return user.substring(user.indexOf('\t') + 1);
+    }
+
+    private List<String> readUsers(String key) {
+        File users = usersFile(key);
+        if (!users.isFile()) {
+            return new ArrayList<>();
+        }
+        try {
+            return FileUtils.readLines(users, "UTF-8");
+        } catch (IOException e) {
+            throw bomb(e);
+        }
+    }
+
+    private void writeUsers(String key, List<String> users) {
+        try {
+            FileUtils.writeLines(usersFile(key), "UTF-8", users);
+        } catch (IOException e) {
+            throw bomb(e);
+        }
+    }
+
+    private File usersFile(String key) {
+        return new File(root, key + ".users");
+    }
+
+    private static String keyOf(File mirror) {
+        return mirror.getName().substring(0, mirror.getName().length() - ".git".length());
+    }
+
+    private static File alternates(File workingCopy) {
+        return new File(workingCopy, ".git/objects/info/alternates");
+    }
+
+    private File mirrorDir(String key) {
+        return new File(root, key + ".git");
+    }
+
+    private boolean withLock(String key, boolean wait, Runnable action) {
+        ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+        if (wait) {
+            lock.lock();
+        } else if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            FileUtils.forceMkdir(root);
+            try (RandomAccessFile lockFile = new RandomAccessFile(new File(root, key + ".lock"), "rw");
+                 FileChannel channel = lockFile.getChannel();
+                 FileLock fileLock = wait ? channel.lock() : channel.tryLock()) {
+                if (fileLock == null) {
+                    return false;
+                }
+                action.run();
+                return true;
+            }
+        } catch (IOException e) {
+            throw bomb(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -50,24 +50,30 @@ public class GitModificationParser {
     }
 
     public void processLine(String line) {
-        Matcher matcher = COMMIT_PATTERN.matcher(line);
-        if (matcher.matches()) {
-            modifications.add(new Modification("", "", null, null, matcher.group(1)));
+        // the cheap prefix checks keep the regular expressions off the lines that cannot match them
+        if (line.startsWith("commit")) {
+            Matcher matcher = COMMIT_PATTERN.matcher(line);
+            if (matcher.matches()) {
+                modifications.add(new Modification("", "", null, null, matcher.group(1)));
+            }
+        } else if (line.startsWith("Author:")) {
+            Matcher authorMatcher = AUTHOR_PATTERN.matcher(line);
+            if (authorMatcher.matches()) {
+                modifications.getLast().setUserName(authorMatcher.group(1));
+            }
+        } else if (line.startsWith("Date:")) {
+            Matcher dateMatcher = DATE_PATTERN.matcher(line);
+            if (dateMatcher.matches()) {
+                modifications.getLast().setModifiedTime(DateUtils.parseISO8601(dateMatcher.group(1)));
+            }
+        } else {
+            Matcher commentMatcher = COMMENT_PATTERN.matcher(line);
+            if (commentMatcher.matches()) {
+                Modification last = modifications.getLast();
+                String comment = Optional.ofNullable(last.getComment()).orElse("");
+                if (!comment.isEmpty()) comment += "\n";
+                last.setComment(comment + commentMatcher.group(1));
+            }
         }
-        Matcher authorMatcher = AUTHOR_PATTERN.matcher(line);
-        if (authorMatcher.matches()) {
-            modifications.getLast().setUserName(authorMatcher.group(1));
-        }
-        Matcher dateMatcher = DATE_PATTERN.matcher(line);
-        if (dateMatcher.matches()) {
-            modifications.getLast().setModifiedTime(DateUtils.parseISO8601(dateMatcher.group(1)));
-        }
-        Matcher commentMatcher = COMMENT_PATTERN.matcher(line);
-        if (commentMatcher.matches()) {
-            Modification last = modifications.getLast();
-            String comment = Optional.ofNullable(last.getComment()).orElse("");
-            if (!comment.isEmpty()) comment += "\n";
-            last.setComment(comment + commentMatcher.group(1));
-       }
     }
 }
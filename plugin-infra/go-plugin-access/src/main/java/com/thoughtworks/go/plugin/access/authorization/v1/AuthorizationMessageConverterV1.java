@@ -21,6 +21,7 @@ import com.google.gson.reflect.TypeToken;
 import com.thoughtworks.go.config.PluginRoleConfig;
 import com.thoughtworks.go.config.SecurityAuthConfig;
 import com.thoughtworks.go.plugin.access.authorization.AuthorizationMessageConverter;
+import com.thoughtworks.go.plugin.access.common.JsonCodecs;
 import com.thoughtworks.go.plugin.access.common.handler.JSONResultMessageHandler;
 import com.thoughtworks.go.plugin.access.common.models.ImageDeserializer;
 import com.thoughtworks.go.plugin.access.common.models.PluginProfileMetadataKeys;
@@ -37,7 +38,7 @@ import java.util.stream.Collectors;
 
 public class AuthorizationMessageConverterV1 implements AuthorizationMessageConverter {
     public static final String VERSION = "1.0";
-    private static final Gson GSON = new Gson();
+    private static final Gson GSON = JsonCodecs.GSON;
 
     @Override
     public com.thoughtworks.go.plugin.domain.authorization.Capabilities getCapabilitiesFromResponseBody(String responseBody) {
@@ -193,7 +194,7 @@ public class AuthorizationMessageConverterV1 implements AuthorizationMessageConv
 
     @Override
     public String getAuthorizationServerUrl(String responseBody) {
-        return (String) new Gson().fromJson(responseBody, Map.class).get("authorization_server_url");
+        return (String) GSON.fromJson(responseBody, Map.class).get("authorization_server_url");
     }
 
     @Override
@@ -211,7 +212,7 @@ public class AuthorizationMessageConverterV1 implements AuthorizationMessageConv
     }
 
     private String getTemplateFromResponse(String responseBody, String message) {
-        String template = (String) new Gson().fromJson(responseBody, Map.class).get("template");
+        String template = (String) GSON.fromJson(responseBody, Map.class).get("template");
         if (StringUtils.isBlank(template)) {
             throw new RuntimeException(message);
         }
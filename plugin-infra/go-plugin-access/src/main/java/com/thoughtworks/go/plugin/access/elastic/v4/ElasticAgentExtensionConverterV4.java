@@ -17,9 +17,10 @@
 package com.thoughtworks.go.plugin.access.elastic.v4;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.plugin.access.common.JsonCodecs;
 import com.thoughtworks.go.plugin.access.common.handler.JSONResultMessageHandler;
 import com.thoughtworks.go.plugin.access.common.models.ImageDeserializer;
 import com.thoughtworks.go.plugin.access.common.models.PluginProfileMetadataKeys;
@@ -29,13 +30,15 @@ import com.thoughtworks.go.plugin.domain.common.PluginConfiguration;
 import com.thoughtworks.go.plugin.domain.elastic.Capabilities;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
+import static com.thoughtworks.go.plugin.access.common.JsonCodecs.writeProperties;
+
 class ElasticAgentExtensionConverterV4 {
-    private static final Gson GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    private static final Gson GSON = JsonCodecs.EXPOSED_FIELDS;
     private CapabilitiesConverterV4 capabilitiesConverterV4 = new CapabilitiesConverterV4();
-    private AgentMetadataConverterV4 agentMetadataConverterV4 = new AgentMetadataConverterV4();
 
     String createAgentRequestBody(String autoRegisterKey, String environment, Map<String, String> configuration, JobIdentifier jobIdentifier) {
         JsonObject jsonObject = new JsonObject();
@@ -48,12 +51,17 @@ class ElasticAgentExtensionConverterV4 {
     }
 
     String shouldAssignWorkRequestBody(AgentMetadata elasticAgent, String environment, Map<String, String> configuration, JobIdentifier identifier) {
-        JsonObject jsonObject = new JsonObject();
-        jsonObject.add("properties", mapToJsonObject(configuration));
-        jsonObject.addProperty("environment", environment);
-        jsonObject.add("agent", agentMetadataConverterV4.toDTO(elasticAgent).toJSON());
-        jsonObject.add("job_identifier", jobIdentifierJson(identifier));
-        return GSON.toJson(jsonObject);
+        return JsonCodecs.toJson(false, writer -> {
+            writer.beginObject();
+            writer.name("properties");
+            writeProperties(writer, configuration);
+            writer.name("environment").value(environment);
+            writer.name("agent");
+            writeAgentMetadata(writer, elasticAgent);
+            writer.name("job_identifier");
+            writeJobIdentifier(writer, identifier);
+            writer.endObject();
+        });
     }
 
 
@@ -63,7 +71,7 @@ class ElasticAgentExtensionConverterV4 {
 
 
     String getProfileViewResponseFromBody(String responseBody) {
-        String template = (String) new Gson().fromJson(responseBody, Map.class).get("template");
+        String template = (String) JsonCodecs.GSON.fromJson(responseBody, Map.class).get("template");
         if (StringUtils.isBlank(template)) {
             throw new RuntimeException("Template was blank!");
         }
@@ -92,16 +100,16 @@ class ElasticAgentExtensionConverterV4 {
 
     String validateElasticProfileRequestBody(Map<String, String> configuration) {
         JsonObject properties = mapToJsonObject(configuration);
-        return new GsonBuilder().serializeNulls().create().toJson(properties);
+        return JsonCodecs.GSON_WITH_NULLS.toJson(properties);
     }
 
 
     Boolean shouldAssignWorkResponseFromBody(String responseBody) {
-        return new Gson().fromJson(responseBody, Boolean.class);
+        return JsonCodecs.GSON.fromJson(responseBody, Boolean.class);
     }
 
     String getStatusReportView(String responseBody) {
-        String statusReportView = (String) new Gson().fromJson(responseBody, Map.class).get("view");
+        String statusReportView = (String) JsonCodecs.GSON.fromJson(responseBody, Map.class).get("view");
         if (StringUtils.isBlank(statusReportView)) {
             throw new RuntimeException("Status Report is blank!");
         }
@@ -121,6 +129,27 @@ class ElasticAgentExtensionConverterV4 {
         return properties;
     }
 
+    private void writeAgentMetadata(JsonWriter writer, AgentMetadata agentMetadata) throws IOException {
+        writer.beginObject();
+        writer.name("agent_id").value(agentMetadata.elasticAgentId());
+        writer.name("agent_state").value(agentMetadata.agentState());
+        writer.name("build_state").value(agentMetadata.buildState());
+        writer.name("config_state").value(agentMetadata.configState());
+        writer.endObject();
+    }
+
+    private void writeJobIdentifier(JsonWriter writer, JobIdentifier jobIdentifier) throws IOException {
+        writer.beginObject();
+        writer.name("pipeline_name").value(jobIdentifier.getPipelineName());
+        writer.name("pipeline_label").value(jobIdentifier.getPipelineLabel());
+        writer.name("pipeline_counter").value(jobIdentifier.getPipelineCounter());
+        writer.name("stage_name").value(jobIdentifier.getStageName());
+        writer.name("stage_counter").value(jobIdentifier.getStageCounter());
+        writer.name("job_name").value(jobIdentifier.getBuildName());
+        writer.name("job_id").value(jobIdentifier.getBuildId());
+        writer.endObject();
+    }
+
     private JsonObject jobIdentifierJson(JobIdentifier jobIdentifier) {
         JsonObject jobIdentifierJson = new JsonObject();
         jobIdentifierJson.addProperty("pipeline_name", jobIdentifier.getPipelineName());
@@ -17,11 +17,12 @@
 package com.thoughtworks.go.plugin.access.elastic.v5;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.thoughtworks.go.domain.ClusterProfilesChangedStatus;
 import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.plugin.access.common.JsonCodecs;
 import com.thoughtworks.go.plugin.access.common.handler.JSONResultMessageHandler;
 import com.thoughtworks.go.plugin.access.common.models.ImageDeserializer;
 import com.thoughtworks.go.plugin.access.common.models.PluginProfileMetadataKeys;
@@ -32,14 +33,16 @@ import com.thoughtworks.go.plugin.domain.common.PluginConfiguration;
 import com.thoughtworks.go.plugin.domain.elastic.Capabilities;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
+import static com.thoughtworks.go.plugin.access.common.JsonCodecs.writeProperties;
+
 class ElasticAgentExtensionConverterV5 {
-    private static final Gson GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    private static final Gson GSON = JsonCodecs.EXPOSED_FIELDS;
     private ElasticAgentInformationConverterV5 elasticAgentInformationConverterV5 = new ElasticAgentInformationConverterV5();
     private CapabilitiesConverterV5 capabilitiesConverterV5 = new CapabilitiesConverterV5();
-    private AgentMetadataConverterV5 agentMetadataConverterV5 = new AgentMetadataConverterV5();
 
     String createAgentRequestBody(String autoRegisterKey, String environment, Map<String, String> configuration, Map<String, String> clusterProfileProperties, JobIdentifier jobIdentifier) {
         JsonObject jsonObject = new JsonObject();
@@ -53,13 +56,19 @@ class ElasticAgentExtensionConverterV5 {
     }
 
     String shouldAssignWorkRequestBody(AgentMetadata elasticAgent, String environment, Map<String, String> configuration, Map<String, String> clusterProfileProperties, JobIdentifier identifier) {
-        JsonObject jsonObject = new JsonObject();
-        jsonObject.addProperty("environment", environment);
-        jsonObject.add("elastic_agent_profile_properties", mapToJsonObject(configuration));
-        jsonObject.add("cluster_profile_properties", mapToJsonObject(clusterProfileProperties));
-        jsonObject.add("agent", agentMetadataConverterV5.toDTO(elasticAgent).toJSON());
-        jsonObject.add("job_identifier", jobIdentifierJson(identifier));
-        return GSON.toJson(jsonObject);
+        return JsonCodecs.toJson(false, writer -> {
+            writer.beginObject();
+            writer.name("environment").value(environment);
+            writer.name("elastic_agent_profile_properties");
+            writeProperties(writer, configuration);
+            writer.name("cluster_profile_properties");
+            writeProperties(writer, clusterProfileProperties);
+            writer.name("agent");
+            writeAgentMetadata(writer, elasticAgent);
+            writer.name("job_identifier");
+            writeJobIdentifier(writer, identifier);
+            writer.endObject();
+        });
     }
 
 
@@ -69,7 +78,7 @@ class ElasticAgentExtensionConverterV5 {
 
 
     String getProfileViewResponseFromBody(String responseBody) {
-        String template = (String) new Gson().fromJson(responseBody, Map.class).get("template");
+        String template = (String) JsonCodecs.GSON.fromJson(responseBody, Map.class).get("template");
         if (StringUtils.isBlank(template)) {
             throw new RuntimeException("Template was blank!");
         }
@@ -99,16 +108,16 @@ class ElasticAgentExtensionConverterV5 {
 
     String validateElasticProfileRequestBody(Map<String, String> configuration) {
         JsonObject properties = mapToJsonObject(configuration);
-        return new GsonBuilder().serializeNulls().create().toJson(properties);
+        return JsonCodecs.GSON_WITH_NULLS.toJson(properties);
     }
 
 
     Boolean shouldAssignWorkResponseFromBody(String responseBody) {
-        return new Gson().fromJson(responseBody, Boolean.class);
+        return JsonCodecs.GSON.fromJson(responseBody, Boolean.class);
     }
 
     String getStatusReportView(String responseBody) {
-        String statusReportView = (String) new Gson().fromJson(responseBody, Map.class).get("view");
+        String statusReportView = (String) JsonCodecs.GSON.fromJson(responseBody, Map.class).get("view");
         if (StringUtils.isBlank(statusReportView)) {
             throw new RuntimeException("Status Report is blank!");
         }
@@ -143,6 +152,27 @@ class ElasticAgentExtensionConverterV5 {
         return jsonArray;
     }
 
+    private void writeAgentMetadata(JsonWriter writer, AgentMetadata agentMetadata) throws IOException {
+        writer.beginObject();
+        writer.name("agent_id").value(agentMetadata.elasticAgentId());
+        writer.name("agent_state").value(agentMetadata.agentState());
+        writer.name("build_state").value(agentMetadata.buildState());
+        writer.name("config_state").value(agentMetadata.configState());
+        writer.endObject();
+    }
+
+    private void writeJobIdentifier(JsonWriter writer, JobIdentifier jobIdentifier) throws IOException {
+        writer.beginObject();
+        writer.name("pipeline_name").value(jobIdentifier.getPipelineName());
+        writer.name("pipeline_label").value(jobIdentifier.getPipelineLabel());
+        writer.name("pipeline_counter").value(jobIdentifier.getPipelineCounter());
+        writer.name("stage_name").value(jobIdentifier.getStageName());
+        writer.name("stage_counter").value(jobIdentifier.getStageCounter());
+        writer.name("job_name").value(jobIdentifier.getBuildName());
+        writer.name("job_id").value(jobIdentifier.getBuildId());
+        writer.endObject();
+    }
+
     private JsonObject jobIdentifierJson(JobIdentifier jobIdentifier) {
         JsonObject jobIdentifierJson = new JsonObject();
         jobIdentifierJson.addProperty("pipeline_name", jobIdentifier.getPipelineName());
@@ -167,9 +197,15 @@ class ElasticAgentExtensionConverterV5 {
     }
 
     public String serverPingRequestBody(List<Map<String, String>> clusterProfileConfigurations) {
-        JsonObject jsonObject = new JsonObject();
-        jsonObject.add("all_cluster_profile_properties", mapToJsonArray(clusterProfileConfigurations));
-        return GSON.toJson(jsonObject);
+        return JsonCodecs.toJson(false, writer -> {
+            writer.beginObject();
+            writer.name("all_cluster_profile_properties").beginArray();
+            for (Map<String, String> clusterProfileConfiguration : clusterProfileConfigurations) {
+                writeProperties(writer, clusterProfileConfiguration);
+            }
+            writer.endArray();
+            writer.endObject();
+        });
     }
 
     public ElasticAgentInformationDTO getElasticAgentInformationDTO(ElasticAgentInformation elasticAgentInformation) {
@@ -16,14 +16,12 @@
 
 package com.thoughtworks.go.plugin.access.notification;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.thoughtworks.go.plugin.access.common.JsonCodecs;
 
 public abstract class DataConverter<T> {
     protected abstract T transformData();
 
     public String createRequest() {
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().serializeNulls().create();
-        return gson.toJson(this.transformData());
+        return JsonCodecs.EXPOSED_FIELDS_WITH_NULLS.toJson(this.transformData());
     }
 }
@@ -16,8 +16,8 @@
 
 package com.thoughtworks.go.plugin.access.notification.v2;
 
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.go.domain.notificationdata.StageNotificationData;
+import com.thoughtworks.go.plugin.access.common.JsonCodecs;
 import com.thoughtworks.go.plugin.access.notification.DataConverter;
 import com.thoughtworks.go.plugin.access.notification.JsonMessageHandler;
 import com.thoughtworks.go.plugin.api.response.Result;
@@ -85,7 +85,7 @@ public class JsonMessageHandler2_0 implements JsonMessageHandler {
     }
 
     private Map parseResponseToMap(String responseBody) {
-        return (Map) new GsonBuilder().create().fromJson(responseBody, Object.class);
+        return (Map) JsonCodecs.GSON.fromJson(responseBody, Object.class);
     }
 
     Result toResult(String responseBody) {
@@ -17,6 +17,7 @@
 package com.thoughtworks.go.plugin.access.notification.v3;
 
 import com.thoughtworks.go.domain.notificationdata.AgentNotificationData;
+import com.thoughtworks.go.plugin.access.common.JsonCodecs;
 import com.thoughtworks.go.plugin.access.notification.DataConverter;
 
 public class AgentConverter extends DataConverter<AgentNotificationDTO> {
@@ -26,6 +27,28 @@ public class AgentConverter extends DataConverter<AgentNotificationDTO> {
         this.agentNotificationData = agentNotificationData;
     }
 
+    /**
+     * Agent status is sent on every agent state change, so it is written field by field rather than through
+     * {@link AgentNotificationDTO}. The output is the same as serializing the DTO.
+     */
+    @Override
+    public String createRequest() {
+        return JsonCodecs.toJson(true, writer -> {
+            writer.beginObject();
+            writer.name("uuid").value(agentNotificationData.getUuid());
+            writer.name("host_name").value(agentNotificationData.getHostName());
+            writer.name("is_elastic").value(agentNotificationData.isElastic());
+            writer.name("ip_address").value(agentNotificationData.getIpAddress());
+            writer.name("operating_system").value(agentNotificationData.getOperatingSystem());
+            writer.name("free_space").value(agentNotificationData.getFreeSpace());
+            writer.name("agent_config_state").value(agentNotificationData.getAgentConfigState());
+            writer.name("agent_state").value(agentNotificationData.getAgentState());
+            writer.name("build_state").value(agentNotificationData.getBuildState());
+            writer.name("transition_time").value(DateUtil.dateToString(agentNotificationData.getTransitionTime()));
+            writer.endObject();
+        });
+    }
+
     @Override
     protected AgentNotificationDTO transformData() {
         return new AgentNotificationDTO(
@@ -16,8 +16,7 @@
 
 package com.thoughtworks.go.plugin.access.scm;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.thoughtworks.go.plugin.access.common.JsonCodecs;
 import com.thoughtworks.go.plugin.access.common.handler.JSONResultMessageHandler;
 import com.thoughtworks.go.plugin.access.scm.material.MaterialPollResult;
 import com.thoughtworks.go.plugin.access.scm.revision.ModifiedAction;
@@ -189,16 +188,15 @@ public class JsonMessageHandler1_0 implements JsonMessageHandler {
     }
 
     private List<Map> parseResponseToList(String responseBody) {
-        return (List<Map>) new GsonBuilder().create().fromJson(responseBody, Object.class);
+        return (List<Map>) JsonCodecs.GSON.fromJson(responseBody, Object.class);
     }
 
     private Map parseResponseToMap(String responseBody) {
-        return (Map) new GsonBuilder().create().fromJson(responseBody, Object.class);
+        return (Map) JsonCodecs.GSON.fromJson(responseBody, Object.class);
     }
 
     private static String toJsonString(Object object) {
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
-        return gson.toJson(object);
+        return JsonCodecs.EXPOSED_FIELDS.toJson(object);
     }
 
     private SCMProperty toSCMProperty(String key, Map configuration) {
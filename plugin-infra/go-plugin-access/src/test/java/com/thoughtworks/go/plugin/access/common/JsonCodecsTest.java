@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.plugin.access.common;
+
+import com.google.gson.JsonObject;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class JsonCodecsTest {
+    @Test
+    public void shouldWriteTheSameTextAsGsonForTheEquivalentJsonObject() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("url", "http://example.com/?a=1&b=<2>");
+        properties.put("quote", "it's \"quoted\"\n");
+        properties.put("unset", null);
+
+        JsonObject expected = new JsonObject();
+        JsonObject expectedProperties = new JsonObject();
+        properties.forEach(expectedProperties::addProperty);
+        expected.add("properties", expectedProperties);
+        expected.addProperty("count", 1);
+        expected.addProperty("name", (String) null);
+
+        String actual = JsonCodecs.toJson(false, writer -> {
+            writer.beginObject();
+            writer.name("properties");
+            JsonCodecs.writeProperties(writer, properties);
+            writer.name("count").value(1);
+            writer.name("name").value((String) null);
+            writer.endObject();
+        });
+
+        assertThat(actual, is(JsonCodecs.GSON.toJson(expected)));
+    }
+
+    @Test
+    public void shouldKeepNullsWhenAskedTo() {
+        JsonObject expected = new JsonObject();
+        expected.addProperty("name", (String) null);
+
+        String actual = JsonCodecs.toJson(true, writer -> {
+            writer.beginObject();
+            writer.name("name").value((String) null);
+            writer.endObject();
+        });
+
+        assertThat(actual, is(JsonCodecs.GSON_WITH_NULLS.toJson(expected)));
+    }
+}
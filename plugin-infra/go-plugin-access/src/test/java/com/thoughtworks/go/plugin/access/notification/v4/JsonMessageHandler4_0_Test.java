@@ -24,6 +24,7 @@ import com.thoughtworks.go.domain.notificationdata.StageNotificationData;
 import com.thoughtworks.go.domain.packagerepository.PackageDefinition;
 import com.thoughtworks.go.domain.scm.SCM;
 import com.thoughtworks.go.helper.PipelineMother;
+import com.thoughtworks.go.plugin.access.common.JsonCodecs;
 import com.thoughtworks.go.plugin.api.response.Result;
 import net.javacrumbs.jsonunit.fluent.JsonFluentAssert;
 import org.junit.Before;
@@ -318,6 +319,17 @@ public class JsonMessageHandler4_0_Test {
         JsonFluentAssert.assertThatJson(expected).isEqualTo(message);
     }
 
+    @Test
+    public void shouldWriteAgentStatusRequestExactlyAsTheDTOWouldBeSerialized() {
+        AgentConverter withAllFields = new AgentConverter(new AgentNotificationData("agent_uuid", "<agent & host>",
+                true, "127.0.0.1", "rh", "100", "enabled", "building", "building", new Date()));
+        AgentConverter withMissingFields = new AgentConverter(new AgentNotificationData("agent_uuid", null,
+                false, null, null, null, "enabled", "idle", "idle", new Date()));
+
+        assertThat(withAllFields.createRequest(), is(JsonCodecs.EXPOSED_FIELDS_WITH_NULLS.toJson(withAllFields.transformData())));
+        assertThat(withMissingFields.createRequest(), is(JsonCodecs.EXPOSED_FIELDS_WITH_NULLS.toJson(withMissingFields.transformData())));
+    }
+
     private void assertSuccessResult(Result result, List<String> messages) {
         assertThat(result.isSuccessful(), is(true));
         assertThat(result.getMessages(), is(messages));
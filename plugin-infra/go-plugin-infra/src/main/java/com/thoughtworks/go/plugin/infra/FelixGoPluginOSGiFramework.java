@@ -41,6 +41,7 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static java.lang.String.format;
@@ -57,6 +58,7 @@ public class FelixGoPluginOSGiFramework implements GoPluginOSGiFramework {
     private Collection<PluginChangeListener> pluginChangeListeners = new ConcurrentLinkedQueue<>();
     private PluginExtensionsAndVersionValidator pluginExtensionsAndVersionValidator;
     private ElasticAgentInformationMigrator elasticAgentInformationMigrator;
+    private final Map<ServiceReferenceKey, ServiceReference<?>> serviceReferences = new ConcurrentHashMap<>();
 
     @Autowired
     public FelixGoPluginOSGiFramework(PluginRegistry registry, SystemEnvironment systemEnvironment) {
@@ -75,7 +77,9 @@ public class FelixGoPluginOSGiFramework implements GoPluginOSGiFramework {
         try {
             framework = getFelixFramework(frameworkFactories);
             framework.start();
-            registerInternalServices(framework.getBundleContext());
+            BundleContext bundleContext = framework.getBundleContext();
+            registerInternalServices(bundleContext);
+            registerServiceReferenceCacheInvalidation(bundleContext);
         } catch (BundleException e) {
             throw new RuntimeException("Failed to initialize OSGi framework", e);
         }
@@ -94,12 +98,14 @@ public class FelixGoPluginOSGiFramework implements GoPluginOSGiFramework {
             throw new RuntimeException(e);
         }
 
+        serviceReferences.clear();
         registry.clear();
     }
 
     @Override
     public Bundle loadPlugin(GoPluginDescriptor pluginDescriptor) {
         File bundleLocation = pluginDescriptor.bundleLocation();
+        forgetServiceReferencesOf(pluginDescriptor.id());
         return getBundle(pluginDescriptor, bundleLocation);
     }
 
@@ -154,6 +160,7 @@ public class FelixGoPluginOSGiFramework implements GoPluginOSGiFramework {
             return;
         }
 
+        forgetServiceReferencesOf(pluginDescriptor.id());
         for (PluginChangeListener listener : pluginChangeListeners) {
             try {
                 listener.pluginUnLoaded(pluginDescriptor);
@@ -204,6 +211,27 @@ public class FelixGoPluginOSGiFramework implements GoPluginOSGiFramework {
         bundleContext.registerService(LoggingService.class, new DefaultPluginLoggingService(systemEnvironment), null);
     }
 
+    private void registerServiceReferenceCacheInvalidation(BundleContext bundleContext) {
+        bundleContext.addServiceListener(event -> {
+            Bundle bundle = event.getServiceReference().getBundle();
+            if (bundle != null) {
+                forgetServiceReferencesOf(bundle.getSymbolicName());
+            }
+        });
+        bundleContext.addBundleListener(event -> {
+            if (event.getType() == BundleEvent.STOPPING || event.getType() == BundleEvent.STOPPED
+                    || event.getType() == BundleEvent.UNINSTALLED || event.getType() == BundleEvent.UPDATED) {
+                forgetServiceReferencesOf(event.getBundle().getSymbolicName());
+            }
+        });
+    }
+
+    private void forgetServiceReferencesOf(String pluginId) {
+        if (pluginId != null) {
+            serviceReferences.keySet().removeIf(key -> pluginId.equals(key.pluginId));
+        }
+    }
+
     Framework getFelixFramework(List<FrameworkFactory> frameworkFactories) {
         return frameworkFactories.get(0).newFramework(generateOSGiFrameworkConfig());
     }
@@ -240,8 +268,12 @@ public class FelixGoPluginOSGiFramework implements GoPluginOSGiFramework {
         }
 
         BundleContext bundleContext = framework.getBundleContext();
-        Collection<ServiceReference<T>> matchingServiceReferences = findServiceReferenceWithPluginIdAndExtensionType(serviceReferenceClass, pluginId, extensionType, bundleContext);
-        ServiceReference<T> serviceReference = validateAndGetTheOnlyReferenceWithGivenSymbolicName(matchingServiceReferences, serviceReferenceClass, pluginId);
+        ServiceReference<T> serviceReference = cachedServiceReference(serviceReferenceClass, pluginId, extensionType);
+        if (serviceReference == null) {
+            Collection<ServiceReference<T>> matchingServiceReferences = findServiceReferenceWithPluginIdAndExtensionType(serviceReferenceClass, pluginId, extensionType, bundleContext);
+            serviceReference = validateAndGetTheOnlyReferenceWithGivenSymbolicName(matchingServiceReferences, serviceReferenceClass, pluginId);
+            serviceReferences.put(new ServiceReferenceKey(serviceReferenceClass, pluginId, extensionType), serviceReference);
+        }
         T service = bundleContext.getService(serviceReference);
         return executeActionOnTheService(action, service, getDescriptorFor(serviceReference));
     }
@@ -253,11 +285,29 @@ public class FelixGoPluginOSGiFramework implements GoPluginOSGiFramework {
             return false;
         }
 
+        if (cachedServiceReference(serviceReferenceClass, pluginId, extensionType) != null) {
+            return true;
+        }
+
         BundleContext bundleContext = framework.getBundleContext();
         Collection<ServiceReference<T>> matchingServiceReferences = findServiceReferenceWithPluginIdAndExtensionType(serviceReferenceClass, pluginId, extensionType, bundleContext);
+        if (matchingServiceReferences.size() == 1) {
+            serviceReferences.put(new ServiceReferenceKey(serviceReferenceClass, pluginId, extensionType), matchingServiceReferences.iterator().next());
+        }
         return !matchingServiceReferences.isEmpty();
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> ServiceReference<T> cachedServiceReference(Class<T> serviceReferenceClass, String pluginId, String extensionType) {
+        ServiceReference<T> serviceReference = (ServiceReference<T>) serviceReferences.get(new ServiceReferenceKey(serviceReferenceClass, pluginId, extensionType));
+        // a reference whose service went away has no bundle, even if the listener has not caught up yet
+        if (serviceReference != null && serviceReference.getBundle() == null) {
+            serviceReferences.remove(new ServiceReferenceKey(serviceReferenceClass, pluginId, extensionType));
+            return null;
+        }
+        return serviceReference;
+    }
+
     @Override
     public <T extends GoPlugin> Map<String, List<String>> getExtensionsInfoFromThePlugin(String pluginId) {
         if (framework == null) {
@@ -351,4 +401,31 @@ public class FelixGoPluginOSGiFramework implements GoPluginOSGiFramework {
         return o -> o.pluginLoaded(pluginDescriptor);
     }
 
+    private static class ServiceReferenceKey {
+        private final Class<?> serviceReferenceClass;
+        private final String pluginId;
+        private final String extensionType;
+
+        private ServiceReferenceKey(Class<?> serviceReferenceClass, String pluginId, String extensionType) {
+            this.serviceReferenceClass = serviceReferenceClass;
+            this.pluginId = pluginId;
+            this.extensionType = extensionType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ServiceReferenceKey that = (ServiceReferenceKey) o;
+            return serviceReferenceClass == that.serviceReferenceClass &&
+                    Objects.equals(pluginId, that.pluginId) &&
+                    Objects.equals(extensionType, that.extensionType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serviceReferenceClass, pluginId, extensionType);
+        }
+    }
+
 }
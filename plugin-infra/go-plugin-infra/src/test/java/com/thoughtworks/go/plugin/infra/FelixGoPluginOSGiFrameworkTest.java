@@ -30,6 +30,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.osgi.framework.*;
@@ -190,6 +191,47 @@ class FelixGoPluginOSGiFrameworkTest {
         verifyNoMoreInteractions(firstService, secondService);
     }
 
+    @Test
+    void doOnShouldReuseTheServiceReferenceFoundForAPluginUntilItsServicesChange() throws Exception {
+        SomeInterface service = mock(SomeInterface.class);
+        registerService(service, "plugin-one", "extension-one");
+        String filter = String.format("(&(%s=%s)(%s=%s))", Constants.BUNDLE_SYMBOLICNAME, "plugin-one", Constants.BUNDLE_CATEGORY, "extension-one");
+        spy.start();
+        ArgumentCaptor<ServiceListener> serviceListener = ArgumentCaptor.forClass(ServiceListener.class);
+        verify(bundleContext).addServiceListener(serviceListener.capture());
+
+        spy.doOn(SomeInterface.class, "plugin-one", "extension-one", (obj, pluginDescriptor) -> obj.someMethodWithReturn());
+        spy.doOn(SomeInterface.class, "plugin-one", "extension-one", (obj, pluginDescriptor) -> obj.someMethodWithReturn());
+        assertThat(spy.hasReferenceFor(SomeInterface.class, "plugin-one", "extension-one")).isTrue();
+
+        verify(bundleContext, times(1)).getServiceReferences(SomeInterface.class, filter);
+        verify(service, times(2)).someMethodWithReturn();
+
+        ServiceReference<?> reference = mock(ServiceReference.class);
+        when(reference.getBundle()).thenReturn(bundle);
+        serviceListener.getValue().serviceChanged(new ServiceEvent(ServiceEvent.UNREGISTERING, reference));
+        spy.doOn(SomeInterface.class, "plugin-one", "extension-one", (obj, pluginDescriptor) -> obj.someMethodWithReturn());
+
+        verify(bundleContext, times(2)).getServiceReferences(SomeInterface.class, filter);
+    }
+
+    @Test
+    void shouldForgetTheServiceReferencesOfAPluginWhenItIsUnloaded() throws Exception {
+        SomeInterface service = mock(SomeInterface.class);
+        registerService(service, "plugin-one", "extension-one");
+        String filter = String.format("(&(%s=%s)(%s=%s))", Constants.BUNDLE_SYMBOLICNAME, "plugin-one", Constants.BUNDLE_CATEGORY, "extension-one");
+        GoPluginDescriptor pluginDescriptor = mock(GoPluginDescriptor.class);
+        when(pluginDescriptor.id()).thenReturn("plugin-one");
+        when(pluginDescriptor.bundle()).thenReturn(bundle);
+        spy.start();
+
+        assertThat(spy.hasReferenceFor(SomeInterface.class, "plugin-one", "extension-one")).isTrue();
+        spy.unloadPlugin(pluginDescriptor);
+        when(bundleContext.getServiceReferences(SomeInterface.class, filter)).thenReturn(Collections.emptyList());
+
+        assertThat(spy.hasReferenceFor(SomeInterface.class, "plugin-one", "extension-one")).isFalse();
+    }
+
     @Test
     void shouldUnloadAPlugin() throws BundleException {
         GoPluginDescriptor pluginDescriptor = mock(GoPluginDescriptor.class);
@@ -20,8 +20,10 @@ import com.thoughtworks.go.config.commands.EntityConfigUpdateCommand;
 import com.thoughtworks.go.config.update.FullConfigUpdateCommand;
 import com.thoughtworks.go.config.validation.GoConfigValidity;
 import com.thoughtworks.go.domain.ConfigErrors;
+import com.thoughtworks.go.listener.ConfigChangeSet;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.service.MaintenanceModeService;
 import com.thoughtworks.go.serverhealth.HealthStateType;
@@ -35,6 +37,12 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.thoughtworks.go.server.service.GoConfigService.INVALID_CRUISE_CONFIG_XML;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
@@ -57,6 +65,7 @@ public class CachedGoConfig {
     private volatile CruiseConfig mergedCurrentConfigForEdit;
     private volatile GoConfigHolder configHolder;
     private volatile Exception lastException;
+    private ExecutorService parallelListenerNotifier;
 
     @Autowired
     public CachedGoConfig(ServerHealthService serverHealthService, GoFileConfigDataSource dataSource,
@@ -198,9 +207,10 @@ public class CachedGoConfig {
     }
 
     private synchronized void saveValidConfigToCacheAndNotifyConfigChangeListeners(GoConfigHolder configHolder) {
+        CruiseConfig previousConfig = currentConfig;
         saveValidConfigToCache(configHolder);
         if (configHolder != null) {
-            notifyListeners(currentConfig);
+            notifyListeners(currentConfig, ConfigChangeSet.between(previousConfig, currentConfig));
         }
     }
 
@@ -223,18 +233,67 @@ public class CachedGoConfig {
         }
     }
 
-    private synchronized void notifyListeners(CruiseConfig newCruiseConfig) {
-        LOGGER.info("About to notify config listeners");
+    private synchronized void notifyListeners(CruiseConfig newCruiseConfig, ConfigChangeSet changes) {
+        LOGGER.info("About to notify config listeners of changes to {}", changes);
+        List<Future<?>> notifiedInParallel = new ArrayList<>();
         for (ConfigChangedListener listener : listeners) {
+            if (listener instanceof SelectiveConfigChangedListener) {
+                SelectiveConfigChangedListener selectiveListener = (SelectiveConfigChangedListener) listener;
+                if (!changes.hasChangedAnyOf(selectiveListener.dependsOn())) {
+                    LOGGER.debug("Not notifying {}, none of {} changed", listener, selectiveListener.dependsOn());
+                    continue;
+                }
+                if (selectiveListener.canBeNotifiedInParallel()) {
+                    notifiedInParallel.add(parallelListenerNotifier().submit(() -> notifyListener(listener, newCruiseConfig, changes)));
+                    continue;
+                }
+            }
+            notifyListener(listener, newCruiseConfig, changes);
+        }
+        for (Future<?> notification : notifiedInParallel) {
             try {
-                listener.onConfigChange(newCruiseConfig);
-            } catch (Exception e) {
-                LOGGER.error("Failed to fire config changed event for listener: {}", listener, e);
+                notification.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                LOGGER.error("Failed to fire config changed event", e.getCause());
             }
         }
         LOGGER.info("Finished notifying all listeners");
     }
 
+    private void notifyListener(ConfigChangedListener listener, CruiseConfig newCruiseConfig, ConfigChangeSet changes) {
+        long startTime = System.nanoTime();
+        try {
+            if (listener instanceof SelectiveConfigChangedListener) {
+                ((SelectiveConfigChangedListener) listener).onConfigChange(newCruiseConfig, changes);
+            } else {
+                listener.onConfigChange(newCruiseConfig);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to fire config changed event for listener: {}", listener, e);
+        }
+        long tookInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        if (tookInMillis >= systemEnvironment.getConfigListenerSlowThresholdMillis()) {
+            LOGGER.warn("Notifying {} of a config change took (in ms): {}", listener.getClass().getName(), tookInMillis);
+        } else {
+            LOGGER.debug("Notifying {} of a config change took (in ms): {}", listener.getClass().getName(), tookInMillis);
+        }
+    }
+
+    private ExecutorService parallelListenerNotifier() {
+        if (parallelListenerNotifier == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            parallelListenerNotifier = Executors.newFixedThreadPool(Math.max(1, systemEnvironment.getConfigListenerNotificationThreads()), runnable -> {
+                Thread thread = new Thread(runnable, "config-listener-notifier-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return parallelListenerNotifier;
+    }
+
     /**
      * @deprecated Used only in tests
      */
@@ -246,7 +305,7 @@ public class CachedGoConfig {
      * @deprecated Used only in tests
      */
     public void reloadListeners() {
-        notifyListeners(currentConfig());
+        notifyListeners(currentConfig(), ConfigChangeSet.everything());
     }
 
     public GoConfigHolder loadConfigHolder() {
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thoughtworks.go.config;
+
+import com.google.gson.Gson;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+import com.thoughtworks.go.config.remote.ConfigReposConfig;
+import com.thoughtworks.go.plugin.configrepo.codec.GsonCodec;
+import com.thoughtworks.go.plugin.configrepo.contract.CRConfigurationProperty;
+import com.thoughtworks.go.plugin.configrepo.contract.CRParseResult;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+
+import static com.thoughtworks.go.util.CachedDigestUtils.sha256Hex;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Remembers the last successful parse result of every config repository on disk, so that a revision which has
+ * already been parsed by the same version of the same plugin with the same configuration is not parsed again,
+ * not even after a server restart or when the configuration of an unrelated repository changes.
+ * <p>
+ * Only the latest parse of a repository is kept; it is dropped when the repository is removed.
+ */
+@Component
+public class ConfigRepoParseCache implements ChangedRepoConfigWatchListListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigRepoParseCache.class);
+
+    private final Gson gson = new GsonCodec().getGson();
+    private final boolean enabled;
+    private final File directory;
+
+    @Autowired
+    public ConfigRepoParseCache(SystemEnvironment systemEnvironment, GoConfigWatchList configWatchList) {
+        this(systemEnvironment.isConfigRepoParseCacheEnabled(), systemEnvironment.getConfigRepoParseCacheDir());
+        configWatchList.registerListener(this);
+    }
+
+    ConfigRepoParseCache(boolean enabled, File directory) {
+        this.enabled = enabled;
+        this.directory = directory;
+    }
+
+    public String keyFor(String revision, String pluginId, String pluginVersion, Collection<CRConfigurationProperty> configuration) {
+        // not CachedDigestUtils, which would keep every revision ever parsed in memory
+        return DigestUtils.sha256Hex(revision + "\n" + pluginId + "\n" + pluginVersion + "\n" + gson.toJson(configuration));
+    }
+
+    /**
+     * @return the cached result of the parse with this key, or null if the repository was last parsed with a different key
+     */
+    public CRParseResult get(String fingerprint, String key) {
+        File file = fileFor(fingerprint);
+        if (!enabled || !file.exists()) {
+            return null;
+        }
+        try {
+            Entry entry = gson.fromJson(FileUtils.readFileToString(file, UTF_8), Entry.class);
+            if (entry == null || !key.equals(entry.key) || entry.result == null) {
+                return null;
+            }
+            LOGGER.debug("Reusing the parse result of config repository {} for key {}", fingerprint, key);
+            return entry.result;
+        } catch (Exception e) {
+            LOGGER.warn("Ignoring unreadable parse cache entry {}", file, e);
+            return null;
+        }
+    }
+
+    public void put(String fingerprint, String key, CRParseResult result) {
+        if (!enabled) {
+            return;
+        }
+        File file = fileFor(fingerprint);
+        try {
+            FileUtils.forceMkdir(directory);
+            File temp = new File(directory, file.getName() + ".tmp");
+            FileUtils.writeStringToFile(temp, gson.toJson(new Entry(key, result)), UTF_8);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not cache the parse result of config repository {} in {}", fingerprint, file, e);
+        }
+    }
+
+    @Override
+    public void onChangedRepoConfigWatchList(ConfigReposConfig newConfigRepos) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (newConfigRepos.stream().noneMatch(repo -> fileFor(repo.getMaterialConfig().getFingerprint()).getName().equals(name))) {
+                FileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    private File fileFor(String fingerprint) {
+        return new File(directory, sha256Hex(fingerprint) + ".json");
+    }
+
+    private static class Entry {
+        @SerializedName("key")
+        @Expose
+        private String key;
+        @SerializedName("result")
+        @Expose
+        private CRParseResult result;
+
+        private Entry(String key, CRParseResult result) {
+            this.key = key;
+            this.result = result;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.thoughtworks.go.domain.config.ConfigurationProperty;
 import com.thoughtworks.go.plugin.access.configrepo.ConfigRepoExtension;
 import com.thoughtworks.go.plugin.access.configrepo.ExportedConfig;
 import com.thoughtworks.go.plugin.access.configrepo.InvalidPartialConfigException;
+import com.thoughtworks.go.plugin.api.info.PluginDescriptor;
 import com.thoughtworks.go.plugin.configrepo.contract.CRConfigurationProperty;
 import com.thoughtworks.go.plugin.configrepo.contract.CRParseResult;
 import com.thoughtworks.go.plugin.configrepo.contract.CRPipeline;
@@ -35,11 +36,17 @@ public class ConfigRepoPlugin implements PartialConfigProvider {
     private ConfigConverter configConverter;
     private ConfigRepoExtension crExtension;
     private String pluginId;
+    private ConfigRepoParseCache parseCache;
 
     public ConfigRepoPlugin(ConfigConverter configConverter, ConfigRepoExtension crExtension, String pluginId) {
+        this(configConverter, crExtension, pluginId, null);
+    }
+
+    public ConfigRepoPlugin(ConfigConverter configConverter, ConfigRepoExtension crExtension, String pluginId, ConfigRepoParseCache parseCache) {
         this.configConverter = configConverter;
         this.crExtension = crExtension;
         this.pluginId = pluginId;
+        this.parseCache = parseCache;
     }
 
     public static List<CRConfigurationProperty> getCrConfigurations(Configuration configuration) {
@@ -59,10 +66,34 @@ public class ConfigRepoPlugin implements PartialConfigProvider {
     @Override
     public PartialConfig load(File configRepoCheckoutDirectory, PartialConfigLoadContext context) {
         Collection<CRConfigurationProperty> cRconfigurations = getCrConfigurations(context.configuration());
-        CRParseResult crPartialConfig = parseDirectory(configRepoCheckoutDirectory, cRconfigurations);
+        CRParseResult crPartialConfig = parseDirectory(configRepoCheckoutDirectory, cRconfigurations, context);
         return configConverter.toPartialConfig(crPartialConfig, context);
     }
 
+    private CRParseResult parseDirectory(File configRepoCheckoutDirectory, Collection<CRConfigurationProperty> cRconfigurations, PartialConfigLoadContext context) {
+        String pluginVersion = pluginVersion();
+        if (parseCache == null || context.revision() == null || pluginVersion == null) {
+            return parseDirectory(configRepoCheckoutDirectory, cRconfigurations);
+        }
+        String fingerprint = context.configMaterial().getFingerprint();
+        String key = parseCache.keyFor(context.revision(), pluginId, pluginVersion, cRconfigurations);
+        CRParseResult cached = parseCache.get(fingerprint, key);
+        if (cached != null) {
+            return cached;
+        }
+        CRParseResult crParseResult = parseDirectory(configRepoCheckoutDirectory, cRconfigurations);
+        parseCache.put(fingerprint, key, crParseResult);
+        return crParseResult;
+    }
+
+    private String pluginVersion() {
+        PluginDescriptor descriptor = crExtension.pluginDescriptorFor(pluginId);
+        if (descriptor == null || descriptor.about() == null) {
+            return null;
+        }
+        return descriptor.about().version();
+    }
+
     @Override
     public String displayName() {
         return "Plugin " + this.pluginId;
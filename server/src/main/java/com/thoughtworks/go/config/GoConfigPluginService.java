@@ -32,13 +32,15 @@ public class GoConfigPluginService {
 
     private final ConfigRepoExtension crExtension;
     private final XmlPartialConfigProvider embeddedXmlPlugin;
+    private final ConfigRepoParseCache parseCache;
     private ConfigConverter configConverter;
 
     @Autowired
     public GoConfigPluginService(ConfigRepoExtension configRepoExtension, ConfigCache configCache,
                                  ConfigElementImplementationRegistry configElementImplementationRegistry,
-                                 CachedGoConfig cachedGoConfig) {
+                                 CachedGoConfig cachedGoConfig, ConfigRepoParseCache parseCache) {
         this.crExtension = configRepoExtension;
+        this.parseCache = parseCache;
         MagicalGoConfigXmlLoader loader = new MagicalGoConfigXmlLoader(configCache, configElementImplementationRegistry);
         embeddedXmlPlugin = new XmlPartialConfigProvider(loader);
         configConverter = new ConfigConverter(new GoCipher(), cachedGoConfig);
@@ -53,7 +55,7 @@ public class GoConfigPluginService {
         if (pluginId == null || pluginId.equals(XmlPartialConfigProvider.providerName))
             return embeddedXmlPlugin;
 
-        return new ConfigRepoPlugin(configConverter, crExtension, pluginId);
+        return new ConfigRepoPlugin(configConverter, crExtension, pluginId, parseCache);
     }
 
     public boolean isConfigRepoPlugin(String pluginId) {
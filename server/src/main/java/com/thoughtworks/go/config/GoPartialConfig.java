@@ -31,7 +31,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -49,6 +52,8 @@ public class GoPartialConfig implements PartialConfigUpdateCompletedListener, Ch
     private final ServerHealthService serverHealthService;
     private GoRepoConfigDataSource repoConfigDataSource;
     private GoConfigWatchList configWatchList;
+    private final Map<String, PendingPartial> pendingPartials = new LinkedHashMap<>();
+    private final Object mergeLock = new Object();
 
     @Autowired
     public GoPartialConfig(GoRepoConfigDataSource repoConfigDataSource,
@@ -81,8 +86,38 @@ public class GoPartialConfig implements PartialConfigUpdateCompletedListener, Ch
 
             // put latest known
             cachedGoPartials.addOrUpdate(fingerprint, newPart);
-            if (updateConfig(newPart, fingerprint, repoConfig)) {
-                cachedGoPartials.markAsValid(fingerprint, newPart);
+            synchronized (pendingPartials) {
+                pendingPartials.put(fingerprint, new PendingPartial(repoConfig, newPart));
+            }
+            mergePendingPartials();
+        }
+    }
+
+    /**
+     * Partials parsed while another merge is in progress wait for it and are then merged and validated together,
+     * rather than each of them paying for a full config save. A caller only returns once its own partial is merged.
+     */
+    private void mergePendingPartials() {
+        synchronized (mergeLock) {
+            List<PendingPartial> batch;
+            synchronized (pendingPartials) {
+                batch = new ArrayList<>(pendingPartials.values());
+                pendingPartials.clear();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (batch.size() > 1 && updateConfig(batch)) {
+                for (PendingPartial pending : batch) {
+                    cachedGoPartials.markAsValid(pending.fingerprint(), pending.partial);
+                }
+                return;
+            }
+            // merged one by one, so that an invalid partial is reported against its own config repo only
+            for (PendingPartial pending : batch) {
+                if (updateConfig(pending.partial, pending.fingerprint(), pending.repoConfig)) {
+                    cachedGoPartials.markAsValid(pending.fingerprint(), pending.partial);
+                }
             }
         }
     }
@@ -97,6 +132,21 @@ public class GoPartialConfig implements PartialConfigUpdateCompletedListener, Ch
         return new PartialConfigUpdateCommand(partial, fingerprint, cachedGoPartials);
     }
 
+    private boolean updateConfig(List<PendingPartial> batch) {
+        try {
+            goConfigService.updateConfig(cruiseConfig -> {
+                for (PendingPartial pending : batch) {
+                    buildUpdateCommand(pending.partial, pending.fingerprint()).update(cruiseConfig);
+                }
+                return cruiseConfig;
+            });
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Merging {} partials together failed, merging them one by one", batch.size(), e);
+            return false;
+        }
+    }
+
     private boolean updateConfig(final PartialConfig newPart, final String fingerprint, ConfigRepoConfig repoConfig) {
         try {
             goConfigService.updateConfig(buildUpdateCommand(newPart, fingerprint));
@@ -127,4 +177,18 @@ public class GoPartialConfig implements PartialConfigUpdateCompletedListener, Ch
             }
         }
     }
+
+    private static class PendingPartial {
+        private final ConfigRepoConfig repoConfig;
+        private final PartialConfig partial;
+
+        private PendingPartial(ConfigRepoConfig repoConfig, PartialConfig partial) {
+            this.repoConfig = repoConfig;
+            this.partial = partial;
+        }
+
+        private String fingerprint() {
+            return repoConfig.getMaterialConfig().getFingerprint();
+        }
+    }
 }
@@ -155,7 +155,7 @@ public class GoRepoConfigDataSource implements ChangedRepoConfigWatchListListene
                 this.modifiedConfigRepoConfigsAwaitingParse.remove(repoConfig);
                 //TODO put modifications and previous partial config in context
                 // the context is just a helper for plugin.
-                PartialConfigLoadContext context = new LoadContext(repoConfig);
+                PartialConfigLoadContext context = new LoadContext(repoConfig, modification.getRevision());
                 PartialConfig newPart = plugin.load(folder, context);
                 if (newPart == null) {
                     LOGGER.warn("Parsed configuration material {} by {} is null", material.getDisplayName(), plugin.displayName());
@@ -213,9 +213,11 @@ public class GoRepoConfigDataSource implements ChangedRepoConfigWatchListListene
 
     private class LoadContext implements PartialConfigLoadContext {
         private ConfigRepoConfig repoConfig;
+        private String revision;
 
-        public LoadContext(ConfigRepoConfig repoConfig) {
+        public LoadContext(ConfigRepoConfig repoConfig, String revision) {
             this.repoConfig = repoConfig;
+            this.revision = revision;
         }
 
         @Override
@@ -227,5 +229,10 @@ public class GoRepoConfigDataSource implements ChangedRepoConfigWatchListListene
         public MaterialConfig configMaterial() {
             return this.repoConfig.getMaterialConfig();
         }
+
+        @Override
+        public String revision() {
+            return revision;
+        }
     }
 }
@@ -17,7 +17,7 @@
 package com.thoughtworks.go.server.dao;
 
 public enum FeedModifier {
-    Before("Before"), Latest("");
+    Before("Before"), After("After"), Latest("");
 
     private final String suffix;
 
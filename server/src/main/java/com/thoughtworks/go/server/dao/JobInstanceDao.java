@@ -19,6 +19,7 @@ package com.thoughtworks.go.server.dao;
 import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.server.service.JobInstanceService;
 import com.thoughtworks.go.server.ui.SortOrder;
+import com.thoughtworks.go.server.util.KeysetPage;
 
 import java.util.List;
 
@@ -35,6 +36,8 @@ public interface JobInstanceDao {
 
 	JobInstances findJobHistoryPage(String pipelineName, String stageName, String jobConfigName, int count, int offset);
 
+    KeysetPage<JobInstances> findJobHistoryViaCursor(String pipelineName, String stageName, String jobConfigName, FeedModifier feedModifier, long cursor, int pageSize);
+
     JobInstance save(long stageId, JobInstance jobInstance);
 
     JobInstance updateAssignedInfo(JobInstance jobInstance);
@@ -35,12 +35,15 @@ import com.thoughtworks.go.server.transaction.SqlMapClientDaoSupport;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.server.ui.SortOrder;
+import com.thoughtworks.go.server.util.KeysetPage;
+import com.thoughtworks.go.server.util.KeysetPagination;
 import com.thoughtworks.go.server.util.SqlUtil;
 import com.thoughtworks.go.util.SystemEnvironment;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.config.CacheConfiguration;
 import net.sf.ehcache.config.Configuration;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
 import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.slf4j.Logger;
@@ -75,7 +78,10 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
     private ResourceRepository resourceRepository;
     private ArtifactPlanRepository artifactPlanRepository;
     private final ClusterProfilesService clusterProfilesService;
+    private final SystemEnvironment systemEnvironment;
     private ArtifactPropertiesGeneratorRepository artifactPropertiesGeneratorRepository;
+    private final Object scheduledJobQueueLock = new Object();
+    private ScheduledJobQueue scheduledJobQueue;
 
     @Autowired
     public JobInstanceSqlMapDao(EnvironmentVariableDao environmentVariableDao,
@@ -99,10 +105,17 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         this.resourceRepository = resourceRepository;
         this.artifactPlanRepository = artifactPlanRepository;
         this.clusterProfilesService = clusterProfilesService;
+        this.systemEnvironment = systemEnvironment;
         this.artifactPropertiesGeneratorRepository = artifactPropertiesGeneratorRepository;
         this.jobAgentMetadataDao = jobAgentMetadataDao;
         this.cacheKeyGenerator = new CacheKeyGenerator(getClass());
         this.latestCompletedCache = new LazyCache(createCacheIfRequired(getClass().getName()), transactionSynchronizationManager);
+        goCache.addListener(new CacheEventListenerAdapter() {
+            @Override
+            public void notifyRemoveAll(Ehcache cache) {
+                clearScheduledJobQueue();
+            }
+        });
     }
 
     private static Ehcache createCacheIfRequired(String cacheName) {
@@ -375,6 +388,11 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
                     synchronized (cacheKeyForActiveJobIds()) {
                         goCache.remove(cacheKeyForActiveJobIds());
                     }
+                    synchronized (scheduledJobQueueLock) {
+                        if (scheduledJobQueue != null) {
+                            scheduledJobQueue.jobStateChanged(jobInstance.getId(), jobInstance.getState());
+                        }
+                    }
                     String activeJobKey = cacheKeyForActiveJob(jobInstance.getId());
                     synchronized (activeJobKey) {
                         goCache.remove(activeJobKey);
@@ -501,6 +519,37 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         });
     }
 
+    /*
+     * Seeks from the id of a job instance instead of skipping over the ones before it, so every page costs the same
+     * however deep into the history it is. Not cached, unlike the offset based pages.
+     */
+    public KeysetPage<JobInstances> findJobHistoryViaCursor(String pipelineName,
+                                                            String stageName,
+                                                            String jobConfigName,
+                                                            FeedModifier feedModifier,
+                                                            long cursor,
+                                                            int pageSize) {
+        FeedModifier direction = feedModifier == FeedModifier.Latest ? FeedModifier.Before : feedModifier;
+        Map<String, Object> params = arguments("pipelineName", pipelineName)
+                .and("stageName", stageName)
+                .and("jobConfigName", jobConfigName)
+                .and("cursor", feedModifier == FeedModifier.Latest ? null : cursor)
+                .and("count", pageSize + 1).asMap();
+        List<JobInstance> results = (List<JobInstance>) getSqlMapClientTemplate().queryForList("findJobHistoryPage" + direction.suffix(), params);
+        KeysetPagination pagination = KeysetPaging.trim(results, JobInstance::getId, feedModifier, cursor, pageSize,
+                id -> hasJobInstance(pipelineName, stageName, jobConfigName, FeedModifier.After, id),
+                id -> hasJobInstance(pipelineName, stageName, jobConfigName, FeedModifier.Before, id));
+        return new KeysetPage<>(new JobInstances(results), pagination);
+    }
+
+    private boolean hasJobInstance(String pipelineName, String stageName, String jobConfigName, FeedModifier feedModifier, long id) {
+        Map<String, Object> params = arguments("pipelineName", pipelineName)
+                .and("stageName", stageName)
+                .and("jobConfigName", jobConfigName)
+                .and("cursor", id).asMap();
+        return getSqlMapClientTemplate().queryForObject("getJobId" + feedModifier.suffix(), params) != null;
+    }
+
     String cacheKeyForFindJobHistoryPage(String pipelineName,
                                          String stageName,
                                          String jobConfigName,
@@ -510,10 +559,10 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
     }
 
     public List<JobPlan> orderedScheduledBuilds() {
-        List<Long> jobIds = (List<Long>) getSqlMapClientTemplate().queryForList("scheduledPlanIds");
+        ScheduledJobQueue scheduledJobQueue = scheduledJobQueue();
 
         List<JobPlan> plans = new ArrayList<>();
-        for (Long jobId : jobIds) {
+        for (Long jobId : scheduledJobQueue.jobIds()) {
             String cacheKey = cacheKeyForJobPlan(jobId);
             synchronized (cacheKey) {
                 JobPlan jobPlan = (JobPlan) goCache.get(cacheKey);
@@ -524,12 +573,33 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
                     jobPlan = cloner.deepClone(jobPlan);
                     goCache.put(cacheKey, jobPlan);
                     plans.add(jobPlan);
+                } else {
+                    scheduledJobQueue.remove(jobId);
                 }
             }
         }
         return plans;
     }
 
+    private ScheduledJobQueue scheduledJobQueue() {
+        // The lock is held from the read to the swap, so a job changing state meanwhile waits and is then applied
+        // to the queue just read, whether or not the read already saw it.
+        synchronized (scheduledJobQueueLock) {
+            long now = System.currentTimeMillis();
+            // re-read now and then in case a job changed state without going through this dao
+            if (scheduledJobQueue == null || scheduledJobQueue.isOlderThan(systemEnvironment.get(SystemEnvironment.SCHEDULED_JOBS_RECONCILE_INTERVAL), now)) {
+                scheduledJobQueue = new ScheduledJobQueue((List<Long>) getSqlMapClientTemplate().queryForList("scheduledPlanIds"), now);
+            }
+            return scheduledJobQueue;
+        }
+    }
+
+    private void clearScheduledJobQueue() {
+        synchronized (scheduledJobQueueLock) {
+            scheduledJobQueue = null;
+        }
+    }
+
     private JobPlan _loadJobPlan(Long jobId) {
         DefaultJobPlan jobPlan = (DefaultJobPlan) getSqlMapClientTemplate().queryForObject("scheduledPlan", arguments("id", jobId).asMap());
         if (jobPlan == null) {
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.dao;
+
+import com.thoughtworks.go.server.util.KeysetPagination;
+
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * @understands cutting a page of history fetched by cursor down to size and finding the cursors of the pages next to it
+ * <p>
+ * A page is fetched with one row more than its size, newest first, so whether there is more in the direction being
+ * paged is known without counting. Whether there is more on the other side is asked with a lookup of a single id.
+ */
+class KeysetPaging {
+    private KeysetPaging() {
+    }
+
+    static <T> KeysetPagination trim(List<T> fetched, ToLongFunction<T> idOf, FeedModifier feedModifier, long cursor, int pageSize,
+                                     LongPredicate anyNewerThan, LongPredicate anyOlderThan) {
+        boolean more = fetched.size() > pageSize;
+        if (more) {
+            // the extra row is the one furthest from the cursor
+            fetched.remove(feedModifier == FeedModifier.After ? 0 : fetched.size() - 1);
+        }
+
+        if (fetched.isEmpty()) {
+            // nothing on this side of the cursor, so link back to the cursor itself
+            if (feedModifier == FeedModifier.Before && anyNewerThan.test(cursor - 1)) {
+                return KeysetPagination.of(pageSize, cursor - 1, null);
+            }
+            if (feedModifier == FeedModifier.After && anyOlderThan.test(cursor + 1)) {
+                return KeysetPagination.of(pageSize, null, cursor + 1);
+            }
+            return KeysetPagination.of(pageSize, null, null);
+        }
+
+        long newest = idOf.applyAsLong(fetched.get(0));
+        long oldest = idOf.applyAsLong(fetched.get(fetched.size() - 1));
+        Long newerCursor;
+        Long olderCursor;
+        if (feedModifier == FeedModifier.After) {
+            newerCursor = more ? newest : null;
+            olderCursor = anyOlderThan.test(oldest) ? oldest : null;
+        } else {
+            newerCursor = feedModifier == FeedModifier.Before && anyNewerThan.test(newest) ? newest : null;
+            olderCursor = more ? oldest : null;
+        }
+        return KeysetPagination.of(pageSize, newerCursor, olderCursor);
+    }
+}
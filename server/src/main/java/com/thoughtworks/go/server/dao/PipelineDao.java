@@ -21,6 +21,7 @@ import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.buildcause.BuildCause;
 import com.thoughtworks.go.presentation.pipelinehistory.PipelineInstanceModel;
 import com.thoughtworks.go.presentation.pipelinehistory.PipelineInstanceModels;
+import com.thoughtworks.go.server.util.KeysetPage;
 
 import java.util.List;
 
@@ -37,6 +38,8 @@ public interface PipelineDao {
 
     PipelineInstanceModels loadHistory(String pipelineName, int resultsPerPage, int start);
 
+    KeysetPage<PipelineInstanceModels> loadHistoryViaCursor(String pipelineName, FeedModifier feedModifier, long cursor, int pageSize);
+
     int count(String pipelineName);
 
     Pipeline pipelineByIdWithMods(long pipelineId);
@@ -33,10 +33,13 @@ import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.cache.LazyCache;
 import com.thoughtworks.go.server.domain.StageStatusListener;
 import com.thoughtworks.go.server.initializers.Initializer;
+import com.thoughtworks.go.server.initializers.WarmUp;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.transaction.SqlMapClientDaoSupport;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeysetPage;
+import com.thoughtworks.go.server.util.KeysetPagination;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.server.util.SqlUtil;
 import com.thoughtworks.go.util.Clock;
@@ -63,6 +66,8 @@ import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -91,6 +96,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     private final ReadWriteLock activePipelineRWLock = new ReentrantReadWriteLock();
     private final Lock activePipelineReadLock = activePipelineRWLock.readLock();
     private final Lock activePipelineWriteLock = activePipelineRWLock.writeLock();
+    private volatile Set<Long> pipelinesChangedDuringWarmUp;
 
     @Autowired
     public PipelineSqlMapDao(StageDao stageDao,
@@ -151,7 +157,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
 
     @Override
     public void startDaemon() {
-
+        warmUpActivePipelineCaches();
     }
 
     public Pipeline save(final Pipeline pipeline) {
@@ -408,57 +414,60 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
 
 
     public void cacheActivePipelines() {
-        LOGGER.info("Retriving Active Pipelines from Database...");
-        final List<PipelineInstanceModel> pipelines = getAllPIMs();
-        if (pipelines.isEmpty()) {
-            return;
-        }
-        Thread[] loaderThreads = loadActivePipelineAndHistoryToCache(pipelines);
-        cacheMaterialRevisions(pipelines);
-        waitForLoaderThreadsToJoin(loaderThreads);
+        Map<CaseInsensitiveString, TreeSet<Long>> result = WarmUp.critical("Loading active pipelines", this::loadActivePipelineIdsByName);
+        goCache.put(activePipelinesCacheKey(), result);
     }
 
-    private List<PipelineInstanceModel> getAllPIMs() {
-        return getSqlMapClientTemplate().queryForList("allActivePipelines");
+    private Map<CaseInsensitiveString, TreeSet<Long>> loadActivePipelineIdsByName() {
+        Map<CaseInsensitiveString, TreeSet<Long>> result = new HashMap<>();
+        for (Map<String, Object> row : (List<Map<String, Object>>) getSqlMapClientTemplate().queryForList("allActivePipelineIdsAndNames")) {
+            Map<String, Object> columns = new HashMap<>();
+            for (Map.Entry<String, Object> column : row.entrySet()) {
+                columns.put(column.getKey().toLowerCase(), column.getValue());
+            }
+            TreeSet<Long> ids = initializePipelineInstances(result, new CaseInsensitiveString((String) columns.get("pipelinename")));
+            ids.add(((Number) columns.get("pipelineid")).longValue());
+        }
+        return result;
     }
 
-    private List<CaseInsensitiveString> getPipelineNamesInConfig() {
-        return configFileDao.load().getAllPipelineNames();
+    /*
+     * Loads the history and material revisions of the active pipelines, which would otherwise be loaded on first use,
+     * in chunks on a small pool of threads. Each chunk is read by its ids, as active pipelines can be far apart in the
+     * history. Pipelines that change while this runs are left out so that an older copy doesn't overwrite the
+     * invalidation.
+     */
+    private void warmUpActivePipelineCaches() {
+        List<Long> ids = loadIdsFromHistory(getAllActivePipelineNamesVsTheirInstanceIDs());
+        if (ids.isEmpty()) {
+            return;
+        }
+        ids.sort(Comparator.reverseOrder());
+        pipelinesChangedDuringWarmUp = ConcurrentHashMap.newKeySet();
+
+        int chunkSize = systemEnvironment.get(SystemEnvironment.STARTUP_WARM_UP_CHUNK_SIZE);
+        WarmUp warmUp = new WarmUp("active-pipelines", systemEnvironment.get(SystemEnvironment.STARTUP_WARM_UP_THREADS));
+        CompletableFuture<Void> history = warmUp.inBackground("Loading history of active pipelines", ids, chunkSize, this::cacheActivePipelineHistory);
+        CompletableFuture<Void> materialRevisions = warmUp.inBackground("Loading material revisions of active pipelines", idsOfPipelinesInConfig(), chunkSize,
+                chunk -> materialRepository.cacheMaterialRevisionsForPipelines(new HashSet<>(chunk)));
+        warmUp.shutdownWhenDone(history, materialRevisions).whenComplete((done, e) -> pipelinesChangedDuringWarmUp = null);
     }
 
-    private void waitForLoaderThreadsToJoin(Thread[] loaderThreads) {
-        for (Thread loaderThread : loaderThreads) {
-            try {
-                loaderThread.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+    private void cacheActivePipelineHistory(List<Long> ids) {
+        List<PipelineInstanceModel> pipelines = getSqlMapClientTemplate().queryForList("getPipelineHistoryByIds", arguments("ids", ids).asMap());
+        Set<Long> changed = pipelinesChangedDuringWarmUp;
+        for (PipelineInstanceModel pipeline : pipelines) {
+            String cacheKey = pipelineHistoryCacheKey(pipeline.getId());
+            synchronized (cacheKey) {
+                if (goCache.get(cacheKey) == null && (changed == null || !changed.contains(pipeline.getId()))) {
+                    goCache.put(cacheKey, pipeline);
+                }
             }
         }
     }
 
-    private Thread[] loadActivePipelineAndHistoryToCache(final List<PipelineInstanceModel> pipelines) {
-        final Thread activePipelinesCacheLoader = new Thread() {
-            @Override
-            public void run() {
-                LOGGER.info("Loading Active Pipelines to cache...Started");
-                Map<CaseInsensitiveString, TreeSet<Long>> result = groupPipelineInstanceIdsByPipelineName(pipelines);
-                goCache.put(activePipelinesCacheKey(), result);
-                LOGGER.info("Loading Active Pipelines to cache...Done");
-            }
-        };
-        final Thread historyCacheLoader = new Thread() {
-            @Override
-            public void run() {
-                LOGGER.info("Loading pipeline history to cache...Started");
-                for (PipelineInstanceModel pipeline : pipelines) {
-                    goCache.put(pipelineHistoryCacheKey(pipeline.getId()), pipeline);
-                }
-                LOGGER.info("Loading pipeline history to cache...Done");
-            }
-        };
-        historyCacheLoader.start();
-        activePipelinesCacheLoader.start();
-        return new Thread[]{activePipelinesCacheLoader, historyCacheLoader};
+    private List<CaseInsensitiveString> getPipelineNamesInConfig() {
+        return configFileDao.load().getAllPipelineNames();
     }
 
     public PipelineInstanceModels loadActivePipelines() {
@@ -477,24 +486,25 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return convertToPipelineInstanceModels(similarMapForSinglePipeline);
     }
 
-    private void cacheMaterialRevisions(List<PipelineInstanceModel> models) {
+    private List<Long> idsOfPipelinesInConfig() {
         List<CaseInsensitiveString> pipelinesInConfig = getPipelineNamesInConfig();
         if (pipelinesInConfig.isEmpty()) {
             LOGGER.warn("No pipelines found in Config, Skipping material revision caching.");
-            return;
+            return Collections.emptyList();
         }
-        Set<Long> ids = new HashSet<Long>();
-        for (PipelineInstanceModel model : models) {
-            if (pipelinesInConfig.contains(new CaseInsensitiveString(model.getName()))) {
-                ids.add(model.getId());
+        Map<CaseInsensitiveString, TreeSet<Long>> activePipelines = getAllActivePipelineNamesVsTheirInstanceIDs();
+        List<Long> ids = new ArrayList<>();
+        try {
+            activePipelineReadLock.lock();
+            for (CaseInsensitiveString pipelineName : pipelinesInConfig) {
+                if (activePipelines.containsKey(pipelineName)) {
+                    ids.addAll(activePipelines.get(pipelineName).descendingSet());
+                }
             }
-
-        }
-        if (ids.isEmpty()) {
-            LOGGER.warn("No PIMs found in Config, Skipping material revision caching.");
-            return;
+        } finally {
+            activePipelineReadLock.unlock();
         }
-        materialRepository.cacheMaterialRevisionsForPipelines(ids);
+        return ids;
     }
 
     private PipelineInstanceModels convertToPipelineInstanceModels(Map<CaseInsensitiveString, TreeSet<Long>> result) {
@@ -544,15 +554,6 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return model;
     }
 
-    private Map<CaseInsensitiveString, TreeSet<Long>> groupPipelineInstanceIdsByPipelineName(List<PipelineInstanceModel> pipelines) {
-        Map<CaseInsensitiveString, TreeSet<Long>> result = new HashMap<CaseInsensitiveString, TreeSet<Long>>();
-        for (PipelineInstanceModel pipeline : pipelines) {
-            TreeSet<Long> ids = initializePipelineInstances(result, new CaseInsensitiveString(pipeline.getName()));
-            ids.add(pipeline.getId());
-        }
-        return result;
-    }
-
     String activePipelinesCacheKey() {
         return cacheKeyGenerator.generate("activePipelines");
     }
@@ -652,10 +653,21 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     }
 
     private void removeStageSpecificCache(Stage stage) {
-        goCache.remove(pipelineHistoryCacheKey(stage.getPipelineId()));
+        removePipelineHistoryCache(stage.getPipelineId());
         goCache.remove(cacheKeyForLatestPassedStage(stage.getPipelineId(), stage.getName()));
     }
 
+    private void removePipelineHistoryCache(long id) {
+        String cacheKey = pipelineHistoryCacheKey(id);
+        synchronized (cacheKey) {
+            Set<Long> changed = pipelinesChangedDuringWarmUp;
+            if (changed != null) {
+                changed.add(id);
+            }
+            goCache.remove(cacheKey);
+        }
+    }
+
     String pipelineHistoryCacheKey(Long id) {
         return cacheKeyGenerator.generate("pipelineHistory", id);
     }
@@ -668,6 +680,27 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return loadHistory(pipelineName, ids);
     }
 
+    /*
+     * Seeks from the id of a pipeline instance instead of skipping over the ones before it, so every page costs the
+     * same however deep into the history it is.
+     */
+    public KeysetPage<PipelineInstanceModels> loadHistoryViaCursor(String pipelineName, FeedModifier feedModifier, long cursor, int pageSize) {
+        FeedModifier direction = feedModifier == FeedModifier.Latest ? FeedModifier.Before : feedModifier;
+        Map<String, Object> toGet = arguments("pipelineName", pipelineName)
+                .and("cursor", feedModifier == FeedModifier.Latest ? null : cursor)
+                .and("limit", pageSize + 1).asMap();
+        List<Long> ids = getSqlMapClientTemplate().queryForList("getPipelineRange" + direction.suffix(), toGet);
+        KeysetPagination pagination = KeysetPaging.trim(ids, Long::longValue, feedModifier, cursor, pageSize,
+                id -> hasPipelineInstance(pipelineName, FeedModifier.After, id),
+                id -> hasPipelineInstance(pipelineName, FeedModifier.Before, id));
+        return new KeysetPage<>(loadHistory(pipelineName, ids), pagination);
+    }
+
+    private boolean hasPipelineInstance(String pipelineName, FeedModifier feedModifier, long id) {
+        Map<String, Object> args = arguments("pipelineName", pipelineName).and("cursor", id).asMap();
+        return getSqlMapClientTemplate().queryForObject("getPipelineId" + feedModifier.suffix(), args) != null;
+    }
+
     public int getPageNumberForCounter(String pipelineName, int pipelineCounter, int limit) {
         Integer maxCounter = getCounterForPipeline(pipelineName);
         Pagination pagination = Pagination.pageStartingAt((maxCounter - pipelineCounter), maxCounter, limit);
@@ -675,18 +708,62 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     }
 
     public PipelineInstanceModels findMatchingPipelineInstances(String pipelineName, String pattern, int limit) {
+        return findMatchingPipelineInstances(pipelineName, pattern, limit, 0, Collections.emptyList());
+    }
+
+    /**
+     * Same as {@link #findMatchingPipelineInstances(String, String, int)}, but only pipelines with an id greater than
+     * {@code afterPipelineId} are searched in the database. Matches among the older pipelines are already known and
+     * passed in as {@code knownMatchingIds}, newest first.
+     */
+    public PipelineInstanceModels findMatchingPipelineInstances(String pipelineName, String pattern, int limit, long afterPipelineId, List<Long> knownMatchingIds) {
         Map<String, Object> args = arguments("pipelineName", pipelineName).
                 and("pattern", "%" + pattern.toLowerCase() + "%").
                 and("rawPattern", pattern.toLowerCase()).
+                and("afterPipelineId", afterPipelineId).
                 and("limit", limit).asMap();
         long begin = System.currentTimeMillis();
         List<PipelineInstanceModel> matchingPIMs = (List<PipelineInstanceModel>) getSqlMapClientTemplate().queryForList("findMatchingPipelineInstances", args);
         List<PipelineInstanceModel> exactMatchingPims = (List<PipelineInstanceModel>) getSqlMapClientTemplate().queryForList("findExactMatchingPipelineInstances", args);
+        Set<Long> matchingIds = new HashSet<>();
+        for (PipelineInstanceModel matchingPIM : matchingPIMs) {
+            matchingIds.add(matchingPIM.getId());
+        }
+        for (Long id : knownMatchingIds) {
+            if (matchingIds.size() >= limit) {
+                break;
+            }
+            PipelineInstanceModel model = loadHistory(id);
+            if (model != null && matchingIds.add(id)) {
+                matchingPIMs.add(model);
+            }
+        }
         LOGGER.debug("[Compare Pipelines] Query initiated for pipeline {} with pattern {}. Query execution took {} milliseconds", pipelineName, pattern, System.currentTimeMillis() - begin);
         exactMatchingPims.addAll(matchingPIMs);
         return PipelineInstanceModels.createPipelineInstanceModels(exactMatchingPims);
     }
 
+    /**
+     * @return one row per modification that went into each pipeline with an id in {@code (from, to]}, in pipeline id order
+     */
+    public List<Map<String, Object>> getSearchableTextOfPipelines(long from, long to) {
+        Map<String, Object> args = arguments("from", from).and("to", to).asMap();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map<String, Object> row : (List<Map<String, Object>>) getSqlMapClientTemplate().queryForList("getSearchableTextOfPipelines", args)) {
+            Map<String, Object> sanitized = new HashMap<>();
+            for (Map.Entry<String, Object> column : row.entrySet()) {
+                sanitized.put(column.getKey().toLowerCase(), column.getValue());
+            }
+            rows.add(sanitized);
+        }
+        return rows;
+    }
+
+    public long getMaximumPipelineId() {
+        Long id = (Long) getSqlMapClientTemplate().queryForObject("getMaximumPipelineId", null);
+        return id == null ? 0 : id;
+    }
+
 
     List<Long> findPipelineIds(String pipelineName, int limit, int offset) {
         if (wantLatestIdOnly(limit, offset)) {
@@ -956,7 +1033,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         getSqlMapClientTemplate().update("updatePipelineComment", args);
 
         Pipeline pipeline = findPipelineByNameAndCounter(pipelineName, pipelineCounter);
-        goCache.remove(pipelineHistoryCacheKey(pipeline.getId()));
+        removePipelineHistoryCache(pipeline.getId());
     }
 
     private Map<CaseInsensitiveString, TreeSet<Long>> getAllActivePipelineNamesVsTheirInstanceIDs() {
@@ -966,8 +1043,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
             synchronized (cacheKey) {
                 result = (Map<CaseInsensitiveString, TreeSet<Long>>) goCache.get(cacheKey);
                 if (result == null) {
-                    List<PipelineInstanceModel> pipelines = getAllPIMs();
-                    result = groupPipelineInstanceIdsByPipelineName(pipelines);
+                    result = loadActivePipelineIdsByName();
                     goCache.put(cacheKey, result);
                 }
             }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.dao;
+
+import com.thoughtworks.go.domain.JobState;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ids of the jobs waiting for an agent, oldest first. It is read from the database once and then kept up to date as
+ * jobs change state, so that build assignment does not query for the scheduled jobs on every cycle. Jobs are
+ * scheduled in time order, so a newly scheduled job goes to the end of the queue.
+ */
+class ScheduledJobQueue {
+    private final Set<Long> jobIds;
+    private final long loadedAt;
+
+    ScheduledJobQueue(List<Long> jobIds, long loadedAt) {
+        this.jobIds = new LinkedHashSet<>(jobIds);
+        this.loadedAt = loadedAt;
+    }
+
+    synchronized void jobStateChanged(long jobId, JobState state) {
+        if (state == JobState.Scheduled) {
+            jobIds.add(jobId);
+        } else {
+            jobIds.remove(jobId);
+        }
+    }
+
+    synchronized void remove(long jobId) {
+        jobIds.remove(jobId);
+    }
+
+    synchronized List<Long> jobIds() {
+        return new ArrayList<>(jobIds);
+    }
+
+    boolean isOlderThan(long interval, long now) {
+        return now - loadedAt >= interval;
+    }
+}
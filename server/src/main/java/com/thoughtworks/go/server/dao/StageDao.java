@@ -23,6 +23,7 @@ import com.thoughtworks.go.presentation.pipelinehistory.StageHistoryPage;
 import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModels;
 import com.thoughtworks.go.server.domain.JobDurationStrategy;
 import com.thoughtworks.go.server.domain.StageIdentity;
+import com.thoughtworks.go.server.util.KeysetPage;
 import com.thoughtworks.go.server.util.Pagination;
 
 import java.util.List;
@@ -87,6 +88,8 @@ public interface StageDao extends JobDurationStrategy {
 
 	StageInstanceModels findDetailedStageHistoryByOffset(String pipelineName, String stageName, Pagination pagination);
 
+    KeysetPage<StageInstanceModels> findDetailedStageHistoryViaCursor(String pipelineName, String stageName, FeedModifier feedModifier, long cursor, int pageSize);
+
     Long findStageIdByPipelineAndStageNameAndCounter(long pipeline, String name, String counter);
 
     List<StageIdentifier> findFailedStagesBetween(String pipelineName, String stageName, double fromNaturalOrder, double toNaturalOrder);
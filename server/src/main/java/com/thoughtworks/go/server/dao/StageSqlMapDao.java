@@ -37,6 +37,8 @@ import com.thoughtworks.go.server.domain.StageStatusListener;
 import com.thoughtworks.go.server.transaction.SqlMapClientDaoSupport;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeysetPage;
+import com.thoughtworks.go.server.util.KeysetPagination;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.DynamicReadWriteLock;
 import com.thoughtworks.go.util.IBatisUtil;
@@ -430,6 +432,36 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         }
     }
 
+    /*
+     * Seeks from the id of a stage instance instead of skipping over the ones before it, so every page costs the
+     * same however deep into the history it is. Not cached, unlike the offset based pages.
+     */
+    public KeysetPage<StageInstanceModels> findDetailedStageHistoryViaCursor(String pipelineName,
+                                                                             String stageName,
+                                                                             FeedModifier feedModifier,
+                                                                             long cursor,
+                                                                             int pageSize) {
+        FeedModifier direction = feedModifier == FeedModifier.Latest ? FeedModifier.Before : feedModifier;
+        Map<String, Object> args = arguments("pipelineName", pipelineName).
+                and("stageName", stageName).
+                and("cursor", feedModifier == FeedModifier.Latest ? null : cursor).
+                and("limit", pageSize + 1).asMap();
+        List<StageInstanceModel> detailedStageHistory = (List<StageInstanceModel>) getSqlMapClientTemplate().queryForList("getDetailedStageHistory" + direction.suffix(), args);
+        KeysetPagination pagination = KeysetPaging.trim(detailedStageHistory, StageInstanceModel::getId, feedModifier, cursor, pageSize,
+                id -> hasStageInstance(pipelineName, stageName, FeedModifier.After, id),
+                id -> hasStageInstance(pipelineName, stageName, FeedModifier.Before, id));
+        StageInstanceModels stageInstanceModels = new StageInstanceModels();
+        stageInstanceModels.addAll(detailedStageHistory);
+        return new KeysetPage<>(stageInstanceModels, pagination);
+    }
+
+    private boolean hasStageInstance(String pipelineName, String stageName, FeedModifier feedModifier, long id) {
+        Map<String, Object> args = arguments("pipelineName", pipelineName).
+                and("stageName", stageName).
+                and("cursor", id).asMap();
+        return getSqlMapClientTemplate().queryForObject("getStageId" + feedModifier.suffix(), args) != null;
+    }
+
     public StageHistoryPage findStageHistoryPage(final Stage stage, final int pageSize) {
         final StageIdentifier id = stage.getIdentifier();
         return findStageHistoryPage(id.getPipelineName(), id.getStageName(), () -> {
@@ -20,7 +20,8 @@ import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.PipelineTemplateConfig;
 import com.thoughtworks.go.domain.Stage;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSet;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.listener.SecurityConfigChangeListener;
 import com.thoughtworks.go.server.domain.PipelineLockStatusChangeListener;
@@ -39,10 +40,15 @@ import com.thoughtworks.go.server.service.support.toggle.Toggles;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumSet;
+import java.util.Set;
+
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.*;
+
 /* Listens to all activity that is needed to keep the dashboard updated and sets it up for processing.
  */
 @Component
-public class GoDashboardActivityListener implements Initializer, ConfigChangedListener, PipelinePauseChangeListener,
+public class GoDashboardActivityListener implements Initializer, SelectiveConfigChangedListener, PipelinePauseChangeListener,
         PipelineLockStatusChangeListener {
     private final GoConfigService goConfigService;
     private final StageService stageService;
@@ -96,6 +102,11 @@ public class GoDashboardActivityListener implements Initializer, ConfigChangedLi
         processor.start();
     }
 
+    @Override
+    public Set<ConfigChangeSet.Kind> dependsOn() {
+        return EnumSet.of(PIPELINES, ENVIRONMENTS, SECURITY, OTHER);
+    }
+
     @Override
     public void onConfigChange(final CruiseConfig newConfig) {
         processor.add(new Action() {
@@ -16,7 +16,6 @@
 
 package com.thoughtworks.go.server.domain;
 
-import com.rits.cloning.Cloner;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.domain.PipelineTimelineEntry;
 import com.thoughtworks.go.listener.TimelineUpdateListener;
@@ -33,22 +32,25 @@ import java.util.*;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import static com.thoughtworks.go.server.domain.PipelineTimelineInstances.NONE;
+
 /**
  * @understands a sorted collection of PipelineMaterialModification
+ * <p>
+ * Instances are kept per pipeline in {@link PipelineTimelineInstances}, with the material revisions they refer to
+ * shared through a {@link TimelineRevisionDictionary}. Entries handed out are copies built on demand.
  */
 public class PipelineTimeline {
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineTimeline.class);
 
-    private final Map<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> naturalOrderPmm;
-    private final Map<CaseInsensitiveString, ArrayList<PipelineTimelineEntry>> scheduleOrderPmm;
+    private final Map<CaseInsensitiveString, PipelineTimelineInstances> instancesByPipeline;
+    private final TimelineRevisionDictionary revisions;
     private volatile long maximumId;
     private final PipelineRepository pipelineRepository;
     private TransactionTemplate transactionTemplate;
     private TransactionSynchronizationManager transactionSynchronizationManager;
     private TimelineUpdateListener[] listeners;
-    private final ReadWriteLock naturalOrderLock = new ReentrantReadWriteLock();
-    private final ReadWriteLock scheduleOrderLock = new ReentrantReadWriteLock();
-    private final Cloner cloner = new Cloner();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     @Autowired
     public PipelineTimeline(PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate, TransactionSynchronizationManager transactionSynchronizationManager,
@@ -57,8 +59,8 @@ public class PipelineTimeline {
         this.transactionTemplate = transactionTemplate;
         this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.listeners = listeners;
-        naturalOrderPmm = new HashMap<>();
-        scheduleOrderPmm = new HashMap<>();
+        instancesByPipeline = new HashMap<>();
+        revisions = new TimelineRevisionDictionary();
         maximumId = -1;
     }
 
@@ -67,15 +69,15 @@ public class PipelineTimeline {
      */
     @Deprecated
     public Collection<PipelineTimelineEntry> getEntriesFor(String pipelineName) {
-        naturalOrderLock.readLock().lock();
+        lock.readLock().lock();
         try {
-            TreeSet<PipelineTimelineEntry> tree = naturalOrderPmm.get(new CaseInsensitiveString(pipelineName));
-            if (tree == null) {
-                tree = new TreeSet<>();
+            PipelineTimelineInstances instances = instancesByPipeline.get(new CaseInsensitiveString(pipelineName));
+            if (instances == null) {
+                return Collections.emptyList();
             }
-            return Collections.unmodifiableCollection(cloner.deepClone(tree));
+            return Collections.unmodifiableCollection(instances.entriesInNaturalOrderFrom(0));
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
@@ -84,17 +86,17 @@ public class PipelineTimeline {
     }
 
     public void add(PipelineTimelineEntry pipelineTimelineEntry) {
-        CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
-        initializedNaturalOrderCollection(pipelineName).add(pipelineTimelineEntry);
-        initializedScheduleOrderCollection(pipelineName).add(pipelineTimelineEntry);
-        pipelineTimelineEntry.setInsertedBefore(naturalOrderAfter(pipelineTimelineEntry));
-        pipelineTimelineEntry.setInsertedAfter(naturalOrderBefore(pipelineTimelineEntry));
-        pipelineTimelineEntry.updateNaturalOrder();
-        updateMaximumId(pipelineTimelineEntry.getId());
+        lock.writeLock().lock();
+        try {
+            initializedInstances(pipelineTimelineEntry.getPipelineName()).add(pipelineTimelineEntry);
+            updateMaximumId(pipelineTimelineEntry.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void update() {
-        acquireAllWriteLocks();
+        lock.writeLock().lock();
         try {
             final long maximumIdBeforeUpdate = maximumId;
             transactionTemplate.execute((TransactionCallback) transactionStatus -> {
@@ -117,9 +119,7 @@ public class PipelineTimeline {
                     }
 
                     private void rollbackNewEntryFor(PipelineTimelineEntry entry) {
-                        CaseInsensitiveString pipelineName = new CaseInsensitiveString(entry.getPipelineName());
-                        initializedNaturalOrderCollection(pipelineName).remove(entry);
-                        initializedScheduleOrderCollection(pipelineName).remove(entry);
+                        initializedInstances(entry.getPipelineName()).remove(entry.getId());
                     }
 
 
@@ -128,25 +128,10 @@ public class PipelineTimeline {
                 return null;
             });
         } finally {
-            releaseAllWriteLocks();
+            lock.writeLock().unlock();
         }
     }
 
-
-    // --------------------------------------------------------
-    // These methods should acquire and release lock in corresponding order.
-    private void acquireAllWriteLocks() {
-        naturalOrderLock.writeLock().lock();
-        scheduleOrderLock.writeLock().lock();
-    }
-
-    //Release in the reverse of the acquired order.
-    private void releaseAllWriteLocks() {
-        scheduleOrderLock.writeLock().unlock();
-        naturalOrderLock.writeLock().unlock();
-    }
-    // --------------------------------------------------------
-
     private void notifyListeners(List<PipelineTimelineEntry> newEntries) {
         Map<CaseInsensitiveString, PipelineTimelineEntry> pipelineToOldestEntry = new HashMap<>();
         for (PipelineTimelineEntry challenger : newEntries) {
@@ -160,7 +145,7 @@ public class PipelineTimeline {
         for (TimelineUpdateListener listener : listeners) {
             for (Map.Entry<CaseInsensitiveString, PipelineTimelineEntry> entry : pipelineToOldestEntry.entrySet()) {
                 try {
-                    listener.added(entry.getValue(), naturalOrderPmm.get(entry.getKey()));
+                    listener.added(entry.getValue(), timelineFrom(entry.getKey(), entry.getValue()));
                 } catch (Exception e) {
                     LOGGER.warn("Ignoring exception when notifying listener: {}", listener, e);
                 }
@@ -168,15 +153,29 @@ public class PipelineTimeline {
         }
     }
 
+    /**
+     * Only the part of the timeline a listener can be interested in, the oldest new entry and everything after it,
+     * is built into entries.
+     */
+    private TreeSet<PipelineTimelineEntry> timelineFrom(CaseInsensitiveString pipelineName, PipelineTimelineEntry oldestNewEntry) {
+        TreeSet<PipelineTimelineEntry> timeline = new TreeSet<>(Comparator.comparingDouble(PipelineTimelineEntry::naturalOrder).thenComparing(PipelineTimelineEntry::getId));
+        PipelineTimelineInstances instances = instancesByPipeline.get(pipelineName);
+        int index = instances == null ? NONE : instances.indexOf(oldestNewEntry.getId());
+        if (index != NONE) {
+            timeline.addAll(instances.entriesInNaturalOrderFrom(instances.naturalPositionOf(index)));
+        }
+        return timeline;
+    }
+
     /**
      * This is called on system init and is called by Spring. Hence, this is not done in a transaction. At any other time, the method update should be used
      */
     public void updateTimelineOnInit() {
-        acquireAllWriteLocks();
+        lock.writeLock().lock();
         try {
             pipelineRepository.updatePipelineTimeline(this, new ArrayList<>());
         } finally {
-            releaseAllWriteLocks();
+            lock.writeLock().unlock();
         }
     }
 
@@ -186,20 +185,15 @@ public class PipelineTimeline {
      * @return PMM which was before the pipeline with this id at the time of insertion of the PTE with the id or null if there was nothing before this pipeline during insertion
      */
     public PipelineTimelineEntry runBefore(long id, final CaseInsensitiveString pipelineName) {
-        naturalOrderLock.readLock().lock();
+        lock.readLock().lock();
         try {
-            TreeSet<PipelineTimelineEntry> treeForPipeline = naturalOrderPmm.get(pipelineName);
-            if (treeForPipeline == null) {
+            PipelineTimelineInstances instances = instancesByPipeline.get(pipelineName);
+            if (instances == null) {
                 return null;
             }
-            for (PipelineTimelineEntry pipelineTimelineEntry : treeForPipeline) {
-                if (id == pipelineTimelineEntry.getId()) {
-                    return pipelineTimelineEntry.insertedAfter();
-                }
-            }
-            throw new RuntimeException("Cannot find pipeline with id: " + id);
+            return instances.entryAt(instances.insertedAfter(indexOf(instances, id)));
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
@@ -209,96 +203,74 @@ public class PipelineTimeline {
      * @return PMM which was after the pipeline with this id at the time of insertion of the PTE with the id or null if there was nothing after this pipeline during insertion
      */
     public PipelineTimelineEntry runAfter(long id, final CaseInsensitiveString pipelineName) {
-        naturalOrderLock.readLock().lock();
+        lock.readLock().lock();
         try {
-            TreeSet<PipelineTimelineEntry> treeForPipeline = naturalOrderPmm.get(pipelineName);
-            if (treeForPipeline == null) {
+            PipelineTimelineInstances instances = instancesByPipeline.get(pipelineName);
+            if (instances == null) {
                 return null;
             }
-            for (PipelineTimelineEntry pipelineTimelineEntry : treeForPipeline) {
-                if (id == pipelineTimelineEntry.getId()) {
-                    return pipelineTimelineEntry.insertedBefore();
-                }
-            }
-            throw new RuntimeException("Cannot find pipeline with id: " + id);
+            return instances.entryAt(instances.insertedBefore(indexOf(instances, id)));
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
-    private void updateMaximumId(long id) {
-        maximumId = Math.max(id, maximumId);
-    }
-
-    private TreeSet<PipelineTimelineEntry> initializedNaturalOrderCollection(final CaseInsensitiveString pipelineName) {
-        if (!naturalOrderPmm.containsKey(pipelineName)) {
-            naturalOrderPmm.put(pipelineName, new TreeSet<>());
+    private int indexOf(PipelineTimelineInstances instances, long id) {
+        int index = instances.indexOf(id);
+        if (index == NONE) {
+            throw new RuntimeException("Cannot find pipeline with id: " + id);
         }
-        return naturalOrderPmm.get(pipelineName);
+        return index;
     }
 
-    private ArrayList<PipelineTimelineEntry> initializedScheduleOrderCollection(final CaseInsensitiveString pipelineName) {
-        if (!scheduleOrderPmm.containsKey(pipelineName)) {
-            scheduleOrderPmm.put(pipelineName, new ArrayList<>());
-        }
-        return scheduleOrderPmm.get(pipelineName);
+    private void updateMaximumId(long id) {
+        maximumId = Math.max(id, maximumId);
     }
 
-    private PipelineTimelineEntry naturalOrderAfter(PipelineTimelineEntry pipelineTimelineEntry) {
-        naturalOrderLock.readLock().lock();
-        try {
-            return naturalOrderPmm.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName())).higher(pipelineTimelineEntry);
-        } finally {
-            naturalOrderLock.readLock().unlock();
-        }
+    private PipelineTimelineInstances initializedInstances(String pipelineName) {
+        return instancesByPipeline.computeIfAbsent(new CaseInsensitiveString(pipelineName), name -> new PipelineTimelineInstances(pipelineName, revisions));
     }
 
     PipelineTimelineEntry naturalOrderBefore(PipelineTimelineEntry pipelineTimelineEntry) {
-        naturalOrderLock.readLock().lock();
+        lock.readLock().lock();
         try {
-            return naturalOrderPmm.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName())).lower(pipelineTimelineEntry);
+            PipelineTimelineInstances instances = instancesByPipeline.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName()));
+            int index = instances == null ? NONE : instances.indexOf(pipelineTimelineEntry.getId());
+            return index == NONE ? null : instances.entryAt(instances.naturalOrderBefore(index));
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
     public long pipelineBefore(long id) {
-        naturalOrderLock.readLock().lock();
+        lock.readLock().lock();
         try {
-            for (Map.Entry<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> nameToEntry : naturalOrderPmm.entrySet()) {
-                for (PipelineTimelineEntry entry : nameToEntry.getValue()) {
-                    if (entry.getId() == id) {
-                        PipelineTimelineEntry timelineEntry = naturalOrderBefore(entry);
-                        if (timelineEntry == null) {
-                            return -1;
-                        }
-                        return timelineEntry.getId();
-                    }
+            for (PipelineTimelineInstances instances : instancesByPipeline.values()) {
+                int index = instances.indexOf(id);
+                if (index != NONE) {
+                    int before = instances.naturalOrderBefore(index);
+                    return before == NONE ? -1 : instances.idAt(before);
                 }
             }
             return -1;
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
     public long pipelineAfter(long id) {
-        naturalOrderLock.readLock().lock();
+        lock.readLock().lock();
         try {
-            for (Map.Entry<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> nameToEntry : naturalOrderPmm.entrySet()) {
-                for (PipelineTimelineEntry entry : nameToEntry.getValue()) {
-                    if (entry.getId() == id) {
-                        PipelineTimelineEntry timelineEntry = naturalOrderAfter(entry);
-                        if (timelineEntry == null) {
-                            return -1;
-                        }
-                        return timelineEntry.getId();
-                    }
+            for (PipelineTimelineInstances instances : instancesByPipeline.values()) {
+                int index = instances.indexOf(id);
+                if (index != NONE) {
+                    int after = instances.naturalOrderAfter(index);
+                    return after == NONE ? -1 : instances.idAt(after);
                 }
             }
             return -1;
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
@@ -307,49 +279,92 @@ public class PipelineTimeline {
      */
     @Deprecated
     public void clearWhichIsEvilAndShouldNotBeUsedInRealWorld() {
-        acquireAllWriteLocks();
+        lock.writeLock().lock();
         try {
-            naturalOrderPmm.clear();
-            scheduleOrderPmm.clear();
+            instancesByPipeline.clear();
+            revisions.clear();
         } finally {
-            releaseAllWriteLocks();
+            lock.writeLock().unlock();
         }
     }
 
     public int instanceCount(CaseInsensitiveString pipelineName) {
-        scheduleOrderLock.readLock().lock();
+        lock.readLock().lock();
         try {
-            ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
+            PipelineTimelineInstances instances = instancesByPipeline.get(pipelineName);
             return instances == null ? 0 : instances.size();
         } finally {
-            scheduleOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
     public PipelineTimelineEntry instanceFor(CaseInsensitiveString pipelineName, int index) {
-        scheduleOrderLock.readLock().lock();
+        lock.readLock().lock();
         try {
-            ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
-            return instances == null ? null : instances.get(index);
+            PipelineTimelineInstances instances = instancesByPipeline.get(pipelineName);
+            if (instances == null) {
+                return null;
+            }
+            if (index < 0 || index >= instances.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + instances.size());
+            }
+            return instances.entryAt(index);
         } finally {
-            scheduleOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
 
     public PipelineTimelineEntry getEntryFor(CaseInsensitiveString pipelineName, Integer pipelineCounter) {
-        scheduleOrderLock.readLock().lock();
+        lock.readLock().lock();
+        try {
+            PipelineTimelineInstances instances = instancesByPipeline.get(pipelineName);
+            return instances.entryAt(instances.indexOfCounter(pipelineCounter));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the entries of every pipeline, each pipeline's in the order they were added
+     */
+    List<List<PipelineTimelineEntry>> entriesInScheduleOrder() {
+        lock.readLock().lock();
         try {
-            ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
-            for (int i = instances.size() - 1; i >= 0; i--) {
-                PipelineTimelineEntry instance = instances.get(i);
-                if (instance.getCounter() == pipelineCounter) {
-                    return instance;
+            List<List<PipelineTimelineEntry>> entries = new ArrayList<>();
+            for (PipelineTimelineInstances instances : instancesByPipeline.values()) {
+                if (instances.size() == 0) {
+                    continue;
+                }
+                List<PipelineTimelineEntry> pipelineEntries = new ArrayList<>(instances.size());
+                for (int index = 0; index < instances.size(); index++) {
+                    pipelineEntries.add(instances.entryAt(index));
                 }
+                entries.add(pipelineEntries);
             }
-            return null;
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void reset() {
+        lock.writeLock().lock();
+        try {
+            instancesByPipeline.clear();
+            revisions.clear();
+            maximumId = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int revisionCount() {
+        lock.readLock().lock();
+        try {
+            return revisions.size();
         } finally {
-            scheduleOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+
+import java.util.*;
+
+/**
+ * @understands the instances of one pipeline in schedule and natural order, kept in parallel primitive arrays
+ * <p>
+ * An instance is addressed by its position in schedule (insertion) order. {@code naturalOrder} holds those positions
+ * sorted by natural order and {@code naturalPosition} is its inverse, while {@code insertedAfter}/{@code insertedBefore}
+ * remember the neighbours an instance had when it was inserted. Revisions are kept as ids into a {@link TimelineRevisionDictionary}; the revisions of instance
+ * {@code i} are {@code revisionRefs[revisionStart[i]]} up to the start of instance {@code i + 1}.
+ * <p>
+ * {@link PipelineTimelineEntry} objects are only built on the way out and are detached copies: they carry no
+ * inserted before/after links.
+ */
+class PipelineTimelineInstances {
+    static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String pipelineName;
+    private final TimelineRevisionDictionary dictionary;
+    private int size;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] counters = new int[INITIAL_CAPACITY];
+    private double[] naturalOrders = new double[INITIAL_CAPACITY];
+    private int[] insertedAfter = new int[INITIAL_CAPACITY];
+    private int[] insertedBefore = new int[INITIAL_CAPACITY];
+    private int[] revisionStart = new int[INITIAL_CAPACITY];
+    private int[] naturalOrder = new int[INITIAL_CAPACITY];
+    private int[] naturalPosition = new int[INITIAL_CAPACITY];
+    private int[] revisionRefs = new int[INITIAL_CAPACITY];
+    private int revisionRefCount;
+    private boolean idsAscending = true;
+
+    PipelineTimelineInstances(String pipelineName, TimelineRevisionDictionary dictionary) {
+        this.pipelineName = pipelineName;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Links the entry to its natural order neighbours, updates its natural order and stores it. Adding an instance
+     * that is already known only validates the entry against the stored one, the way adding to a sorted set would.
+     */
+    void add(PipelineTimelineEntry entry) {
+        int existing = indexOf(entry.getId());
+        if (existing != NONE) {
+            int position = naturalPositionOf(existing);
+            link(entry, position - 1, position + 1);
+            entry.updateNaturalOrder();
+            return;
+        }
+
+        int position = insertionPointFor(entry);
+        link(entry, position - 1, position);
+        entry.updateNaturalOrder();
+
+        ensureCapacity(size + 1);
+        int index = size;
+        ids[index] = entry.getId();
+        counters[index] = entry.getCounter();
+        naturalOrders[index] = entry.naturalOrder();
+        insertedAfter[index] = position > 0 ? naturalOrder[position - 1] : NONE;
+        insertedBefore[index] = position < size ? naturalOrder[position] : NONE;
+        revisionStart[index] = revisionRefCount;
+        for (Map.Entry<String, List<PipelineTimelineEntry.Revision>> material : entry.revisions().entrySet()) {
+            for (PipelineTimelineEntry.Revision revision : material.getValue()) {
+                appendRevisionRef(dictionary.idFor(material.getKey(), revision));
+            }
+        }
+        System.arraycopy(naturalOrder, position, naturalOrder, position + 1, size - position);
+        naturalOrder[position] = index;
+        for (int p = position; p <= size; p++) {
+            naturalPosition[naturalOrder[p]] = p;
+        }
+        idsAscending = idsAscending && (index == 0 || ids[index - 1] < ids[index]);
+        size++;
+    }
+
+    void remove(long id) {
+        int index = indexOf(id);
+        if (index == NONE) {
+            return;
+        }
+        int position = naturalPosition[index];
+        int refsEnd = revisionEnd(index);
+        int refsRemoved = refsEnd - revisionStart[index];
+        System.arraycopy(revisionRefs, refsEnd, revisionRefs, revisionStart[index], revisionRefCount - refsEnd);
+        revisionRefCount -= refsRemoved;
+
+        int tail = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, tail);
+        System.arraycopy(counters, index + 1, counters, index, tail);
+        System.arraycopy(naturalOrders, index + 1, naturalOrders, index, tail);
+        System.arraycopy(insertedAfter, index + 1, insertedAfter, index, tail);
+        System.arraycopy(insertedBefore, index + 1, insertedBefore, index, tail);
+        System.arraycopy(revisionStart, index + 1, revisionStart, index, tail);
+        System.arraycopy(naturalOrder, position + 1, naturalOrder, position, size - position - 1);
+        size--;
+
+        for (int i = 0; i < size; i++) {
+            insertedAfter[i] = shiftedAfterRemoval(insertedAfter[i], index);
+            insertedBefore[i] = shiftedAfterRemoval(insertedBefore[i], index);
+            naturalOrder[i] = shiftedAfterRemoval(naturalOrder[i], index);
+            naturalPosition[naturalOrder[i]] = i;
+            if (i >= index) {
+                revisionStart[i] -= refsRemoved;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return position of the instance in schedule order, or {@link #NONE}
+     */
+    int indexOf(long id) {
+        if (idsAscending) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? index : NONE;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    int indexOfCounter(int counter) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (counters[i] == counter) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    int insertedAfter(int index) {
+        return insertedAfter[index];
+    }
+
+    int insertedBefore(int index) {
+        return insertedBefore[index];
+    }
+
+    int naturalOrderBefore(int index) {
+        int position = naturalPositionOf(index);
+        return position > 0 ? naturalOrder[position - 1] : NONE;
+    }
+
+    int naturalOrderAfter(int index) {
+        int position = naturalPositionOf(index);
+        return position < size - 1 ? naturalOrder[position + 1] : NONE;
+    }
+
+    long idAt(int index) {
+        return ids[index];
+    }
+
+    PipelineTimelineEntry entryAt(int index) {
+        if (index == NONE) {
+            return null;
+        }
+        Map<String, List<PipelineTimelineEntry.Revision>> revisions = new HashMap<>();
+        for (int ref = revisionStart[index]; ref < revisionEnd(index); ref++) {
+            int revisionId = revisionRefs[ref];
+            revisions.computeIfAbsent(dictionary.fingerprint(revisionId), fingerprint -> new ArrayList<>()).add(dictionary.revision(revisionId));
+        }
+        return new PipelineTimelineEntry(pipelineName, ids[index], counters[index], revisions, naturalOrders[index]);
+    }
+
+    /**
+     * @return entries from the given natural order position onwards, in natural order
+     */
+    List<PipelineTimelineEntry> entriesInNaturalOrderFrom(int position) {
+        List<PipelineTimelineEntry> entries = new ArrayList<>(Math.max(0, size - position));
+        for (int i = position; i < size; i++) {
+            entries.add(entryAt(naturalOrder[i]));
+        }
+        return entries;
+    }
+
+    int naturalPositionOf(int index) {
+        return naturalPosition[index];
+    }
+
+    private int insertionPointFor(PipelineTimelineEntry entry) {
+        int low = 0;
+        int high = size;
+        double order = entry.naturalOrder();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int index = naturalOrder[middle];
+            boolean before = order > 0.0 ? order < naturalOrders[index] : entry.compareTo(entryAt(index)) < 0;
+            if (before) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private void link(PipelineTimelineEntry entry, int positionBefore, int positionAfter) {
+        entry.setInsertedBefore(positionAfter < size ? entryAt(naturalOrder[positionAfter]) : null);
+        entry.setInsertedAfter(positionBefore >= 0 ? entryAt(naturalOrder[positionBefore]) : null);
+    }
+
+    private int revisionEnd(int index) {
+        return index + 1 < size ? revisionStart[index + 1] : revisionRefCount;
+    }
+
+    private void appendRevisionRef(int revisionId) {
+        if (revisionRefCount == revisionRefs.length) {
+            revisionRefs = Arrays.copyOf(revisionRefs, grow(revisionRefs.length));
+        }
+        revisionRefs[revisionRefCount++] = revisionId;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = grow(ids.length);
+        ids = Arrays.copyOf(ids, newCapacity);
+        counters = Arrays.copyOf(counters, newCapacity);
+        naturalOrders = Arrays.copyOf(naturalOrders, newCapacity);
+        insertedAfter = Arrays.copyOf(insertedAfter, newCapacity);
+        insertedBefore = Arrays.copyOf(insertedBefore, newCapacity);
+        revisionStart = Arrays.copyOf(revisionStart, newCapacity);
+        naturalOrder = Arrays.copyOf(naturalOrder, newCapacity);
+        naturalPosition = Arrays.copyOf(naturalPosition, newCapacity);
+    }
+
+    private static int grow(int length) {
+        return length + (length >> 1) + 1;
+    }
+
+    private static int shiftedAfterRemoval(int index, int removed) {
+        if (index == removed) {
+            return NONE;
+        }
+        return index > removed ? index - 1 : index;
+    }
+}
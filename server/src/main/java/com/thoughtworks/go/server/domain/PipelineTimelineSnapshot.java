@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import com.thoughtworks.go.server.persistence.PipelineRepository;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * @understands keeping the pipeline timeline across a restart
+ * <p>
+ * On a graceful shutdown the timeline is written to a file. The next start reads it back before the timeline is
+ * updated from the database, so that only pipelines scheduled since then are read from the database. The file is
+ * removed once read, and ignored if it was written by another format version or if the database doesn't hold the
+ * snapshot's latest pipeline under the same name and counter, as happens when the database was restored or replaced.
+ * Disabled unless {@link SystemEnvironment#PIPELINE_TIMELINE_SNAPSHOT_ENABLED}
+ * is set.
+ */
+public class PipelineTimelineSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineTimelineSnapshot.class);
+    private static final int FORMAT_VERSION = 2;
+
+    private final PipelineTimeline pipelineTimeline;
+    private final PipelineRepository pipelineRepository;
+    private final SystemEnvironment systemEnvironment;
+
+    @Autowired
+    public PipelineTimelineSnapshot(PipelineTimeline pipelineTimeline, PipelineRepository pipelineRepository, SystemEnvironment systemEnvironment) {
+        this.pipelineTimeline = pipelineTimeline;
+        this.pipelineRepository = pipelineRepository;
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    public void restore() {
+        File snapshot = systemEnvironment.getPipelineTimelineSnapshotFile();
+        if (!systemEnvironment.isPipelineTimelineSnapshotEnabled() || !snapshot.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                LOGGER.info("Ignoring pipeline timeline snapshot {} written by another version", snapshot);
+                return;
+            }
+            long latestId = in.readLong();
+            String latestName = in.readUTF();
+            int latestCounter = in.readInt();
+            if (latestId < 0) {
+                return;
+            }
+            if (!pipelineRepository.hasPipeline(latestId, latestName, latestCounter)) {
+                LOGGER.warn("Ignoring pipeline timeline snapshot {}, the database has no pipeline {} with id {} and counter {}", snapshot, latestName, latestId, latestCounter);
+                return;
+            }
+            List<List<PipelineTimelineEntry>> entries = read(in);
+            for (List<PipelineTimelineEntry> pipelineEntries : entries) {
+                for (PipelineTimelineEntry entry : pipelineEntries) {
+                    pipelineTimeline.add(entry);
+                }
+            }
+            LOGGER.info("Restored pipeline timeline up to pipeline {} from {}", pipelineTimeline.maximumId(), snapshot);
+        } catch (Exception e) {
+            LOGGER.warn("Could not restore pipeline timeline from {}, it will be loaded from the database", snapshot, e);
+            pipelineTimeline.reset();
+        } finally {
+            FileUtils.deleteQuietly(snapshot);
+        }
+    }
+
+    public void save() {
+        if (!systemEnvironment.isPipelineTimelineSnapshotEnabled()) {
+            return;
+        }
+        File snapshot = systemEnvironment.getPipelineTimelineSnapshotFile();
+        File temporary = new File(snapshot.getPath() + ".tmp");
+        try {
+            FileUtils.forceMkdirParent(snapshot);
+            List<List<PipelineTimelineEntry>> entries = pipelineTimeline.entriesInScheduleOrder();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(FORMAT_VERSION);
+                PipelineTimelineEntry latest = latest(entries);
+                out.writeLong(latest == null ? -1 : latest.getId());
+                out.writeUTF(latest == null ? "" : latest.getPipelineName());
+                out.writeInt(latest == null ? 0 : latest.getCounter());
+                write(out, entries);
+            }
+            Files.move(temporary.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Saved pipeline timeline to {}", snapshot);
+        } catch (Exception e) {
+            LOGGER.warn("Could not save pipeline timeline to {}", snapshot, e);
+            FileUtils.deleteQuietly(temporary);
+        }
+    }
+
+    private PipelineTimelineEntry latest(List<List<PipelineTimelineEntry>> entries) {
+        PipelineTimelineEntry latest = null;
+        for (List<PipelineTimelineEntry> pipelineEntries : entries) {
+            for (PipelineTimelineEntry entry : pipelineEntries) {
+                if (latest == null || entry.getId() > latest.getId()) {
+                    latest = entry;
+                }
+            }
+        }
+        return latest;
+    }
+
+    private void write(DataOutputStream out, List<List<PipelineTimelineEntry>> entries) throws IOException {
+        out.writeInt(entries.size());
+        for (List<PipelineTimelineEntry> pipelineEntries : entries) {
+            out.writeUTF(pipelineEntries.get(0).getPipelineName());
+            out.writeInt(pipelineEntries.size());
+            for (PipelineTimelineEntry entry : pipelineEntries) {
+                out.writeLong(entry.getId());
+                out.writeInt(entry.getCounter());
+                out.writeDouble(entry.naturalOrder());
+                out.writeInt(entry.revisions().size());
+                for (Map.Entry<String, List<PipelineTimelineEntry.Revision>> material : entry.revisions().entrySet()) {
+                    out.writeUTF(material.getKey());
+                    out.writeInt(material.getValue().size());
+                    for (PipelineTimelineEntry.Revision revision : material.getValue()) {
+                        out.writeLong(revision.id);
+                        out.writeLong(revision.date == null ? Long.MIN_VALUE : revision.date.getTime());
+                        writeNullable(out, revision.revision);
+                        writeNullable(out, revision.folder);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<List<PipelineTimelineEntry>> read(DataInputStream in) throws IOException {
+        int pipelineCount = in.readInt();
+        List<List<PipelineTimelineEntry>> entries = new ArrayList<>(pipelineCount);
+        for (int i = 0; i < pipelineCount; i++) {
+            String pipelineName = in.readUTF();
+            int entryCount = in.readInt();
+            List<PipelineTimelineEntry> pipelineEntries = new ArrayList<>(entryCount);
+            for (int j = 0; j < entryCount; j++) {
+                long id = in.readLong();
+                int counter = in.readInt();
+                double naturalOrder = in.readDouble();
+                int materialCount = in.readInt();
+                Map<String, List<PipelineTimelineEntry.Revision>> revisions = new HashMap<>();
+                for (int k = 0; k < materialCount; k++) {
+                    String fingerprint = in.readUTF();
+                    int revisionCount = in.readInt();
+                    List<PipelineTimelineEntry.Revision> materialRevisions = new ArrayList<>(revisionCount);
+                    for (int l = 0; l < revisionCount; l++) {
+                        long revisionId = in.readLong();
+                        long date = in.readLong();
+                        materialRevisions.add(new PipelineTimelineEntry.Revision(date == Long.MIN_VALUE ? null : new Date(date), readNullable(in), readNullable(in), revisionId));
+                    }
+                    revisions.put(fingerprint, materialRevisions);
+                }
+                pipelineEntries.add(new PipelineTimelineEntry(pipelineName, id, counter, revisions, naturalOrder));
+            }
+            entries.add(pipelineEntries);
+        }
+        return entries;
+    }
+
+    private void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * @understands handing out one shared copy of every material revision referenced by the pipeline timeline
+ * <p>
+ * Consecutive instances of a pipeline, and every pipeline built from the same material, refer to the same
+ * modifications. The timeline stores the int id handed out here instead of a fresh {@link PipelineTimelineEntry.Revision}
+ * (and fingerprint string) per instance.
+ */
+class TimelineRevisionDictionary {
+    private final List<String> fingerprints = new ArrayList<>();
+    private final List<PipelineTimelineEntry.Revision> revisions = new ArrayList<>();
+    private final Map<Long, Integer> idsByModificationId = new HashMap<>();
+    private final Map<String, String> internedFingerprints = new HashMap<>();
+
+    int idFor(String fingerprint, PipelineTimelineEntry.Revision revision) {
+        Integer id = idsByModificationId.get(revision.id);
+        if (id != null && isSame(id, fingerprint, revision)) {
+            return id;
+        }
+        int newId = revisions.size();
+        fingerprints.add(internedFingerprints.computeIfAbsent(fingerprint, key -> key));
+        revisions.add(revision);
+        if (id == null) {
+            idsByModificationId.put(revision.id, newId);
+        }
+        return newId;
+    }
+
+    String fingerprint(int id) {
+        return fingerprints.get(id);
+    }
+
+    PipelineTimelineEntry.Revision revision(int id) {
+        return revisions.get(id);
+    }
+
+    int size() {
+        return revisions.size();
+    }
+
+    void clear() {
+        fingerprints.clear();
+        revisions.clear();
+        idsByModificationId.clear();
+        internedFingerprints.clear();
+    }
+
+    private boolean isSame(int id, String fingerprint, PipelineTimelineEntry.Revision revision) {
+        PipelineTimelineEntry.Revision known = revisions.get(id);
+        return fingerprints.get(id).equals(fingerprint) && known.equals(revision) && Objects.equals(known.folder, revision.folder);
+    }
+}
@@ -27,6 +27,7 @@ import com.thoughtworks.go.server.cronjob.GoDiskSpaceMonitor;
 import com.thoughtworks.go.server.dao.PipelineSqlMapDao;
 import com.thoughtworks.go.server.dashboard.GoDashboardActivityListener;
 import com.thoughtworks.go.server.domain.PipelineTimeline;
+import com.thoughtworks.go.server.domain.PipelineTimelineSnapshot;
 import com.thoughtworks.go.server.materials.DependencyMaterialUpdateNotifier;
 import com.thoughtworks.go.server.materials.MaterialUpdateService;
 import com.thoughtworks.go.server.materials.SCMMaterialSource;
@@ -34,9 +35,11 @@ import com.thoughtworks.go.server.newsecurity.filters.InvalidateAuthenticationOn
 import com.thoughtworks.go.server.service.*;
 import com.thoughtworks.go.server.service.datasharing.DataSharingSettingsService;
 import com.thoughtworks.go.server.service.datasharing.DataSharingUsageStatisticsReportingService;
+import com.thoughtworks.go.server.service.pipelinesearch.PipelineSearchIndexService;
 import com.thoughtworks.go.server.service.support.ResourceMonitoring;
 import com.thoughtworks.go.server.service.support.toggle.FeatureToggleService;
 import com.thoughtworks.go.server.service.support.toggle.Toggles;
+import com.thoughtworks.go.server.service.testresults.TestResultIndexService;
 import com.thoughtworks.go.server.util.ServletHelper;
 import com.thoughtworks.go.service.ConfigRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,6 +56,7 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
     @Autowired private PluginsZip pluginsZip;
     @Autowired private PipelineSqlMapDao pipelineSqlMapDao;
     @Autowired private PipelineTimeline pipelineTimeline;
+    @Autowired private PipelineTimelineSnapshot pipelineTimelineSnapshot;
     @Autowired private ConfigRepository configRepository;
     @Autowired private InvalidConfigMessageRemover invalidConfigMessageRemover;
     @Autowired private AgentService agentService;
@@ -87,6 +91,8 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
     @Autowired private DataSharingSettingsService dataSharingSettingsService;
     @Autowired private DataSharingUsageStatisticsReportingService dataSharingUsageStatisticsReportingService;
     @Autowired private BackupService backupService;
+    @Autowired private TestResultIndexService testResultIndexService;
+    @Autowired private PipelineSearchIndexService pipelineSearchIndexService;
     @Value("${cruise.daemons.enabled}")
     private boolean daemonsEnabled;
 
@@ -129,8 +135,10 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
             pipelineScheduler.initialize();
             invalidateAuthenticationOnSecurityConfigChangeFilter.initialize();
 
-            pipelineTimeline.updateTimelineOnInit();
+            WarmUp.critical("Restoring pipeline timeline snapshot", pipelineTimelineSnapshot::restore);
+            WarmUp.critical("Updating pipeline timeline", pipelineTimeline::updateTimelineOnInit);
             pipelineSqlMapDao.initialize();
+            pipelineSearchIndexService.init();
             commandRepositoryInitializer.initialize();
             consoleActivityMonitor.populateActivityMap();
             timerScheduler.initialize();
@@ -150,6 +158,7 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
             dataSharingSettingsService.initialize();
             dataSharingUsageStatisticsReportingService.initialize();
             backupService.initialize();
+            testResultIndexService.init();
         } catch (Throwable throwable) {
             throw new RuntimeException(throwable);
         }
@@ -163,6 +172,7 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
         try {
             dashboardActivityListener.startDaemon();
             ccTrayActivityListener.startDaemon();
+            pipelineSqlMapDao.startDaemon();
         } catch (Throwable throwable) {
             throw new RuntimeException(throwable);
         }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.initializers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Fills caches while the server starts, logging how long each phase took. Phases the server needs before it can serve
+ * requests run on the calling thread. Phases that only fill caches which would otherwise be filled on first use are
+ * split into chunks and run on a bounded pool of daemon threads, so that they don't hold up the start.
+ */
+public class WarmUp {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUp.class);
+
+    private final ExecutorService executor;
+
+    public WarmUp(String name, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-warm-up-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static <T> T critical(String phase, Supplier<T> work) {
+        long start = System.currentTimeMillis();
+        T result = work.get();
+        LOGGER.info("[Warm up] {} took {}ms", phase, System.currentTimeMillis() - start);
+        return result;
+    }
+
+    public static void critical(String phase, Runnable work) {
+        critical(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> CompletableFuture<Void> inBackground(String phase, List<T> items, int chunkSize, Consumer<List<T>> loader) {
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<T> chunk = new ArrayList<>(items.subList(from, Math.min(items.size(), from + chunkSize)));
+            chunks.add(CompletableFuture.runAsync(() -> loader.accept(chunk), executor));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).whenComplete((done, e) -> {
+            long duration = System.currentTimeMillis() - start;
+            if (e == null) {
+                LOGGER.info("[Warm up] {} of {} entries took {}ms", phase, items.size(), duration);
+            } else {
+                LOGGER.warn("[Warm up] {} failed after {}ms, the rest will be loaded on first use", phase, duration, e);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> shutdownWhenDone(CompletableFuture<?>... phases) {
+        return CompletableFuture.allOf(phases).whenComplete((done, e) -> executor.shutdown());
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.server.messaging.GoMessageListener;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * @understands dropping the latest known revision of a material once an update of it completes
+ */
+@Component
+public class LatestMaterialRevisionCacheInvalidator implements GoMessageListener<MaterialUpdateCompletedMessage> {
+    private final MaterialRepository materialRepository;
+
+    @Autowired
+    public LatestMaterialRevisionCacheInvalidator(MaterialUpdateCompletedTopic topic, MaterialRepository materialRepository) {
+        this.materialRepository = materialRepository;
+        topic.addListener(this);
+    }
+
+    @Override
+    public void onMessage(MaterialUpdateCompletedMessage message) {
+        if (message instanceof MaterialUpdateSkippedMessage) {
+            return;
+        }
+        materialRepository.invalidateLatestModification(message.getMaterial());
+    }
+}
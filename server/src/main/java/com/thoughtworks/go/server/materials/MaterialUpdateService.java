@@ -21,7 +21,8 @@ import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
 import com.thoughtworks.go.config.materials.git.GitMaterial;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSet;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.materials.postcommit.PostCommitHookImplementer;
@@ -52,6 +53,8 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.OTHER;
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.PIPELINES;
 import static com.thoughtworks.go.serverhealth.HealthStateType.general;
 import static com.thoughtworks.go.serverhealth.ServerHealthState.warning;
 
@@ -59,7 +62,7 @@ import static com.thoughtworks.go.serverhealth.ServerHealthState.warning;
  * @understands when to send requests to update a material on the database
  */
 @Service
-public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCompletedMessage>, ConfigChangedListener {
+public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCompletedMessage>, SelectiveConfigChangedListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(MaterialUpdateService.class);
 
     private final MaterialUpdateQueue updateQueue;
@@ -232,6 +235,11 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         }
     }
 
+    @Override
+    public Set<ConfigChangeSet.Kind> dependsOn() {
+        return EnumSet.of(PIPELINES, OTHER);
+    }
+
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         Set<HealthStateScope> materialScopes = toHealthStateScopes(newCruiseConfig.getAllUniqueMaterials());
         for (ServerHealthState state : serverHealthService.logs()) {
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.messaging.notifications;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Several notifications for one plugin, delivered from a single queue message in the order they were raised.
+ */
+public class PluginNotificationBatch implements Serializable {
+    public static final String REQUEST_NAME = "notifications-batch";
+
+    private final ArrayList<PluginNotificationMessage> notifications;
+
+    public PluginNotificationBatch(List<PluginNotificationMessage> notifications) {
+        this.notifications = new ArrayList<>(notifications);
+    }
+
+    public List<PluginNotificationMessage> getNotifications() {
+        return notifications;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PluginNotificationBatch that = (PluginNotificationBatch) o;
+        return Objects.equals(notifications, that.notifications);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(notifications);
+    }
+
+    @Override
+    public String toString() {
+        return "PluginNotificationBatch{" +
+                "notifications=" + notifications +
+                '}';
+    }
+}
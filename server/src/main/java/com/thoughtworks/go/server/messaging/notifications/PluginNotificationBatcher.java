@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.messaging.notifications;
+
+import com.thoughtworks.go.domain.notificationdata.AgentNotificationData;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.thoughtworks.go.util.SystemEnvironment.*;
+
+/**
+ * Collects the notifications raised for a plugin during a short window and posts them to the plugin's queue as a
+ * single {@link PluginNotificationBatch}. A newer status of an agent replaces an older one still waiting in the
+ * window, since the plugin would only be told about a state the agent has already left.
+ */
+@Component
+public class PluginNotificationBatcher {
+    private final PluginNotificationsQueueHandler pluginNotificationsQueueHandler;
+    private final PluginNotificationMetrics metrics;
+    private final SystemEnvironment systemEnvironment;
+    private final Map<String, Batch> batches = new HashMap<>();
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public PluginNotificationBatcher(PluginNotificationsQueueHandler pluginNotificationsQueueHandler, PluginNotificationMetrics metrics,
+                                     SystemEnvironment systemEnvironment) {
+        this.pluginNotificationsQueueHandler = pluginNotificationsQueueHandler;
+        this.metrics = metrics;
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    public boolean isEnabled() {
+        return systemEnvironment.get(NOTIFICATION_PLUGIN_BATCHING_ENABLED);
+    }
+
+    public void add(PluginNotificationMessage message) {
+        String pluginId = message.pluginId();
+        Batch full = null;
+        synchronized (this) {
+            Batch batch = batches.get(pluginId);
+            if (batch == null) {
+                Batch newBatch = new Batch();
+                batches.put(pluginId, newBatch);
+                flusher().schedule(() -> flush(pluginId, newBatch), systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_WINDOW), TimeUnit.MILLISECONDS);
+                batch = newBatch;
+            }
+            if (batch.add(message)) {
+                metrics.superseded(pluginId);
+            }
+            if (batch.size() >= systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_MAX_SIZE)) {
+                batches.remove(pluginId);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            post(pluginId, full);
+        }
+    }
+
+    private void flush(String pluginId, Batch batch) {
+        synchronized (this) {
+            // a batch that filled up before its window ended has been posted already
+            if (!batches.remove(pluginId, batch)) {
+                return;
+            }
+        }
+        post(pluginId, batch);
+    }
+
+    private void post(String pluginId, Batch batch) {
+        ArrayList<PluginNotificationMessage> notifications = new ArrayList<>(batch.notifications.values());
+        PluginNotificationMessage message = notifications.size() == 1 ? notifications.get(0)
+                : new PluginNotificationMessage<>(pluginId, PluginNotificationBatch.REQUEST_NAME, new PluginNotificationBatch(notifications));
+        pluginNotificationsQueueHandler.post(message, systemEnvironment.get(NOTIFICATION_PLUGIN_MESSAGES_TTL));
+    }
+
+    private ScheduledExecutorService flusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "plugin-notification-batcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return flusher;
+    }
+
+    private static class Batch {
+        private final LinkedHashMap<Object, PluginNotificationMessage> notifications = new LinkedHashMap<>();
+
+        /**
+         * @return true if the notification replaced an older one about the same agent
+         */
+        private boolean add(PluginNotificationMessage message) {
+            Object key = message.getData() instanceof AgentNotificationData
+                    ? ((AgentNotificationData) message.getData()).getUuid()
+                    : new Object();
+            // the newer status goes to the end, so that it still comes after everything raised before it
+            boolean superseded = notifications.remove(key) != null;
+            notifications.put(key, message);
+            return superseded;
+        }
+
+        private int size() {
+            return notifications.size();
+        }
+    }
+}
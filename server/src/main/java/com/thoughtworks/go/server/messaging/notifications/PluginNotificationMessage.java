@@ -25,11 +25,13 @@ public class PluginNotificationMessage<T extends Serializable> implements Plugin
     private String pluginId;
     private final String requestName;
     private final T data;
+    private final long raisedAt;
 
     public PluginNotificationMessage(String pluginId, String requestName, T data) {
         this.pluginId = pluginId;
         this.requestName = requestName;
         this.data = data;
+        this.raisedAt = System.currentTimeMillis();
     }
 
     public String getRequestName() {
@@ -40,6 +42,14 @@ public class PluginNotificationMessage<T extends Serializable> implements Plugin
         return data;
     }
 
+    public long getRaisedAt() {
+        return raisedAt;
+    }
+
+    public int size() {
+        return data instanceof PluginNotificationBatch ? ((PluginNotificationBatch) data).getNotifications().size() : 1;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -30,15 +30,27 @@ import org.slf4j.LoggerFactory;
 public class PluginNotificationMessageListener implements GoMessageListener<PluginNotificationMessage> {
     private NotificationExtension notificationExtension;
     private ServerHealthService serverHealthService;
+    private PluginNotificationMetrics metrics;
     private static final Logger LOGGER = LoggerFactory.getLogger(PluginNotificationMessageListener.class);
 
-    public PluginNotificationMessageListener(NotificationExtension notificationExtension, ServerHealthService serverHealthService) {
+    public PluginNotificationMessageListener(NotificationExtension notificationExtension, ServerHealthService serverHealthService, PluginNotificationMetrics metrics) {
         this.notificationExtension = notificationExtension;
         this.serverHealthService = serverHealthService;
+        this.metrics = metrics;
     }
 
     @Override
     public void onMessage(PluginNotificationMessage message) {
+        if (message.getData() instanceof PluginNotificationBatch) {
+            for (PluginNotificationMessage notification : ((PluginNotificationBatch) message.getData()).getNotifications()) {
+                metrics.delivered(notification.pluginId(), notification.getRaisedAt(), deliver(notification));
+            }
+        } else {
+            metrics.delivered(message.pluginId(), message.getRaisedAt(), deliver(message));
+        }
+    }
+
+    private boolean deliver(PluginNotificationMessage message) {
         HealthStateScope scope = HealthStateScope.aboutPlugin(message.pluginId());
         try {
             LOGGER.debug("Sending {} notification message {} for plugin {}", message.getRequestName(), message, message.pluginId());
@@ -47,6 +59,7 @@ public class PluginNotificationMessageListener implements GoMessageListener<Plug
             if (result.isSuccessful()) {
                 serverHealthService.removeByScope(scope);
                 LOGGER.debug("Successfully sent {} notification message {} for plugin {}", message.getRequestName(), message, message.pluginId());
+                return true;
             } else {
                 String errorDescription = result.getMessages() == null ? null : StringUtils.join(result.getMessages(), ", ");
                 handlePluginNotifyError(message.pluginId(), scope, errorDescription, null);
@@ -55,6 +68,7 @@ public class PluginNotificationMessageListener implements GoMessageListener<Plug
             String errorDescription = e.getMessage() == null ? "Unknown error" : e.getMessage();
             handlePluginNotifyError(message.pluginId(), scope, errorDescription, e);
         }
+        return false;
     }
 
     private void handlePluginNotifyError(String pluginId, HealthStateScope scope, String errorDescription, Exception e) {
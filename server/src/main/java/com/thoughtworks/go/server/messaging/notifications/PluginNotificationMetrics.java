@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.messaging.notifications;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track, per notification plugin, of how many notifications wait to be delivered and how long delivering them
+ * took from the moment they were raised.
+ */
+@Component
+public class PluginNotificationMetrics {
+    private final Map<String, PluginStatistics> statistics = new ConcurrentHashMap<>();
+
+    void posted(String pluginId, int notifications, long timeToLive) {
+        PluginStatistics pluginStatistics = statisticsOf(pluginId);
+        long expiresAt = System.currentTimeMillis() + timeToLive;
+        for (int i = 0; i < notifications; i++) {
+            pluginStatistics.pendingExpiries.addLast(expiresAt);
+        }
+    }
+
+    void superseded(String pluginId) {
+        statisticsOf(pluginId).superseded.incrementAndGet();
+    }
+
+    void delivered(String pluginId, long raisedAt, boolean successful) {
+        PluginStatistics pluginStatistics = statisticsOf(pluginId);
+        // messages are delivered roughly in the order they were posted
+        pluginStatistics.pendingExpiries.pollFirst();
+        long latency = Math.max(0, System.currentTimeMillis() - raisedAt);
+        pluginStatistics.delivered.incrementAndGet();
+        if (!successful) {
+            pluginStatistics.failed.incrementAndGet();
+        }
+        pluginStatistics.totalLatency.addAndGet(latency);
+        pluginStatistics.maxLatency.accumulateAndGet(latency, Math::max);
+    }
+
+    public int queueDepth(String pluginId) {
+        PluginStatistics pluginStatistics = statistics.get(pluginId);
+        return pluginStatistics == null ? 0 : pluginStatistics.queueDepth();
+    }
+
+    public Map<String, Object> asJson() {
+        Map<String, Object> json = new TreeMap<>();
+        statistics.forEach((pluginId, pluginStatistics) -> {
+            long delivered = pluginStatistics.delivered.get();
+            Map<String, Object> pluginJson = new LinkedHashMap<>();
+            pluginJson.put("Queue depth", pluginStatistics.queueDepth());
+            pluginJson.put("Delivered", delivered);
+            pluginJson.put("Failed", pluginStatistics.failed.get());
+            pluginJson.put("Superseded", pluginStatistics.superseded.get());
+            pluginJson.put("Average latency in milliseconds", delivered == 0 ? 0 : pluginStatistics.totalLatency.get() / delivered);
+            pluginJson.put("Maximum latency in milliseconds", pluginStatistics.maxLatency.get());
+            json.put(pluginId, pluginJson);
+        });
+        return json;
+    }
+
+    private PluginStatistics statisticsOf(String pluginId) {
+        return statistics.computeIfAbsent(pluginId, id -> new PluginStatistics());
+    }
+
+    private static class PluginStatistics {
+        private final Deque<Long> pendingExpiries = new ConcurrentLinkedDeque<>();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong superseded = new AtomicLong();
+        private final AtomicLong totalLatency = new AtomicLong();
+        private final AtomicLong maxLatency = new AtomicLong();
+
+        private int queueDepth() {
+            // the oldest pending notifications that outlived their time to live were dropped by the queue
+            long now = System.currentTimeMillis();
+            Long expiresAt;
+            while ((expiresAt = pendingExpiries.peekFirst()) != null && expiresAt < now) {
+                pendingExpiries.pollFirst();
+            }
+            return pendingExpiries.size();
+        }
+    }
+}
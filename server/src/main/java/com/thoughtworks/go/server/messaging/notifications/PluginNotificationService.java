@@ -44,6 +44,7 @@ import static com.thoughtworks.go.util.SystemEnvironment.NOTIFICATION_PLUGIN_MES
 public class PluginNotificationService {
     private final NotificationPluginRegistry notificationPluginRegistry;
     private final PluginNotificationsQueueHandler pluginNotificationsQueueHandler;
+    private final PluginNotificationBatcher pluginNotificationBatcher;
     private final GoConfigService goConfigService;
     private final PipelineDao pipelineSqlMapDao;
     private StageDao stageDao;
@@ -53,10 +54,12 @@ public class PluginNotificationService {
     @Autowired
     public PluginNotificationService(NotificationPluginRegistry notificationPluginRegistry,
                                      PluginNotificationsQueueHandler pluginNotificationsQueueHandler,
+                                     PluginNotificationBatcher pluginNotificationBatcher,
                                      GoConfigService goConfigService,
                                      PipelineDao pipelineSqlMapDao, StageDao stageDao, SystemEnvironment systemEnvironment) {
         this.notificationPluginRegistry = notificationPluginRegistry;
         this.pluginNotificationsQueueHandler = pluginNotificationsQueueHandler;
+        this.pluginNotificationBatcher = pluginNotificationBatcher;
         this.goConfigService = goConfigService;
         this.pipelineSqlMapDao = pipelineSqlMapDao;
         this.stageDao = stageDao;
@@ -76,9 +79,14 @@ public class PluginNotificationService {
     private <T> void notify(String requestName, T instance) {
         Set<String> interestedPlugins = notificationPluginRegistry.getPluginsInterestedIn(requestName);
         Long timeToLive = systemEnvironment.get(NOTIFICATION_PLUGIN_MESSAGES_TTL);
+        boolean batching = pluginNotificationBatcher.isEnabled();
         for (String pluginId : interestedPlugins) {
             PluginNotificationMessage message = new PluginNotificationMessage<>(pluginId, requestName, map.get(requestName).notificationDataFor(instance));
-            pluginNotificationsQueueHandler.post(message, timeToLive);
+            if (batching) {
+                pluginNotificationBatcher.add(message);
+            } else {
+                pluginNotificationsQueueHandler.post(message, timeToLive);
+            }
         }
     }
 
@@ -30,10 +30,12 @@ import java.util.Map;
 @Component
 public class PluginNotificationsQueueHandler extends PluginMessageQueueHandler<PluginNotificationMessage> {
     private final static String QUEUE_NAME_PREFIX = PluginNotificationsQueueHandler.class.getSimpleName() + ".";
+    private final PluginNotificationMetrics metrics;
 
     @Autowired
     public PluginNotificationsQueueHandler(final MessagingService messaging, NotificationExtension notificationExtension,
-        PluginManager pluginManager, final SystemEnvironment systemEnvironment, ServerHealthService serverHealthService) {
+        PluginManager pluginManager, final SystemEnvironment systemEnvironment, ServerHealthService serverHealthService,
+        PluginNotificationMetrics metrics) {
         super(notificationExtension, messaging, pluginManager, new QueueFactory() {
             @Override
             public PluginAwareMessageQueue create(GoPluginDescriptor pluginDescriptor) {
@@ -43,9 +45,18 @@ public class PluginNotificationsQueueHandler extends PluginMessageQueueHandler<P
             }
 
             public ListenerFactory listener() {
-                return () -> new PluginNotificationMessageListener(notificationExtension, serverHealthService);
+                return () -> new PluginNotificationMessageListener(notificationExtension, serverHealthService, metrics);
             }
         });
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void post(PluginNotificationMessage message, long timeToLive) {
+        if (queues.containsKey(message.pluginId())) {
+            metrics.posted(message.pluginId(), message.size(), timeToLive);
+        }
+        super.post(message, timeToLive);
     }
 
     Map<String, PluginAwareMessageQueue> getQueues() {
@@ -69,6 +69,7 @@ public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws IOException {
+        long startedAt = System.nanoTime();
         try {
             if (isPreviouslyAuthenticated(request)) {
                 LOGGER.debug("Request is already authenticated.");
@@ -84,7 +85,7 @@ public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
 
             LOGGER.debug("Security Enabled: " + securityService.isSecurityEnabled());
             if (securityService.isSecurityEnabled()) {
-                filterWhenSecurityEnabled(request, response, filterChain, credential);
+                filterWhenSecurityEnabled(request, response, filterChain, credential, startedAt);
             } else {
                 filterWhenSecurityDisabled(request, response, filterChain, credential);
             }
@@ -118,7 +119,8 @@ public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
     private void filterWhenSecurityEnabled(HttpServletRequest request,
                                            HttpServletResponse response,
                                            FilterChain filterChain,
-                                           AccessTokenCredential accessTokenCredential) throws IOException, ServletException {
+                                           AccessTokenCredential accessTokenCredential,
+                                           long startedAt) throws IOException, ServletException {
         if (accessTokenCredential == null) {
             LOGGER.debug("Bearer auth credentials are not provided in request.");
             filterChain.doFilter(request, response);
@@ -133,7 +135,11 @@ public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
                     onAuthenticationFailure(request, response, BAD_CREDENTIALS_MSG);
                 } else {
                     SessionUtils.setAuthenticationTokenAfterRecreatingSession(authenticationToken, request);
-                    filterChain.doFilter(request, response);
+                    try {
+                        filterChain.doFilter(request, response);
+                    } finally {
+                        accessTokenService.recordAuthenticatedRequest(System.nanoTime() - startedAt);
+                    }
                 }
             } catch (AuthenticationException e) {
                 LOGGER.debug("Failed to authenticate user.", e);
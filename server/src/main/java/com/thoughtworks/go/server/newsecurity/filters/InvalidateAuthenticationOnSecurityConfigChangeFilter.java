@@ -18,7 +18,8 @@ package com.thoughtworks.go.server.newsecurity.filters;
 
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.SecurityConfig;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSet;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.listener.PluginRoleChangeListener;
 import com.thoughtworks.go.listener.SecurityConfigChangeListener;
 import com.thoughtworks.go.server.newsecurity.models.AuthenticationToken;
@@ -39,10 +40,14 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
+
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.SECURITY;
 
 @Component
-public class InvalidateAuthenticationOnSecurityConfigChangeFilter extends OncePerRequestFilter implements ConfigChangedListener, PluginRoleChangeListener {
+public class InvalidateAuthenticationOnSecurityConfigChangeFilter extends OncePerRequestFilter implements SelectiveConfigChangedListener, PluginRoleChangeListener {
     public static final String SECURITY_CONFIG_LAST_CHANGE = "GOCD_SECURITY_CONFIG_LAST_CHANGED_TIME";
     private static final Logger LOGGER = LoggerFactory.getLogger(InvalidateAuthenticationOnSecurityConfigChangeFilter.class);
     private SecurityConfig securityConfig;
@@ -106,6 +111,11 @@ public class InvalidateAuthenticationOnSecurityConfigChangeFilter extends OncePe
         filterChain.doFilter(request, response);
     }
 
+    @Override
+    public Set<ConfigChangeSet.Kind> dependsOn() {
+        return EnumSet.of(SECURITY);
+    }
+
     @Override
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         SecurityConfig newSecurityConfig = securityConfig(newCruiseConfig);
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thoughtworks.go.server.persistence;
+
+import com.thoughtworks.go.domain.materials.Modification;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the latest known modification of every material, keyed by fingerprint, so that all pipelines sharing a
+ * material resolve its latest modifications with one lookup per material update instead of one per pipeline.
+ * <p>
+ * An entry holds the latest modification of the material and of everything it expands to for history (e.g. svn
+ * externals), by fingerprint. Only modifications are kept: the fingerprint leaves out things like the destination
+ * folder and filter, so each caller pairs them with its own materials. An entry is dropped when modifications of any
+ * of those materials are committed or when an update of the material completes.
+ */
+public class LatestMaterialRevisionCache {
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private long generation;
+
+    /**
+     * @return the latest modification by fingerprint of each material the loader looked at, null for those without any
+     */
+    public Map<String, Modification> get(String fingerprint, long materialInstanceId, Supplier<Map<String, Modification>> loader) {
+        long generationBeforeLoad;
+        synchronized (this) {
+            Entry entry = entries.get(fingerprint);
+            // a different instance id means the material was deleted and recreated since the entry was loaded
+            if (entry != null && entry.materialInstanceId == materialInstanceId) {
+                hits.increment();
+                return entry.modifications;
+            }
+            misses.increment();
+            generationBeforeLoad = generation;
+        }
+
+        Map<String, Modification> modifications = loader.get();
+        if (modifications.values().stream().allMatch(Objects::isNull)) {
+            return modifications;
+        }
+        Entry entry = new Entry(materialInstanceId, fingerprint, modifications);
+        synchronized (this) {
+            // an invalidation that raced with the load may have been for modifications the load did not see
+            if (generation == generationBeforeLoad) {
+                entries.put(fingerprint, entry);
+            }
+        }
+        return entry.modifications;
+    }
+
+    /**
+     * Drops the entries of the material with this fingerprint and of every material it is expanded into.
+     */
+    public synchronized void invalidate(String fingerprint) {
+        generation++;
+        invalidations.increment();
+        entries.values().removeIf(entry -> entry.fingerprints.contains(fingerprint));
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public Map<String, Object> asJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Materials cached", size());
+        json.put("Hits", hits());
+        json.put("Misses", misses());
+        json.put("Invalidations", invalidations.sum());
+        return json;
+    }
+
+    private static class Entry {
+        private final long materialInstanceId;
+        private final Set<String> fingerprints = new HashSet<>();
+        private final Map<String, Modification> modifications;
+
+        private Entry(long materialInstanceId, String fingerprint, Map<String, Modification> modifications) {
+            this.materialInstanceId = materialInstanceId;
+            this.modifications = Collections.unmodifiableMap(new HashMap<>(modifications));
+            this.fingerprints.add(fingerprint);
+            this.fingerprints.addAll(modifications.keySet());
+        }
+    }
+}
@@ -36,6 +36,7 @@ import com.thoughtworks.go.server.util.CollectionUtil;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.hibernate.*;
 import org.hibernate.criterion.*;
 import org.hibernate.type.LongType;
@@ -60,12 +61,15 @@ import static org.hibernate.criterion.Restrictions.isNull;
  */
 public class MaterialRepository extends HibernateDaoSupport {
     private static final Logger LOGGER = LoggerFactory.getLogger(MaterialRepository.class.getName());
+    static final int MODIFICATIONS_FLUSH_BATCH_SIZE = 500;
+    private static final int DUPLICATE_REVISIONS_QUERY_BATCH_SIZE = 1000;
 
     private final GoCache goCache;
     private final TransactionSynchronizationManager transactionSynchronizationManager;
     private final MaterialConfigConverter materialConfigConverter;
     private final QueryExtensions queryExtensions;
     private final CacheKeyGenerator cacheKeyGenerator;
+    private final LatestMaterialRevisionCache latestRevisionCache = new LatestMaterialRevisionCache();
     private int latestModificationsCacheLimit;
     private MaterialExpansionService materialExpansionService;
 
@@ -440,7 +444,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         modification.setMaterialInstance(materialInstance);
         try {
             getHibernateTemplate().saveOrUpdate(modification);
-            removeLatestCachedModification(materialInstance, modification);
+            removeLatestCachedModification(materialInstance);
             removeCachedModificationCountFor(materialInstance);
             removeCachedModificationsFor(materialInstance);
         } catch (Exception e) {
@@ -716,7 +720,7 @@ public class MaterialRepository extends HibernateDaoSupport {
                 (List<Modification>) getHibernateTemplate().find("FROM Modification WHERE materialId = ? AND id >= ? ORDER BY id DESC", new Object[]{materialInstance.getId(), sinceModificationId}));
     }
 
-    private void removeLatestCachedModification(final MaterialInstance materialInstance, Modification latest) {
+    private void removeLatestCachedModification(final MaterialInstance materialInstance) {
         transactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
             @Override
             public void afterCommit() {
@@ -724,6 +728,7 @@ public class MaterialRepository extends HibernateDaoSupport {
                 synchronized (cacheKey) {
                     goCache.remove(cacheKey);
                 }
+                latestRevisionCache.invalidate(materialInstance.getFingerprint());
             }
         });
     }
@@ -763,10 +768,13 @@ public class MaterialRepository extends HibernateDaoSupport {
         }
         Materials materials = new Materials();
         materialExpansionService.expandForHistory(material, materials);
+        Map<String, Modification> latest = latestRevisionCache.get(material.getFingerprint(), materialInstance.getId(), () -> findLatestModificationsOf(materials));
+
+        // revisions are built from this caller's materials, which carry its own folder, filter and name
         MaterialRevisions allModifications = new MaterialRevisions();
         for (Material expanded : materials) {
-            final MaterialInstance expandedInstance = findOrCreateFrom(expanded);
-            Modification modification = findLatestModification(expandedInstance);
+            String fingerprint = expanded.getFingerprint();
+            Modification modification = latest.containsKey(fingerprint) ? latest.get(fingerprint) : findLatestModification(findOrCreateFrom(expanded));
             if (modification != null) {
                 allModifications.addRevision(expanded, modification);
             }
@@ -774,6 +782,22 @@ public class MaterialRepository extends HibernateDaoSupport {
         return allModifications;
     }
 
+    private Map<String, Modification> findLatestModificationsOf(Materials materials) {
+        Map<String, Modification> latest = new HashMap<>();
+        for (Material expanded : materials) {
+            latest.put(expanded.getFingerprint(), findLatestModification(findOrCreateFrom(expanded)));
+        }
+        return latest;
+    }
+
+    public void invalidateLatestModification(Material material) {
+        latestRevisionCache.invalidate(material.getFingerprint());
+    }
+
+    public LatestMaterialRevisionCache latestRevisionCache() {
+        return latestRevisionCache;
+    }
+
     Modification findLatestModification(final MaterialInstance expandedInstance) {
         Modifications modifications = cachedModifications(expandedInstance);
         if (modifications != null && !modifications.isEmpty()) {
@@ -804,17 +828,25 @@ public class MaterialRepository extends HibernateDaoSupport {
 
         try {
             checkAndRemoveDuplicates(materialInstance, newChanges, list);
-            for (Modification modification : list) {
-                getHibernateTemplate().saveOrUpdate(modification);
-            }
+            getHibernateTemplate().execute((HibernateCallback) session -> {
+                for (int i = 0; i < list.size(); i++) {
+                    session.saveOrUpdate(list.get(i));
+                    // keeps the session small, so that flushing does not dirty check every modification saved so far
+                    if ((i + 1) % MODIFICATIONS_FLUSH_BATCH_SIZE == 0) {
+                        session.flush();
+                        for (Modification saved : list.subList(i + 1 - MODIFICATIONS_FLUSH_BATCH_SIZE, i + 1)) {
+                            session.evict(saved);
+                        }
+                    }
+                }
+                return null;
+            });
         } catch (Exception e) {
             String message = "Cannot save modification: ";
             LOGGER.error(message, e);
             throw new RuntimeException(message + e.getMessage(), e);
         }
-        for (Modification modification : list) {
-            removeLatestCachedModification(materialInstance, modification);
-        }
+        removeLatestCachedModification(materialInstance);
         removeCachedModificationCountFor(materialInstance);
         removeCachedModificationsFor(materialInstance);
     }
@@ -825,20 +857,22 @@ public class MaterialRepository extends HibernateDaoSupport {
         if (!new SystemEnvironment().get(SystemEnvironment.CHECK_AND_REMOVE_DUPLICATE_MODIFICATIONS)) {
             return;
         }
-        DetachedCriteria criteria = DetachedCriteria.forClass(Modification.class);
-        criteria.setProjection(Projections.projectionList().add(Projections.property("revision")));
-        criteria.add(Restrictions.eq("materialInstance.id", materialInstance.getId()));
         ArrayList<String> revisions = new ArrayList<>();
         for (Modification modification : newChanges) {
             revisions.add(modification.getRevision());
         }
-        criteria.add(Restrictions.in("revision", revisions));
-        List<String> matchingRevisionsFromDb = (List<String>) getHibernateTemplate().findByCriteria(criteria);
+        Set<String> matchingRevisionsFromDb = new LinkedHashSet<>();
+        for (List<String> revisionsToCheck : ListUtils.partition(revisions, DUPLICATE_REVISIONS_QUERY_BATCH_SIZE)) {
+            DetachedCriteria criteria = DetachedCriteria.forClass(Modification.class);
+            criteria.setProjection(Projections.projectionList().add(Projections.property("revision")));
+            criteria.add(Restrictions.eq("materialInstance.id", materialInstance.getId()));
+            criteria.add(Restrictions.in("revision", revisionsToCheck));
+            matchingRevisionsFromDb.addAll((List<String>) getHibernateTemplate().findByCriteria(criteria));
+        }
         if (!matchingRevisionsFromDb.isEmpty()) {
-            for (final String revision : matchingRevisionsFromDb) {
-                Modification modification = list.stream().filter(item -> item.getRevision().equals(revision)).findFirst().orElse(null);
-                list.remove(modification);
-            }
+            // every copy of a revision that is already saved is removed, not only the first one: revisions are unique
+            // per material, so saving a second copy would fail the whole set on the unique_revision constraint
+            list.removeIf(modification -> matchingRevisionsFromDb.contains(modification.getRevision()));
         }
         if (!newChanges.isEmpty() && list.isEmpty()) {
             LOGGER.debug("All modifications already exist in db [{}]", revisions);
@@ -68,6 +68,19 @@ public class PipelineRepository extends HibernateDaoSupport {
         return query.executeUpdate();
     }
 
+    public boolean hasPipeline(final long pipelineId, final String pipelineName, final int pipelineCounter) {
+        Number count = (Number) getHibernateTemplate().execute(new HibernateCallback() {
+            public Object doInHibernate(Session session) throws HibernateException {
+                SQLQuery query = session.createSQLQuery("SELECT COUNT(*) FROM pipelines WHERE id = :pipelineId AND name = :pipelineName AND counter = :pipelineCounter");
+                query.setLong("pipelineId", pipelineId);
+                query.setString("pipelineName", pipelineName);
+                query.setInteger("pipelineCounter", pipelineCounter);
+                return query.uniqueResult();
+            }
+        });
+        return count != null && count.longValue() > 0;
+    }
+
     @SuppressWarnings({"unchecked"})
     public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, final List<PipelineTimelineEntry> tempEntriesForRollback) {
         getHibernateTemplate().execute(new HibernateCallback() {
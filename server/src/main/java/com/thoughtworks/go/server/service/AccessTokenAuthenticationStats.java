@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for requests authenticated with an access token: how often the verified token cache was used, what a
+ * verification that missed it cost, and the throughput and latency of the requests themselves.
+ */
+public class AccessTokenAuthenticationStats {
+    private final long startedAt = System.nanoTime();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder requestNanos = new LongAdder();
+    private final LongAccumulator maxRequestNanos = new LongAccumulator(Math::max, 0);
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void cacheMiss(long verificationNanos) {
+        cacheMisses.increment();
+        this.verificationNanos.add(verificationNanos);
+    }
+
+    void request(long nanos) {
+        requests.increment();
+        requestNanos.add(nanos);
+        maxRequestNanos.accumulate(nanos);
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public double getAverageVerificationMillis() {
+        return average(verificationNanos.sum(), getCacheMisses());
+    }
+
+    public double getAverageRequestMillis() {
+        return average(requestNanos.sum(), getRequests());
+    }
+
+    public double getMaxRequestMillis() {
+        return maxRequestNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getRequestsPerSecond() {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startedAt);
+        return getRequests() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public Map<String, Object> asJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Authenticated requests", getRequests());
+        json.put("Requests per second", round(getRequestsPerSecond()));
+        json.put("Average request time (ms)", round(getAverageRequestMillis()));
+        json.put("Max request time (ms)", round(getMaxRequestMillis()));
+        json.put("Verified token cache hits", getCacheHits());
+        json.put("Verified token cache misses", getCacheMisses());
+        json.put("Average verification time on cache miss (ms)", round(getAverageVerificationMillis()));
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("requests: %d, requests/s: %.2f, avg request: %.2fms, max request: %.2fms, cache hits: %d, cache misses: %d, avg verification: %.2fms",
+                getRequests(), getRequestsPerSecond(), getAverageRequestMillis(), getMaxRequestMillis(), getCacheHits(), getCacheMisses(), getAverageVerificationMillis());
+    }
+
+    private static double average(long totalNanos, long count) {
+        return count == 0 ? 0 : totalNanos / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
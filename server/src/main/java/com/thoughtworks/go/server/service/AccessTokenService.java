@@ -25,6 +25,8 @@ import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.exceptions.InvalidAccessTokenException;
 import com.thoughtworks.go.server.exceptions.RevokedAccessTokenException;
 import com.thoughtworks.go.util.Clock;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,11 +34,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
 
 @Service
 public class AccessTokenService {
@@ -46,12 +47,16 @@ public class AccessTokenService {
     private final AccessTokenDao accessTokenDao;
     private final SecurityService securityService;
     private final ConcurrentMap<Long, Timestamp> accessTokenIdToLastUsedTimestampCache = new ConcurrentHashMap<>();
+    private final VerifiedAccessTokenCache verifiedAccessTokenCache;
+    private final AccessTokenAuthenticationStats authenticationStats = new AccessTokenAuthenticationStats();
 
     @Autowired
     public AccessTokenService(AccessTokenDao accessTokenDao, Clock clock, SecurityService securityService) {
         this.accessTokenDao = accessTokenDao;
         this.timeProvider = clock;
         this.securityService = securityService;
+        this.verifiedAccessTokenCache = new VerifiedAccessTokenCache(SystemEnvironment.getGoServerAccessTokenCacheMaxSize(),
+                SystemEnvironment.getGoServerAccessTokenCacheTtlInSeconds() * 1000L);
     }
 
     public AccessToken.AccessTokenWithDisplayValue create(String description, String username, String authConfigId) {
@@ -83,6 +88,15 @@ public class AccessTokenService {
             throw new InvalidAccessTokenException();
         }
 
+        String digest = DigestUtils.sha256Hex(actualToken);
+        AccessToken cachedToken = verifiedAccessTokenCache.get(digest, timeProvider.currentTimeMillis());
+        if (cachedToken != null) {
+            authenticationStats.cacheHit();
+            return cachedToken;
+        }
+
+        long startedAt = System.nanoTime();
+        long generation = verifiedAccessTokenCache.generation();
         String saltId = StringUtils.substring(actualToken, 0, 8);
 
         AccessToken token = accessTokenDao.findAccessTokenBySaltId(saltId);
@@ -100,9 +114,26 @@ public class AccessTokenService {
             throw new RevokedAccessTokenException(token.getRevokedAt());
         }
 
+        authenticationStats.cacheMiss(System.nanoTime() - startedAt);
+        verifiedAccessTokenCache.put(digest, token, generation, timeProvider.currentTimeMillis());
         return token;
     }
 
+    /**
+     * Forgets the verified tokens of the given users, so that their next request is checked against the database.
+     */
+    public void invalidateCachedTokensForUsers(Collection<String> usernames) {
+        verifiedAccessTokenCache.removeIf(token -> usernames.stream().anyMatch(username -> username.equalsIgnoreCase(token.getUsername())));
+    }
+
+    public void recordAuthenticatedRequest(long durationInNanos) {
+        authenticationStats.request(durationInNanos);
+    }
+
+    public AccessTokenAuthenticationStats getAuthenticationStats() {
+        return authenticationStats;
+    }
+
     public AccessToken revokeAccessToken(long id, String username, String revokeCause) {
         AccessToken fetchedAccessToken = find(Long.parseLong(String.valueOf(id)), username);
 
@@ -113,6 +144,7 @@ public class AccessTokenService {
         fetchedAccessToken.revoke(username, revokeCause, timeProvider.currentTimestamp());
 
         accessTokenDao.saveOrUpdate(fetchedAccessToken);
+        verifiedAccessTokenCache.removeIf(token -> token.getId() == fetchedAccessToken.getId());
 
         return fetchedAccessToken;
     }
@@ -136,6 +168,7 @@ public class AccessTokenService {
     }
 
     public void onTimer() {
+        LOGGER.debug("Access token authentication stats: {}", authenticationStats);
         if (!securityService.isSecurityEnabled()) {
             LOGGER.debug("Security is disable. Not updating `LastUsedTime` in DB.");
             return;
@@ -158,4 +191,63 @@ public class AccessTokenService {
             return dataInCache;
         }
     }
+
+    /**
+     * Bounded, least recently used cache of tokens that passed verification, keyed by a digest of the token the
+     * client sent so that the plain token is never held in memory. Entries expire after a fixed time to live, which
+     * bounds how long a change made outside this service (e.g. directly in the database) can go unnoticed.
+     */
+    private static class VerifiedAccessTokenCache {
+        private final long ttlInMillis;
+        private final Map<String, CachedAccessToken> tokens;
+        // bumped on every invalidation, a verification that raced with one must not repopulate the cache
+        private long generation;
+
+        private VerifiedAccessTokenCache(int maxSize, long ttlInMillis) {
+            this.ttlInMillis = ttlInMillis;
+            this.tokens = new LinkedHashMap<String, CachedAccessToken>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedAccessToken> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        private synchronized AccessToken get(String digest, long now) {
+            CachedAccessToken cached = tokens.get(digest);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt <= now) {
+                tokens.remove(digest);
+                return null;
+            }
+            return cached.token;
+        }
+
+        private synchronized long generation() {
+            return generation;
+        }
+
+        private synchronized void put(String digest, AccessToken token, long generationAtLookup, long now) {
+            if (ttlInMillis > 0 && generation == generationAtLookup) {
+                tokens.put(digest, new CachedAccessToken(token, now + ttlInMillis));
+            }
+        }
+
+        private synchronized void removeIf(Predicate<AccessToken> predicate) {
+            generation++;
+            tokens.values().removeIf(cached -> predicate.test(cached.token));
+        }
+    }
+
+    private static class CachedAccessToken {
+        private final AccessToken token;
+        private final long expiresAt;
+
+        private CachedAccessToken(AccessToken token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
@@ -32,6 +32,7 @@ import com.thoughtworks.go.server.messaging.StartServerBackupMessage;
 import com.thoughtworks.go.server.persistence.ServerBackupRepository;
 import com.thoughtworks.go.server.service.backup.BackupStatusUpdater;
 import com.thoughtworks.go.server.service.backup.BackupUpdateListener;
+import com.thoughtworks.go.server.service.backup.IncrementalDirectoryBackup;
 import com.thoughtworks.go.server.web.BackupStatusProvider;
 import com.thoughtworks.go.service.ConfigRepository;
 import com.thoughtworks.go.util.SystemEnvironment;
@@ -88,6 +89,7 @@ public class BackupService implements BackupStatusProvider {
     private static final String CONFIG_BACKUP_ZIP = "config-dir.zip";
 
     private static final String CONFIG_REPOSITORY_BACKUP_ZIP = "config-repo.zip";
+    static final String CONFIG_REPOSITORY_BACKUP_DIR = "config-repo";
     private static final String VERSION_BACKUP_FILE = "version.txt";
 
     private static final Object BACKUP_MUTEX = new Object();
@@ -206,6 +208,10 @@ public class BackupService implements BackupStatusProvider {
             @Override
             public void run() throws IOException {
                 File configRepoDir = systemEnvironment.getConfigRepoDir();
+                if (systemEnvironment.isIncrementalBackupEnabled()) {
+                    backupConfigRepoIncrementally(backupUpdateListeners, configRepoDir, new File(destDir, CONFIG_REPOSITORY_BACKUP_DIR));
+                    return;
+                }
                 try (ZipOutputStream configRepoZipStream = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(new File(destDir, CONFIG_REPOSITORY_BACKUP_ZIP))))) {
                     new DirectoryStructureWalker(configRepoDir.getAbsolutePath(), configRepoZipStream).walk();
                 }
@@ -213,6 +219,20 @@ public class BackupService implements BackupStatusProvider {
         });
     }
 
+    private void backupConfigRepoIncrementally(List<BackupUpdateListener> backupUpdateListeners, File configRepoDir, File backupDir) throws IOException {
+        File previousBackupDir = serverBackupRepository.lastSuccessfulBackup()
+                .map(previous -> new File(previous.getPath(), CONFIG_REPOSITORY_BACKUP_DIR))
+                .filter(File::isDirectory)
+                .orElse(null);
+        IncrementalDirectoryBackup.Result result = new IncrementalDirectoryBackup(configRepoDir, backupDir, previousBackupDir, systemEnvironment.getBackupThreads())
+                .backup((done, total) -> backupUpdateListeners.forEach(listener -> listener.progress(BackupProgressStatus.BACKUP_CONFIG_REPO, done, total)));
+        LOGGER.info("[Backup] Config repository: {}", result);
+
+        if (!result.getProblems().isEmpty()) {
+            throw new IOException("Backup of the config repository does not match its manifest: " + StringUtils.join(result.getProblems(), ", "));
+        }
+    }
+
     private void notifyUpdateToListeners(List<BackupUpdateListener> listeners, BackupProgressStatus status) {
         LOGGER.debug(status.getMessage());
         listeners.forEach(backupUpdateListener -> backupUpdateListener.updateStep(status));
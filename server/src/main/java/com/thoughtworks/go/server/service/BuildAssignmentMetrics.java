@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of how long build assignment cycles take, and how much of that is spent finding the scheduled jobs.
+ */
+public class BuildAssignmentMetrics {
+    private final AtomicLong cycles = new AtomicLong();
+    private final AtomicLong totalCycleTime = new AtomicLong();
+    private final AtomicLong maxCycleTime = new AtomicLong();
+    private final AtomicLong lastCycleTime = new AtomicLong();
+    private final AtomicLong totalReloadTime = new AtomicLong();
+    private final AtomicLong maxReloadTime = new AtomicLong();
+    private volatile int scheduledJobs;
+
+    void cycleCompleted(long reloadTime, long cycleTime, int scheduledJobs) {
+        cycles.incrementAndGet();
+        totalCycleTime.addAndGet(cycleTime);
+        maxCycleTime.accumulateAndGet(cycleTime, Math::max);
+        lastCycleTime.set(cycleTime);
+        totalReloadTime.addAndGet(reloadTime);
+        maxReloadTime.accumulateAndGet(reloadTime, Math::max);
+        this.scheduledJobs = scheduledJobs;
+    }
+
+    public Map<String, Object> asJson() {
+        long cycles = this.cycles.get();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Assignment cycles", cycles);
+        json.put("Scheduled jobs", scheduledJobs);
+        json.put("Last cycle in milliseconds", lastCycleTime.get());
+        json.put("Average cycle in milliseconds", cycles == 0 ? 0 : totalCycleTime.get() / cycles);
+        json.put("Maximum cycle in milliseconds", maxCycleTime.get());
+        json.put("Average scheduled jobs reload in milliseconds", cycles == 0 ? 0 : totalReloadTime.get() / cycles);
+        json.put("Maximum scheduled jobs reload in milliseconds", maxReloadTime.get());
+        return json;
+    }
+}
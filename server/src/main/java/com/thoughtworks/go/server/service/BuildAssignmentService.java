@@ -22,7 +22,8 @@ import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.builder.Builder;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
 import com.thoughtworks.go.domain.materials.Material;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSet;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.plugin.access.exceptions.SecretResolutionFailureException;
 import com.thoughtworks.go.remote.AgentIdentifier;
@@ -48,7 +49,12 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.PIPELINES;
 import static com.thoughtworks.go.util.ArtifactLogUtil.getConsoleOutputFolderAndFileNameUrl;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
@@ -60,7 +66,7 @@ import static org.apache.commons.collections4.CollectionUtils.forAllDo;
  * @understands how to assign work to agents
  */
 @Service
-public class BuildAssignmentService implements ConfigChangedListener {
+public class BuildAssignmentService implements SelectiveConfigChangedListener {
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(BuildAssignmentService.class.getName());
     public static final NoWork NO_WORK = new NoWork();
 
@@ -82,6 +88,8 @@ public class BuildAssignmentService implements ConfigChangedListener {
     private SecretParamResolver secretParamResolver;
     private JobStatusTopic jobStatusTopic;
     private ConsoleService consoleService;
+    private final ElasticAgentAssignmentDecisions elasticAgentAssignmentDecisions;
+    private final BuildAssignmentMetrics metrics = new BuildAssignmentMetrics();
 
     @Autowired
     public BuildAssignmentService(GoConfigService goConfigService, JobInstanceService jobInstanceService,
@@ -108,6 +116,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
         this.secretParamResolver = secretParamResolver;
         this.jobStatusTopic = jobStatusTopic;
         this.consoleService = consoleService;
+        this.elasticAgentAssignmentDecisions = new ElasticAgentAssignmentDecisions(elasticAgentPluginService, environmentConfigService);
     }
 
     public void initialize() {
@@ -167,6 +176,10 @@ public class BuildAssignmentService implements ConfigChangedListener {
     }
 
     Work assignWorkToAgent(final AgentInstance agent) {
+        return assignWorkToAgent(agent, systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_ASSIGNMENT_DECISION_TIMEOUT_MILLIS));
+    }
+
+    private Work assignWorkToAgent(final AgentInstance agent, long decisionTimeoutMillis) {
         if (!agent.isRegistered()) {
             return new UnregisteredAgentWork(agent.getUuid());
         }
@@ -175,6 +188,11 @@ public class BuildAssignmentService implements ConfigChangedListener {
             return new DeniedAgentWork(agent.getUuid());
         }
 
+        // the plugin round trips happen before taking the lock, matching below only looks the answers up
+        if (agent.isElastic() && !hasDecided(agent, elasticAgentAssignmentDecisions.decide(agent, candidateJobs(agent)), decisionTimeoutMillis)) {
+            return NO_WORK;
+        }
+
         synchronized (this) {
 //          check to ensure agent is not disabled after entering the synchronized block
             if (agent.isDisabled()) {
@@ -204,7 +222,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
             match = agent.firstMatching(filteredJobPlans);
         } else {
             for (JobPlan jobPlan : filteredJobPlans) {
-                if (jobPlan.requiresElasticAgent() && elasticAgentPluginService.shouldAssignWork(agent.elasticAgentMetadata(), environmentConfigService.envForPipeline(jobPlan.getPipelineName()), jobPlan.getElasticProfile(), jobPlan.getIdentifier())) {
+                if (jobPlan.requiresElasticAgent() && elasticAgentAssignmentDecisions.shouldAssignWork(agent, jobPlan)) {
                     match = jobPlan;
                     break;
                 }
@@ -212,21 +230,37 @@ public class BuildAssignmentService implements ConfigChangedListener {
         }
         if (match != null) {
             jobPlans.remove(match);
+            if (agent.isElastic()) {
+                elasticAgentAssignmentDecisions.forget(agent);
+            }
         }
         return match;
     }
 
+    private synchronized List<JobPlan> candidateJobs(AgentInstance agent) {
+        return new ArrayList<>(environmentConfigService.filterJobsByAgent(jobPlans, agent.getUuid()));
+    }
+
     public void onTimer() {
         if (maintenanceModeService.isMaintenanceMode()) {
             LOGGER.debug("[Maintenance Mode] GoCD server is in 'maintenance' mode, skip checking build assignments");
             return;
         }
 
-        reloadJobPlans();
+        long start = System.currentTimeMillis();
+        int scheduledJobs = reloadJobPlans();
+        long reloaded = System.currentTimeMillis();
         matchingJobForRegisteredAgents();
+        long end = System.currentTimeMillis();
+        metrics.cycleCompleted(reloaded - start, end - start, scheduledJobs);
+        LOGGER.debug("[Agent Assignment] Assignment cycle took {}ms, {}ms of it finding the {} scheduled jobs", end - start, reloaded - start, scheduledJobs);
     }
 
-    private void reloadJobPlans() {
+    public BuildAssignmentMetrics metrics() {
+        return metrics;
+    }
+
+    private int reloadJobPlans() {
         synchronized (this) {
             if (jobPlans == null) {
                 jobPlans = jobInstanceService.orderedScheduledBuilds();
@@ -235,21 +269,38 @@ public class BuildAssignmentService implements ConfigChangedListener {
                 List<JobPlan> old = jobPlans;
                 List<JobPlan> newPlan = jobInstanceService.orderedScheduledBuilds();
                 jobPlans = newPlan;
+                if (!jobIds(old).equals(jobIds(newPlan))) {
+                    elasticAgentAssignmentDecisions.jobSetChanged();
+                }
                 elasticAgentPluginService.createAgentsFor(old, newPlan);
             }
+            return jobPlans.size();
         }
     }
 
+    private Set<Long> jobIds(List<JobPlan> jobPlans) {
+        Set<Long> jobIds = new HashSet<>();
+        for (JobPlan jobPlan : jobPlans) {
+            jobIds.add(jobPlan.getJobId());
+        }
+        return jobIds;
+    }
+
     private void matchingJobForRegisteredAgents() {
         Map<String, Agent> agents = agentRemoteHandler.connectedAgents();
         if (agents.isEmpty()) {
             return;
         }
         Long start = System.currentTimeMillis();
+        Map<String, AgentInstance> agentInstances = new HashMap<>();
+        for (String agentUUId : agents.keySet()) {
+            agentInstances.put(agentUUId, agentService.findAgentAndRefreshStatus(agentUUId));
+        }
+        Map<String, CompletableFuture<Void>> elasticDecisions = decideElasticAssignments(agentInstances.values());
+        List<String> waitingForPlugins = new ArrayList<>();
         for (Map.Entry<String, Agent> entry : agents.entrySet()) {
-            String agentUUId = entry.getKey();
             Agent agent = entry.getValue();
-            AgentInstance agentInstance = agentService.findAgentAndRefreshStatus(agentUUId);
+            AgentInstance agentInstance = agentInstances.get(entry.getKey());
             if (!agentInstance.isRegistered()) {
                 agent.send(new Message(Action.reregister));
                 continue;
@@ -258,19 +309,64 @@ public class BuildAssignmentService implements ConfigChangedListener {
                 LOGGER.debug("Ignore agent [{}] that is {} and {}", agentInstance.getAgentIdentifier(), agentInstance.getRuntimeStatus(), agentInstance.getAgentConfigStatus());
                 continue;
             }
-            Work work = assignWorkToAgent(agentInstance);
-            if (work != NO_WORK) {
-                if (agentInstance.getSupportsBuildCommandProtocol()) {
-                    BuildSettings buildSettings = createBuildSettings(((BuildWork) work).getAssignment());
-                    agent.send(new Message(Action.build, MessageEncoding.encodeData(buildSettings)));
-                } else {
-                    agent.send(new Message(Action.assignWork, MessageEncoding.encodeWork(work)));
-                }
+            CompletableFuture<Void> decisions = elasticDecisions.get(entry.getKey());
+            if (decisions != null && !decisions.isDone()) {
+                waitingForPlugins.add(entry.getKey());
+                continue;
             }
+            sendWork(agent, agentInstance, assignWorkToAgent(agentInstance, 0));
+        }
+
+        // elastic agents whose plugins are slow come last, and share one wait so they can't hold up the timer for long
+        long deadline = System.currentTimeMillis() + systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_ASSIGNMENT_DECISION_TIMEOUT_MILLIS);
+        for (String agentUUId : waitingForPlugins) {
+            AgentInstance agentInstance = agentInstances.get(agentUUId);
+            sendWork(agents.get(agentUUId), agentInstance, assignWorkToAgent(agentInstance, Math.max(0, deadline - System.currentTimeMillis())));
         }
         LOGGER.debug("Matching {} agents with {} jobs took: {}ms", agents.size(), jobPlans.size(), System.currentTimeMillis() - start);
     }
 
+    private void sendWork(Agent agent, AgentInstance agentInstance, Work work) {
+        if (work == NO_WORK) {
+            return;
+        }
+        if (agentInstance.getSupportsBuildCommandProtocol()) {
+            BuildSettings buildSettings = createBuildSettings(((BuildWork) work).getAssignment());
+            agent.send(new Message(Action.build, MessageEncoding.encodeData(buildSettings)));
+        } else {
+            agent.send(new Message(Action.assignWork, MessageEncoding.encodeWork(work, agentInstance.getWorkEncodingVersion())));
+        }
+    }
+
+    /**
+     * Asks the plugins of all idle elastic agents up front and side by side, instead of one agent after another
+     */
+    private Map<String, CompletableFuture<Void>> decideElasticAssignments(Collection<AgentInstance> agentInstances) {
+        Map<String, CompletableFuture<Void>> decisions = new HashMap<>();
+        for (AgentInstance agentInstance : agentInstances) {
+            if (agentInstance.isElastic() && agentInstance.isRegistered() && !agentInstance.isDisabled() && agentInstance.isIdle()) {
+                decisions.put(agentInstance.getUuid(), elasticAgentAssignmentDecisions.decide(agentInstance, candidateJobs(agentInstance)));
+            }
+        }
+        return decisions;
+    }
+
+    private boolean hasDecided(AgentInstance agent, CompletableFuture<Void> decisions, long timeoutMillis) {
+        try {
+            decisions.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            // the answers are kept once they come in, so the agent is matched on a later attempt
+            LOGGER.debug("[Agent Assignment] Plugin of elastic agent [{}] has not decided within {}ms, skipping the agent for now", agent.getUuid(), timeoutMillis);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
     private BuildSettings createBuildSettings(BuildAssignment assignment) {
         URLService urlService = new URLService(""); // generate path only url
         JobIdentifier jobIdentifier = assignment.getJobIdentifier();
@@ -287,11 +383,25 @@ public class BuildAssignmentService implements ConfigChangedListener {
         return buildSettings;
     }
 
+    @Override
+    public Set<ConfigChangeSet.Kind> dependsOn() {
+        return EnumSet.of(PIPELINES);
+    }
+
     public void onConfigChange(CruiseConfig newCruiseConfig) {
+        onConfigChange(newCruiseConfig, ConfigChangeSet.everything());
+    }
+
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changes) {
         LOGGER.info("[Configuration Changed] Removing jobs for pipelines that no longer exist in configuration.");
         synchronized (this) {
             List<JobPlan> jobsToRemove = new ArrayList<>();
             for (JobPlan jobPlan : jobPlans) {
+                // a job can only have disappeared if its pipeline was changed or removed
+                if (!changes.hasPipelineChanged(new CaseInsensitiveString(jobPlan.getPipelineName()))) {
+                    continue;
+                }
                 if (!newCruiseConfig.hasBuildPlan(new CaseInsensitiveString(jobPlan.getPipelineName()), new CaseInsensitiveString(jobPlan.getStageName()), jobPlan.getName(), true)) {
                     jobsToRemove.add(jobPlan);
                 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.domain.AgentInstance;
+import com.thoughtworks.go.domain.JobPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers whether the plugin of an elastic agent agreed to run a job on it, so that matching jobs to elastic agents
+ * does not need a plugin round trip per candidate job while the assignment lock is held.
+ * <p>
+ * The plugin is told which job it is asked about, so its answer is only reused for that same job. Answers are kept
+ * until the set of scheduled jobs changes. Each plugin gets its own small pool of threads, so a slow plugin only
+ * delays the agents it owns, and the agents of one plugin are asked in parallel.
+ */
+class ElasticAgentAssignmentDecisions {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticAgentAssignmentDecisions.class);
+    private static final int THREADS_PER_PLUGIN = 4;
+
+    private final ElasticAgentPluginService elasticAgentPluginService;
+    private final EnvironmentConfigService environmentConfigService;
+    private final Map<String, Map<Long, Boolean>> decisionsByAgent = new ConcurrentHashMap<>();
+    private final Map<String, ExecutorService> executorsByPlugin = new ConcurrentHashMap<>();
+    private volatile long generation;
+
+    ElasticAgentAssignmentDecisions(ElasticAgentPluginService elasticAgentPluginService, EnvironmentConfigService environmentConfigService) {
+        this.elasticAgentPluginService = elasticAgentPluginService;
+        this.environmentConfigService = environmentConfigService;
+    }
+
+    /**
+     * Asks the plugin of the agent, on a thread of that plugin, about every candidate job it has not answered yet.
+     */
+    CompletableFuture<Void> decide(AgentInstance agent, List<JobPlan> candidates) {
+        long generation = this.generation;
+        Map<Long, Boolean> decisions = decisionsOf(agent);
+        List<JobPlan> undecided = new ArrayList<>();
+        for (JobPlan jobPlan : candidates) {
+            if (jobPlan.requiresElasticAgent() && !decisions.containsKey(jobPlan.getJobId())) {
+                undecided.add(jobPlan);
+            }
+        }
+        if (undecided.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> undecided.forEach(jobPlan -> {
+            try {
+                ask(agent, jobPlan, generation);
+            } catch (Exception e) {
+                // left undecided, so the plugin is asked again the next time the agent is matched
+                LOGGER.warn("[Agent Assignment] Could not ask plugin of elastic agent [{}] whether it should run job [{}]", agent.getUuid(), jobPlan.getIdentifier(), e);
+            }
+        }), executorFor(agent.elasticAgentMetadata().elasticPluginId()));
+    }
+
+    boolean shouldAssignWork(AgentInstance agent, JobPlan jobPlan) {
+        Boolean decision = decisionsOf(agent).get(jobPlan.getJobId());
+        return decision != null ? decision : ask(agent, jobPlan, generation);
+    }
+
+    void jobSetChanged() {
+        generation++;
+        decisionsByAgent.clear();
+    }
+
+    void forget(AgentInstance agent) {
+        decisionsByAgent.remove(agent.getUuid());
+    }
+
+    private boolean ask(AgentInstance agent, JobPlan jobPlan, long generation) {
+        String environment = environmentConfigService.envForPipeline(jobPlan.getPipelineName());
+        boolean decision = elasticAgentPluginService.shouldAssignWork(agent.elasticAgentMetadata(), environment, jobPlan.getElasticProfile(), jobPlan.getIdentifier());
+        // an answer given for a job set that has changed since is dropped
+        if (this.generation == generation) {
+            decisionsOf(agent).put(jobPlan.getJobId(), decision);
+        }
+        return decision;
+    }
+
+    private Map<Long, Boolean> decisionsOf(AgentInstance agent) {
+        return decisionsByAgent.computeIfAbsent(agent.getUuid(), uuid -> new ConcurrentHashMap<>());
+    }
+
+    private ExecutorService executorFor(String pluginId) {
+        return executorsByPlugin.computeIfAbsent(pluginId, id -> {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS_PER_PLUGIN, THREADS_PER_PLUGIN, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "elastic-agent-assignment-" + id + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+}
@@ -28,7 +28,8 @@ import com.thoughtworks.go.config.update.PatchEnvironmentCommand;
 import com.thoughtworks.go.config.update.UpdateEnvironmentCommand;
 import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.i18n.LocalizedMessage;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSet;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.presentation.TriStateSelection;
 import com.thoughtworks.go.presentation.environment.EnvironmentPipelineModel;
@@ -43,12 +44,13 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.i18n.LocalizedMessage.entityConfigValidationFailed;
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.ENVIRONMENTS;
 
 /**
  * @understands grouping of agents and pipelines within an environment
  */
 @Service
-public class EnvironmentConfigService implements ConfigChangedListener {
+public class EnvironmentConfigService implements SelectiveConfigChangedListener {
 
     public final GoConfigService goConfigService;
     private final SecurityService securityService;
@@ -87,6 +89,11 @@ public class EnvironmentConfigService implements ConfigChangedListener {
         this.environments = environments;
     }
 
+    @Override
+    public Set<ConfigChangeSet.Kind> dependsOn() {
+        return EnumSet.of(ENVIRONMENTS);
+    }
+
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         sync(newCruiseConfig.getEnvironments());
     }
@@ -22,6 +22,7 @@ import com.thoughtworks.go.domain.activity.JobStatusCache;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.plugin.infra.PluginManager;
+import com.thoughtworks.go.server.dao.FeedModifier;
 import com.thoughtworks.go.server.dao.JobInstanceDao;
 import com.thoughtworks.go.server.domain.JobStatusListener;
 import com.thoughtworks.go.server.domain.Username;
@@ -32,6 +33,7 @@ import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.server.ui.JobInstancesModel;
 import com.thoughtworks.go.server.ui.SortOrder;
+import com.thoughtworks.go.server.util.KeysetPage;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.serverhealth.*;
 import org.slf4j.Logger;
@@ -97,16 +99,31 @@ public class JobInstanceService implements JobPlanLoader, ConfigChangedListener
     }
 
     public JobInstances findJobHistoryPage(String pipelineName, String stageName, String jobConfigName, Pagination pagination, String username, OperationResult result) {
+        if (!canViewJobHistory(pipelineName, username, result)) {
+            return null;
+        }
+
+        return jobInstanceDao.findJobHistoryPage(pipelineName, stageName, jobConfigName, pagination.getPageSize(), pagination.getOffset());
+    }
+
+    public KeysetPage<JobInstances> findJobHistoryViaCursor(String pipelineName, String stageName, String jobConfigName, FeedModifier feedModifier, long cursor, int pageSize, String username, OperationResult result) {
+        if (!canViewJobHistory(pipelineName, username, result)) {
+            return null;
+        }
+
+        return jobInstanceDao.findJobHistoryViaCursor(pipelineName, stageName, jobConfigName, feedModifier, cursor, pageSize);
+    }
+
+    private boolean canViewJobHistory(String pipelineName, String username, OperationResult result) {
         if (!goConfigService.currentCruiseConfig().hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
             result.notFound("Not Found", "Pipeline not found", HealthStateType.general(HealthStateScope.GLOBAL));
-            return null;
+            return false;
         }
         if (!securityService.hasViewPermissionForPipeline(Username.valueOf(username), pipelineName)) {
             result.forbidden("Unauthorized", NOT_AUTHORIZED_TO_VIEW_PIPELINE, HealthStateType.general(HealthStateScope.forPipeline(pipelineName)));
-            return null;
+            return false;
         }
-
-        return jobInstanceDao.findJobHistoryPage(pipelineName, stageName, jobConfigName, pagination.getPageSize(), pagination.getOffset());
+        return true;
     }
 
     public JobInstance buildByIdWithTransitions(long buildId) {
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.config.exceptions.EntityType;
+import com.thoughtworks.go.config.exceptions.RecordNotFoundException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pipeline group permissions of every user, worked out once per config and plugin role assignment instead of on
+ * every check. Groups are numbered in config order and each user gets bitsets of the groups they can view, operate
+ * and administer, so a check is a map lookup and a bit test.
+ * <p>
+ * An index only describes the config and plugin role assignments it was built for, see {@link #isFor}. Users'
+ * permissions are computed the first time they are asked for.
+ */
+class PipelineGroupPermissionIndex {
+    private final CruiseConfig cruiseConfig;
+    private final long pluginRoleUsersVersion;
+    private final List<PipelineConfigs> groups = new ArrayList<>();
+    private final List<List<CaseInsensitiveString>> pipelinesByGroup = new ArrayList<>();
+    private final Map<String, Integer> groupIndexByName = new HashMap<>();
+    private final Map<CaseInsensitiveString, Integer> groupIndexByPipeline = new HashMap<>();
+    private final ConcurrentMap<CaseInsensitiveString, UserPermissions> permissionsByUser = new ConcurrentHashMap<>();
+
+    PipelineGroupPermissionIndex(CruiseConfig cruiseConfig, long pluginRoleUsersVersion) {
+        this.cruiseConfig = cruiseConfig;
+        this.pluginRoleUsersVersion = pluginRoleUsersVersion;
+        for (PipelineConfigs group : cruiseConfig.getGroups()) {
+            int index = groups.size();
+            groups.add(group);
+            groupIndexByName.putIfAbsent(group.getGroup(), index);
+            List<CaseInsensitiveString> pipelines = new ArrayList<>();
+            for (PipelineConfig pipeline : group) {
+                pipelines.add(pipeline.name());
+                groupIndexByPipeline.putIfAbsent(pipeline.name(), index);
+            }
+            pipelinesByGroup.add(pipelines);
+        }
+    }
+
+    boolean isFor(CruiseConfig cruiseConfig, long pluginRoleUsersVersion) {
+        return this.cruiseConfig == cruiseConfig && this.pluginRoleUsersVersion == pluginRoleUsersVersion;
+    }
+
+    /**
+     * @return the index of the group the pipeline belongs to, or null if no group has it
+     */
+    Integer groupOfPipeline(CaseInsensitiveString pipelineName) {
+        return groupIndexByPipeline.get(pipelineName);
+    }
+
+    int groupNamed(String groupName) {
+        Integer index = groupIndexByName.get(groupName);
+        if (index == null) {
+            throw new RecordNotFoundException(EntityType.PipelineGroup, groupName);
+        }
+        return index;
+    }
+
+    UserPermissions permissionsFor(CaseInsensitiveString username) {
+        return permissionsByUser.computeIfAbsent(username, this::computePermissions);
+    }
+
+    List<CaseInsensitiveString> pipelinesIn(BitSet groupIndexes) {
+        List<CaseInsensitiveString> pipelines = new ArrayList<>();
+        for (int index = groupIndexes.nextSetBit(0); index >= 0; index = groupIndexes.nextSetBit(index + 1)) {
+            pipelines.addAll(pipelinesByGroup.get(index));
+        }
+        return pipelines;
+    }
+
+    List<String> groupNames(BitSet groupIndexes) {
+        List<String> groupNames = new ArrayList<>();
+        for (int index = groupIndexes.nextSetBit(0); index >= 0; index = groupIndexes.nextSetBit(index + 1)) {
+            groupNames.add(groups.get(index).getGroup());
+        }
+        return groupNames;
+    }
+
+    private UserPermissions computePermissions(CaseInsensitiveString username) {
+        BitSet viewable = new BitSet(groups.size());
+        BitSet operable = new BitSet(groups.size());
+        BitSet administrable = new BitSet(groups.size());
+        if (!cruiseConfig.isSecurityEnabled() || cruiseConfig.isAdministrator(CaseInsensitiveString.str(username))) {
+            viewable.set(0, groups.size());
+            operable.set(0, groups.size());
+            administrable.set(0, groups.size());
+            return new UserPermissions(true, viewable, operable, administrable);
+        }
+
+        SecurityConfig securityConfig = cruiseConfig.server().security();
+        List<Role> memberRoles = securityConfig.getRoles().memberRoles(new AdminUser(username));
+        SecurityService.UserRoleMatcherImpl userRoleMatcher = new SecurityService.UserRoleMatcherImpl(securityConfig);
+        for (int index = 0; index < groups.size(); index++) {
+            PipelineConfigs group = groups.get(index);
+            if (group.isUserAnAdmin(username, memberRoles)) {
+                viewable.set(index);
+                operable.set(index);
+                administrable.set(index);
+                continue;
+            }
+            if (group.hasViewPermission(username, userRoleMatcher)) {
+                viewable.set(index);
+            }
+            if (group.hasOperatePermission(username, userRoleMatcher)) {
+                operable.set(index);
+            }
+        }
+        return new UserPermissions(false, viewable, operable, administrable);
+    }
+
+    static class UserPermissions {
+        private final boolean admin;
+        private final BitSet viewable;
+        private final BitSet operable;
+        private final BitSet administrable;
+
+        private UserPermissions(boolean admin, BitSet viewable, BitSet operable, BitSet administrable) {
+            this.admin = admin;
+            this.viewable = viewable;
+            this.operable = operable;
+            this.administrable = administrable;
+        }
+
+        /**
+         * @return true if the user is a super admin, or security is disabled
+         */
+        boolean isAdmin() {
+            return admin;
+        }
+
+        boolean canView(int groupIndex) {
+            return viewable.get(groupIndex);
+        }
+
+        boolean canOperate(int groupIndex) {
+            return operable.get(groupIndex);
+        }
+
+        boolean canAdminister(int groupIndex) {
+            return administrable.get(groupIndex);
+        }
+
+        BitSet viewable() {
+            return viewable;
+        }
+
+        BitSet administrable() {
+            return administrable;
+        }
+    }
+}
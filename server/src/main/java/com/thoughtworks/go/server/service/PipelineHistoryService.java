@@ -28,6 +28,7 @@ import com.thoughtworks.go.domain.buildcause.BuildCause;
 import com.thoughtworks.go.i18n.LocalizedMessage;
 import com.thoughtworks.go.presentation.PipelineStatusModel;
 import com.thoughtworks.go.presentation.pipelinehistory.*;
+import com.thoughtworks.go.server.dao.FeedModifier;
 import com.thoughtworks.go.server.dao.PipelineDao;
 import com.thoughtworks.go.server.domain.PipelineTimeline;
 import com.thoughtworks.go.server.domain.Username;
@@ -35,11 +36,13 @@ import com.thoughtworks.go.server.domain.user.DashboardFilter;
 import com.thoughtworks.go.server.domain.user.PipelineSelections;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.scheduling.TriggerMonitor;
+import com.thoughtworks.go.server.service.pipelinesearch.PipelineSearchIndexService;
 import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult;
 import com.thoughtworks.go.server.service.result.HttpOperationResult;
 import com.thoughtworks.go.server.service.result.OperationResult;
 import com.thoughtworks.go.server.service.result.ServerHealthStateOperationResult;
 import com.thoughtworks.go.server.service.support.toggle.Toggles;
+import com.thoughtworks.go.server.util.KeysetPage;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
@@ -63,6 +66,7 @@ public class PipelineHistoryService {
     private SchedulingCheckerService schedulingCheckerService;
     private PipelineLockService pipelineLockService;
     private PipelinePauseService pipelinePauseService;
+    private PipelineSearchIndexService pipelineSearchIndexService;
     private static final String NOT_AUTHORIZED_TO_VIEW_PIPELINE = "Not authorized to view pipeline";
 
     @Autowired
@@ -75,7 +79,8 @@ public class PipelineHistoryService {
                                   PipelineTimeline pipelineTimeline,
                                   PipelineUnlockApiService pipelineUnlockService,
                                   SchedulingCheckerService schedulingCheckerService, PipelineLockService pipelineLockService,
-                                  PipelinePauseService pipelinePauseService) {
+                                  PipelinePauseService pipelinePauseService,
+                                  PipelineSearchIndexService pipelineSearchIndexService) {
         this.pipelineDao = pipelineDao;
         this.goConfigService = goConfigService;
         this.securityService = securityService;
@@ -87,6 +92,7 @@ public class PipelineHistoryService {
         this.schedulingCheckerService = schedulingCheckerService;
         this.pipelineLockService = pipelineLockService;
         this.pipelinePauseService = pipelinePauseService;
+        this.pipelineSearchIndexService = pipelineSearchIndexService;
     }
 
     public int totalCount(String pipelineName) {
@@ -126,17 +132,38 @@ public class PipelineHistoryService {
      * Populates future stages as empty, Populates can run for pipeline & each stage, Populate stage run permission
      */
     public PipelineInstanceModels loadMinimalData(String pipelineName, Pagination pagination, Username username, OperationResult result) {
+        if (!canViewPipelineHistory(pipelineName, username, result)) {
+            return null;
+        }
+
+        PipelineInstanceModels history = pipelineDao.loadHistory(pipelineName, pagination.getPageSize(), pagination.getOffset());
+        populateMinimalData(history, username);
+        return history;
+    }
+
+    public KeysetPage<PipelineInstanceModels> loadMinimalDataViaCursor(String pipelineName, FeedModifier feedModifier, long cursor, int pageSize, Username username, OperationResult result) {
+        if (!canViewPipelineHistory(pipelineName, username, result)) {
+            return null;
+        }
+
+        KeysetPage<PipelineInstanceModels> page = pipelineDao.loadHistoryViaCursor(pipelineName, feedModifier, cursor, pageSize);
+        populateMinimalData(page.getItems(), username);
+        return page;
+    }
+
+    private boolean canViewPipelineHistory(String pipelineName, Username username, OperationResult result) {
         if (!goConfigService.currentCruiseConfig().hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
             result.notFound("Not Found", "Pipeline " + pipelineName + " not found", HealthStateType.general(HealthStateScope.GLOBAL));
-            return null;
+            return false;
         }
         if (!securityService.hasViewPermissionForPipeline(username, pipelineName)) {
             result.forbidden("Forbidden", NOT_AUTHORIZED_TO_VIEW_PIPELINE, HealthStateType.general(HealthStateScope.forPipeline(pipelineName)));
-            return null;
+            return false;
         }
+        return true;
+    }
 
-        PipelineInstanceModels history = pipelineDao.loadHistory(pipelineName, pagination.getPageSize(), pagination.getOffset());
-
+    private void populateMinimalData(PipelineInstanceModels history, Username username) {
         for (PipelineInstanceModel pipelineInstanceModel : history) {
             populateMaterialRevisionsOnBuildCause(pipelineInstanceModel);
 
@@ -144,8 +171,6 @@ public class PipelineHistoryService {
             populateCanRunStatus(username, pipelineInstanceModel);
             populateStageOperatePermission(pipelineInstanceModel, username);
         }
-
-        return history;
     }
 
     public PipelineStatusModel getPipelineStatus(String pipelineName, String username, OperationResult result) {
@@ -519,7 +544,7 @@ public class PipelineHistoryService {
             result.forbidden(LocalizedMessage.forbiddenToViewPipeline(pipelineName), HealthStateType.general(HealthStateScope.forPipeline(pipelineName)));
             return PipelineInstanceModels.createPipelineInstanceModels();
         }
-        PipelineInstanceModels models = pipelineDao.findMatchingPipelineInstances(pipelineName, pattern, limitForPipeline(pipelineName, limit));
+        PipelineInstanceModels models = pipelineSearchIndexService.findMatchingPipelineInstances(pipelineName, pattern, limitForPipeline(pipelineName, limit));
         for (PipelineInstanceModel model : models) {
             populatePlaceHolderStages(model);
             populateMaterialRevisionsOnBuildCause(model);
@@ -23,7 +23,8 @@ import com.thoughtworks.go.domain.Pipeline;
 import com.thoughtworks.go.domain.PipelineIdentifier;
 import com.thoughtworks.go.domain.PipelineState;
 import com.thoughtworks.go.domain.StageIdentifier;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSet;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.dao.PipelineStateDao;
 import com.thoughtworks.go.server.domain.PipelineLockStatusChangeListener;
@@ -36,13 +37,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionSynchronization;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.PIPELINES;
 
 /**
  * @understands how/whether to lock/unlock a pipeline instance
  */
 @Service
-public class PipelineLockService implements ConfigChangedListener {
+public class PipelineLockService implements SelectiveConfigChangedListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineLockService.class);
     private final GoConfigService goConfigService;
     private PipelineStateDao pipelineStateDao;
@@ -115,6 +120,16 @@ public class PipelineLockService implements ConfigChangedListener {
         return locked == null || locked.pipelineIdentifier().equals(pipeline);
     }
 
+    @Override
+    public Set<ConfigChangeSet.Kind> dependsOn() {
+        return EnumSet.of(PIPELINES);
+    }
+
+    @Override
+    public boolean canBeNotifiedInParallel() {
+        return true;
+    }
+
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         for (String lockedPipeline : pipelineStateDao.lockedPipelines()) {
             if (!newCruiseConfig.hasPipelineNamed(new CaseInsensitiveString(lockedPipeline)) || !newCruiseConfig.isPipelineLockable(lockedPipeline)) {
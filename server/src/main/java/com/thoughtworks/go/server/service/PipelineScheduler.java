@@ -19,7 +19,8 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.config.*;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
 import com.thoughtworks.go.domain.PiplineConfigVisitor;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSet;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
@@ -37,14 +38,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Consumer;
 
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.PIPELINES;
+
 @Service
-public class PipelineScheduler implements ConfigChangedListener, GoMessageListener<ScheduleCheckCompletedMessage> {
+public class PipelineScheduler implements SelectiveConfigChangedListener, GoMessageListener<ScheduleCheckCompletedMessage> {
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineScheduler.class);
 
     private GoConfigService goConfigService;
@@ -213,6 +213,11 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
                 HealthStateType.invalidLicense(HealthStateScope.GLOBAL)));
     }
 
+    @Override
+    public Set<ConfigChangeSet.Kind> dependsOn() {
+        return EnumSet.of(PIPELINES);
+    }
+
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         synchronized (pipelines) {
             newCruiseConfig.accept((PiplineConfigVisitor) pipelineConfig -> addPipelineIfNotPresent(pipelineConfig, pipelines));
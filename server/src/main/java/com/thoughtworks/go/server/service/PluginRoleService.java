@@ -40,16 +40,16 @@ public class PluginRoleService implements ConfigChangedListener, PluginChangeLis
     }
 
     public void updatePluginRoles(String pluginId, String username, List<CaseInsensitiveString> pluginRolesName) {
-        pluginRoleUsersStore.revokeAllRolesFor(username);
-
         Map<CaseInsensitiveString, PluginRoleConfig> pluginRoles = getPluginRoles(pluginId);
+        Set<PluginRoleConfig> rolesOfUser = new HashSet<>();
         for (CaseInsensitiveString pluginRoleName : pluginRolesName) {
             PluginRoleConfig pluginRoleConfig = pluginRoles.get(pluginRoleName);
 
             if (pluginRoleConfig != null) {
-                pluginRoleUsersStore.assignRole(username, pluginRoleConfig);
+                rolesOfUser.add(pluginRoleConfig);
             }
         }
+        pluginRoleUsersStore.replaceRolesFor(username, rolesOfUser);
     }
 
     public void register(PluginRoleChangeListener listener) {
@@ -21,12 +21,12 @@ import com.thoughtworks.go.server.domain.Username;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class SecurityService {
     private GoConfigService goConfigService;
+    private volatile PipelineGroupPermissionIndex permissionIndex;
 
     @Autowired
     public SecurityService(GoConfigService goConfigService) {
@@ -34,11 +34,13 @@ public class SecurityService {
     }
 
     public boolean hasViewPermissionForPipeline(Username username, String pipelineName) {
-        String groupName = goConfigService.findGroupNameByPipeline(new CaseInsensitiveString(pipelineName));
-        if (groupName == null) {
+        CruiseConfig cruiseConfig = goConfigService.getCurrentConfig();
+        PipelineGroupPermissionIndex index = permissionIndex(cruiseConfig);
+        Integer group = index.groupOfPipeline(new CaseInsensitiveString(pipelineName));
+        if (group == null) {
             return true;
         }
-        return hasViewPermissionForGroup(CaseInsensitiveString.str(username.getUsername()), groupName);
+        return index.permissionsFor(username.getUsername()).canView(group);
     }
 
     public boolean hasViewPermissionForGroup(String userName, String pipelineGroupName) {
@@ -48,13 +50,9 @@ public class SecurityService {
             return true;
         }
 
-        CaseInsensitiveString username = new CaseInsensitiveString(userName);
-        if (isUserAdmin(new Username(username))) {
-            return true;
-        }
-
-        PipelineConfigs group = cruiseConfig.getGroups().findGroup(pipelineGroupName);
-        return isUserAdminOfGroup(username, group) || group.hasViewPermission(username, new UserRoleMatcherImpl(cruiseConfig.server().security()));
+        PipelineGroupPermissionIndex index = permissionIndex(cruiseConfig);
+        PipelineGroupPermissionIndex.UserPermissions permissions = index.permissionsFor(new CaseInsensitiveString(userName));
+        return permissions.isAdmin() || permissions.canView(index.groupNamed(pipelineGroupName));
     }
 
     private boolean isUserAdminOfGroup(final CaseInsensitiveString userName, PipelineConfigs group) {
@@ -70,20 +68,23 @@ public class SecurityService {
     }
 
     public boolean hasOperatePermissionForPipeline(final CaseInsensitiveString username, String pipelineName) {
-        String groupName = goConfigService.findGroupNameByPipeline(new CaseInsensitiveString(pipelineName));
-        if (groupName == null) {
+        CruiseConfig cruiseConfig = goConfigService.getCurrentConfig();
+        PipelineGroupPermissionIndex index = permissionIndex(cruiseConfig);
+        Integer group = index.groupOfPipeline(new CaseInsensitiveString(pipelineName));
+        if (group == null) {
             return true;
         }
-        return hasOperatePermissionForGroup(username, groupName);
+        return index.permissionsFor(username).canOperate(group);
     }
 
     public boolean hasAdminPermissionsForPipeline(Username username, CaseInsensitiveString pipelineName) {
-        String groupName = goConfigService.findGroupNameByPipeline(pipelineName);
-        if (groupName == null) {
+        CruiseConfig cruiseConfig = goConfigService.getCurrentConfig();
+        PipelineGroupPermissionIndex index = permissionIndex(cruiseConfig);
+        Integer group = index.groupOfPipeline(pipelineName);
+        if (group == null) {
             return true;
         }
-
-        return isUserAdminOfGroup(username.getUsername(), groupName);
+        return index.permissionsFor(username.getUsername()).canAdminister(group);
     }
 
     public boolean hasOperatePermissionForGroup(final CaseInsensitiveString username, String groupName) {
@@ -93,12 +94,9 @@ public class SecurityService {
             return true;
         }
 
-        if (isUserAdmin(new Username(username))) {
-            return true;
-        }
-
-        PipelineConfigs group = cruiseConfig.getGroups().findGroup(groupName);
-        return isUserAdminOfGroup(username, group) || group.hasOperatePermission(username, new UserRoleMatcherImpl(cruiseConfig.server().security()));
+        PipelineGroupPermissionIndex index = permissionIndex(cruiseConfig);
+        PipelineGroupPermissionIndex.UserPermissions permissions = index.permissionsFor(username);
+        return permissions.isAdmin() || permissions.canOperate(index.groupNamed(groupName));
     }
 
     public boolean hasOperatePermissionForStage(String pipelineName, String stageName, String username) {
@@ -167,13 +165,8 @@ public class SecurityService {
     }
 
     public List<CaseInsensitiveString> viewablePipelinesFor(Username username) {
-        List<CaseInsensitiveString> pipelines = new ArrayList<>();
-        for (String group : goConfigService.allGroups()) {
-            if (hasViewPermissionForGroup(CaseInsensitiveString.str(username.getUsername()), group)) {
-                pipelines.addAll(goConfigService.pipelines(group));
-            }
-        }
-        return pipelines;
+        PipelineGroupPermissionIndex index = permissionIndex(goConfigService.getCurrentConfig());
+        return index.pipelinesIn(index.permissionsFor(username.getUsername()).viewable());
     }
 
     public boolean isUserGroupAdmin(Username username) {
@@ -184,13 +177,8 @@ public class SecurityService {
         if (isUserAdmin(userName)) {
             return goConfigService.allGroups();
         }
-        List<String> modifiableGroups = new ArrayList<>();
-        for (String group : goConfigService.allGroups()) {
-            if (isUserAdminOfGroup(userName.getUsername(), group)) {
-                modifiableGroups.add(group);
-            }
-        }
-        return modifiableGroups;
+        PipelineGroupPermissionIndex index = permissionIndex(goConfigService.getCurrentConfig());
+        return index.groupNames(index.permissionsFor(userName.getUsername()).administrable());
     }
 
     public boolean isAuthorizedToViewAndEditTemplates(Username username) {
@@ -213,6 +201,16 @@ public class SecurityService {
         return goConfigService.security().noAdminsConfigured();
     }
 
+    private PipelineGroupPermissionIndex permissionIndex(CruiseConfig cruiseConfig) {
+        long pluginRoleUsersVersion = PluginRoleUsersStore.instance().version();
+        PipelineGroupPermissionIndex index = permissionIndex;
+        if (index == null || !index.isFor(cruiseConfig, pluginRoleUsersVersion)) {
+            index = new PipelineGroupPermissionIndex(cruiseConfig, pluginRoleUsersVersion);
+            permissionIndex = index;
+        }
+        return index;
+    }
+
     public static class UserRoleMatcherImpl implements UserRoleMatcher {
         private final SecurityConfig securityConfig;
 
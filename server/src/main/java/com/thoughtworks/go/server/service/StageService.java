@@ -49,6 +49,7 @@ import com.thoughtworks.go.server.ui.MingleCard;
 import com.thoughtworks.go.server.ui.ModificationForPipeline;
 import com.thoughtworks.go.server.ui.StageSummaryModel;
 import com.thoughtworks.go.server.ui.StageSummaryModels;
+import com.thoughtworks.go.server.util.KeysetPage;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
@@ -427,16 +428,36 @@ public class StageService implements StageFinder {
                                                                 Pagination pagination,
                                                                 String username,
                                                                 OperationResult result) {
+        if (!canViewStageHistory(pipelineName, username, result)) {
+            return null;
+        }
+
+        return stageDao.findDetailedStageHistoryByOffset(pipelineName, stageName, pagination);
+    }
+
+    public KeysetPage<StageInstanceModels> findDetailedStageHistoryViaCursor(String pipelineName,
+                                                                             String stageName,
+                                                                             FeedModifier feedModifier,
+                                                                             long cursor,
+                                                                             int pageSize,
+                                                                             String username,
+                                                                             OperationResult result) {
+        if (!canViewStageHistory(pipelineName, username, result)) {
+            return null;
+        }
+        return stageDao.findDetailedStageHistoryViaCursor(pipelineName, stageName, feedModifier, cursor, pageSize);
+    }
+
+    private boolean canViewStageHistory(String pipelineName, String username, OperationResult result) {
         if (!goConfigService.currentCruiseConfig().hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
             result.notFound("Not Found", "Pipeline not found", HealthStateType.general(HealthStateScope.GLOBAL));
-            return null;
+            return false;
         }
         if (!securityService.hasViewPermissionForPipeline(Username.valueOf(username), pipelineName)) {
             result.forbidden("Unauthorized", NOT_AUTHORIZED_TO_VIEW_PIPELINE, HealthStateType.general(HealthStateScope.forPipeline(pipelineName)));
-            return null;
+            return false;
         }
-
-        return stageDao.findDetailedStageHistoryByOffset(pipelineName, stageName, pagination);
+        return true;
     }
 
     /**
@@ -20,7 +20,8 @@ import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.TimerConfig;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSet;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.scheduling.BuildCauseProducerService;
 import com.thoughtworks.go.server.service.result.ServerHealthStateOperationResult;
@@ -36,9 +37,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.text.ParseException;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
+import static com.thoughtworks.go.listener.ConfigChangeSet.Kind.PIPELINES;
 import static org.quartz.CronScheduleBuilder.cronSchedule;
 import static org.quartz.JobBuilder.newJob;
 import static org.quartz.JobKey.jobKey;
@@ -50,7 +53,7 @@ import static org.quartz.impl.matchers.GroupMatcher.groupEquals;
  * @understands scheduling pipelines based on a timer
  */
 @Component
-public class TimerScheduler implements ConfigChangedListener {
+public class TimerScheduler implements SelectiveConfigChangedListener {
     private static final Logger LOG = LoggerFactory.getLogger(TimerScheduler.class);
 
     private GoConfigService goConfigService;
@@ -151,6 +154,16 @@ public class TimerScheduler implements ConfigChangedListener {
         return map;
     }
 
+    @Override
+    public Set<ConfigChangeSet.Kind> dependsOn() {
+        return EnumSet.of(PIPELINES);
+    }
+
+    @Override
+    public boolean canBeNotifiedInParallel() {
+        return true;
+    }
+
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         unscheduleAllJobs();
         scheduleAllJobs(newCruiseConfig.getAllPipelineConfigs());
@@ -53,6 +53,7 @@ public class UserService {
     private final SecurityService securityService;
     private final GoConfigService goConfigService;
     private final TransactionTemplate transactionTemplate;
+    private final AccessTokenService accessTokenService;
 
     private final Object disableUserMutex = new Object();
     private final Object enableUserMutex = new Object();
@@ -61,11 +62,13 @@ public class UserService {
     public UserService(UserDao userDao,
                        SecurityService securityService,
                        GoConfigService goConfigService,
-                       TransactionTemplate transactionTemplate) {
+                       TransactionTemplate transactionTemplate,
+                       AccessTokenService accessTokenService) {
         this.userDao = userDao;
         this.securityService = securityService;
         this.goConfigService = goConfigService;
         this.transactionTemplate = transactionTemplate;
+        this.accessTokenService = accessTokenService;
     }
 
     public void disable(final List<String> usersToBeDisabled, LocalizedOperationResult result) {
@@ -80,6 +83,7 @@ public class UserService {
                     userDao.disableUsers(usersToBeDisabled);
                 }
             });
+            accessTokenService.invalidateCachedTokensForUsers(usersToBeDisabled);
         }
     }
 
@@ -254,6 +258,7 @@ public class UserService {
     public void deleteUser(String username, String byWhom, HttpLocalizedOperationResult result) {
         try {
             userDao.deleteUser(username, byWhom);
+            accessTokenService.invalidateCachedTokensForUsers(Collections.singletonList(username));
             result.setMessage(EntityType.User.deleteSuccessful(username));
         } catch (RecordNotFoundException e) {
             result.notFound(EntityType.User.notFoundMessage(username), general(GLOBAL));
@@ -267,6 +272,7 @@ public class UserService {
             boolean isValid = performUserDeletionValidation(userNames, result);
             if (isValid) {
                 userDao.deleteUsers(userNames, byWhom);
+                accessTokenService.invalidateCachedTokensForUsers(userNames);
                 result.setMessage(EntityType.User.deleteSuccessful(userNames));
             }
         }
@@ -430,6 +436,9 @@ public class UserService {
         synchronized (enableUserMutex) {
             userDao.saveOrUpdate(user);
         }
+        if (!user.isEnabled()) {
+            accessTokenService.invalidateCachedTokensForUsers(Collections.singletonList(user.getName()));
+        }
     }
 
     private boolean userExists(User user) {
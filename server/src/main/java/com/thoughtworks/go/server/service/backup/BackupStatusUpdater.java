@@ -35,6 +35,12 @@ public class BackupStatusUpdater implements BackupUpdateListener {
         this.serverBackupRepository.update(serverBackup);
     }
 
+    @Override
+    public void progress(BackupProgressStatus status, long done, long total) {
+        serverBackup.setMessage(String.format("%s (%d of %d files)", status.getMessage(), done, total));
+        this.serverBackupRepository.update(serverBackup);
+    }
+
     @Override
     public void error(String message) {
         serverBackup.markError(message);
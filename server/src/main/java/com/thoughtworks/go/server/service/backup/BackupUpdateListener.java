@@ -21,6 +21,12 @@ import com.thoughtworks.go.server.domain.BackupProgressStatus;
 public interface BackupUpdateListener {
     void updateStep(BackupProgressStatus status);
 
+    /**
+     * Reports how far along the current step is, for steps that can tell.
+     */
+    default void progress(BackupProgressStatus status, long done, long total) {
+    }
+
     void error(String message);
 
     void completed();
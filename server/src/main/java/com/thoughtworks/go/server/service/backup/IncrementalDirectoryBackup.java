@@ -0,0 +1,255 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.backup;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Copies a directory into a backup as plain files, alongside a manifest of the size, modification time and checksum of
+ * every file. Files whose size and modification time match the manifest of the previous backup are hard linked to the
+ * copy in that backup instead of being copied again, so a backup only costs as much as what changed since the last
+ * one. Copied files are checked against their checksum once the backup is written; linked files were checked when they
+ * were copied into an earlier backup.
+ */
+public class IncrementalDirectoryBackup {
+    public static final String MANIFEST_FILE = "backup-manifest.tsv";
+    private static final int PROGRESS_UPDATES = 20;
+
+    public interface Progress {
+        void update(long filesDone, long filesTotal);
+    }
+
+    private final File source;
+    private final File destination;
+    private final File previousDestination;
+    private final int threads;
+
+    /**
+     * @param previousDestination the destination of the previous backup of the same directory, or null if there is none
+     */
+    public IncrementalDirectoryBackup(File source, File destination, File previousDestination, int threads) {
+        this.source = source;
+        this.destination = destination;
+        this.previousDestination = previousDestination;
+        this.threads = Math.max(1, threads);
+    }
+
+    public Result backup(Progress progress) throws IOException {
+        Map<String, ManifestEntry> previousManifest = new HashMap<>();
+        if (previousDestination != null && new File(previousDestination, MANIFEST_FILE).isFile()) {
+            for (ManifestEntry entry : readManifest(previousDestination)) {
+                previousManifest.put(entry.path, entry);
+            }
+        }
+
+        Path sourcePath = source.toPath();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(sourcePath)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        FileUtils.forceMkdir(destination);
+
+        List<ManifestEntry> manifest = forEachInParallel(files, threads, file -> backupFile(sourcePath, file, previousManifest), progress);
+        manifest.sort(Comparator.comparing(entry -> entry.path));
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(destination, MANIFEST_FILE)), UTF_8))) {
+            for (ManifestEntry entry : manifest) {
+                writer.write(entry.sha256 + "\t" + entry.size + "\t" + entry.modifiedAt + "\t" + entry.path + "\n");
+            }
+        }
+
+        Result result = new Result();
+        List<ManifestEntry> copied = new ArrayList<>();
+        for (ManifestEntry entry : manifest) {
+            if (entry.linked) {
+                result.linkedFiles++;
+            } else {
+                result.copiedFiles++;
+                result.copiedBytes += entry.size;
+                copied.add(entry);
+            }
+        }
+        result.problems = verify(destination, copied, threads);
+        return result;
+    }
+
+    private static List<String> verify(File destination, List<ManifestEntry> entries, int threads) throws IOException {
+        List<String> problems = forEachInParallel(entries, threads, entry -> {
+            File file = new File(destination, entry.path);
+            if (!file.isFile()) {
+                return entry.path + " is missing";
+            }
+            if (file.length() != entry.size) {
+                return entry.path + " has size " + file.length() + ", expected " + entry.size;
+            }
+            String sha256;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                sha256 = DigestUtils.sha256Hex(in);
+            }
+            return sha256.equals(entry.sha256) ? null : entry.path + " does not match its checksum";
+        }, (done, total) -> {
+        });
+        problems.removeIf(Objects::isNull);
+        Collections.sort(problems);
+        return problems;
+    }
+
+    private ManifestEntry backupFile(Path sourcePath, Path file, Map<String, ManifestEntry> previousManifest) throws IOException {
+        String relativePath = sourcePath.relativize(file).toString().replace(File.separatorChar, '/');
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modifiedAt = attributes.lastModifiedTime().toMillis();
+        Path target = destination.toPath().resolve(relativePath);
+        Files.createDirectories(target.getParent());
+
+        ManifestEntry previous = previousManifest.get(relativePath);
+        if (previous != null && previous.size == size && previous.modifiedAt == modifiedAt) {
+            Path previousCopy = previousDestination.toPath().resolve(relativePath);
+            if (Files.isRegularFile(previousCopy) && Files.size(previousCopy) == size) {
+                try {
+                    Files.createLink(target, previousCopy);
+                    return new ManifestEntry(relativePath, size, modifiedAt, previous.sha256, true);
+                } catch (IOException | UnsupportedOperationException e) {
+                    // e.g. the previous backup is on another file system, fall back to copying
+                    Files.deleteIfExists(target);
+                }
+            }
+        }
+
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        try (InputStream in = new DigestInputStream(new BufferedInputStream(new FileInputStream(file.toFile())), digest);
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(target.toFile()))) {
+            IOUtils.copy(in, out);
+        }
+        return new ManifestEntry(relativePath, size, modifiedAt, Hex.encodeHexString(digest.digest()), false);
+    }
+
+    private static <T, R> List<R> forEachInParallel(List<T> items, int threads, Task<T, R> task, Progress progress) throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "backup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<R>> futures = new ArrayList<>(items.size());
+            for (T item : items) {
+                futures.add(executor.submit(() -> task.run(item)));
+            }
+            long total = items.size();
+            long step = Math.max(1, total / PROGRESS_UPDATES);
+            List<R> results = new ArrayList<>(items.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+                long done = results.size();
+                if (done % step == 0 || done == total) {
+                    progress.update(done, total);
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing up");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<ManifestEntry> readManifest(File destination) throws IOException {
+        List<ManifestEntry> entries = new ArrayList<>();
+        for (String line : FileUtils.readLines(new File(destination, MANIFEST_FILE), UTF_8)) {
+            String[] columns = line.split("\t", 4);
+            if (columns.length == 4) {
+                entries.add(new ManifestEntry(columns[3], Long.parseLong(columns[1]), Long.parseLong(columns[2]), columns[0], false));
+            }
+        }
+        return entries;
+    }
+
+    private interface Task<T, R> {
+        R run(T item) throws IOException;
+    }
+
+    private static class ManifestEntry {
+        private final String path;
+        private final long size;
+        private final long modifiedAt;
+        private final String sha256;
+        private final boolean linked;
+
+        private ManifestEntry(String path, long size, long modifiedAt, String sha256, boolean linked) {
+            this.path = path;
+            this.size = size;
+            this.modifiedAt = modifiedAt;
+            this.sha256 = sha256;
+            this.linked = linked;
+        }
+    }
+
+    public static class Result {
+        private long linkedFiles;
+        private long copiedFiles;
+        private long copiedBytes;
+        private List<String> problems = Collections.emptyList();
+
+        public long getLinkedFiles() {
+            return linkedFiles;
+        }
+
+        public long getCopiedFiles() {
+            return copiedFiles;
+        }
+
+        public long getCopiedBytes() {
+            return copiedBytes;
+        }
+
+        /**
+         * @return a description of each copied file that does not match its checksum, empty if all copies are intact
+         */
+        public List<String> getProblems() {
+            return problems;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files linked to the previous backup, %d files (%s) copied",
+                    linkedFiles, copiedFiles, FileUtils.byteCountToDisplaySize(copiedBytes));
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.pipelinesearch;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Trigram index over the text a pipeline instance can be found by in the history search: its label, build cause
+ * message and the comments, committers and revisions of the modifications it was built from (including upstream
+ * labels). Every pipeline instance is one line of an append-only documents file; in memory each pipeline keeps, per
+ * trigram, the sorted ids of its instances containing it, along with where each instance's line is in the file.
+ * Trigrams are packed into a {@code long} and kept in an open addressing table, so they are not boxed.
+ * <p>
+ * A search intersects the posting lists of the pattern's trigrams from the newest instance backwards and checks every
+ * candidate against its line, so the result is exactly what a substring match over the same fields gives.
+ */
+public class PipelineSearchIndex implements Closeable {
+    static final String DOCUMENTS_FILE = "documents.txt";
+    static final String INDEXED_UP_TO_FILE = "indexed-up-to.txt";
+    private static final int GRAM_LENGTH = 3;
+    private static final char FIELD_SEPARATOR = '\u001f';
+
+    private final File indexedUpToFile;
+    private final File documentsFile;
+    private final FileChannel documents;
+    private final Map<String, PipelineDocuments> documentsByPipeline = new HashMap<>();
+    private long documentsLength;
+    private volatile long indexedUpTo;
+
+    public PipelineSearchIndex(File directory) throws IOException {
+        FileUtils.forceMkdir(directory);
+        indexedUpToFile = new File(directory, INDEXED_UP_TO_FILE);
+        documentsFile = new File(directory, DOCUMENTS_FILE);
+        documentsLength = loadDocuments();
+        documents = FileChannel.open(documentsFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // drop a document that was only partially written, it was never recorded as indexed
+        documents.truncate(documentsLength);
+        if (indexedUpToFile.exists()) {
+            indexedUpTo = Long.parseLong(FileUtils.readFileToString(indexedUpToFile, StandardCharsets.UTF_8).trim());
+        }
+    }
+
+    public static boolean canSearch(String pattern) {
+        return pattern.length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Adds documents of pipelines that were committed after newer pipelines had already been indexed, without
+     * changing what is recorded as indexed. Instances which are already in the index are skipped.
+     */
+    public void add(List<Document> lateDocuments) throws IOException {
+        add(lateDocuments, 0);
+    }
+
+    /**
+     * Adds the documents and records that every pipeline up to {@code indexedUpTo} has been indexed. Instances which
+     * are already in the index are skipped.
+     */
+    public synchronized void add(List<Document> newDocuments, long indexedUpTo) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        List<Document> added = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        for (Document document : newDocuments) {
+            PipelineDocuments existing = documentsByPipeline.get(document.pipelineName);
+            if (existing != null && existing.contains(document.pipelineId)) {
+                continue;
+            }
+            byte[] line = (document.pipelineId + "\t" + document.pipelineName + "\t" + document.text() + "\n").getBytes(StandardCharsets.UTF_8);
+            lines.write(line);
+            added.add(document);
+            lengths.add(line.length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+        long position = documentsLength;
+        while (buffer.hasRemaining()) {
+            position += documents.write(buffer, position);
+        }
+        documents.force(false);
+
+        long offset = documentsLength;
+        for (int i = 0; i < added.size(); i++) {
+            Document document = added.get(i);
+            index(document.pipelineId, document.pipelineName, document.text(), offset, lengths.get(i));
+            offset += lengths.get(i);
+        }
+        documentsLength = offset;
+
+        if (indexedUpTo > this.indexedUpTo) {
+            File temp = new File(indexedUpToFile.getParentFile(), indexedUpToFile.getName() + ".tmp");
+            FileUtils.writeStringToFile(temp, String.valueOf(indexedUpTo), StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), indexedUpToFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.indexedUpTo = indexedUpTo;
+        }
+    }
+
+    /**
+     * @return ids of the instances of the pipeline, up to {@code upToPipelineId}, whose text contains the pattern
+     * but whose label is not the pattern itself, newest first
+     */
+    public synchronized List<Long> search(String pipelineName, String pattern, long upToPipelineId, int limit) throws IOException {
+        PipelineDocuments pipelineDocuments = documentsByPipeline.get(pipelineName.toLowerCase(Locale.ROOT));
+        String needle = pattern.toLowerCase(Locale.ROOT);
+        if (pipelineDocuments == null || !canSearch(needle)) {
+            return Collections.emptyList();
+        }
+
+        List<Postings> postings = new ArrayList<>();
+        for (Long gram : grams(needle)) {
+            Postings posting = pipelineDocuments.postings(gram);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(posting -> posting.size));
+
+        List<Long> matches = new ArrayList<>();
+        Postings shortest = postings.get(0);
+        candidates:
+        for (int i = shortest.size - 1; i >= 0 && matches.size() < limit; i--) {
+            long id = shortest.ids[i];
+            if (id > upToPipelineId) {
+                continue;
+            }
+            for (int other = 1; other < postings.size(); other++) {
+                if (!postings.get(other).contains(id)) {
+                    continue candidates;
+                }
+            }
+            String text = pipelineDocuments.textOf(id, documents);
+            int labelEnd = text.indexOf(FIELD_SEPARATOR);
+            String label = labelEnd < 0 ? text : text.substring(0, labelEnd);
+            if (text.contains(needle) && !label.equals(needle)) {
+                matches.add(id);
+            }
+        }
+        return matches;
+    }
+
+    public long indexedUpTo() {
+        return indexedUpTo;
+    }
+
+    public synchronized boolean contains(String pipelineName, long pipelineId) {
+        PipelineDocuments pipelineDocuments = documentsByPipeline.get(pipelineName.toLowerCase(Locale.ROOT));
+        return pipelineDocuments != null && pipelineDocuments.contains(pipelineId);
+    }
+
+    public synchronized int documentCount() {
+        int count = 0;
+        for (PipelineDocuments pipelineDocuments : documentsByPipeline.values()) {
+            count += pipelineDocuments.size;
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        documents.close();
+    }
+
+    private void index(long pipelineId, String pipelineName, String text, long offset, int length) {
+        PipelineDocuments pipelineDocuments = documentsByPipeline.computeIfAbsent(pipelineName, name -> new PipelineDocuments());
+        pipelineDocuments.add(pipelineId, offset, length);
+        for (Long gram : grams(text)) {
+            pipelineDocuments.postingsForAdding(gram).add(pipelineId);
+        }
+    }
+
+    private long loadDocuments() throws IOException {
+        long offset = 0;
+        if (!documentsFile.exists()) {
+            return offset;
+        }
+        try (InputStream in = new FileInputStream(documentsFile)) {
+            byte[] chunk = new byte[64 * 1024];
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] != '\n') {
+                        continue;
+                    }
+                    line.write(chunk, lineStart, i - lineStart);
+                    offset += loadDocument(line.toByteArray(), offset);
+                    line.reset();
+                    lineStart = i + 1;
+                }
+                line.write(chunk, lineStart, read - lineStart);
+            }
+        }
+        return offset;
+    }
+
+    private int loadDocument(byte[] line, long offset) {
+        String[] columns = new String(line, StandardCharsets.UTF_8).split("\t", 3);
+        long pipelineId = Long.parseLong(columns[0]);
+        PipelineDocuments existing = documentsByPipeline.get(columns[1]);
+        if (existing == null || !existing.contains(pipelineId)) {
+            index(pipelineId, columns[1], columns[2], offset, line.length + 1);
+        }
+        return line.length + 1;
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            char first = text.charAt(i);
+            char second = text.charAt(i + 1);
+            char third = text.charAt(i + 2);
+            if (first != FIELD_SEPARATOR && second != FIELD_SEPARATOR && third != FIELD_SEPARATOR) {
+                grams.add(((long) first << 32) | ((long) second << 16) | third);
+            }
+        }
+        return grams;
+    }
+
+    public static class Document {
+        private final long pipelineId;
+        private final String pipelineName;
+        private final Set<String> fields = new LinkedHashSet<>();
+
+        public Document(long pipelineId, String pipelineName, String label) {
+            this.pipelineId = pipelineId;
+            this.pipelineName = pipelineName.toLowerCase(Locale.ROOT);
+            this.fields.add(clean(label));
+        }
+
+        public Document addField(String field) {
+            if (field != null) {
+                fields.add(clean(field));
+            }
+            return this;
+        }
+
+        String text() {
+            return String.join(String.valueOf(FIELD_SEPARATOR), fields);
+        }
+
+        private static String clean(String field) {
+            return field == null ? "" : field.toLowerCase(Locale.ROOT).replaceAll("[\\t\\r\\n]", " ").replace(FIELD_SEPARATOR, ' ');
+        }
+    }
+
+    private static class PipelineDocuments {
+        private long[] grams = new long[16];
+        private Postings[] postings = new Postings[16];
+        private int gramCount;
+        private long[] ids = new long[16];
+        private long[] offsets = new long[16];
+        private int[] lengths = new int[16];
+        private int size;
+
+        private boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private Postings postings(long gram) {
+            return postings[slotOf(gram, grams, postings)];
+        }
+
+        private Postings postingsForAdding(long gram) {
+            int slot = slotOf(gram, grams, postings);
+            if (postings[slot] == null) {
+                if ((gramCount + 1) * 4 > postings.length * 3) {
+                    growGrams();
+                    slot = slotOf(gram, grams, postings);
+                }
+                grams[slot] = gram;
+                postings[slot] = new Postings();
+                gramCount++;
+            }
+            return postings[slot];
+        }
+
+        private void growGrams() {
+            long[] newGrams = new long[grams.length * 2];
+            Postings[] newPostings = new Postings[postings.length * 2];
+            for (int i = 0; i < postings.length; i++) {
+                if (postings[i] != null) {
+                    int slot = slotOf(grams[i], newGrams, newPostings);
+                    newGrams[slot] = grams[i];
+                    newPostings[slot] = postings[i];
+                }
+            }
+            grams = newGrams;
+            postings = newPostings;
+        }
+
+        // linear probing; a slot without postings is free
+        private static int slotOf(long gram, long[] grams, Postings[] postings) {
+            int mask = grams.length - 1;
+            int slot = (int) (gram * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (postings[slot] != null && grams[slot] != gram) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void add(long id, long offset, int length) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            int position = -(Arrays.binarySearch(ids, 0, size, id) + 1);
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(offsets, position, offsets, position + 1, size - position);
+            System.arraycopy(lengths, position, lengths, position + 1, size - position);
+            ids[position] = id;
+            offsets[position] = offset;
+            lengths[position] = length;
+            size++;
+        }
+
+        private String textOf(long id, FileChannel documents) throws IOException {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            ByteBuffer line = ByteBuffer.allocate(lengths[position]);
+            long offset = offsets[position];
+            while (line.hasRemaining()) {
+                int read = documents.read(line, offset + line.position());
+                if (read < 0) {
+                    throw new EOFException("Pipeline search index documents are shorter than expected");
+                }
+            }
+            String document = new String(line.array(), 0, line.capacity() - 1, StandardCharsets.UTF_8);
+            return document.split("\t", 3)[2];
+        }
+    }
+
+    private static class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        private void add(long id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            if (size == 0 || ids[size - 1] < id) {
+                ids[size++] = id;
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -(position + 1);
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        private boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
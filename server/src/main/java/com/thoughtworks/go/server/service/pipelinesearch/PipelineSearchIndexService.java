@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.pipelinesearch;
+
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import com.thoughtworks.go.listener.TimelineUpdateListener;
+import com.thoughtworks.go.presentation.pipelinehistory.PipelineInstanceModels;
+import com.thoughtworks.go.server.dao.PipelineSqlMapDao;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Answers the pipeline history search from a {@link PipelineSearchIndex} instead of matching every modification of
+ * the pipeline in the database. Only pipelines newer than what has been indexed are still searched in the database.
+ * <p>
+ * The index is loaded and brought up to date on a background thread on start, and again whenever new pipelines are
+ * added to the pipeline timeline. Pipelines reported by the timeline are kept as pending until the indexer has seen
+ * them in the index, so one that committed after a newer pipeline was indexed is still picked up. Disabled unless
+ * {@link SystemEnvironment#PIPELINE_SEARCH_INDEX_ENABLED} is set.
+ */
+@Service
+public class PipelineSearchIndexService implements TimelineUpdateListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineSearchIndexService.class);
+    static final int PIPELINES_PER_BATCH = 500;
+
+    private final PipelineSqlMapDao pipelineDao;
+    private final SystemEnvironment systemEnvironment;
+    private final AtomicBoolean catchUpScheduled = new AtomicBoolean();
+    private final Map<Long, String> pendingPipelines = new ConcurrentHashMap<>();
+    private volatile ExecutorService indexer;
+    private volatile PipelineSearchIndex index;
+
+    @Autowired
+    public PipelineSearchIndexService(PipelineSqlMapDao pipelineDao, SystemEnvironment systemEnvironment) {
+        this.pipelineDao = pipelineDao;
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    public void init() {
+        if (systemEnvironment.isPipelineSearchIndexEnabled()) {
+            indexer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pipeline-search-indexer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // searches go to the database until the index is loaded
+            indexer.submit(this::load);
+            scheduleCatchUp();
+        }
+    }
+
+    public boolean isEnabled() {
+        return index != null;
+    }
+
+    @Override
+    public void added(PipelineTimelineEntry newlyAddedEntry, TreeSet<PipelineTimelineEntry> timeline) {
+        if (indexer == null) {
+            return;
+        }
+        // the timeline is only told about the oldest new entry of each pipeline, the others are after it
+        pendingPipelines.put(newlyAddedEntry.getId(), newlyAddedEntry.getPipelineName());
+        for (PipelineTimelineEntry entry : timeline) {
+            pendingPipelines.put(entry.getId(), entry.getPipelineName());
+        }
+        scheduleCatchUp();
+    }
+
+    /**
+     * @param pattern the search pattern, with the SQL wildcards in it escaped
+     */
+    public PipelineInstanceModels findMatchingPipelineInstances(String pipelineName, String pattern, int limit) {
+        PipelineSearchIndex index = this.index;
+        String unescapedPattern = pattern.replace("\\%", "%").replace("\\_", "_");
+        if (index == null || !PipelineSearchIndex.canSearch(unescapedPattern)) {
+            return pipelineDao.findMatchingPipelineInstances(pipelineName, pattern, limit);
+        }
+        long indexedUpTo = index.indexedUpTo();
+        try {
+            List<Long> matches = index.search(pipelineName, unescapedPattern, indexedUpTo, limit);
+            return pipelineDao.findMatchingPipelineInstances(pipelineName, pattern, limit, indexedUpTo, matches);
+        } catch (IOException e) {
+            LOGGER.warn("Could not search the pipeline search index, searching the database instead", e);
+            return pipelineDao.findMatchingPipelineInstances(pipelineName, pattern, limit);
+        }
+    }
+
+    private void scheduleCatchUp() {
+        if (catchUpScheduled.compareAndSet(false, true)) {
+            indexer.submit(this::catchUp);
+        }
+    }
+
+    void load() {
+        try {
+            index = new PipelineSearchIndex(systemEnvironment.getPipelineSearchIndexDir());
+        } catch (Exception e) {
+            LOGGER.warn("Could not load the pipeline search index, searching the database instead", e);
+        }
+    }
+
+    void catchUp() {
+        catchUpScheduled.set(false);
+        PipelineSearchIndex index = this.index;
+        if (index == null) {
+            return;
+        }
+        try {
+            long maximumId = pipelineDao.getMaximumPipelineId();
+            long from = index.indexedUpTo();
+            while (from < maximumId) {
+                long to = Math.min(from + PIPELINES_PER_BATCH, maximumId);
+                index.add(documentsFrom(pipelineDao.getSearchableTextOfPipelines(from, to)), to);
+                from = to;
+            }
+            indexPendingPipelines(index);
+        } catch (Exception e) {
+            LOGGER.warn("Could not bring the pipeline search index up to date", e);
+        }
+    }
+
+    // pipelines beyond what is indexed stay pending for the next catch up; the others are indexed now if they are
+    // missing, which only happens to a pipeline whose transaction committed after a newer one was indexed
+    private void indexPendingPipelines(PipelineSearchIndex index) throws IOException {
+        for (Map.Entry<Long, String> pending : new ArrayList<>(pendingPipelines.entrySet())) {
+            long pipelineId = pending.getKey();
+            if (pipelineId > index.indexedUpTo()) {
+                continue;
+            }
+            if (!index.contains(pending.getValue(), pipelineId)) {
+                index.add(documentsFrom(pipelineDao.getSearchableTextOfPipelines(pipelineId - 1, pipelineId)));
+            }
+            pendingPipelines.remove(pipelineId, pending.getValue());
+        }
+    }
+
+    private List<PipelineSearchIndex.Document> documentsFrom(List<Map<String, Object>> rows) {
+        Map<Long, PipelineSearchIndex.Document> documents = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            long pipelineId = ((Number) row.get("pipelineid")).longValue();
+            PipelineSearchIndex.Document document = documents.computeIfAbsent(pipelineId,
+                    id -> new PipelineSearchIndex.Document(id, (String) row.get("pipelinename"), text(row.get("pipelinelabel")))
+                            .addField(text(row.get("buildcausemessage"))));
+            document.addField(text(row.get("modcomment")))
+                    .addField(text(row.get("modusername")))
+                    .addField(text(row.get("modrevision")))
+                    .addField(text(row.get("upstreamlabel")));
+        }
+        return new ArrayList<>(documents.values());
+    }
+
+    private String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
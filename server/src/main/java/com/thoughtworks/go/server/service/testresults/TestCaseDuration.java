@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.testresults;
+
+public class TestCaseDuration {
+    private final String testName;
+    private int runs;
+    private long totalInMillis;
+    private int maxInMillis;
+
+    TestCaseDuration(String testName) {
+        this.testName = testName;
+    }
+
+    void add(int durationInMillis) {
+        runs++;
+        totalInMillis += durationInMillis;
+        maxInMillis = Math.max(maxInMillis, durationInMillis);
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public long getAverageInMillis() {
+        return runs == 0 ? 0 : totalInMillis / runs;
+    }
+
+    public int getMaxInMillis() {
+        return maxInMillis;
+    }
+}
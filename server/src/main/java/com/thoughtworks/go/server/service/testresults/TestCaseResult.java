@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.testresults;
+
+import java.util.Objects;
+
+public class TestCaseResult {
+    public enum Status {
+        passed('P'), failed('F'), error('E'), skipped('S');
+
+        // stored in the test result index, so it must not change
+        private final byte code;
+
+        Status(char code) {
+            this.code = (byte) code;
+        }
+
+        public byte code() {
+            return code;
+        }
+
+        public static Status fromCode(byte code) {
+            for (Status value : values()) {
+                if (value.code == code) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Unknown test status code: " + code);
+        }
+
+        public boolean isFailing() {
+            return this == failed || this == error;
+        }
+
+        public static Status fromString(String status) {
+            for (Status value : values()) {
+                if (value.name().equals(status)) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final long jobId;
+    private final int pipelineCounter;
+    private final int stageCounter;
+    private final String testName;
+    private final int durationInMillis;
+    private final Status status;
+
+    public TestCaseResult(long jobId, int pipelineCounter, int stageCounter, String testName, int durationInMillis, Status status) {
+        this.jobId = jobId;
+        this.pipelineCounter = pipelineCounter;
+        this.stageCounter = stageCounter;
+        this.testName = testName;
+        this.durationInMillis = durationInMillis;
+        this.status = status;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    public int getPipelineCounter() {
+        return pipelineCounter;
+    }
+
+    public int getStageCounter() {
+        return stageCounter;
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    public int getDurationInMillis() {
+        return durationInMillis;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TestCaseResult that = (TestCaseResult) o;
+        return jobId == that.jobId &&
+                pipelineCounter == that.pipelineCounter &&
+                stageCounter == that.stageCounter &&
+                durationInMillis == that.durationInMillis &&
+                Objects.equals(testName, that.testName) &&
+                status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(jobId, pipelineCounter, stageCounter, testName, durationInMillis, status);
+    }
+
+    @Override
+    public String toString() {
+        return "TestCaseResult{" +
+                "jobId=" + jobId +
+                ", pipelineCounter=" + pipelineCounter +
+                ", stageCounter=" + stageCounter +
+                ", testName='" + testName + '\'' +
+                ", durationInMillis=" + durationInMillis +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.testresults;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static java.util.Comparator.comparingLong;
+
+/**
+ * Append-only, column oriented store of test case outcomes. Every test case of a completed job is one row; each
+ * column lives in its own fixed width file so that a query only reads the columns it needs. Test names are kept
+ * once in a dictionary and rows refer to them by id.
+ * <p>
+ * Every row points to the previous row of the same test, and every appended job run points to the previous run of
+ * the same job, so queries follow those chains from the newest entry instead of scanning rows of other jobs.
+ */
+public class TestResultIndex implements Closeable {
+    static final String TEST_NAMES_FILE = "test-names.txt";
+    private static final int SCAN_BLOCK_ROWS = 64 * 1024;
+    private static final long NONE = -1;
+
+    private final Column jobIds;
+    private final Column pipelineCounters;
+    private final Column stageCounters;
+    private final Column testIds;
+    private final Column durations;
+    private final Column statuses;
+    private final Column previousRows;
+    private final List<Column> columns;
+    // one record per appended job run: first row, row count, job key id and previous run of the same job
+    private final Column runs;
+
+    private final File testNamesFile;
+    private final Map<String, Integer> jobKeyIds = new HashMap<>();
+    private final Map<String, Integer> testIdsByName = new HashMap<>();
+    private final List<String> testNames = new ArrayList<>();
+    private final Map<Integer, Long> lastRunOfJobKey = new HashMap<>();
+    private long[] lastRowOfTest = new long[1024];
+    private volatile long rowCount;
+    private long runCount;
+    private Writer testNamesWriter;
+
+    public TestResultIndex(File directory) throws IOException {
+        FileUtils.forceMkdir(directory);
+        jobIds = new Column(new File(directory, "job-ids.col"), Long.BYTES);
+        pipelineCounters = new Column(new File(directory, "pipeline-counters.col"), Integer.BYTES);
+        stageCounters = new Column(new File(directory, "stage-counters.col"), Integer.BYTES);
+        testIds = new Column(new File(directory, "test-ids.col"), Integer.BYTES);
+        durations = new Column(new File(directory, "durations.col"), Integer.BYTES);
+        statuses = new Column(new File(directory, "statuses.col"), Byte.BYTES);
+        previousRows = new Column(new File(directory, "previous-rows.col"), Long.BYTES);
+        columns = Arrays.asList(jobIds, pipelineCounters, stageCounters, testIds, durations, statuses, previousRows);
+        runs = new Column(new File(directory, "runs.col"), Long.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES);
+
+        testNamesFile = new File(directory, TEST_NAMES_FILE);
+        Arrays.fill(lastRowOfTest, NONE);
+        loadTestNames();
+
+        long rows = Long.MAX_VALUE;
+        for (Column column : columns) {
+            rows = Math.min(rows, column.rows());
+        }
+        rows = loadRuns(rows);
+        // a partially written job is dropped so that all columns line up again
+        for (Column column : columns) {
+            column.truncate(rows);
+        }
+        runs.truncate(runCount);
+        rowCount = rows;
+        loadLastRowOfTests();
+    }
+
+    public synchronized void append(String jobKey, long jobId, int pipelineCounter, int stageCounter, List<TestCaseResult> results) throws IOException {
+        int size = results.size();
+        if (size == 0) {
+            return;
+        }
+        long rows = rowCount;
+        ByteBuffer jobIdValues = ByteBuffer.allocate(size * Long.BYTES);
+        ByteBuffer pipelineCounterValues = ByteBuffer.allocate(size * Integer.BYTES);
+        ByteBuffer stageCounterValues = ByteBuffer.allocate(size * Integer.BYTES);
+        ByteBuffer testIdValues = ByteBuffer.allocate(size * Integer.BYTES);
+        ByteBuffer durationValues = ByteBuffer.allocate(size * Integer.BYTES);
+        ByteBuffer statusValues = ByteBuffer.allocate(size);
+        ByteBuffer previousRowValues = ByteBuffer.allocate(size * Long.BYTES);
+        Map<Integer, Long> lastRowOfTestInRun = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            TestCaseResult result = results.get(i);
+            int testId = testIdFor(jobKey, result.getTestName());
+            Long previousRow = lastRowOfTestInRun.put(testId, rows + i);
+            jobIdValues.putLong(jobId);
+            pipelineCounterValues.putInt(pipelineCounter);
+            stageCounterValues.putInt(stageCounter);
+            testIdValues.putInt(testId);
+            durationValues.putInt(result.getDurationInMillis());
+            statusValues.put(result.getStatus().code());
+            previousRowValues.putLong(previousRow == null ? lastRowOf(testId) : previousRow);
+        }
+        testNamesWriter.flush();
+
+        int jobKeyId = jobKeyIds.get(jobKey);
+        Long previousRun = lastRunOfJobKey.get(jobKeyId);
+        ByteBuffer run = ByteBuffer.allocate(runs.width);
+        run.putLong(rows).putInt(size).putInt(jobKeyId).putLong(previousRun == null ? NONE : previousRun);
+
+        jobIds.write(rows, jobIdValues);
+        pipelineCounters.write(rows, pipelineCounterValues);
+        stageCounters.write(rows, stageCounterValues);
+        testIds.write(rows, testIdValues);
+        durations.write(rows, durationValues);
+        statuses.write(rows, statusValues);
+        previousRows.write(rows, previousRowValues);
+        // the run is written last, a run without all of its rows is dropped on reload
+        runs.write(runCount, run);
+
+        for (Map.Entry<Integer, Long> lastRow : lastRowOfTestInRun.entrySet()) {
+            lastRowOfTest[lastRow.getKey()] = lastRow.getValue();
+        }
+        lastRunOfJobKey.put(jobKeyId, runCount);
+        runCount++;
+        rowCount = rows + size;
+    }
+
+    /**
+     * @return the latest results of one test of a job, newest first
+     */
+    public List<TestCaseResult> history(String jobKey, String testName, int limit) throws IOException {
+        Integer testId = existingTestId(jobKey, testName);
+        if (testId == null) {
+            return Collections.emptyList();
+        }
+
+        List<TestCaseResult> results = new ArrayList<>();
+        long row = lastRowOf(testId);
+        while (row != NONE && results.size() < limit) {
+            results.add(new TestCaseResult(
+                    jobIds.read(row, 1).getLong(0),
+                    pipelineCounters.read(row, 1).getInt(0),
+                    stageCounters.read(row, 1).getInt(0),
+                    testName,
+                    durations.read(row, 1).getInt(0),
+                    TestCaseResult.Status.fromCode(statuses.read(row, 1).get(0))));
+            row = previousRows.read(row, 1).getLong(0);
+        }
+        return results;
+    }
+
+    /**
+     * @return the tests of a job with the highest average duration over its latest {@code runs} runs, slowest first
+     */
+    public List<TestCaseDuration> slowest(String jobKey, int runs, int limit) throws IOException {
+        Long run = lastRunOf(jobKey);
+        Map<Integer, TestCaseDuration> durationsByTest = new HashMap<>();
+        for (int i = 0; run != null && run != NONE && i < runs; i++) {
+            ByteBuffer record = this.runs.read(run, 1);
+            long firstRow = record.getLong(0);
+            int rowsOfRun = record.getInt(Long.BYTES);
+            for (long start = firstRow; start < firstRow + rowsOfRun; start += SCAN_BLOCK_ROWS) {
+                int count = (int) Math.min(SCAN_BLOCK_ROWS, firstRow + rowsOfRun - start);
+                ByteBuffer ids = testIds.read(start, count);
+                ByteBuffer times = durations.read(start, count);
+                for (int row = 0; row < count; row++) {
+                    int duration = times.getInt(row * Integer.BYTES);
+                    if (duration >= 0) {
+                        durationsByTest.computeIfAbsent(ids.getInt(row * Integer.BYTES), id -> new TestCaseDuration(testName(id))).add(duration);
+                    }
+                }
+            }
+            run = record.getLong(Long.BYTES + Integer.BYTES + Integer.BYTES);
+        }
+
+        List<TestCaseDuration> slowest = new ArrayList<>(durationsByTest.values());
+        slowest.sort(comparingLong(TestCaseDuration::getAverageInMillis).reversed());
+        return slowest.subList(0, Math.min(limit, slowest.size()));
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        testNamesWriter.close();
+        for (Column column : columns) {
+            column.close();
+        }
+        runs.close();
+    }
+
+    private int testIdFor(String jobKey, String testName) throws IOException {
+        Integer jobKeyId = jobKeyIds.computeIfAbsent(jobKey, key -> jobKeyIds.size());
+        String name = testName.replaceAll("[\\t\\r\\n]", " ");
+        Integer testId = testIdsByName.get(jobKeyId + "\t" + name);
+        if (testId == null) {
+            testNamesWriter.write(jobKey + "\t" + name + "\n");
+            testId = addTestName(jobKeyId, name);
+        }
+        return testId;
+    }
+
+    private int addTestName(int jobKeyId, String testName) {
+        int testId = testNames.size();
+        testNames.add(testName);
+        testIdsByName.put(jobKeyId + "\t" + testName, testId);
+        if (testId == lastRowOfTest.length) {
+            int length = lastRowOfTest.length;
+            lastRowOfTest = Arrays.copyOf(lastRowOfTest, length * 2);
+            Arrays.fill(lastRowOfTest, length, lastRowOfTest.length, NONE);
+        }
+        return testId;
+    }
+
+    private synchronized Integer existingTestId(String jobKey, String testName) {
+        Integer jobKeyId = jobKeyIds.get(jobKey);
+        return jobKeyId == null ? null : testIdsByName.get(jobKeyId + "\t" + testName);
+    }
+
+    private synchronized long lastRowOf(int testId) {
+        return lastRowOfTest[testId];
+    }
+
+    private synchronized Long lastRunOf(String jobKey) {
+        Integer jobKeyId = jobKeyIds.get(jobKey);
+        return jobKeyId == null ? null : lastRunOfJobKey.get(jobKeyId);
+    }
+
+    private synchronized String testName(int testId) {
+        return testNames.get(testId);
+    }
+
+    /**
+     * @return the number of rows covered by completely written runs
+     */
+    private long loadRuns(long rows) throws IOException {
+        long recordedRuns = runs.rows();
+        long coveredRows = 0;
+        for (long start = 0; start < recordedRuns; start += SCAN_BLOCK_ROWS) {
+            int count = (int) Math.min(SCAN_BLOCK_ROWS, recordedRuns - start);
+            ByteBuffer records = runs.read(start, count);
+            for (int i = 0; i < count; i++) {
+                int offset = i * runs.width;
+                long end = records.getLong(offset) + records.getInt(offset + Long.BYTES);
+                if (end > rows) {
+                    return coveredRows;
+                }
+                lastRunOfJobKey.put(records.getInt(offset + Long.BYTES + Integer.BYTES), runCount);
+                runCount++;
+                coveredRows = end;
+            }
+        }
+        return coveredRows;
+    }
+
+    private void loadLastRowOfTests() throws IOException {
+        for (long start = 0; start < rowCount; start += SCAN_BLOCK_ROWS) {
+            int count = (int) Math.min(SCAN_BLOCK_ROWS, rowCount - start);
+            ByteBuffer ids = testIds.read(start, count);
+            for (int i = 0; i < count; i++) {
+                lastRowOfTest[ids.getInt(i * Integer.BYTES)] = start + i;
+            }
+        }
+    }
+
+    private void loadTestNames() throws IOException {
+        if (testNamesFile.exists()) {
+            String content = FileUtils.readFileToString(testNamesFile, StandardCharsets.UTF_8);
+            int lineStart = 0;
+            int lineEnd;
+            while ((lineEnd = content.indexOf('\n', lineStart)) >= 0) {
+                String line = content.substring(lineStart, lineEnd);
+                int separator = line.indexOf('\t');
+                String jobKey = line.substring(0, separator);
+                int jobKeyId = jobKeyIds.computeIfAbsent(jobKey, key -> jobKeyIds.size());
+                addTestName(jobKeyId, line.substring(separator + 1));
+                lineStart = lineEnd + 1;
+            }
+            // drop a name that was only partially written, no row can refer to it
+            if (lineStart < content.length()) {
+                try (FileChannel channel = FileChannel.open(testNamesFile.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(content.substring(0, lineStart).getBytes(StandardCharsets.UTF_8).length);
+                }
+            }
+        }
+        testNamesWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(testNamesFile, true), StandardCharsets.UTF_8));
+    }
+
+    private static class Column implements Closeable {
+        private final int width;
+        private final FileChannel channel;
+
+        private Column(File file, int width) throws IOException {
+            this.width = width;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        private long rows() throws IOException {
+            return channel.size() / width;
+        }
+
+        private void truncate(long rows) throws IOException {
+            channel.truncate(rows * width);
+        }
+
+        private void write(long fromRow, ByteBuffer values) throws IOException {
+            values.flip();
+            long position = fromRow * width;
+            while (values.hasRemaining()) {
+                position += channel.write(values, position);
+            }
+        }
+
+        private ByteBuffer read(long fromRow, int rows) throws IOException {
+            ByteBuffer values = ByteBuffer.allocate(rows * width);
+            long position = fromRow * width;
+            while (values.hasRemaining()) {
+                int read = channel.read(values, position);
+                if (read < 0) {
+                    throw new EOFException("Test result index column is shorter than expected");
+                }
+                position += read;
+            }
+            values.flip();
+            return values;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
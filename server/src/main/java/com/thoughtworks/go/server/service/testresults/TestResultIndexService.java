@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.testresults;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.TestReportGenerator;
+import com.thoughtworks.go.server.messaging.GoMessageListener;
+import com.thoughtworks.go.server.messaging.JobStatusMessage;
+import com.thoughtworks.go.server.messaging.JobStatusTopic;
+import com.thoughtworks.go.server.service.ArtifactsService;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.thoughtworks.go.config.TestArtifactConfig.TEST_OUTPUT_FOLDER;
+
+/**
+ * Feeds the per test case outcomes uploaded by agents into a {@link TestResultIndex} when a job completes, and
+ * answers test history queries from it. Disabled unless {@link SystemEnvironment#TEST_RESULT_INDEX_ENABLED} is set.
+ */
+@Service
+public class TestResultIndexService implements GoMessageListener<JobStatusMessage> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestResultIndexService.class);
+
+    private final JobStatusTopic jobStatusTopic;
+    private final ArtifactsService artifactsService;
+    private final SystemEnvironment systemEnvironment;
+    private TestResultIndex index;
+
+    @Autowired
+    public TestResultIndexService(JobStatusTopic jobStatusTopic, ArtifactsService artifactsService, SystemEnvironment systemEnvironment) {
+        this.jobStatusTopic = jobStatusTopic;
+        this.artifactsService = artifactsService;
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    public void init() throws IOException {
+        if (systemEnvironment.isTestResultIndexEnabled()) {
+            index = new TestResultIndex(systemEnvironment.getTestResultIndexDir());
+            jobStatusTopic.addListener(this);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return index != null;
+    }
+
+    @Override
+    public void onMessage(JobStatusMessage message) {
+        if (!message.getJobState().isCompleted()) {
+            return;
+        }
+        JobIdentifier jobIdentifier = message.getJobIdentifier();
+        try {
+            File testCases = artifactsService.findArtifact(jobIdentifier, TEST_OUTPUT_FOLDER + "/" + TestReportGenerator.TEST_CASES_FILE);
+            if (testCases.exists()) {
+                index.append(jobKey(jobIdentifier.getPipelineName(), jobIdentifier.getStageName(), jobIdentifier.getBuildName()),
+                        jobIdentifier.getBuildId(), jobIdentifier.getPipelineCounter(), Integer.parseInt(jobIdentifier.getStageCounter()),
+                        parse(testCases));
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Could not index test results of job {}", jobIdentifier, e);
+        }
+    }
+
+    public List<TestCaseResult> history(String pipelineName, String stageName, String jobName, String testName, int limit) throws IOException {
+        if (!isEnabled()) {
+            return Collections.emptyList();
+        }
+        return index.history(jobKey(pipelineName, stageName, jobName), testName, limit);
+    }
+
+    /**
+     * @return the oldest run of the failure streak the test is currently in, or null if its latest run did not fail
+     */
+    public TestCaseResult failingSince(List<TestCaseResult> history) {
+        TestCaseResult failingSince = null;
+        for (TestCaseResult result : history) {
+            if (!result.getStatus().isFailing()) {
+                break;
+            }
+            failingSince = result;
+        }
+        return failingSince;
+    }
+
+    public List<TestCaseDuration> slowest(String pipelineName, String stageName, String jobName, int runs, int limit) throws IOException {
+        if (!isEnabled()) {
+            return Collections.emptyList();
+        }
+        return index.slowest(jobKey(pipelineName, stageName, jobName), runs, limit);
+    }
+
+    private List<TestCaseResult> parse(File testCases) throws IOException {
+        List<TestCaseResult> results = new ArrayList<>();
+        for (String line : FileUtils.readLines(testCases, StandardCharsets.UTF_8)) {
+            String[] columns = line.split("\t", 3);
+            if (columns.length < 3) {
+                continue;
+            }
+            TestCaseResult.Status status = TestCaseResult.Status.fromString(columns[0]);
+            if (status == null) {
+                continue;
+            }
+            int duration = (int) Math.min(Integer.MAX_VALUE, Long.parseLong(columns[1]));
+            results.add(new TestCaseResult(0, 0, 0, columns[2], duration, status));
+        }
+        return results;
+    }
+
+    private String jobKey(String pipelineName, String stageName, String jobName) {
+        return (pipelineName + "/" + stageName + "/" + jobName).toLowerCase();
+    }
+}
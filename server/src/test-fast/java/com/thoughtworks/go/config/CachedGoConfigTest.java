@@ -18,8 +18,11 @@ package com.thoughtworks.go.config;
 
 import com.thoughtworks.go.config.commands.EntityConfigUpdateCommand;
 import com.thoughtworks.go.config.update.FullConfigUpdateCommand;
+import com.thoughtworks.go.helper.GoConfigMother;
+import com.thoughtworks.go.listener.ConfigChangeSet;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.listener.SelectiveConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.service.MaintenanceModeService;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
@@ -30,6 +33,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import java.util.EnumSet;
+
 import static org.junit.Assert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
@@ -107,6 +112,42 @@ public class CachedGoConfigTest {
         verify(listener, times(2)).onConfigChange(any(BasicCruiseConfig.class));
     }
 
+    @Test
+    public void shouldNotifySelectiveListenersOnlyOfSavesChangingWhatTheyDependOn() {
+        SelectiveConfigChangedListener listener = mock(SelectiveConfigChangedListener.class);
+        when(listener.dependsOn()).thenReturn(EnumSet.of(ConfigChangeSet.Kind.AGENTS));
+        cachedGoConfig.registerListener(listener);
+        cachedGoConfig.forceReload();
+        verify(listener).onConfigChange(any(CruiseConfig.class), any(ConfigChangeSet.class));
+
+        BasicCruiseConfig withPipeline = GoConfigMother.configWithPipelines("p1");
+        writeConfig(withPipeline);
+        verify(listener, times(1)).onConfigChange(any(CruiseConfig.class), any(ConfigChangeSet.class));
+
+        BasicCruiseConfig withAgent = GoConfigMother.configWithPipelines("p1");
+        withAgent.agents().add(new AgentConfig("uuid", "host", "127.0.0.1"));
+        writeConfig(withAgent);
+        verify(listener, times(2)).onConfigChange(any(CruiseConfig.class), any(ConfigChangeSet.class));
+    }
+
+    @Test
+    public void shouldFinishNotifyingListenersThatCanBeNotifiedInParallelBeforeReturning() {
+        SelectiveConfigChangedListener listener = mock(SelectiveConfigChangedListener.class);
+        when(listener.dependsOn()).thenReturn(EnumSet.allOf(ConfigChangeSet.Kind.class));
+        when(listener.canBeNotifiedInParallel()).thenReturn(true);
+        cachedGoConfig.registerListener(listener);
+
+        cachedGoConfig.forceReload();
+
+        verify(listener).onConfigChange(any(CruiseConfig.class), any(ConfigChangeSet.class));
+    }
+
+    private void writeConfig(BasicCruiseConfig config) {
+        GoConfigHolder holder = new GoConfigHolder(config, config);
+        when(dataSource.writeWithLock(any(UpdateConfigCommand.class), any(GoConfigHolder.class))).thenReturn(new GoFileConfigDataSource.GoConfigSaveResult(holder, ConfigSaveState.UPDATED));
+        cachedGoConfig.writeWithLock(cruiseConfig -> cruiseConfig);
+    }
+
     @Test
     public void shouldNotNotifyWhenConfigIsNullDuringRegistration() throws Exception {
         final ConfigChangedListener listener = mock(ConfigChangedListener.class);
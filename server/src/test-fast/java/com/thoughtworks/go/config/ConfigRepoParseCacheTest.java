@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
+import com.thoughtworks.go.config.remote.ConfigRepoConfig;
+import com.thoughtworks.go.config.remote.ConfigReposConfig;
+import com.thoughtworks.go.domain.config.Configuration;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.plugin.access.configrepo.ConfigRepoExtension;
+import com.thoughtworks.go.plugin.api.info.PluginDescriptor;
+import com.thoughtworks.go.plugin.configrepo.contract.CRConfigurationProperty;
+import com.thoughtworks.go.plugin.configrepo.contract.CRParseResult;
+import com.thoughtworks.go.plugin.configrepo.contract.CRPipeline;
+import com.thoughtworks.go.plugin.configrepo.contract.ErrorCollection;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ConfigRepoParseCacheTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+    private ConfigRepoParseCache cache;
+    private List<CRConfigurationProperty> configuration;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = temporaryFolder.newFolder("parse-cache");
+        cache = new ConfigRepoParseCache(true, directory);
+        configuration = Collections.singletonList(new CRConfigurationProperty("file_pattern", "*.gocd.yaml"));
+    }
+
+    @Test
+    public void shouldReturnTheParseResultStoredForTheSameKey() {
+        String key = cache.keyFor("r1", "yaml", "0.9.0", configuration);
+        cache.put("fingerprint", key, parseResult("pipeline1"));
+
+        CRParseResult cached = new ConfigRepoParseCache(true, directory).get("fingerprint", key);
+
+        assertThat(cached.getPipelines().size(), is(1));
+        assertThat(cached.getPipelines().iterator().next().getName(), is("pipeline1"));
+        assertThat(cached.hasErrors(), is(false));
+    }
+
+    @Test
+    public void shouldMissWhenRevisionPluginVersionOrConfigurationChanged() {
+        String key = cache.keyFor("r1", "yaml", "0.9.0", configuration);
+        cache.put("fingerprint", key, parseResult("pipeline1"));
+
+        assertThat(cache.get("fingerprint", cache.keyFor("r2", "yaml", "0.9.0", configuration)), is(nullValue()));
+        assertThat(cache.get("fingerprint", cache.keyFor("r1", "yaml", "0.10.0", configuration)), is(nullValue()));
+        assertThat(cache.get("fingerprint", cache.keyFor("r1", "yaml", "0.9.0", Collections.emptyList())), is(nullValue()));
+        assertThat(cache.get("other-fingerprint", key), is(nullValue()));
+    }
+
+    @Test
+    public void shouldKeepOnlyTheLatestParseOfARepository() {
+        cache.put("fingerprint", cache.keyFor("r1", "yaml", "0.9.0", configuration), parseResult("pipeline1"));
+        cache.put("fingerprint", cache.keyFor("r2", "yaml", "0.9.0", configuration), parseResult("pipeline2"));
+
+        assertThat(directory.listFiles().length, is(1));
+        assertThat(cache.get("fingerprint", cache.keyFor("r1", "yaml", "0.9.0", configuration)), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotCacheAnythingWhenDisabled() {
+        ConfigRepoParseCache disabled = new ConfigRepoParseCache(false, directory);
+        String key = disabled.keyFor("r1", "yaml", "0.9.0", configuration);
+        disabled.put("fingerprint", key, parseResult("pipeline1"));
+
+        assertThat(disabled.get("fingerprint", key), is(nullValue()));
+        assertThat(directory.listFiles().length, is(0));
+    }
+
+    @Test
+    public void shouldDropParseResultsOfRepositoriesNoLongerConfigured() {
+        GitMaterialConfig kept = new GitMaterialConfig("http://kept.git");
+        GitMaterialConfig removed = new GitMaterialConfig("http://removed.git");
+        String key = cache.keyFor("r1", "yaml", "0.9.0", configuration);
+        cache.put(kept.getFingerprint(), key, parseResult("pipeline1"));
+        cache.put(removed.getFingerprint(), key, parseResult("pipeline2"));
+
+        cache.onChangedRepoConfigWatchList(new ConfigReposConfig(new ConfigRepoConfig(kept, "yaml")));
+
+        assertThat(cache.get(kept.getFingerprint(), key), is(notNullValue()));
+        assertThat(cache.get(removed.getFingerprint(), key), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotAskThePluginToParseARevisionItHasAlreadyParsed() {
+        ConfigRepoExtension extension = mock(ConfigRepoExtension.class);
+        PluginDescriptor descriptor = mock(PluginDescriptor.class);
+        PluginDescriptor.About about = mock(PluginDescriptor.About.class);
+        when(about.version()).thenReturn("0.9.0");
+        when(descriptor.about()).thenReturn(about);
+        when(extension.pluginDescriptorFor("yaml")).thenReturn(descriptor);
+        when(extension.parseDirectory(anyString(), anyString(), any(Collection.class))).thenReturn(parseResult("pipeline1"));
+        ConfigRepoPlugin plugin = new ConfigRepoPlugin(mock(ConfigConverter.class), extension, "yaml", cache);
+
+        plugin.load(new File("checkout"), context("r1"));
+        plugin.load(new File("checkout"), context("r1"));
+        verify(extension, times(1)).parseDirectory(anyString(), anyString(), any(Collection.class));
+
+        plugin.load(new File("checkout"), context("r2"));
+        verify(extension, times(2)).parseDirectory(anyString(), anyString(), any(Collection.class));
+    }
+
+    private PartialConfigLoadContext context(String revision) {
+        return new PartialConfigLoadContext() {
+            @Override
+            public Configuration configuration() {
+                return new Configuration();
+            }
+
+            @Override
+            public MaterialConfig configMaterial() {
+                return new GitMaterialConfig("http://config.git");
+            }
+
+            @Override
+            public String revision() {
+                return revision;
+            }
+        };
+    }
+
+    private CRParseResult parseResult(String pipelineName) {
+        Collection<CRPipeline> pipelines = new ArrayList<>();
+        pipelines.add(new CRPipeline(pipelineName, "group"));
+        return new CRParseResult(new ArrayList<>(), pipelines, new ErrorCollection());
+    }
+}
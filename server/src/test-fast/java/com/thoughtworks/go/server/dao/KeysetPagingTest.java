@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.dao;
+
+import com.thoughtworks.go.server.util.KeysetPagination;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class KeysetPagingTest {
+    private static final List<Long> HISTORY = Arrays.asList(10L, 9L, 8L, 7L, 6L, 5L);
+
+    @Test
+    public void shouldDropTheExtraOldestRowAndPointBothWaysWhenPagingBackwards() {
+        List<Long> fetched = ids(7L, 6L, 5L);
+
+        KeysetPagination pagination = KeysetPaging.trim(fetched, Long::longValue, FeedModifier.Before, 8, 2, this::anyNewerThan, this::anyOlderThan);
+
+        assertThat(fetched, is(Arrays.asList(7L, 6L)));
+        assertThat(pagination.newerCursor(), is(7L));
+        assertThat(pagination.olderCursor(), is(6L));
+    }
+
+    @Test
+    public void shouldDropTheExtraNewestRowWhenPagingForwards() {
+        List<Long> fetched = ids(8L, 7L, 6L);
+
+        KeysetPagination pagination = KeysetPaging.trim(fetched, Long::longValue, FeedModifier.After, 5, 2, this::anyNewerThan, this::anyOlderThan);
+
+        assertThat(fetched, is(Arrays.asList(7L, 6L)));
+        assertThat(pagination.newerCursor(), is(7L));
+        assertThat(pagination.olderCursor(), is(6L));
+    }
+
+    @Test
+    public void shouldNotPointPastTheEndsOfTheHistory() {
+        List<Long> latest = ids(10L, 9L);
+        KeysetPagination latestPage = KeysetPaging.trim(latest, Long::longValue, FeedModifier.Latest, 0, 2, this::anyNewerThan, this::anyOlderThan);
+        assertThat(latestPage.hasNewer(), is(false));
+        assertThat(latestPage.hasOlder(), is(false));
+
+        List<Long> oldest = ids(6L, 5L);
+        KeysetPagination oldestPage = KeysetPaging.trim(oldest, Long::longValue, FeedModifier.Before, 7, 2, this::anyNewerThan, this::anyOlderThan);
+        assertThat(oldestPage.newerCursor(), is(6L));
+        assertThat(oldestPage.hasOlder(), is(false));
+
+        List<Long> newest = ids(10L, 9L);
+        KeysetPagination newestPage = KeysetPaging.trim(newest, Long::longValue, FeedModifier.After, 8, 2, this::anyNewerThan, this::anyOlderThan);
+        assertThat(newestPage.hasNewer(), is(false));
+        assertThat(newestPage.olderCursor(), is(9L));
+    }
+
+    @Test
+    public void shouldPointBackAtTheCursorFromAnEmptyPage() {
+        KeysetPagination beforeOldest = KeysetPaging.trim(ids(), Long::longValue, FeedModifier.Before, 5, 2, this::anyNewerThan, this::anyOlderThan);
+        assertThat(beforeOldest.newerCursor(), is(4L));
+        assertThat(beforeOldest.olderCursor(), is(nullValue()));
+
+        KeysetPagination afterNewest = KeysetPaging.trim(ids(), Long::longValue, FeedModifier.After, 10, 2, this::anyNewerThan, this::anyOlderThan);
+        assertThat(afterNewest.newerCursor(), is(nullValue()));
+        assertThat(afterNewest.olderCursor(), is(11L));
+
+        KeysetPagination noHistory = KeysetPaging.trim(ids(), Long::longValue, FeedModifier.Latest, 0, 2, id -> false, id -> false);
+        assertThat(noHistory.hasNewer(), is(false));
+        assertThat(noHistory.hasOlder(), is(false));
+    }
+
+    private List<Long> ids(Long... ids) {
+        return new ArrayList<>(Arrays.asList(ids));
+    }
+
+    private boolean anyNewerThan(long id) {
+        return HISTORY.stream().anyMatch(existing -> existing > id);
+    }
+
+    private boolean anyOlderThan(long id) {
+        return HISTORY.stream().anyMatch(existing -> existing < id);
+    }
+}
@@ -36,7 +36,9 @@ import com.thoughtworks.go.server.transaction.SqlMapClientTemplate;
 import com.thoughtworks.go.server.transaction.TestTransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TimeProvider;
+import com.thoughtworks.go.utils.Timeout;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.hamcrest.Matchers;
@@ -55,6 +57,7 @@ import java.util.*;
 
 import static com.thoughtworks.go.util.DataStructureUtils.m;
 import static com.thoughtworks.go.util.IBatisUtil.arguments;
+import static com.thoughtworks.go.utils.Assertions.waitUntil;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
@@ -206,7 +209,7 @@ public class PipelineSqlMapDaoCachingTest {
 
         PipelineInstanceModel pipeline = new PipelineInstanceModel(pipelineName, -2, "label", BuildCause.createManualForced(), new StageInstanceModels());
         PipelineInstanceModels pims = PipelineInstanceModels.createPipelineInstanceModels(pipeline);
-        when(mockTemplate.queryForList("allActivePipelines")).thenReturn((List) pims);
+        when(mockTemplate.queryForList("allActivePipelineIdsAndNames")).thenReturn(idsAndNames(pims));
         when(mockTemplate.queryForObject(eq("getPipelineHistoryById"), any())).thenReturn(pipeline);
         PipelineInstanceModels loaded;
         loaded = pipelineDao.loadActivePipelines();
@@ -214,7 +217,7 @@ public class PipelineSqlMapDaoCachingTest {
         assertNotSame(pipeline, loaded);
         assertTrue(ToStringBuilder.reflectionToString(loaded) + " not equal to\n" + ToStringBuilder.reflectionToString(pipeline),
                 EqualsBuilder.reflectionEquals(loaded, pims));
-        verify(mockTemplate, times(1)).queryForList("allActivePipelines");
+        verify(mockTemplate, times(1)).queryForList("allActivePipelineIdsAndNames");
         verify(mockTemplate, times(1)).queryForObject(eq("getPipelineHistoryById"), any());
         verify(mockconfigFileDao, times(2)).load();
         verify(mockCruiseConfig, times(2)).getAllPipelineNames();
@@ -263,7 +266,7 @@ public class PipelineSqlMapDaoCachingTest {
         PipelineInstanceModel first = model(1, JobState.Building, JobResult.Unknown);
         PipelineInstanceModel second = model(2, JobState.Building, JobResult.Unknown);
         List<PipelineInstanceModel> pims = PipelineInstanceModels.createPipelineInstanceModels(first);
-        when(mockTemplate.queryForList("allActivePipelines")).thenReturn((List) pims);
+        when(mockTemplate.queryForList("allActivePipelineIdsAndNames")).thenReturn(idsAndNames(pims));
         when(mockTemplate.queryForObject("getPipelineHistoryById", arguments("id", 1L).asMap())).thenReturn(first);
         when(mockTemplate.queryForObject("getPipelineHistoryById", arguments("id", 2L).asMap())).thenReturn(second);
 
@@ -281,7 +284,7 @@ public class PipelineSqlMapDaoCachingTest {
     public void stageStatusChanged_shouldNotRaiseErrorWhenNoPipelinesAreActive() {
         PipelineInstanceModel first = model(1, JobState.Building, JobResult.Unknown);
         List<PipelineInstanceModel> pims = PipelineInstanceModels.createPipelineInstanceModels();
-        when(mockTemplate.queryForList("allActivePipelines")).thenReturn((List) pims);
+        when(mockTemplate.queryForList("allActivePipelineIdsAndNames")).thenReturn(idsAndNames(pims));
         when(mockTemplate.queryForObject("getPipelineHistoryById", arguments("id", 1L).asMap())).thenReturn(first);
 
         // ensure cache is initialized
@@ -309,7 +312,7 @@ public class PipelineSqlMapDaoCachingTest {
         PipelineInstanceModel first = model(1, JobState.Building, JobResult.Unknown);
         PipelineInstanceModel second = model(2, JobState.Building, JobResult.Unknown);
         List<PipelineInstanceModel> pims = PipelineInstanceModels.createPipelineInstanceModels(first, second);
-        when(mockTemplate.queryForList("allActivePipelines")).thenReturn((List) pims);
+        when(mockTemplate.queryForList("allActivePipelineIdsAndNames")).thenReturn(idsAndNames(pims));
         when(mockTemplate.queryForObject("getPipelineHistoryById", arguments("id", 1L).asMap())).thenReturn(first);
         when(mockTemplate.queryForObject("getPipelineHistoryById", arguments("id", 2L).asMap())).thenReturn(second);
 
@@ -346,7 +349,7 @@ public class PipelineSqlMapDaoCachingTest {
         PipelineInstanceModel first = model(1, JobState.Completed, JobResult.Passed);
         PipelineInstanceModel second = model(2, JobState.Building, JobResult.Unknown);
         List<PipelineInstanceModel> pims = PipelineInstanceModels.createPipelineInstanceModels(first);
-        when(mockTemplate.queryForList("allActivePipelines")).thenReturn((List) pims);
+        when(mockTemplate.queryForList("allActivePipelineIdsAndNames")).thenReturn(idsAndNames(pims));
         when(mockTemplate.queryForObject("getPipelineHistoryById", arguments("id", 1L).asMap())).thenReturn(first);
         when(mockTemplate.queryForObject("getPipelineHistoryById", arguments("id", 2L).asMap())).thenReturn(second);
 
@@ -360,6 +363,65 @@ public class PipelineSqlMapDaoCachingTest {
         assertThat(models.get(0).getId(), is(2L));
     }
 
+    @Test
+    public void startDaemon_shouldLoadHistoryAndMaterialRevisionsOfActivePipelinesInChunks() {
+        CruiseConfig mockCruiseConfig = mock(BasicCruiseConfig.class);
+        GoConfigDao mockconfigFileDao = mock(GoConfigDao.class);
+        when(mockconfigFileDao.load()).thenReturn(mockCruiseConfig);
+        when(mockCruiseConfig.getAllPipelineNames()).thenReturn(Arrays.asList(new CaseInsensitiveString("pipeline")));
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(SystemEnvironment.STARTUP_WARM_UP_THREADS)).thenReturn(2);
+        when(systemEnvironment.get(SystemEnvironment.STARTUP_WARM_UP_CHUNK_SIZE)).thenReturn(1);
+
+        pipelineDao = new PipelineSqlMapDao(null, repository, goCache, environmentVariableDao, transactionTemplate, null,
+                transactionSynchronizationManager, systemEnvironment, mockconfigFileDao, null, mock(SessionFactory.class), timeProvider);
+        pipelineDao.setSqlMapClientTemplate(mockTemplate);
+
+        PipelineInstanceModel first = model(1, JobState.Completed, JobResult.Passed);
+        PipelineInstanceModel second = model(2, JobState.Building, JobResult.Unknown);
+        when(mockTemplate.queryForList("allActivePipelineIdsAndNames")).thenReturn(idsAndNames(Arrays.asList(second, first)));
+        when(mockTemplate.queryForList("getPipelineHistoryByIds", arguments("ids", Arrays.asList(1L)).asMap())).thenReturn((List) Arrays.asList(first));
+        when(mockTemplate.queryForList("getPipelineHistoryByIds", arguments("ids", Arrays.asList(2L)).asMap())).thenReturn((List) Arrays.asList(second));
+
+        pipelineDao.initialize();
+        pipelineDao.startDaemon();
+
+        waitUntil(Timeout.FIVE_SECONDS, () -> goCache.get(pipelineDao.pipelineHistoryCacheKey(1L)) != null
+                && goCache.get(pipelineDao.pipelineHistoryCacheKey(2L)) != null, 10);
+        assertThat(pipelineDao.loadHistory(1L).getId(), is(1L));
+        assertThat(pipelineDao.loadHistory(2L).getId(), is(2L));
+        verify(mockTemplate, never()).queryForObject(eq("getPipelineHistoryById"), any());
+        verify(repository, timeout(5000)).cacheMaterialRevisionsForPipelines(Collections.singleton(1L));
+        verify(repository, timeout(5000)).cacheMaterialRevisionsForPipelines(Collections.singleton(2L));
+    }
+
+    @Test
+    public void startDaemon_shouldReadTheHistoryOfAChunkByItsIdsWhenActivePipelinesAreFarApart() {
+        CruiseConfig mockCruiseConfig = mock(BasicCruiseConfig.class);
+        GoConfigDao mockconfigFileDao = mock(GoConfigDao.class);
+        when(mockconfigFileDao.load()).thenReturn(mockCruiseConfig);
+        when(mockCruiseConfig.getAllPipelineNames()).thenReturn(Arrays.asList(new CaseInsensitiveString("pipeline")));
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(SystemEnvironment.STARTUP_WARM_UP_THREADS)).thenReturn(1);
+        when(systemEnvironment.get(SystemEnvironment.STARTUP_WARM_UP_CHUNK_SIZE)).thenReturn(2);
+
+        pipelineDao = new PipelineSqlMapDao(null, repository, goCache, environmentVariableDao, transactionTemplate, null,
+                transactionSynchronizationManager, systemEnvironment, mockconfigFileDao, null, mock(SessionFactory.class), timeProvider);
+        pipelineDao.setSqlMapClientTemplate(mockTemplate);
+
+        PipelineInstanceModel first = model(1, JobState.Completed, JobResult.Passed);
+        PipelineInstanceModel latest = model(5_000_000, JobState.Building, JobResult.Unknown);
+        when(mockTemplate.queryForList("allActivePipelineIdsAndNames")).thenReturn(idsAndNames(Arrays.asList(latest, first)));
+        when(mockTemplate.queryForList("getPipelineHistoryByIds", arguments("ids", Arrays.asList(5_000_000L, 1L)).asMap())).thenReturn((List) Arrays.asList(latest, first));
+
+        pipelineDao.initialize();
+        pipelineDao.startDaemon();
+
+        waitUntil(Timeout.FIVE_SECONDS, () -> goCache.get(pipelineDao.pipelineHistoryCacheKey(1L)) != null
+                && goCache.get(pipelineDao.pipelineHistoryCacheKey(5_000_000L)) != null, 10);
+        verify(mockTemplate).queryForList("getPipelineHistoryByIds", arguments("ids", Arrays.asList(5_000_000L, 1L)).asMap());
+    }
+
     @Test
     public void shouldCachePipelinePauseState() {
         String pipelineName = "pipelineName";
@@ -619,6 +681,14 @@ public class PipelineSqlMapDaoCachingTest {
         assertThat(goCache.get(cacheKey), is(result));
     }
 
+    private List idsAndNames(List<PipelineInstanceModel> pims) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (PipelineInstanceModel pim : pims) {
+            rows.add(m("PIPELINEID", pim.getId(), "PIPELINENAME", pim.getName()));
+        }
+        return rows;
+    }
+
     private PipelineInstanceModel model(long id, JobState jobState, JobResult jobResult) {
         StageInstanceModels models = new StageInstanceModels();
         models.add(new StageInstanceModel("first", "1", JobHistory.withJob("job", jobState, jobResult, new Date())));
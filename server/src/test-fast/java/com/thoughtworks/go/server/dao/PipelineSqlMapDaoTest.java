@@ -41,6 +41,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -155,7 +156,7 @@ class PipelineSqlMapDaoTest {
         String pipelineName = "pipeline-with-no-active-instances";
 
         when(configFileDao.load()).thenReturn(GoConfigMother.configWithPipelines(pipelineName));
-        when(sqlMapClientTemplate.queryForList("allActivePipelines")).thenReturn(new ArrayList<>());
+        when(sqlMapClientTemplate.queryForList("allActivePipelineIdsAndNames")).thenReturn(new ArrayList<>());
 
         PipelineInstanceModels models = pipelineSqlMapDao.loadActivePipelineInstancesFor(new CaseInsensitiveString(pipelineName));
 
@@ -171,7 +172,7 @@ class PipelineSqlMapDaoTest {
         PipelineInstanceModel pimForP1_2 = pimFor(p1, 2);
 
         when(configFileDao.load()).thenReturn(GoConfigMother.configWithPipelines(p1, p2));
-        when(sqlMapClientTemplate.queryForList("allActivePipelines")).thenReturn(asList(pimForP1_1, pimForP1_2, pimFor(p2, 1), pimFor(p2, 2)));
+        when(sqlMapClientTemplate.queryForList("allActivePipelineIdsAndNames")).thenReturn(idsAndNames(pimForP1_1, pimForP1_2, pimFor(p2, 1), pimFor(p2, 2)));
         when(sqlMapClientTemplate.queryForObject("getPipelineHistoryById", m("id", pimForP1_1.getId()))).thenReturn(pimForP1_1);
         when(sqlMapClientTemplate.queryForObject("getPipelineHistoryById", m("id", pimForP1_2.getId()))).thenReturn(pimForP1_2);
 
@@ -185,12 +186,20 @@ class PipelineSqlMapDaoTest {
         assertThat(pimForP1_2.getName(), is(p1));
         assertThat(pimForP1_2.getCounter(), is(2));
 
-        verify(sqlMapClientTemplate).queryForList("allActivePipelines");
+        verify(sqlMapClientTemplate).queryForList("allActivePipelineIdsAndNames");
         verify(sqlMapClientTemplate).queryForObject("getPipelineHistoryById", m("id", pimForP1_1.getId()));
         verify(sqlMapClientTemplate).queryForObject("getPipelineHistoryById", m("id", pimForP1_2.getId()));
         verifyNoMoreInteractions(sqlMapClientTemplate); /* Should not have loaded history for the other pipeline. */
     }
 
+    private List<Map<String, Object>> idsAndNames(PipelineInstanceModel... pims) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (PipelineInstanceModel pim : pims) {
+            rows.add(m("pipelineId", pim.getId(), "pipelineName", pim.getName()));
+        }
+        return rows;
+    }
+
     private PipelineInstanceModel pimFor(String p1, int counter) {
         PipelineInstanceModel model = new PipelineInstanceModel(p1, counter, String.valueOf(counter), BuildCause.createManualForced(), new StageInstanceModels());
         model.setId(new Random().nextLong());
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import com.thoughtworks.go.helper.PipelineMaterialModificationMother;
+import com.thoughtworks.go.server.persistence.PipelineRepository;
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PipelineTimelineSnapshotTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private PipelineRepository pipelineRepository;
+    private SystemEnvironment systemEnvironment;
+    private File snapshotFile;
+    private PipelineTimelineEntry first;
+    private PipelineTimelineEntry second;
+    private PipelineTimelineEntry third;
+    private PipelineTimelineEntry fourth;
+
+    @Before
+    public void setUp() throws Exception {
+        DateTime now = new DateTime();
+        List<String> materials = Arrays.asList("first", "second", "third", "fourth");
+        first = PipelineMaterialModificationMother.modification(1, materials, Arrays.asList(now, now.plusMinutes(1), now.plusMinutes(2), now.plusMinutes(3)), 1, "111", "pipeline");
+        second = PipelineMaterialModificationMother.modification(2, materials, Arrays.asList(now, now.plusMinutes(2), now.plusMinutes(1), now.plusMinutes(2)), 2, "222", "pipeline");
+        third = PipelineMaterialModificationMother.modification(3, materials, Arrays.asList(now, now.plusMinutes(2), now.plusMinutes(1), now.plusMinutes(3)), 3, "333", "pipeline");
+        fourth = PipelineMaterialModificationMother.modification(4, materials, Arrays.asList(now, now.plusMinutes(2), now.plusMinutes(3), now.plusMinutes(2)), 4, "444", "pipeline");
+
+        pipelineRepository = mock(PipelineRepository.class);
+        systemEnvironment = mock(SystemEnvironment.class);
+        snapshotFile = new File(temporaryFolder.getRoot(), "pipeline_timeline.snapshot");
+        when(systemEnvironment.isPipelineTimelineSnapshotEnabled()).thenReturn(true);
+        when(systemEnvironment.getPipelineTimelineSnapshotFile()).thenReturn(snapshotFile);
+    }
+
+    @Test
+    public void shouldRestoreTheTimelineItSaved() {
+        PipelineTimeline saved = timeline();
+        saved.add(first);
+        saved.add(fourth);
+        saved.add(third);
+        saved.add(second);
+        new PipelineTimelineSnapshot(saved, pipelineRepository, systemEnvironment).save();
+        when(pipelineRepository.hasPipeline(4L, "pipeline", 4)).thenReturn(true);
+
+        PipelineTimeline restored = timeline();
+        new PipelineTimelineSnapshot(restored, pipelineRepository, systemEnvironment).restore();
+
+        CaseInsensitiveString pipelineName = new CaseInsensitiveString("pipeline");
+        assertThat(restored.maximumId(), is(4L));
+        assertThat(restored.instanceCount(pipelineName), is(4));
+        for (int index = 0; index < 4; index++) {
+            PipelineTimelineEntry entry = restored.instanceFor(pipelineName, index);
+            assertThat(entry, is(saved.instanceFor(pipelineName, index)));
+            assertThat(entry.naturalOrder(), is(saved.instanceFor(pipelineName, index).naturalOrder()));
+            assertThat(entry.revisions(), is(saved.instanceFor(pipelineName, index).revisions()));
+            assertThat(restored.runBefore(entry.getId(), pipelineName), is(saved.runBefore(entry.getId(), pipelineName)));
+            assertThat(restored.runAfter(entry.getId(), pipelineName), is(saved.runAfter(entry.getId(), pipelineName)));
+            assertThat(restored.pipelineBefore(entry.getId()), is(saved.pipelineBefore(entry.getId())));
+        }
+        assertThat(snapshotFile.exists(), is(false));
+    }
+
+    @Test
+    public void shouldIgnoreASnapshotWhoseLatestPipelineIsNotInTheDatabase() {
+        PipelineTimeline saved = timeline();
+        saved.add(first);
+        saved.add(second);
+        new PipelineTimelineSnapshot(saved, pipelineRepository, systemEnvironment).save();
+        when(pipelineRepository.hasPipeline(2L, "pipeline", 2)).thenReturn(false);
+
+        PipelineTimeline restored = timeline();
+        new PipelineTimelineSnapshot(restored, pipelineRepository, systemEnvironment).restore();
+
+        assertThat(restored.maximumId(), is(-1L));
+        assertThat(restored.instanceCount(new CaseInsensitiveString("pipeline")), is(0));
+        assertThat(snapshotFile.exists(), is(false));
+    }
+
+    @Test
+    public void shouldNotSaveOrRestoreWhenDisabled() {
+        when(systemEnvironment.isPipelineTimelineSnapshotEnabled()).thenReturn(false);
+        PipelineTimeline saved = timeline();
+        saved.add(first);
+
+        new PipelineTimelineSnapshot(saved, pipelineRepository, systemEnvironment).save();
+
+        assertThat(snapshotFile.exists(), is(false));
+    }
+
+    private PipelineTimeline timeline() {
+        return new PipelineTimeline(pipelineRepository, mock(TransactionTemplate.class), mock(TransactionSynchronizationManager.class));
+    }
+}
@@ -378,6 +378,65 @@ public class PipelineTimelineTest {
         assertThat(second.naturalOrder(), is((thirdOrder + 0.5) / 2.0));
     }
 
+    @Test
+    public void shouldShareRevisionsReferredToByMoreThanOneInstance() {
+        PipelineTimeline timeline = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        PipelineTimelineEntry.Revision revision = new PipelineTimelineEntry.Revision(now.toDate(), "abc", "git", 42);
+        for (int i = 1; i <= 3; i++) {
+            Map<String, List<PipelineTimelineEntry.Revision>> revisions = new HashMap<>();
+            revisions.put("git", Arrays.asList(new PipelineTimelineEntry.Revision(now.toDate(), "abc", "git", 42)));
+            timeline.add(new PipelineTimelineEntry(i % 2 == 0 ? "up" : "down", i, i, revisions));
+        }
+
+        assertThat(timeline.revisionCount(), is(1));
+        assertThat(timeline.instanceFor(new CaseInsensitiveString("down"), 1).revisions().get("git"), is(Arrays.asList(revision)));
+        assertThat(timeline.getEntryFor(new CaseInsensitiveString("up"), 2).getId(), is(2L));
+    }
+
+    @Test
+    public void shouldKeepTheSameOrderAsSortingAllEntries() {
+        PipelineTimeline timeline = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        TreeSet<PipelineTimelineEntry> sorted = new TreeSet<>();
+        List<Integer> checkinOrder = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            checkinOrder.add(i);
+        }
+        Collections.shuffle(checkinOrder, new Random(1));
+        for (int i = 1; i <= 500; i++) {
+            DateTime checkin = now.plusMinutes(checkinOrder.get(i - 1));
+            PipelineTimelineEntry entry = PipelineMaterialModificationMother.modification(i, materials,
+                    Arrays.asList(checkin, checkin, checkin, checkin), i, "rev" + i, "pipeline");
+            timeline.add(entry);
+            sorted.add(entry);
+            assertThat(timeline.runBefore(i, new CaseInsensitiveString("pipeline")), is(sorted.lower(entry)));
+            assertThat(timeline.runAfter(i, new CaseInsensitiveString("pipeline")), is(sorted.higher(entry)));
+        }
+
+        assertThat(new ArrayList<>(timeline.getEntriesFor("pipeline")), is(new ArrayList<>(sorted)));
+        for (PipelineTimelineEntry entry : sorted) {
+            PipelineTimelineEntry before = sorted.lower(entry);
+            assertThat(timeline.pipelineBefore(entry.getId()), is(before == null ? -1L : before.getId()));
+        }
+    }
+
+    @Test
+    public void shouldRemoveAnInstanceFromTheMiddleOfTheTimelineOnRollback() throws Exception {
+        stubTransactionSynchronization();
+        setupTransactionTemplateStub(TransactionSynchronization.STATUS_COMMITTED, true);
+        final PipelineTimeline timeline = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        stubPipelineRepository(timeline, true, first, fourth);
+        timeline.update();
+
+        setupTransactionTemplateStub(TransactionSynchronization.STATUS_ROLLED_BACK, false);
+        stubPipelineRepository(timeline, false, third);
+        timeline.update();
+
+        assertThat(timeline.pipelineAfter(first.getId()), is(fourth.getId()));
+        assertThat(timeline.instanceCount(new CaseInsensitiveString("pipeline")), is(2));
+        assertThat(timeline.instanceFor(new CaseInsensitiveString("pipeline"), 1).revisions(), is(fourth.revisions()));
+        assertThat(timeline.runBefore(fourth.getId(), new CaseInsensitiveString("pipeline")), is(first));
+    }
+
     @Test
     public void shouldNotAllowResetingOfNaturalOrder() {
         PipelineTimeline mods = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager);
@@ -28,6 +28,7 @@ import com.thoughtworks.go.server.cronjob.GoDiskSpaceMonitor;
 import com.thoughtworks.go.server.dao.PipelineSqlMapDao;
 import com.thoughtworks.go.server.dashboard.GoDashboardActivityListener;
 import com.thoughtworks.go.server.domain.PipelineTimeline;
+import com.thoughtworks.go.server.domain.PipelineTimelineSnapshot;
 import com.thoughtworks.go.server.materials.DependencyMaterialUpdateNotifier;
 import com.thoughtworks.go.server.materials.MaterialUpdateService;
 import com.thoughtworks.go.server.materials.SCMMaterialSource;
@@ -35,9 +36,11 @@ import com.thoughtworks.go.server.newsecurity.filters.InvalidateAuthenticationOn
 import com.thoughtworks.go.server.service.*;
 import com.thoughtworks.go.server.service.datasharing.DataSharingSettingsService;
 import com.thoughtworks.go.server.service.datasharing.DataSharingUsageStatisticsReportingService;
+import com.thoughtworks.go.server.service.pipelinesearch.PipelineSearchIndexService;
 import com.thoughtworks.go.server.service.support.ResourceMonitoring;
 import com.thoughtworks.go.server.service.support.toggle.FeatureToggleService;
 import com.thoughtworks.go.server.service.support.toggle.Toggles;
+import com.thoughtworks.go.server.service.testresults.TestResultIndexService;
 import com.thoughtworks.go.service.ConfigRepository;
 import com.thoughtworks.go.util.ReflectionUtil;
 import org.junit.Before;
@@ -69,6 +72,8 @@ public class ApplicationInitializerTest {
     @Mock
     private PipelineTimeline pipelineTimeline;
     @Mock
+    private PipelineTimelineSnapshot pipelineTimelineSnapshot;
+    @Mock
     private ConfigRepository configRepository;
     @Mock
     private InvalidConfigMessageRemover invalidConfigMessageRemover;
@@ -140,6 +145,10 @@ public class ApplicationInitializerTest {
     private DataSharingSettingsService dataSharingSettingsService;
     @Mock
     private DataSharingUsageStatisticsReportingService dataSharingUsageStatisticsReportingService;
+    @Mock
+    private TestResultIndexService testResultIndexService;
+    @Mock
+    private PipelineSearchIndexService pipelineSearchIndexService;
     @InjectMocks
     ApplicationInitializer initializer = new ApplicationInitializer();
 
@@ -166,6 +175,25 @@ public class ApplicationInitializerTest {
         verify(backupService).initialize();
     }
 
+    @Test
+    public void shouldInitializeTestResultIndexService() throws Exception {
+        verify(testResultIndexService).init();
+    }
+
+    @Test
+    public void shouldRestorePipelineTimelineSnapshotBeforeUpdatingTheTimeline() throws Exception {
+        InOrder inOrder = inOrder(pipelineTimelineSnapshot, pipelineTimeline);
+        inOrder.verify(pipelineTimelineSnapshot).restore();
+        inOrder.verify(pipelineTimeline).updateTimelineOnInit();
+    }
+
+    @Test
+    public void shouldInitializePipelineSearchIndexServiceAfterPipelineSqlMapDao() throws Exception {
+        InOrder inOrder = inOrder(pipelineSqlMapDao, pipelineSearchIndexService);
+        inOrder.verify(pipelineSqlMapDao).initialize();
+        inOrder.verify(pipelineSearchIndexService).init();
+    }
+
     @Test
     public void shouldRunConfigCipherUpdaterBeforeInitializationOfOtherConfigRelatedServicesAndDatastores() throws Exception {
         InOrder inOrder = inOrder(configCipherUpdater, configElementImplementationRegistrar, configRepository, goFileConfigDataSource, cachedGoConfig, goConfigService);
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.messaging.notifications;
+
+import com.thoughtworks.go.domain.notificationdata.AgentNotificationData;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.Date;
+import java.util.Map;
+
+import static com.thoughtworks.go.util.SystemEnvironment.*;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class PluginNotificationBatcherTest {
+    @Mock
+    private PluginNotificationsQueueHandler pluginNotificationsQueueHandler;
+    @Mock
+    private SystemEnvironment systemEnvironment;
+    private PluginNotificationMetrics metrics;
+    private PluginNotificationBatcher batcher;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        metrics = new PluginNotificationMetrics();
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_BATCHING_ENABLED)).thenReturn(true);
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_WINDOW)).thenReturn(50L);
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_MAX_SIZE)).thenReturn(100);
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_MESSAGES_TTL)).thenReturn(1000L);
+        batcher = new PluginNotificationBatcher(pluginNotificationsQueueHandler, metrics, systemEnvironment);
+    }
+
+    @Test
+    public void shouldPostTheNotificationsOfAPluginRaisedWithinTheWindowAsOneBatch() {
+        PluginNotificationMessage stage1 = new PluginNotificationMessage<>("pid", "stage-status", "stage-1");
+        PluginNotificationMessage stage2 = new PluginNotificationMessage<>("pid", "stage-status", "stage-2");
+        PluginNotificationMessage otherPlugin = new PluginNotificationMessage<>("other", "stage-status", "stage-1");
+
+        batcher.add(stage1);
+        batcher.add(stage2);
+        batcher.add(otherPlugin);
+
+        verify(pluginNotificationsQueueHandler, timeout(5000)).post(new PluginNotificationMessage<>("pid", PluginNotificationBatch.REQUEST_NAME, new PluginNotificationBatch(asList(stage1, stage2))), 1000L);
+        verify(pluginNotificationsQueueHandler, timeout(5000)).post(otherPlugin, 1000L);
+        verifyNoMoreInteractions(pluginNotificationsQueueHandler);
+    }
+
+    @Test
+    public void shouldReplaceAnOlderStatusOfAnAgentWithTheNewerOneInTheSameBatch() {
+        PluginNotificationMessage building = agentStatus("agent-1", "Building");
+        PluginNotificationMessage stage = new PluginNotificationMessage<>("pid", "stage-status", "stage-1");
+        PluginNotificationMessage otherAgent = agentStatus("agent-2", "Idle");
+        PluginNotificationMessage idle = agentStatus("agent-1", "Idle");
+
+        batcher.add(building);
+        batcher.add(stage);
+        batcher.add(otherAgent);
+        batcher.add(idle);
+
+        ArgumentCaptor<PluginNotificationMessage> captor = ArgumentCaptor.forClass(PluginNotificationMessage.class);
+        verify(pluginNotificationsQueueHandler, timeout(5000)).post(captor.capture(), eq(1000L));
+        PluginNotificationBatch batch = (PluginNotificationBatch) captor.getValue().getData();
+        assertThat(batch.getNotifications(), is(asList(stage, otherAgent, idle)));
+        assertThat(((Map<String, Object>) metrics.asJson().get("pid")).get("Superseded"), is(1L));
+    }
+
+    @Test
+    public void shouldPostABatchAsSoonAsItIsFull() {
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_WINDOW)).thenReturn(60 * 60 * 1000L);
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_MAX_SIZE)).thenReturn(2);
+        PluginNotificationMessage stage1 = new PluginNotificationMessage<>("pid", "stage-status", "stage-1");
+        PluginNotificationMessage stage2 = new PluginNotificationMessage<>("pid", "stage-status", "stage-2");
+
+        batcher.add(stage1);
+        verifyZeroInteractions(pluginNotificationsQueueHandler);
+        batcher.add(stage2);
+
+        verify(pluginNotificationsQueueHandler).post(new PluginNotificationMessage<>("pid", PluginNotificationBatch.REQUEST_NAME, new PluginNotificationBatch(asList(stage1, stage2))), 1000L);
+    }
+
+    private PluginNotificationMessage agentStatus(String uuid, String agentState) {
+        return new PluginNotificationMessage<>("pid", "agent-status", new AgentNotificationData(uuid, "host", false, "127.0.0.1", "linux", "100", "Enabled", agentState, agentState, new Date()));
+    }
+}
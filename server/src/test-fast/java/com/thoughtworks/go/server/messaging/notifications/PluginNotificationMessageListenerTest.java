@@ -23,6 +23,9 @@ import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.Map;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertThat;
@@ -34,7 +37,7 @@ public class PluginNotificationMessageListenerTest {
     public void shouldNotifyPluginOnMessage() {
         NotificationExtension notificationExtension = mock(NotificationExtension.class);
         ServerHealthService serverHealthService = mock(ServerHealthService.class);
-        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService);
+        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService, new PluginNotificationMetrics());
 
         PluginNotificationMessage message = new PluginNotificationMessage("pid", "request-name", "data");
         when(notificationExtension.notify(message.pluginId(), message.getRequestName(), message.getData())).thenReturn(new Result());
@@ -48,7 +51,7 @@ public class PluginNotificationMessageListenerTest {
     public void shouldAddErrorReturnedByPluginToHealthMessage() {
         NotificationExtension notificationExtension = mock(NotificationExtension.class);
         ServerHealthService serverHealthService = mock(ServerHealthService.class);
-        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService);
+        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService, new PluginNotificationMetrics());
 
         PluginNotificationMessage message = new PluginNotificationMessage("pid", "request-name", "data");
         Result result = new Result();
@@ -69,7 +72,7 @@ public class PluginNotificationMessageListenerTest {
     public void shouldHandleExceptionDuringPluginNotificationCorrectly() {
         NotificationExtension notificationExtension = mock(NotificationExtension.class);
         ServerHealthService serverHealthService = mock(ServerHealthService.class);
-        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService);
+        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService, new PluginNotificationMetrics());
 
         PluginNotificationMessage message = new PluginNotificationMessage("pid", "request-name", "data");
         when(notificationExtension.notify(message.pluginId(), message.getRequestName(), message.getData())).thenThrow(new RuntimeException("error!"));
@@ -84,4 +87,29 @@ public class PluginNotificationMessageListenerTest {
         verify(notificationExtension).notify("pid", "request-name", message.getData());
     }
 
+    @Test
+    public void shouldDeliverEachNotificationOfABatchInOrderAndRecordItsDelivery() {
+        NotificationExtension notificationExtension = mock(NotificationExtension.class);
+        ServerHealthService serverHealthService = mock(ServerHealthService.class);
+        PluginNotificationMetrics metrics = new PluginNotificationMetrics();
+        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService, metrics);
+
+        PluginNotificationMessage first = new PluginNotificationMessage("pid", "stage-status", "first");
+        PluginNotificationMessage second = new PluginNotificationMessage("pid", "agent-status", "second");
+        Result failure = new Result();
+        failure.withErrorMessages(asList(new String[]{"error message"}));
+        when(notificationExtension.notify("pid", "stage-status", "first")).thenReturn(new Result());
+        when(notificationExtension.notify("pid", "agent-status", "second")).thenReturn(failure);
+        metrics.posted("pid", 2, 60000L);
+
+        listener.onMessage(new PluginNotificationMessage<>("pid", PluginNotificationBatch.REQUEST_NAME, new PluginNotificationBatch(asList(first, second))));
+
+        InOrder inOrder = inOrder(notificationExtension);
+        inOrder.verify(notificationExtension).notify("pid", "stage-status", "first");
+        inOrder.verify(notificationExtension).notify("pid", "agent-status", "second");
+        assertThat(metrics.queueDepth("pid"), is(0));
+        Map<String, Object> json = (Map<String, Object>) metrics.asJson().get("pid");
+        assertThat(json.get("Delivered"), is(2L));
+        assertThat(json.get("Failed"), is(1L));
+    }
 }
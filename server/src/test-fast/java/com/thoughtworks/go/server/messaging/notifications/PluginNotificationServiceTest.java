@@ -63,6 +63,8 @@ public class PluginNotificationServiceTest {
     @Mock
     private PluginNotificationsQueueHandler pluginNotificationsQueueHandler;
     @Mock
+    private PluginNotificationBatcher pluginNotificationBatcher;
+    @Mock
     private GoConfigService goConfigService;
     @Mock
     private PipelineDao pipelineDao;
@@ -75,7 +77,7 @@ public class PluginNotificationServiceTest {
     @Before
     public void setUp() throws Exception {
         initMocks(this);
-        pluginNotificationService = new PluginNotificationService(notificationPluginRegistry, pluginNotificationsQueueHandler, goConfigService, pipelineDao, stageDao, systemEnvironment);
+        pluginNotificationService = new PluginNotificationService(notificationPluginRegistry, pluginNotificationsQueueHandler, pluginNotificationBatcher, goConfigService, pipelineDao, stageDao, systemEnvironment);
     }
 
     @Test
@@ -103,6 +105,21 @@ public class PluginNotificationServiceTest {
         assertThat(data.getBuildState(), is(agentInstance.getRuntimeStatus().buildState().name()));
     }
 
+    @Test
+    public void shouldHandNotificationsToTheBatcherWhenBatchingIsEnabled() {
+        when(notificationPluginRegistry.getPluginsInterestedIn(NotificationExtension.AGENT_STATUS_CHANGE_NOTIFICATION)).thenReturn(new LinkedHashSet<>(asList(PLUGIN_ID_1, PLUGIN_ID_2)));
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_MESSAGES_TTL)).thenReturn(1000L);
+        when(pluginNotificationBatcher.isEnabled()).thenReturn(true);
+
+        pluginNotificationService.notifyAgentStatus(AgentInstanceMother.building());
+
+        ArgumentCaptor<PluginNotificationMessage> captor = ArgumentCaptor.forClass(PluginNotificationMessage.class);
+        verify(pluginNotificationBatcher, times(2)).add(captor.capture());
+        assertThat(captor.getAllValues().get(0).pluginId(), is(PLUGIN_ID_1));
+        assertThat(captor.getAllValues().get(1).pluginId(), is(PLUGIN_ID_2));
+        verify(pluginNotificationsQueueHandler, never()).post(any(PluginNotificationMessage.class), anyLong());
+    }
+
     @Test
     public void shouldConstructDataForElasticAgentNotification() {
         when(notificationPluginRegistry.getPluginsInterestedIn(NotificationExtension.AGENT_STATUS_CHANGE_NOTIFICATION)).thenReturn(new LinkedHashSet<>(asList(PLUGIN_ID_1)));
@@ -54,7 +54,7 @@ public class PluginNotificationsQueueHandlerTest {
     @Before
     public void setUp() throws Exception {
         initMocks(this);
-        handler = new PluginNotificationsQueueHandler(messagingService, notificationExtension, pluginManager, systemEnvironment, serverHealthService);
+        handler = new PluginNotificationsQueueHandler(messagingService, notificationExtension, pluginManager, systemEnvironment, serverHealthService, new PluginNotificationMetrics());
     }
 
     @Test
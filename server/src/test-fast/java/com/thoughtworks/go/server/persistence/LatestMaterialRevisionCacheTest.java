@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thoughtworks.go.server.persistence;
+
+import com.thoughtworks.go.config.materials.svn.SvnMaterial;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.helper.MaterialsMother;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class LatestMaterialRevisionCacheTest {
+    private LatestMaterialRevisionCache cache;
+    private SvnMaterial material;
+    private SvnMaterial external;
+    private AtomicInteger loads;
+
+    @Before
+    public void setUp() {
+        cache = new LatestMaterialRevisionCache();
+        material = MaterialsMother.svnMaterial("http://svn/trunk", "trunk");
+        external = MaterialsMother.svnMaterial("http://svn/external", "trunk/external");
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldLoadTheLatestModificationsOnlyOnceForAllLookups() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(latestRevision(cache.get(material.getFingerprint(), 1L, loader("r1"))), is("r1"));
+        }
+
+        assertThat(loads.get(), is(1));
+        assertThat(cache.hits(), is(9L));
+        assertThat(cache.misses(), is(1L));
+    }
+
+    @Test
+    public void shouldKeepTheModificationsOfExpandedMaterialsByTheirOwnFingerprint() {
+        Map<String, Modification> modifications = cache.get(material.getFingerprint(), 1L, loader("r1"));
+
+        assertThat(modifications.get(external.getFingerprint()).getRevision(), is("r1-external"));
+    }
+
+    @Test
+    public void shouldReloadOnceTheMaterialOrAnExpandedMaterialIsInvalidated() {
+        cache.get(material.getFingerprint(), 1L, loader("r1"));
+        cache.invalidate(material.getFingerprint());
+        assertThat(latestRevision(cache.get(material.getFingerprint(), 1L, loader("r2"))), is("r2"));
+
+        cache.invalidate(external.getFingerprint());
+        assertThat(latestRevision(cache.get(material.getFingerprint(), 1L, loader("r3"))), is("r3"));
+        assertThat(loads.get(), is(3));
+    }
+
+    @Test
+    public void shouldReloadWhenTheMaterialInstanceHasChanged() {
+        cache.get(material.getFingerprint(), 1L, loader("r1"));
+
+        assertThat(latestRevision(cache.get(material.getFingerprint(), 2L, loader("r2"))), is("r2"));
+    }
+
+    @Test
+    public void shouldNotCacheModificationsLoadedConcurrentlyWithAnInvalidation() {
+        cache.get(material.getFingerprint(), 1L, () -> {
+            cache.invalidate(material.getFingerprint());
+            return loader("stale").get();
+        });
+
+        assertThat(latestRevision(cache.get(material.getFingerprint(), 1L, loader("r2"))), is("r2"));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void shouldNotCacheMaterialsWithoutModifications() {
+        Map<String, Modification> modifications = cache.get(material.getFingerprint(), 1L, () -> {
+            Map<String, Modification> none = new HashMap<>();
+            none.put(material.getFingerprint(), null);
+            return none;
+        });
+
+        assertThat(modifications.get(material.getFingerprint()), is(nullValue()));
+        assertThat(cache.size(), is(0));
+    }
+
+    private String latestRevision(Map<String, Modification> modifications) {
+        return modifications.get(material.getFingerprint()).getRevision();
+    }
+
+    private Supplier<Map<String, Modification>> loader(String revision) {
+        return () -> {
+            loads.incrementAndGet();
+            Map<String, Modification> modifications = new HashMap<>();
+            modifications.put(material.getFingerprint(), new Modification("user", "comment", null, new Date(), revision));
+            modifications.put(external.getFingerprint(), new Modification("user", "comment", null, new Date(), revision + "-external"));
+            return modifications;
+        };
+    }
+}
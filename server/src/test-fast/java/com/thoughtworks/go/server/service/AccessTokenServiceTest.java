@@ -21,8 +21,9 @@ import com.thoughtworks.go.config.exceptions.RecordNotFoundException;
 import com.thoughtworks.go.domain.AccessToken;
 import com.thoughtworks.go.server.dao.AccessTokenDao;
 import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.exceptions.InvalidAccessTokenException;
+import com.thoughtworks.go.server.exceptions.RevokedAccessTokenException;
 import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult;
-import com.thoughtworks.go.util.Clock;
 import com.thoughtworks.go.util.TestingClock;
 import org.apache.commons.lang.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -32,6 +33,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.sql.Timestamp;
+import java.util.Collections;
 import java.util.Map;
 
 import static com.thoughtworks.go.helper.AccessTokenMother.*;
@@ -50,7 +52,7 @@ class AccessTokenServiceTest {
     private HttpLocalizedOperationResult result;
     private String username;
     private String authConfigId;
-    private Clock clock = new TestingClock();
+    private TestingClock clock = new TestingClock();
 
     @BeforeEach
     void setUp() {
@@ -125,6 +127,67 @@ class AccessTokenServiceTest {
         verifyNoMoreInteractions(accessTokenDao);
     }
 
+    @Nested
+    class FindByAccessToken {
+        private AccessToken.AccessTokenWithDisplayValue accessToken;
+
+        @BeforeEach
+        void setUp() {
+            accessToken = randomAccessTokenForUser(username);
+            accessToken.setId(42);
+            when(accessTokenDao.findAccessTokenBySaltId(accessToken.getSaltId())).thenReturn(accessToken);
+        }
+
+        @Test
+        void shouldNotHitTheDatabaseAgainForAnAlreadyVerifiedToken() {
+            assertThat(accessTokenService.findByAccessToken(accessToken.getDisplayValue())).isSameAs(accessToken);
+            assertThat(accessTokenService.findByAccessToken(accessToken.getDisplayValue())).isSameAs(accessToken);
+
+            verify(accessTokenDao, times(1)).findAccessTokenBySaltId(accessToken.getSaltId());
+            assertThat(accessTokenService.getAuthenticationStats().getCacheMisses()).isEqualTo(1);
+            assertThat(accessTokenService.getAuthenticationStats().getCacheHits()).isEqualTo(1);
+        }
+
+        @Test
+        void shouldVerifyTheTokenAgainOnceTheCachedEntryHasExpired() {
+            accessTokenService.findByAccessToken(accessToken.getDisplayValue());
+            clock.addSeconds(5 * 60);
+            accessTokenService.findByAccessToken(accessToken.getDisplayValue());
+
+            verify(accessTokenDao, times(2)).findAccessTokenBySaltId(accessToken.getSaltId());
+        }
+
+        @Test
+        void shouldNotCacheATokenWhichFailedVerification() {
+            String tamperedToken = accessToken.getSaltId() + RandomStringUtils.randomAlphanumeric(32);
+
+            assertThatCode(() -> accessTokenService.findByAccessToken(tamperedToken)).isInstanceOf(InvalidAccessTokenException.class);
+            assertThatCode(() -> accessTokenService.findByAccessToken(tamperedToken)).isInstanceOf(InvalidAccessTokenException.class);
+
+            verify(accessTokenDao, times(2)).findAccessTokenBySaltId(accessToken.getSaltId());
+        }
+
+        @Test
+        void shouldForgetTheVerifiedTokenOnRevocation() {
+            when(accessTokenDao.loadNotDeletedTokenForUser(42, username)).thenReturn(accessToken);
+            accessTokenService.findByAccessToken(accessToken.getDisplayValue());
+
+            accessTokenService.revokeAccessToken(42, username, "leaked");
+
+            assertThatCode(() -> accessTokenService.findByAccessToken(accessToken.getDisplayValue())).isInstanceOf(RevokedAccessTokenException.class);
+        }
+
+        @Test
+        void shouldForgetTheVerifiedTokensOfInvalidatedUsers() {
+            accessTokenService.findByAccessToken(accessToken.getDisplayValue());
+
+            accessTokenService.invalidateCachedTokensForUsers(Collections.singletonList(username.toUpperCase()));
+            accessTokenService.findByAccessToken(accessToken.getDisplayValue());
+
+            verify(accessTokenDao, times(2)).findAccessTokenBySaltId(accessToken.getSaltId());
+        }
+    }
+
     @Nested
     class OnTimer {
 
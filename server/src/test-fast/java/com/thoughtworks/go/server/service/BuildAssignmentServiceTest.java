@@ -26,11 +26,13 @@ import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.helper.*;
 import com.thoughtworks.go.plugin.access.exceptions.SecretResolutionFailureException;
 import com.thoughtworks.go.remote.work.BuildWork;
+import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.domain.ElasticAgentMetadata;
 import com.thoughtworks.go.server.messaging.JobStatusMessage;
 import com.thoughtworks.go.server.messaging.JobStatusTopic;
 import com.thoughtworks.go.server.service.builders.BuilderFactory;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.websocket.Agent;
 import com.thoughtworks.go.server.websocket.AgentRemoteHandler;
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
@@ -45,8 +47,14 @@ import org.springframework.transaction.PlatformTransactionManager;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -123,6 +131,7 @@ class BuildAssignmentServiceTest {
         when(environmentConfigService.filterJobsByAgent(ArgumentMatchers.eq(jobPlans), any(String.class))).thenReturn(jobPlans);
         when(environmentConfigService.envForPipeline(any(String.class))).thenReturn("");
         when(maintenanceModeService.isMaintenanceMode()).thenReturn(false);
+        when(systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_ASSIGNMENT_DECISION_TIMEOUT_MILLIS)).thenReturn(5000L);
     }
 
     @Test
@@ -168,6 +177,103 @@ class BuildAssignmentServiceTest {
         assertThat(buildAssignmentService.jobPlans().size()).isEqualTo(1);
     }
 
+    @Test
+    void shouldAskThePluginOncePerElasticJobUntilTheScheduledJobsChange() {
+        PipelineConfig pipelineWithElasticJobs = PipelineConfigMother.pipelineWithElasticJobs(elasticProfileId1, "up42", "stage", "job1", "job2", "job3");
+        JobPlan jobPlan1 = elasticJobPlan(pipelineWithElasticJobs, 0, 1);
+        JobPlan jobPlan2 = elasticJobPlan(pipelineWithElasticJobs, 1, 2);
+        JobPlan jobPlan3 = elasticJobPlan(pipelineWithElasticJobs, 2, 3);
+        jobPlans.add(jobPlan1);
+        jobPlans.add(jobPlan2);
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.findMatchingJob(elasticAgentInstance)).isNull();
+        assertThat(buildAssignmentService.findMatchingJob(elasticAgentInstance)).isNull();
+        verify(elasticAgentPluginService, times(2)).shouldAssignWork(any(), any(), any(), any());
+
+        ArrayList<JobPlan> rescheduledJobPlans = new ArrayList<>(asList(jobPlan1, jobPlan2, jobPlan3));
+        when(jobInstanceService.orderedScheduledBuilds()).thenReturn(rescheduledJobPlans);
+        when(environmentConfigService.filterJobsByAgent(ArgumentMatchers.eq(rescheduledJobPlans), any(String.class))).thenReturn(rescheduledJobPlans);
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.findMatchingJob(elasticAgentInstance)).isNull();
+        verify(elasticAgentPluginService, times(5)).shouldAssignWork(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldAskThePluginWhetherToAssignWorkToAnElasticAgentWithoutHoldingTheAssignmentLock() throws Exception {
+        PipelineConfig pipelineWithElasticJob = PipelineConfigMother.pipelineWithElasticJob(elasticProfileId1);
+        JobPlan jobPlan = new InstanceFactory().createJobPlan(pipelineWithElasticJob.first().getJobs().first(), schedulingContext);
+        jobPlans.add(jobPlan);
+        buildAssignmentService.onTimer();
+        CountDownLatch pluginAsked = new CountDownLatch(1);
+        CountDownLatch pluginMayAnswer = new CountDownLatch(1);
+        when(elasticAgentPluginService.shouldAssignWork(any(), any(), any(), any())).thenAnswer(invocation -> {
+            pluginAsked.countDown();
+            pluginMayAnswer.await();
+            return false;
+        });
+
+        CompletableFuture<Work> work = CompletableFuture.supplyAsync(() -> buildAssignmentService.assignWorkToAgent(elasticAgentInstance));
+        try {
+            assertThat(pluginAsked.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture.runAsync(() -> {
+                synchronized (buildAssignmentService) {
+                    buildAssignmentService.jobPlans();
+                }
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            pluginMayAnswer.countDown();
+        }
+
+        assertThat(work.get(5, TimeUnit.SECONDS)).isSameAs(BuildAssignmentService.NO_WORK);
+        verify(elasticAgentPluginService, times(1)).shouldAssignWork(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldMatchConnectedStaticAgentsWithoutWaitingForThePluginsOfElasticAgents() throws Exception {
+        PipelineConfig pipelineWithElasticJob = PipelineConfigMother.pipelineWithElasticJob(elasticProfileId1);
+        jobPlans.add(new InstanceFactory().createJobPlan(pipelineWithElasticJob.first().getJobs().first(), schedulingContext));
+        connect(elasticAgentInstance, regularAgentInstance);
+        CountDownLatch pluginMayAnswer = new CountDownLatch(1);
+        when(elasticAgentPluginService.shouldAssignWork(any(), any(), any(), any())).thenAnswer(invocation -> {
+            pluginMayAnswer.await();
+            return false;
+        });
+
+        CompletableFuture<Void> timer = CompletableFuture.runAsync(buildAssignmentService::onTimer);
+        try {
+            verify(scheduleService, timeout(5000)).rescheduleAbandonedBuildIfNecessary(regularAgentInstance.getAgentIdentifier());
+            assertThat(timer.isDone()).isFalse();
+        } finally {
+            pluginMayAnswer.countDown();
+        }
+
+        timer.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldSkipAConnectedElasticAgentWhosePluginDoesNotDecideInTime() throws Exception {
+        when(systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_ASSIGNMENT_DECISION_TIMEOUT_MILLIS)).thenReturn(100L);
+        PipelineConfig pipelineWithElasticJob = PipelineConfigMother.pipelineWithElasticJob(elasticProfileId1);
+        jobPlans.add(new InstanceFactory().createJobPlan(pipelineWithElasticJob.first().getJobs().first(), schedulingContext));
+        connect(elasticAgentInstance);
+        CountDownLatch pluginMayAnswer = new CountDownLatch(1);
+        when(elasticAgentPluginService.shouldAssignWork(any(), any(), any(), any())).thenAnswer(invocation -> {
+            pluginMayAnswer.await();
+            return true;
+        });
+
+        try {
+            CompletableFuture.runAsync(buildAssignmentService::onTimer).get(5, TimeUnit.SECONDS);
+        } finally {
+            pluginMayAnswer.countDown();
+        }
+
+        verify(scheduleService, never()).rescheduleAbandonedBuildIfNecessary(elasticAgentInstance.getAgentIdentifier());
+        assertThat(buildAssignmentService.jobPlans().size()).isEqualTo(1);
+    }
+
     @Test
     void shouldMatchNonElasticJobToNonElasticAgentIfResourcesMatch() {
         PipelineConfig pipeline = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
@@ -185,6 +291,21 @@ class BuildAssignmentServiceTest {
         verify(elasticAgentPluginService, never()).shouldAssignWork(any(ElasticAgentMetadata.class), any(String.class), any(ElasticProfile.class), any(JobIdentifier.class));
     }
 
+    @Test
+    void shouldRecordHowLongAssignmentCyclesTake() {
+        PipelineConfig pipeline = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
+        pipeline.first().getJobs().add(JobConfigMother.jobWithNoResourceRequirement());
+        jobPlans.add(new InstanceFactory().createJobPlan(pipeline.first().getJobs().first(), schedulingContext));
+
+        buildAssignmentService.onTimer();
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.metrics().asJson())
+                .containsEntry("Assignment cycles", 2L)
+                .containsEntry("Scheduled jobs", 1)
+                .containsKeys("Average cycle in milliseconds", "Maximum scheduled jobs reload in milliseconds");
+    }
+
     @Test
     void shouldNotMatchJobsDuringMaintenanceMode() {
         when(maintenanceModeService.isMaintenanceMode()).thenReturn(true);
@@ -358,6 +479,12 @@ class BuildAssignmentServiceTest {
         }
     }
 
+    private JobPlan elasticJobPlan(PipelineConfig pipelineConfig, int jobIndex, long jobId) {
+        DefaultJobPlan jobPlan = (DefaultJobPlan) new InstanceFactory().createJobPlan(pipelineConfig.first().getJobs().get(jobIndex), schedulingContext);
+        jobPlan.setJobId(jobId);
+        return jobPlan;
+    }
+
     private JobPlan getJobPlan(CaseInsensitiveString pipelineName, CaseInsensitiveString stageName, JobConfig job) {
         JobPlan jobPlan = new InstanceFactory().createJobPlan(job, schedulingContext);
 
@@ -373,4 +500,14 @@ class BuildAssignmentServiceTest {
         PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
         return new TransactionTemplate(new org.springframework.transaction.support.TransactionTemplate(transactionManager));
     }
+
+    private void connect(AgentInstance... agentInstances) {
+        Map<String, Agent> agents = new LinkedHashMap<>();
+        for (AgentInstance agentInstance : agentInstances) {
+            agentInstance.idle();
+            agents.put(agentInstance.getUuid(), mock(Agent.class));
+            when(agentService.findAgentAndRefreshStatus(agentInstance.getUuid())).thenReturn(agentInstance);
+        }
+        when(agentRemoteHandler.connectedAgents()).thenReturn(agents);
+    }
 }
@@ -31,6 +31,7 @@ import com.thoughtworks.go.server.domain.user.PipelineSelections;
 import com.thoughtworks.go.server.domain.user.PipelineSelectionsHelper;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.scheduling.TriggerMonitor;
+import com.thoughtworks.go.server.service.pipelinesearch.PipelineSearchIndexService;
 import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult;
 import com.thoughtworks.go.server.service.result.HttpOperationResult;
 import com.thoughtworks.go.server.service.result.ServerHealthStateOperationResult;
@@ -103,7 +104,8 @@ public class PipelineHistoryServiceTest {
                 mock(MaterialRepository.class),
                 mock(TriggerMonitor.class),
                 pipelineTimeline,
-                pipelineUnlockService, schedulingCheckerService, pipelineLockService, pipelinePauseService);
+                pipelineUnlockService, schedulingCheckerService, pipelineLockService, pipelinePauseService,
+                mock(PipelineSearchIndexService.class));
         config = CRUISE_CONFIG.pipelineConfigByName(new CaseInsensitiveString("pipeline"));
     }
 
@@ -19,10 +19,15 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.config.*;
 import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.server.domain.Username;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.thoughtworks.go.helper.PipelineTemplateConfigMother.createTemplate;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
@@ -38,6 +43,11 @@ public class SecurityServiceTest {
         securityService = new SecurityService(goConfigService);
     }
 
+    @After
+    public void tearDown() {
+        PluginRoleUsersStore.instance().clearAll();
+    }
+
     @Test
     public void shouldReturnTrueIfUserIsOnlyATemplateAdmin() {
         final Username user = new Username(new CaseInsensitiveString("user"));
@@ -337,6 +347,101 @@ public class SecurityServiceTest {
     }
 
 
+    @Test
+    public void shouldAnswerPipelinePermissionsFromTheCurrentConfig() {
+        GoConfigMother configMother = new GoConfigMother();
+        BasicCruiseConfig config = getCruiseConfigWithSecurityEnabled();
+        configMother.addPipelineWithGroup(config, "first", "pipeline1", "stage", "job");
+        configMother.addPipelineWithGroup(config, "second", "pipeline2", "stage", "job");
+        configMother.addUserAsViewerOfPipelineGroup(config, "viewer", "first");
+        configMother.addUserAsOperatorOfPipelineGroup(config, "operator", "first");
+        configMother.addAdminUserForPipelineGroup(config, "groupAdmin", "second");
+        when(goConfigService.getCurrentConfig()).thenReturn(config);
+        when(goConfigService.isSecurityEnabled()).thenReturn(true);
+
+        Username viewer = new Username("viewer");
+        assertThat(securityService.hasViewPermissionForPipeline(viewer, "pipeline1"), is(true));
+        assertThat(securityService.hasViewPermissionForPipeline(viewer, "pipeline2"), is(false));
+        assertThat(securityService.hasOperatePermissionForPipeline(viewer.getUsername(), "pipeline1"), is(false));
+        assertThat(securityService.hasViewPermissionForPipeline(viewer, "pipeline-not-in-config"), is(true));
+        assertThat(securityService.viewablePipelinesFor(viewer), contains(new CaseInsensitiveString("pipeline1")));
+
+        assertThat(securityService.hasOperatePermissionForPipeline(new CaseInsensitiveString("operator"), "pipeline1"), is(true));
+        assertThat(securityService.hasOperatePermissionForGroup(new CaseInsensitiveString("operator"), "second"), is(false));
+
+        Username groupAdmin = new Username("groupAdmin");
+        assertThat(securityService.hasAdminPermissionsForPipeline(groupAdmin, new CaseInsensitiveString("pipeline2")), is(true));
+        assertThat(securityService.hasAdminPermissionsForPipeline(groupAdmin, new CaseInsensitiveString("pipeline1")), is(false));
+        assertThat(securityService.hasViewPermissionForGroup("groupAdmin", "second"), is(true));
+        assertThat(securityService.modifiableGroupsForUser(groupAdmin), contains("second"));
+
+        assertThat(securityService.viewablePipelinesFor(new Username("admin")), contains(new CaseInsensitiveString("pipeline1"), new CaseInsensitiveString("pipeline2")));
+    }
+
+    @Test
+    public void shouldRecomputePermissionsWhenTheConfigChanges() {
+        GoConfigMother configMother = new GoConfigMother();
+        BasicCruiseConfig config = getCruiseConfigWithSecurityEnabled();
+        configMother.addPipelineWithGroup(config, "first", "pipeline1", "stage", "job");
+        configMother.addUserAsViewerOfPipelineGroup(config, "someone-else", "first");
+        when(goConfigService.getCurrentConfig()).thenReturn(config);
+
+        assertThat(securityService.hasViewPermissionForPipeline(new Username("viewer"), "pipeline1"), is(false));
+
+        BasicCruiseConfig updatedConfig = getCruiseConfigWithSecurityEnabled();
+        configMother.addPipelineWithGroup(updatedConfig, "first", "pipeline1", "stage", "job");
+        configMother.addUserAsViewerOfPipelineGroup(updatedConfig, "viewer", "first");
+        when(goConfigService.getCurrentConfig()).thenReturn(updatedConfig);
+
+        assertThat(securityService.hasViewPermissionForPipeline(new Username("viewer"), "pipeline1"), is(true));
+    }
+
+    @Test
+    public void shouldRecomputePermissionsWhenPluginRolesOfAUserChange() {
+        GoConfigMother configMother = new GoConfigMother();
+        BasicCruiseConfig config = getCruiseConfigWithSecurityEnabled();
+        PluginRoleConfig pluginRole = new PluginRoleConfig("developers", "file");
+        config.server().security().addRole(pluginRole);
+        configMother.addPipelineWithGroup(config, "first", "pipeline1", "stage", "job");
+        configMother.addRoleAsViewerOfPipelineGroup(config, "developers", "first");
+        when(goConfigService.getCurrentConfig()).thenReturn(config);
+
+        assertThat(securityService.hasViewPermissionForPipeline(new Username("bob"), "pipeline1"), is(false));
+
+        PluginRoleUsersStore.instance().assignRole("bob", pluginRole);
+
+        assertThat(securityService.hasViewPermissionForPipeline(new Username("bob"), "pipeline1"), is(true));
+    }
+
+    @Test
+    public void shouldListViewablePipelinesOfManyUsersAcrossALargeConfig() {
+        GoConfigMother configMother = new GoConfigMother();
+        BasicCruiseConfig config = getCruiseConfigWithSecurityEnabled();
+        int groups = 500;
+        int pipelinesPerGroup = 10;
+        int users = 2000;
+        for (int group = 0; group < groups; group++) {
+            for (int pipeline = 0; pipeline < pipelinesPerGroup; pipeline++) {
+                configMother.addPipelineWithGroup(config, "group" + group, "pipeline-" + group + "-" + pipeline, "stage", "job");
+            }
+        }
+        for (int user = 0; user < users; user++) {
+            configMother.addUserAsViewerOfPipelineGroup(config, "user" + user, "group" + (user % groups));
+        }
+        when(goConfigService.getCurrentConfig()).thenReturn(config);
+
+        for (int user = 0; user < users; user++) {
+            List<CaseInsensitiveString> expected = new ArrayList<>();
+            for (int pipeline = 0; pipeline < pipelinesPerGroup; pipeline++) {
+                expected.add(new CaseInsensitiveString("pipeline-" + (user % groups) + "-" + pipeline));
+            }
+            Username username = new Username("user" + user);
+            assertThat(securityService.viewablePipelinesFor(username), is(expected));
+            assertThat(securityService.hasViewPermissionForPipeline(username, "pipeline-" + ((user + 1) % groups) + "-0"), is(false));
+        }
+        assertThat(securityService.viewablePipelinesFor(new Username("admin")).size(), is(groups * pipelinesPerGroup));
+    }
+
     private BasicCruiseConfig getCruiseConfigWithSecurityEnabled() {
         BasicCruiseConfig cruiseConfig = new BasicCruiseConfig();
         ServerConfig serverConfig = new ServerConfig(new SecurityConfig(new AdminsConfig(new AdminUser(new CaseInsensitiveString("admin")))), null);
@@ -52,6 +52,7 @@ public class UserServiceTest {
     private UserDao userDao;
     private GoConfigService goConfigService;
     private SecurityService securityService;
+    private AccessTokenService accessTokenService;
     private UserService userService;
     private TestTransactionTemplate transactionTemplate;
     private TestTransactionSynchronizationManager transactionSynchronizationManager;
@@ -60,13 +61,14 @@ public class UserServiceTest {
         userDao = mock(UserDao.class);
         goConfigService = mock(GoConfigService.class);
         securityService = mock(SecurityService.class);
+        accessTokenService = mock(AccessTokenService.class);
         transactionSynchronizationManager = new TestTransactionSynchronizationManager();
         transactionTemplate = new TestTransactionTemplate(transactionSynchronizationManager);
     }
 
     @Before
     public void setUp() {
-        userService = new UserService(userDao, securityService, goConfigService, transactionTemplate);
+        userService = new UserService(userDao, securityService, goConfigService, transactionTemplate, accessTokenService);
     }
 
     @Test
@@ -268,6 +270,21 @@ public class UserServiceTest {
 
         assertThat(result.isSuccessful(), is(false));
         assertThat(result.httpCode(), is(HttpServletResponse.SC_BAD_REQUEST));
+        verifyZeroInteractions(accessTokenService);
+    }
+
+    @Test
+    public void shouldInvalidateCachedAccessTokensOfDisabledUsers() {
+        HttpLocalizedOperationResult result = new HttpLocalizedOperationResult();
+
+        when(userDao.enabledUsers()).thenReturn(Arrays.asList(new User("Jake"), new User("Pavan"), new User("Shilpa")));
+        configureAdmin("Jake", true);
+
+        userService.disable(Arrays.asList("Pavan", "Shilpa"), result);
+
+        assertThat(result.isSuccessful(), is(true));
+        verify(userDao).disableUsers(Arrays.asList("Pavan", "Shilpa"));
+        verify(accessTokenService).invalidateCachedTokensForUsers(Arrays.asList("Pavan", "Shilpa"));
     }
 
     @Test
@@ -53,6 +53,17 @@ public class BackupStatusUpdaterTest {
         assertThat(serverBackup.getMessage()).isEqualTo(BackupProgressStatus.BACKUP_DATABASE.getMessage());
     }
 
+    @Test
+    void shouldUpdateMessageOnProgress() {
+        ServerBackup serverBackup = new ServerBackup("path", new Date(), "admin", "a message");
+        BackupStatusUpdater backupStatusUpdater = new BackupStatusUpdater(serverBackup, serverBackupRepository);
+
+        backupStatusUpdater.progress(BackupProgressStatus.BACKUP_CONFIG_REPO, 10, 40);
+
+        verify(serverBackupRepository).update(serverBackup);
+        assertThat(serverBackup.getMessage()).isEqualTo("Backing up Configuration History (10 of 40 files)");
+    }
+
     @Test
     void shouldUpdateError() {
         ServerBackup serverBackup = new ServerBackup("path", new Date(), "admin", "a message");
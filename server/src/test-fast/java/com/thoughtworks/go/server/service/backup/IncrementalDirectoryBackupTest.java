@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.backup;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalDirectoryBackupTest {
+    @TempDir
+    File temporaryFolder;
+    private File source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = new File(temporaryFolder, "source");
+        FileUtils.writeStringToFile(new File(source, "objects/ab/cdef"), "first object", UTF_8);
+        FileUtils.writeStringToFile(new File(source, "objects/12/3456"), "second object", UTF_8);
+        FileUtils.writeStringToFile(new File(source, "HEAD"), "ref: refs/heads/master", UTF_8);
+    }
+
+    @Test
+    void shouldCopyEveryFileOnTheFirstBackup() throws IOException {
+        File backup = new File(temporaryFolder, "backup-1");
+        List<Long> progress = new ArrayList<>();
+
+        IncrementalDirectoryBackup.Result result = new IncrementalDirectoryBackup(source, backup, null, 2).backup((done, total) -> progress.add(done));
+
+        assertThat(result.getCopiedFiles()).isEqualTo(3);
+        assertThat(result.getLinkedFiles()).isEqualTo(0);
+        assertThat(result.getProblems()).isEmpty();
+        assertThat(FileUtils.readFileToString(new File(backup, "objects/ab/cdef"), UTF_8)).isEqualTo("first object");
+        assertThat(FileUtils.readFileToString(new File(backup, "HEAD"), UTF_8)).isEqualTo("ref: refs/heads/master");
+        assertThat(progress).endsWith(3L);
+    }
+
+    @Test
+    void shouldLinkUnchangedFilesToThePreviousBackup() throws IOException {
+        File firstBackup = new File(temporaryFolder, "backup-1");
+        new IncrementalDirectoryBackup(source, firstBackup, null, 2).backup((done, total) -> {
+        });
+        FileUtils.writeStringToFile(new File(source, "HEAD"), "ref: refs/heads/a-much-longer-branch-name", UTF_8);
+        FileUtils.writeStringToFile(new File(source, "objects/98/7654"), "third object", UTF_8);
+
+        File secondBackup = new File(temporaryFolder, "backup-2");
+        IncrementalDirectoryBackup.Result result = new IncrementalDirectoryBackup(source, secondBackup, firstBackup, 2).backup((done, total) -> {
+        });
+
+        assertThat(result.getLinkedFiles()).isEqualTo(2);
+        assertThat(result.getCopiedFiles()).isEqualTo(2);
+        assertThat(Files.isSameFile(new File(firstBackup, "objects/ab/cdef").toPath(), new File(secondBackup, "objects/ab/cdef").toPath())).isTrue();
+        assertThat(FileUtils.readFileToString(new File(secondBackup, "HEAD"), UTF_8)).isEqualTo("ref: refs/heads/a-much-longer-branch-name");
+        assertThat(FileUtils.readFileToString(new File(firstBackup, "HEAD"), UTF_8)).isEqualTo("ref: refs/heads/master");
+        assertThat(result.getProblems()).isEmpty();
+    }
+}
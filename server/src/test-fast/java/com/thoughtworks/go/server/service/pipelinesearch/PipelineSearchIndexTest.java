@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.pipelinesearch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineSearchIndexTest {
+    @TempDir
+    File directory;
+    private PipelineSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new PipelineSearchIndex(directory);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void shouldFindPipelinesByAnyOfTheirFieldsNewestFirst() throws IOException {
+        index.add(Arrays.asList(
+                document(1, "up", "1", "Fix the BUILD", "bob", "abc123"),
+                document(2, "up", "2", "refactor", "alice", "def456"),
+                document(3, "Up", "3", "fix tests", "bob", "0a1b2c")), 3);
+
+        assertThat(index.search("UP", "fix", 3, 10)).containsExactly(3L, 1L);
+        assertThat(index.search("up", "ALICE", 3, 10)).containsExactly(2L);
+        assertThat(index.search("up", "c12", 3, 10)).containsExactly(1L);
+        assertThat(index.search("up", "fix", 3, 1)).containsExactly(3L);
+        assertThat(index.indexedUpTo()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldOnlyReturnExactSubstringMatches() throws IOException {
+        index.add(Collections.singletonList(document(1, "up", "1", "abc bcd")), 1);
+
+        assertThat(index.search("up", "abcd", 1, 10)).isEmpty();
+        assertThat(index.search("up", "c bc", 1, 10)).containsExactly(1L);
+    }
+
+    @Test
+    void shouldNotMatchAcrossFieldsOrOnTheExactLabel() throws IOException {
+        index.add(Arrays.asList(document(1, "up", "1.2", "ab", "cd"), document(2, "up", "release-1.2", "ok")), 2);
+
+        assertThat(index.search("up", "bcd", 2, 10)).isEmpty();
+        assertThat(index.search("up", "1.2", 2, 10)).containsExactly(2L);
+    }
+
+    @Test
+    void shouldNotReturnPipelinesOfOtherPipelinesOrBeyondTheGivenId() throws IOException {
+        index.add(Arrays.asList(document(1, "up", "1", "fix"), document(2, "down", "1", "fix"), document(3, "up", "2", "fix")), 3);
+
+        assertThat(index.search("up", "fix", 2, 10)).containsExactly(1L);
+        assertThat(index.search("unknown", "fix", 3, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldIndexPipelinesCommittedOutOfOrder() throws IOException {
+        index.add(Arrays.asList(document(1, "up", "1", "fix"), document(3, "up", "3", "fix")), 3);
+        index.add(Collections.singletonList(document(2, "up", "2", "fix")), 3);
+
+        assertThat(index.search("up", "fix", 3, 10)).containsExactly(3L, 2L, 1L);
+        assertThat(index.indexedUpTo()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldAddLatePipelinesWithoutChangingWhatIsIndexed() throws IOException {
+        index.add(Collections.singletonList(document(3, "up", "3", "fix")), 3);
+
+        index.add(Collections.singletonList(document(2, "Up", "2", "fix")));
+
+        assertThat(index.indexedUpTo()).isEqualTo(3);
+        assertThat(index.contains("UP", 2)).isTrue();
+        assertThat(index.contains("up", 1)).isFalse();
+        assertThat(index.search("up", "fix", 3, 10)).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void shouldSearchManyDistinctTrigramsOfAPipeline() throws IOException {
+        StringBuilder alphabet = new StringBuilder();
+        for (char c = 'a'; c <= 'z'; c++) {
+            alphabet.append(c).append(Character.toUpperCase(c)).append(c).append(c);
+        }
+        index.add(Arrays.asList(document(1, "up", "1", alphabet.toString()), document(2, "up", "2", alphabet.reverse().toString())), 2);
+
+        assertThat(index.search("up", "aaab", 2, 10)).containsExactly(1L);
+        assertThat(index.search("up", "bbba", 2, 10)).containsExactly(2L);
+        assertThat(index.search("up", "zzz", 2, 10)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void shouldMatchRegardlessOfTheDefaultLocale() throws IOException {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr"));
+        try {
+            index.add(Collections.singletonList(document(1, "UPSTREAM-I", "1", "FIX IT")), 1);
+
+            assertThat(index.search("upstream-i", "fix it", 1, 10)).containsExactly(1L);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void shouldSkipPipelinesWhichAreAlreadyIndexed() throws IOException {
+        index.add(Collections.singletonList(document(1, "up", "1", "fix")), 1);
+        index.add(Collections.singletonList(document(1, "up", "1", "fix")), 1);
+
+        assertThat(index.documentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadTheIndexFromDisk() throws IOException {
+        index.add(Arrays.asList(document(1, "up", "1", "fix \u00fcn\u00efcode"), document(2, "up", "2", "other")), 2);
+        index.close();
+
+        index = new PipelineSearchIndex(directory);
+
+        assertThat(index.indexedUpTo()).isEqualTo(2);
+        assertThat(index.documentCount()).isEqualTo(2);
+        assertThat(index.search("up", "\u00fcn\u00ef", 2, 10)).containsExactly(1L);
+        assertThat(index.search("up", "other", 2, 10)).containsExactly(2L);
+    }
+
+    @Test
+    void shouldDropAPartiallyWrittenDocumentOnLoad() throws IOException {
+        index.add(Collections.singletonList(document(1, "up", "1", "fix")), 1);
+        index.close();
+        try (RandomAccessFile documents = new RandomAccessFile(new File(directory, PipelineSearchIndex.DOCUMENTS_FILE), "rw")) {
+            documents.seek(documents.length());
+            documents.write("2\tup\t2\u001fhalf".getBytes());
+        }
+
+        index = new PipelineSearchIndex(directory);
+        index.add(Collections.singletonList(document(2, "up", "2", "fixed")), 2);
+
+        assertThat(index.search("up", "fix", 2, 10)).containsExactly(2L, 1L);
+        assertThat(index.search("up", "half", 2, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldNotSearchPatternsShorterThanATrigram() {
+        assertThat(PipelineSearchIndex.canSearch("ab")).isFalse();
+        assertThat(PipelineSearchIndex.canSearch("abc")).isTrue();
+    }
+
+    private PipelineSearchIndex.Document document(long id, String pipelineName, String label, String... fields) {
+        PipelineSearchIndex.Document document = new PipelineSearchIndex.Document(id, pipelineName, label);
+        for (String field : fields) {
+            document.addField(field);
+        }
+        return document;
+    }
+}
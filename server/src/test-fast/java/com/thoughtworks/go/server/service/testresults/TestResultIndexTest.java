@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.testresults;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.thoughtworks.go.server.service.testresults.TestCaseResult.Status.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TestResultIndexTest {
+    @TempDir
+    File directory;
+    private TestResultIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new TestResultIndex(directory);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void shouldReturnHistoryOfATestNewestFirst() throws IOException {
+        index.append("p/s/j", 10, 1, 1, Arrays.asList(result("FooTest.a", 10, passed), result("FooTest.b", 5, passed)));
+        index.append("p/s/j", 11, 2, 1, Arrays.asList(result("FooTest.a", 12, failed), result("FooTest.b", 6, passed)));
+        index.append("p/s/j", 12, 3, 1, Arrays.asList(result("FooTest.a", 14, error)));
+
+        List<TestCaseResult> history = index.history("p/s/j", "FooTest.a", 10);
+
+        assertThat(history).containsExactly(
+                new TestCaseResult(12, 3, 1, "FooTest.a", 14, error),
+                new TestCaseResult(11, 2, 1, "FooTest.a", 12, failed),
+                new TestCaseResult(10, 1, 1, "FooTest.a", 10, passed));
+        assertThat(index.history("p/s/j", "FooTest.a", 1)).hasSize(1);
+        assertThat(index.rowCount()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldKeepTestsOfDifferentJobsApart() throws IOException {
+        index.append("p/s/j1", 10, 1, 1, Arrays.asList(result("FooTest.a", 10, passed)));
+        index.append("p/s/j2", 11, 1, 1, Arrays.asList(result("FooTest.a", 20, failed)));
+
+        assertThat(index.history("p/s/j1", "FooTest.a", 10)).containsExactly(new TestCaseResult(10, 1, 1, "FooTest.a", 10, passed));
+        assertThat(index.history("p/s/j3", "FooTest.a", 10)).isEmpty();
+        assertThat(index.history("p/s/j1", "FooTest.unknown", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldReturnSlowestTestsOverTheLatestRuns() throws IOException {
+        index.append("p/s/j", 10, 1, 1, Arrays.asList(result("FooTest.a", 1000, passed), result("FooTest.b", 10, passed)));
+        index.append("p/s/j", 11, 2, 1, Arrays.asList(result("FooTest.a", 10, passed), result("FooTest.b", 30, passed)));
+        index.append("p/s/j", 12, 3, 1, Arrays.asList(result("FooTest.a", 20, passed), result("FooTest.b", 50, passed), result("FooTest.c", -1, skipped)));
+        index.append("p/s/other", 13, 3, 1, Arrays.asList(result("FooTest.z", 5000, passed)));
+
+        List<TestCaseDuration> slowest = index.slowest("p/s/j", 2, 10);
+
+        assertThat(slowest).extracting(TestCaseDuration::getTestName).containsExactly("FooTest.b", "FooTest.a");
+        assertThat(slowest.get(0).getRuns()).isEqualTo(2);
+        assertThat(slowest.get(0).getAverageInMillis()).isEqualTo(40);
+        assertThat(slowest.get(0).getMaxInMillis()).isEqualTo(50);
+        assertThat(index.slowest("p/s/j", 3, 1)).extracting(TestCaseDuration::getTestName).containsExactly("FooTest.a");
+    }
+
+    @Test
+    void shouldReloadIndexAndDropPartiallyWrittenRows() throws IOException {
+        index.append("p/s/j", 10, 1, 1, Arrays.asList(result("FooTest.a", 10, passed)));
+        index.append("p/s/j", 11, 2, 1, Arrays.asList(result("FooTest.a", 12, failed)));
+        index.close();
+
+        try (RandomAccessFile durations = new RandomAccessFile(new File(directory, "durations.col"), "rw")) {
+            durations.setLength(durations.length() - 2);
+        }
+        index = new TestResultIndex(directory);
+
+        assertThat(index.rowCount()).isEqualTo(1);
+        assertThat(index.history("p/s/j", "FooTest.a", 10)).containsExactly(new TestCaseResult(10, 1, 1, "FooTest.a", 10, passed));
+
+        index.append("p/s/j", 12, 3, 1, Arrays.asList(result("FooTest.a", 8, passed)));
+        assertThat(index.history("p/s/j", "FooTest.a", 10)).extracting(TestCaseResult::getJobId).containsExactly(12L, 10L);
+    }
+
+    @Test
+    void shouldFollowHistoryAndRunsOfAJobAcrossOtherJobsAfterReload() throws IOException {
+        index.append("p/s/j", 10, 1, 1, Arrays.asList(result("FooTest.a", 10, passed), result("FooTest.b", 100, skipped)));
+        index.append("p/s/other", 11, 1, 1, Arrays.asList(result("FooTest.a", 5000, error)));
+        index.append("p/s/j", 12, 2, 1, Arrays.asList(result("FooTest.a", 30, failed)));
+        index.close();
+
+        index = new TestResultIndex(directory);
+        index.append("p/s/other", 13, 2, 1, Arrays.asList(result("FooTest.a", 6000, passed)));
+        index.append("p/s/j", 14, 3, 1, Arrays.asList(result("FooTest.a", 50, passed)));
+
+        assertThat(index.history("p/s/j", "FooTest.a", 10)).containsExactly(
+                new TestCaseResult(14, 3, 1, "FooTest.a", 50, passed),
+                new TestCaseResult(12, 2, 1, "FooTest.a", 30, failed),
+                new TestCaseResult(10, 1, 1, "FooTest.a", 10, passed));
+        assertThat(index.history("p/s/j", "FooTest.b", 10)).containsExactly(new TestCaseResult(10, 1, 1, "FooTest.b", 100, skipped));
+        assertThat(index.slowest("p/s/j", 2, 10)).extracting(TestCaseDuration::getTestName, TestCaseDuration::getAverageInMillis)
+                .containsExactly(tuple("FooTest.a", 40L));
+    }
+
+    private TestCaseResult result(String testName, int duration, TestCaseResult.Status status) {
+        return new TestCaseResult(0, 0, 0, testName, duration, status);
+    }
+}
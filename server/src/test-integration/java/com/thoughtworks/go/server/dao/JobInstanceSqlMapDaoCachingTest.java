@@ -136,6 +136,51 @@ public class JobInstanceSqlMapDaoCachingTest {
         assertThat(plans, is(expectedPlans));
 
         verify(mockTemplate, times(2)).queryForObject(eq("scheduledPlan"), any());
+        verify(mockTemplate, times(1)).queryForList(eq("scheduledPlanIds"));
+    }
+
+    @Test
+    public void orderedScheduledBuilds_shouldKeepTheScheduledJobsUpToDateAsJobsChangeState() {
+        when(mockTemplate.queryForList(eq("scheduledPlanIds"))).thenReturn(Arrays.asList(1L, 2L));
+
+        final DefaultJobPlan firstJob = jobPlan(1);
+        final DefaultJobPlan secondJob = jobPlan(2);
+        final DefaultJobPlan thirdJob = jobPlan(3);
+        when(mockTemplate.queryForObject("scheduledPlan", arguments("id", 1L).asMap())).thenReturn(firstJob);
+        when(mockTemplate.queryForObject("scheduledPlan", arguments("id", 2L).asMap())).thenReturn(secondJob);
+        when(mockTemplate.queryForObject("scheduledPlan", arguments("id", 3L).asMap())).thenReturn(thirdJob);
+
+        jobInstanceDao.setSqlMapClientTemplate(mockTemplate);
+        jobInstanceDao.orderedScheduledBuilds();
+
+        JobInstance assigned = JobInstanceMother.assigned("first");
+        assigned.setId(1L);
+        jobInstanceDao.updateStateAndResult(assigned);
+        jobInstanceDao.updateStateAndResult(instance(3));
+
+        List<JobPlan> plans = jobInstanceDao.orderedScheduledBuilds();
+
+        assertThat(plans, is(Arrays.asList(secondJob, thirdJob)));
+        verify(mockTemplate, times(1)).queryForList(eq("scheduledPlanIds"));
+    }
+
+    @Test
+    public void orderedScheduledBuilds_shouldReadTheScheduledJobsAgainOnceTheCacheIsCleared() {
+        when(mockTemplate.queryForList(eq("scheduledPlanIds"))).thenReturn(Arrays.asList(1L), Arrays.asList(1L, 2L));
+
+        final DefaultJobPlan firstJob = jobPlan(1);
+        final DefaultJobPlan secondJob = jobPlan(2);
+        when(mockTemplate.queryForObject("scheduledPlan", arguments("id", 1L).asMap())).thenReturn(firstJob);
+        when(mockTemplate.queryForObject("scheduledPlan", arguments("id", 2L).asMap())).thenReturn(secondJob);
+
+        jobInstanceDao.setSqlMapClientTemplate(mockTemplate);
+        jobInstanceDao.orderedScheduledBuilds();
+
+        goCache.clear();
+
+        List<JobPlan> plans = jobInstanceDao.orderedScheduledBuilds();
+
+        assertThat(plans, is(Arrays.asList(firstJob, secondJob)));
         verify(mockTemplate, times(2)).queryForList(eq("scheduledPlanIds"));
     }
 
@@ -160,7 +205,7 @@ public class JobInstanceSqlMapDaoCachingTest {
         assertThat(plans, is(expectedPlans));
 
         verify(mockTemplate, times(2)).queryForObject("scheduledPlan", arguments("id", 1L).asMap());//because the cache is cleared
-        verify(mockTemplate, times(2)).queryForList(eq("scheduledPlanIds"));
+        verify(mockTemplate, times(1)).queryForList(eq("scheduledPlanIds"));
     }
 
     private JobInstance instance(long id) {
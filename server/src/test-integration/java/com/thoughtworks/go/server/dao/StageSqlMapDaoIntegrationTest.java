@@ -36,6 +36,7 @@ import com.thoughtworks.go.server.service.ScheduleTestUtil;
 import com.thoughtworks.go.server.service.result.HttpOperationResult;
 import com.thoughtworks.go.server.transaction.SqlMapClientTemplate;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeysetPage;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.Clock;
 import com.thoughtworks.go.util.GoConfigFileHelper;
@@ -1674,6 +1675,46 @@ public class StageSqlMapDaoIntegrationTest {
 		assertJobDetails(stageInstanceModels.get(0).getBuildHistory());
 	}
 
+	@Test
+	public void shouldGetDetailedStageHistoryViaCursor() throws Exception {
+		HgMaterial hg = new HgMaterial("url", null);
+		String[] hg_revs = {"h1", "h2", "h3"};
+		scheduleUtil.checkinInOrder(hg, hg_revs);
+
+		String pipelineName = "p1";
+		String stageName = "stage_name";
+
+		ScheduleTestUtil.AddedPipeline p1 = scheduleUtil.saveConfigWith(pipelineName, stageName, scheduleUtil.m(hg), new String[]{"job1", "job2"});
+		scheduleUtil.runAndPass(p1, "h1");
+		scheduleUtil.runAndPass(p1, "h2");
+		scheduleUtil.runAndPass(p1, "h3");
+
+		KeysetPage<StageInstanceModels> latest = stageDao.findDetailedStageHistoryViaCursor(pipelineName, stageName, FeedModifier.Latest, 0, 2);
+		assertThat(latest.getItems().size(), is(2));
+		assertThat(latest.getItems().get(0).getIdentifier().getPipelineCounter(), is(3));
+		assertThat(latest.getItems().get(1).getIdentifier().getPipelineCounter(), is(2));
+		assertJobDetails(latest.getItems().get(1).getBuildHistory());
+		assertThat(latest.getPagination().hasNewer(), is(false));
+		assertThat(latest.getPagination().olderCursor(), is(latest.getItems().get(1).getId()));
+
+		KeysetPage<StageInstanceModels> older = stageDao.findDetailedStageHistoryViaCursor(pipelineName, stageName, FeedModifier.Before, latest.getPagination().olderCursor(), 2);
+		assertThat(older.getItems().size(), is(1));
+		assertThat(older.getItems().get(0).getIdentifier().getPipelineCounter(), is(1));
+		assertThat(older.getPagination().newerCursor(), is(older.getItems().get(0).getId()));
+		assertThat(older.getPagination().hasOlder(), is(false));
+
+		KeysetPage<StageInstanceModels> newer = stageDao.findDetailedStageHistoryViaCursor(pipelineName, stageName, FeedModifier.After, older.getPagination().newerCursor(), 1);
+		assertThat(newer.getItems().size(), is(1));
+		assertThat(newer.getItems().get(0).getIdentifier().getPipelineCounter(), is(2));
+		assertThat(newer.getPagination().newerCursor(), is(newer.getItems().get(0).getId()));
+		assertThat(newer.getPagination().olderCursor(), is(newer.getItems().get(0).getId()));
+
+		KeysetPage<StageInstanceModels> beyondOldest = stageDao.findDetailedStageHistoryViaCursor(pipelineName, stageName, FeedModifier.Before, older.getItems().get(0).getId(), 2);
+		assertThat(beyondOldest.getItems().size(), is(0));
+		assertThat(beyondOldest.getPagination().newerCursor(), is(older.getItems().get(0).getId() - 1));
+		assertThat(beyondOldest.getPagination().hasOlder(), is(false));
+	}
+
 	private void assertJobDetails(JobHistory buildHistory) {
 		assertThat(buildHistory.size(), is(2));
 		Set<String> jobNames = new HashSet<>(Arrays.asList(buildHistory.get(0).getName(), buildHistory.get(1).getName()));
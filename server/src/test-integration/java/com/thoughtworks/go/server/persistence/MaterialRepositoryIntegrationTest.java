@@ -89,6 +89,7 @@ import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -962,6 +963,27 @@ public class MaterialRepositoryIntegrationTest {
         assertThat(materialRevision.getLatestRevisionString(), is(second.getLatestRevisionString()));
     }
 
+    @Test
+    public void findLatestModification_shouldGiveEachPipelineSharingARepositoryItsOwnMaterial() {
+        GitMaterial first = new GitMaterial("http://git/repo", "master", "first-dest");
+        first.setFilter(new Filter(new IgnoredFiles("**/*.doc")));
+        GitMaterial second = new GitMaterial("http://git/repo", "master", "second-dest");
+        second.setFilter(new Filter(new IgnoredFiles("**/*.txt")));
+        repo.saveOrUpdate(first.createMaterialInstance());
+        MaterialRevision latest = saveOneScmModification("r1", first, "user", "file.c", "comment");
+        long missesBefore = repo.latestRevisionCache().misses();
+
+        MaterialRevision forFirst = repo.findLatestModification(first).getMaterialRevision(0);
+        MaterialRevision forSecond = repo.findLatestModification(second).getMaterialRevision(0);
+
+        assertThat(repo.latestRevisionCache().misses() - missesBefore, is(1L));
+        assertThat(forFirst.getMaterial(), is(sameInstance(first)));
+        assertThat(forFirst.getLatestRevisionString(), is(latest.getLatestRevisionString()));
+        assertThat(forSecond.getMaterial(), is(sameInstance(second)));
+        assertThat(((GitMaterial) forSecond.getMaterial()).getFolder(), is("second-dest"));
+        assertThat(forSecond.getLatestRevisionString(), is(latest.getLatestRevisionString()));
+    }
+
     @Test
     public void shouldCacheModificationCountsForMaterialCorrectly() throws Exception {
         ScmMaterial material = material();
@@ -1224,6 +1246,31 @@ public class MaterialRepositoryIntegrationTest {
         });
     }
 
+    @Test
+    public void shouldRemoveEveryCopyOfARevisionThatIsAlreadySaved() {
+        final MaterialInstance materialInstance = repo.findOrCreateFrom(new GitMaterial(UUID.randomUUID().toString(), "branch"));
+        final ArrayList<Modification> firstSetOfModifications = getModifications(2);
+        transactionTemplate.execute(new TransactionCallback() {
+            public Object doInTransaction(TransactionStatus status) {
+                repo.saveModifications(materialInstance, firstSetOfModifications);
+                return null;
+            }
+        });
+
+        final ArrayList<Modification> secondSetOfModifications = getModifications(3);
+        secondSetOfModifications.add(0, new Modification("user", "comment", "email", new Date(), "r1"));
+        transactionTemplate.execute(new TransactionCallback() {
+            public Object doInTransaction(TransactionStatus status) {
+                repo.saveModifications(materialInstance, secondSetOfModifications);
+                return null;
+            }
+        });
+
+        Modifications modificationsFromDb = repo.getModificationsFor(materialInstance, Pagination.pageByNumber(1, 10, 10));
+        assertThat(modificationsFromDb.size(), is(3));
+        assertThat(repo.findLatestModification(materialInstance).getRevision(), is("r2"));
+    }
+
     @Test
     public void shouldAllowSavingModificationsIfRevisionsAcrossDifferentMaterialsHappenToBeSame() {
         final MaterialInstance materialInstance1 = repo.findOrCreateFrom(new GitMaterial(UUID.randomUUID().toString(), "branch"));
@@ -1294,6 +1341,30 @@ public class MaterialRepositoryIntegrationTest {
         assertThat(repo.getTotalModificationsFor(materialInstance), is(new Long(count+1)));
     }
 
+    @Test
+    public void shouldSaveModificationsAndTheirFilesAcrossFlushBatches() {
+        final MaterialInstance materialInstance = repo.findOrCreateFrom(new GitMaterial(UUID.randomUUID().toString(), "branch"));
+        int count = MaterialRepository.MODIFICATIONS_FLUSH_BATCH_SIZE * 2 + 1;
+        final ArrayList<Modification> modifications = getModifications(count);
+        for (Modification modification : modifications) {
+            modification.createModifiedFile("file-" + modification.getRevision(), "folder", ModifiedAction.added);
+        }
+        transactionTemplate.execute(new TransactionCallback() {
+            public Object doInTransaction(TransactionStatus status) {
+                repo.saveModifications(materialInstance, modifications);
+                return null;
+            }
+        });
+
+        assertThat(repo.getTotalModificationsFor(materialInstance), is((long) count));
+        for (Modification modification : modifications) {
+            assertThat(modification.getId() > 0, is(true));
+        }
+        Modification latest = repo.findLatestModification(materialInstance);
+        assertThat(latest.getRevision(), is("r0"));
+        assertThat(latest.getModifiedFiles().get(0).getFileName(), is("file-r0"));
+    }
+
     private ArrayList<Modification> getModifications(int count) {
         final ArrayList<Modification> modifications = new ArrayList<>();
         for (int i = 0; i < count; i++) {
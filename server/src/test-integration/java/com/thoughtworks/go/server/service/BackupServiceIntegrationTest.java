@@ -58,6 +58,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import javax.sql.DataSource;
 import java.io.*;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -190,6 +191,37 @@ public class BackupServiceIntegrationTest {
         assertThat(FileUtils.readFileToString(new File(cloneDir, "cruise-config.xml"), UTF_8).indexOf("too-unique-to-be-present"), is(-1));
     }
 
+    @Test
+    public void shouldBackupConfigRepositoryIncrementallyWhenEnabled() throws IOException {
+        System.setProperty(SystemEnvironment.GO_SERVER_BACKUP_INCREMENTAL.propertyName(), "true");
+        try {
+            TimeProvider timeProvider = mock(TimeProvider.class);
+            DateTime firstBackupTime = new DateTime().minusMinutes(1);
+            DateTime secondBackupTime = new DateTime();
+            when(timeProvider.currentDateTime()).thenReturn(firstBackupTime, secondBackupTime);
+            BackupService service = new BackupService(artifactsDirHolder, goConfigService, timeProvider, backupInfoRepository, systemEnvironment, configRepository, databaseStrategy, null);
+
+            assertThat(service.startBackup(admin).isSuccessful(), is(true));
+            configHelper.addPipeline("too-unique-to-be-present", "stage-name");
+            assertThat(service.startBackup(admin).isSuccessful(), is(true));
+
+            File firstRepoBackup = new File(backupDir(firstBackupTime), BackupService.CONFIG_REPOSITORY_BACKUP_DIR);
+            File secondRepoBackup = new File(backupDir(secondBackupTime), BackupService.CONFIG_REPOSITORY_BACKUP_DIR);
+            assertThat(new File(backupDir(secondBackupTime), "config-repo.zip").exists(), is(false));
+            File objectOfFirstBackup = FileUtils.listFiles(new File(firstRepoBackup, "objects"), null, true).iterator().next();
+            File sameObjectInSecondBackup = new File(secondRepoBackup, firstRepoBackup.toPath().relativize(objectOfFirstBackup.toPath()).toString());
+            assertThat(Files.isSameFile(objectOfFirstBackup.toPath(), sameObjectInSecondBackup.toPath()), is(true));
+
+            File cloneDir = temporaryFolder.newFolder("cloned-config-repo-backup");
+            GitMaterial git = new GitMaterial(secondRepoBackup.getAbsolutePath());
+            String latestChangeRev = git.latestModification(cloneDir, subprocessExecutionContext).get(0).getRevision();
+            git.checkout(cloneDir, new StringRevision(latestChangeRev), subprocessExecutionContext);
+            assertThat(FileUtils.readFileToString(new File(cloneDir, "cruise-config.xml"), UTF_8).indexOf("too-unique-to-be-present"), greaterThan(0));
+        } finally {
+            System.clearProperty(SystemEnvironment.GO_SERVER_BACKUP_INCREMENTAL.propertyName());
+        }
+    }
+
     @Test
     public void shouldCaptureVersionForEveryBackup() throws IOException {
         BackupService backupService = new BackupService(artifactsDirHolder, goConfigService, timeProvider, backupInfoRepository, systemEnvironment, configRepository, databaseStrategy, null);
@@ -207,6 +207,7 @@ public class DatabaseAccessHelper extends HibernateDaoSupport {
     public void onTearDown() throws Exception {
         databaseTester.onTearDown();
         goCache.clear();
+        materialRepository.latestRevisionCache().clear();
     }
 
     public TransactionTemplate txTemplate() {
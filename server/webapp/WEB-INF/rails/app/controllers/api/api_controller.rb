@@ -16,4 +16,21 @@
 
 class Api::ApiController < ApplicationController
   skip_before_action :verify_authenticity_token
+
+  protected
+
+  # A page of history can be asked for by the id of an instance next to it, in the `after` or `before` parameter.
+  # Yields which of the two it is and the id, or renders a bad request when they don't make sense.
+  def with_history_cursor
+    after, before = params[:after], params[:before]
+    return render_error_response("Request must contain only one of the query parameters `after` and `before`.", 400, true) if after && before
+    name, value = after ? ['after', after] : ['before', before]
+    cursor = Integer(value, 10) rescue -1
+    return render_error_response("The query parameter `#{name}` must be a non-negative integer.", 400, true) if cursor < 0
+    yield(after ? FeedModifier::After : FeedModifier::Before, cursor)
+  end
+
+  def history_cursor?
+    params[:after] || params[:before]
+  end
 end
@@ -40,6 +40,7 @@ class Api::JobsController < Api::ApiController
   end
 
   def history
+    return history_via_cursor if history_cursor?
     pipeline_name = params[:pipeline_name]
     stage_name = params[:stage_name]
     job_name = params[:job_name]
@@ -58,4 +59,19 @@ class Api::JobsController < Api::ApiController
       render_error_response(result.detailedMessage(), result.httpCode(), true)
     end
   end
+
+  private
+
+  def history_via_cursor
+    with_history_cursor do |feed_modifier, cursor|
+      result = HttpOperationResult.new
+      page = job_instance_service.findJobHistoryViaCursor(params[:pipeline_name], params[:stage_name], params[:job_name], feed_modifier, cursor, 10, CaseInsensitiveString.str(current_user.getUsername()), result)
+
+      if result.canContinue()
+        render json: JobHistoryAPIModel.new(page.getPagination(), page.getItems())
+      else
+        render_error_response(result.detailedMessage(), result.httpCode(), true)
+      end
+    end
+  end
 end
@@ -21,6 +21,7 @@ class Api::PipelinesController < Api::ApiController
   helper_method :url, :resource_url, :page_url
 
   def history
+    return history_via_cursor if history_cursor?
     pipeline_name = params[:pipeline_name]
     offset = params[:offset].to_i
     page_size = 10
@@ -93,6 +94,19 @@ class Api::PipelinesController < Api::ApiController
   end
 
   private
+  def history_via_cursor
+    with_history_cursor do |feed_modifier, cursor|
+      result = HttpOperationResult.new
+      page = pipeline_history_service.loadMinimalDataViaCursor(params[:pipeline_name], feed_modifier, cursor, 10, current_user, result)
+
+      if result.canContinue()
+        render json: PipelineHistoryAPIModel.new(page.getPagination(), page.getItems())
+      else
+        render_error_response(result.detailedMessage(), result.httpCode(), true)
+      end
+    end
+  end
+
   def merge_revisions(pipeline_name, new_revisions_using_name, original_fingerprint, new_revisions_with_fingerprint)
     new_revisions_using_name.delete_if { |key, value| value.blank? }.each do |material_name, revision|
       material_config = go_config_service.findMaterialWithName(CaseInsensitiveString.new(pipeline_name), CaseInsensitiveString.new(material_name))
@@ -18,7 +18,7 @@ class JobHistoryAPIModel
   attr_reader :pagination, :jobs
 
   def initialize(pagination, job_instances)
-    @pagination = PaginationAPIModel.new(pagination)
+    @pagination = pagination.is_a?(KeysetPagination) ? KeysetPaginationAPIModel.new(pagination) : PaginationAPIModel.new(pagination)
 
     @jobs = job_instances.collect do |job_instance|
       JobInstanceAPIModel.new(job_instance)
@@ -0,0 +1,26 @@
+##########################GO-LICENSE-START################################
+# Copyright 2019 ThoughtWorks, Inc.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+##########################GO-LICENSE-END##################################
+
+class KeysetPaginationAPIModel
+  attr_reader :page_size, :after, :before
+
+  # `after` fetches the newer page and `before` the older one; either is nil when there is no such page
+  def initialize(pagination)
+    @page_size = pagination.getPageSize()
+    @after = pagination.newerCursor()
+    @before = pagination.olderCursor()
+  end
+end
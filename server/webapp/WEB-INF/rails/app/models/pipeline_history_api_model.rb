@@ -18,7 +18,7 @@ class PipelineHistoryAPIModel
   attr_reader :pagination, :pipelines
 
   def initialize(pagination, pipeline_history)
-    @pagination = PaginationAPIModel.new(pagination)
+    @pagination = pagination.is_a?(KeysetPagination) ? KeysetPaginationAPIModel.new(pagination) : PaginationAPIModel.new(pagination)
     @pipelines = pipeline_history.collect do |pipeline_instance_model|
       PipelineInstanceAPIModel.new(pipeline_instance_model)
     end
@@ -130,6 +130,7 @@ module JavaImports
   java_import com.thoughtworks.go.presentation.UserSearchModel unless defined? UserSearchModel
   java_import com.thoughtworks.go.presentation.UserSourceType unless defined? UserSourceType
   java_import com.thoughtworks.go.remote.AgentIdentifier unless defined? AgentIdentifier
+  java_import com.thoughtworks.go.server.dao.FeedModifier unless defined? FeedModifier
   java_import com.thoughtworks.go.server.domain.JobDurationStrategy unless defined? JobDurationStrategy
   java_import com.thoughtworks.go.server.domain.Username unless defined? Username
   java_import com.thoughtworks.go.server.domain.user.PipelineSelections unless defined? PipelineSelections
@@ -152,6 +153,8 @@ module JavaImports
   java_import com.thoughtworks.go.server.ui.StageSummaryModel unless defined? StageSummaryModel
   java_import com.thoughtworks.go.server.ui.StageSummaryModels unless defined? StageSummaryModels
   java_import com.thoughtworks.go.server.ui.ViewCacheKey unless defined? ViewCacheKey
+  java_import com.thoughtworks.go.server.util.KeysetPage unless defined? KeysetPage
+  java_import com.thoughtworks.go.server.util.KeysetPagination unless defined? KeysetPagination
   java_import com.thoughtworks.go.server.util.Pagination unless defined? Pagination
   java_import com.thoughtworks.go.util.GoConstants unless defined? GoConstants
   java_import com.thoughtworks.go.util.SystemEnvironment unless defined? SystemEnvironment
@@ -112,6 +112,26 @@ describe Api::JobsController do
       expect(response.body).to eq("Not Acceptable\n")
     end
 
+    it "should render history before a job instance without counting the history" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      pagination = KeysetPagination.of(10, 21, 12)
+      expect(@job_instance_service).to receive(:findJobHistoryViaCursor).with('pipeline', 'stage', 'job', FeedModifier::Before, 30, 10, "loser", anything).and_return(KeysetPage.new([create_job_model], pagination))
+      expect(@job_instance_service).not_to receive(:getJobHistoryCount)
+
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :job_name => 'job', :before => '30', :no_layout => true}
+
+      expect(response.body).to eq(JobHistoryAPIModel.new(pagination, [create_job_model]).to_json)
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'after' => 21, 'before' => 12})
+    end
+
+    it "should not accept a cursor that is not a job instance id" do
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :job_name => 'job', :after => 'abc', :no_layout => true}
+
+      expect(response.status).to eq(400)
+      expect(response.body).to eq("The query parameter `after` must be a non-negative integer.\n")
+    end
+
     describe "route" do
       it "should route to history" do
         expect(:get => "/api/jobs/pipeline/stage/job/history").to route_to(:controller => 'api/jobs', :action => "history", :pipeline_name => "pipeline", :stage_name => "stage", :job_name => "job", :offset => "0", :no_layout => true)
@@ -77,6 +77,25 @@ describe Api::PipelinesController do
       expect(response.body).to eq("Not Acceptable\n")
     end
 
+    it "should render history after a pipeline instance without counting the history" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      pagination = KeysetPagination.of(10, nil, 11)
+      expect(@pipeline_history_service).to receive(:loadMinimalDataViaCursor).with('up42', FeedModifier::After, 10, 10, loser, anything).and_return(KeysetPage.new(create_pipeline_history_model, pagination))
+      expect(@pipeline_history_service).not_to receive(:totalCount)
+
+      get :history, params:{:pipeline_name => 'up42', :after => '10', :no_layout => true}
+
+      expect(response.body).to eq(PipelineHistoryAPIModel.new(pagination, create_pipeline_history_model).to_json)
+    end
+
+    it "should not accept both after and before" do
+      get :history, params:{:pipeline_name => 'up42', :after => '10', :before => '20', :no_layout => true}
+
+      expect(response.status).to eq(400)
+      expect(response.body).to eq("Request must contain only one of the query parameters `after` and `before`.\n")
+    end
+
     describe "route" do
       it "should route to history" do
         expect(:get => '/api/pipelines/up42/history').to route_to(:controller => "api/pipelines", :action => "history", :pipeline_name => 'up42', :offset => '0', :no_layout => true)
@@ -256,6 +256,12 @@ public class Routes {
                     "stage_counter", stageCounter));
         }
 
+        public static String history(String pipelineName, String stageName) {
+            return StrSubstitutor.replace(BASE + "/${pipeline_name}/${stage_name}/history", of(
+                    "pipeline_name", pipelineName,
+                    "stage_name", stageName));
+        }
+
         public static String stageDetailTab(String pipelineName, int pipelineCounter, String stageName, int stageCounter) {
             return StrSubstitutor.replace("/pipelines/${pipeline_name}/${pipeline_counter}/${stage_name}/${stage_counter}", of(
                     "pipeline_name", pipelineName,
@@ -438,6 +444,13 @@ public class Routes {
         public static final String PATH = "/:pipeline_name/:pipeline_counter";
     }
 
+    public class TestResults {
+        public static final String BASE = "/api/test_results";
+        public static final String PATH = "/:pipeline_name/:stage_name/:job_name";
+        public static final String HISTORY = "/history";
+        public static final String SLOWEST = "/slowest";
+    }
+
     public class AgentsSPA {
         public static final String BASE = "/agents";
     }
@@ -16,6 +16,7 @@
 package com.thoughtworks.go.util.command;
 
 import com.thoughtworks.go.util.Clock;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.SystemTimeClock;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
@@ -25,16 +26,29 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static java.lang.String.format;
 
 public class StreamPumper implements Runnable {
+    private static final AtomicInteger PUMP_THREAD_COUNT = new AtomicInteger();
+
+    /*
+     * Pumps run on pooled threads so that forking a process does not cost two thread creations. A pump must never
+     * wait for a free thread though: the process would block on a full pipe and never exit. So the pool hands work
+     * straight to an idle thread, and once it has grown to its maximum further pumps get a thread of their own.
+     */
+    private static final ThreadPoolExecutor PUMPS = new ThreadPoolExecutor(0, Math.max(1, new SystemEnvironment().get(SystemEnvironment.STREAM_PUMPER_MAX_POOLED_THREADS)),
+            60, TimeUnit.SECONDS, new SynchronousQueue<>(), StreamPumper::newPumpThread,
+            (pumper, executor) -> newPumpThread(pumper).start());
 
     private Reader in;
 
-    private boolean completed;
+    private volatile boolean completed;
+    private volatile RuntimeException consumerFailure;
+    private final CountDownLatch finished = new CountDownLatch(1);
     private final StreamConsumer streamConsumer;
     private final String prefix;
     private long lastHeard;
@@ -64,36 +78,54 @@ public class StreamPumper implements Runnable {
         } catch (Exception ignore) {
         } finally {
             completed = true;
+            finished.countDown();
         }
     }
 
     private void consumeLine(String line) {
         lastHeard = System.currentTimeMillis();
-        if (streamConsumer != null) {
+        // once the consumer has failed the rest of the stream is still read, or the process could block on a full pipe
+        if (streamConsumer == null || consumerFailure != null) {
+            return;
+        }
+        try {
             if (StringUtils.isBlank(prefix)) {
                 streamConsumer.consumeLine(line);
             } else {
                 streamConsumer.consumeLine(prefix + line);
             }
+        } catch (RuntimeException e) {
+            consumerFailure = e;
         }
     }
 
 
     public void readToEnd() {
+        boolean interrupted = false;
         while (!completed) {
             try {
-                clock.sleepForMillis(100);
-            } catch (InterruptedException ignored) {
+                finished.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
             }
         }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     public static StreamPumper pump(InputStream stream, StreamConsumer streamConsumer, String prefix, String encoding) {
         StreamPumper pumper = new StreamPumper(stream, streamConsumer, prefix, encoding);
-        new Thread(pumper).start();
+        PUMPS.execute(pumper);
         return pumper;
     }
 
+    private static Thread newPumpThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "stream-pumper-" + PUMP_THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
     private Long timeSinceLastLine(TimeUnit unit) {
         long now = clock.currentTimeMillis();
         return unit.convert(now - lastHeard, TimeUnit.MILLISECONDS);
@@ -107,4 +139,11 @@ public class StreamPumper implements Runnable {
     public long getLastHeard() {
         return lastHeard;
     }
+
+    /**
+     * @return what the consumer threw, if it did; the lines after that were read but not handed to it
+     */
+    public RuntimeException getConsumerFailure() {
+        return consumerFailure;
+    }
 }
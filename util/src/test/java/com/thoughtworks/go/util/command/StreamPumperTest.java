@@ -25,10 +25,13 @@ import java.io.InputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
 
 public class StreamPumperTest {
@@ -84,6 +87,53 @@ public class StreamPumperTest {
         assertThat(pumper.didTimeout(1L, TimeUnit.SECONDS), is(false));
     }
 
+    @Test
+    public void shouldPumpOnSharedPumpThreads() throws Exception {
+        List<String> threadNames = new ArrayList<>();
+        StreamPumper pumper = StreamPumper.pump(new ByteArrayInputStream("line1\n".getBytes()), line -> threadNames.add(Thread.currentThread().getName()), "", "utf-8");
+        pumper.readToEnd();
+
+        assertThat(threadNames.size(), is(1));
+        assertThat(threadNames.get(0), startsWith("stream-pumper-"));
+    }
+
+    @Test
+    public void shouldFinishReadingAsSoonAsTheStreamEnds() throws Exception {
+        int streams = 20;
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < streams; i++) {
+            PipedOutputStream output = new PipedOutputStream();
+            StreamPumper pumper = StreamPumper.pump(new PipedInputStream(output), new TestConsumer(), "", "utf-8");
+            output.write("line1\n".getBytes());
+            new Thread(() -> {
+                try {
+                    output.close();
+                } catch (Exception ignored) {
+                }
+            }).start();
+            pumper.readToEnd();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        // waiting by polling every 100ms took at least this long
+        assertThat(elapsedMillis, lessThan(streams * 100L));
+    }
+
+    @Test
+    public void shouldKeepReadingTheStreamOnceTheConsumerHasFailed() {
+        List<String> consumed = new ArrayList<>();
+        StreamPumper pumper = StreamPumper.pump(new ByteArrayInputStream("line1\nline2\nline3\n".getBytes()), line -> {
+            if (line.equals("line2")) {
+                throw new IllegalStateException("unparsable");
+            }
+            consumed.add(line);
+        }, "", "utf-8");
+        pumper.readToEnd();
+
+        assertThat(consumed, is(Collections.singletonList("line1")));
+        assertThat(pumper.getConsumerFailure().getMessage(), is("unparsable"));
+    }
+
     /**
      * Used by the test to track whether a line actually got consumed or not.
      */